@@ -13,8 +13,10 @@ import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Invoic
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.SEND_SUCCESSFUL;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.EXTERNAL;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.INTERNAL;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.decompress;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -36,6 +38,7 @@ import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.containers.output.Slf4jLogConsumer;
 import org.testcontainers.utility.MountableFile;
 import se.sundsvall.billingpreprocessor.Application;
+import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileContentRepository;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
 import se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorProperties;
@@ -74,6 +77,9 @@ class IsycaseJobsIT extends AbstractAppTest {
 	@Autowired
 	private InvoiceFileRepository repository;
 
+	@Autowired
+	private InvoiceFileContentRepository contentRepository;
+
 	@Autowired
 	private InvoiceCreatorProperties properties;
 
@@ -103,11 +109,11 @@ class IsycaseJobsIT extends AbstractAppTest {
 				assertThat(file.getStatus()).isEqualTo(GENERATED);
 			})
 			.satisfiesExactlyInAnyOrder(file -> {
-				assertThat(file.getContent()).isEqualTo(getResource("/filecontent/expected_internal_content.txt"));
+				assertThat(readContent(file)).isEqualTo(getResource("/filecontent/expected_internal_content.txt"));
 				assertThat(file.getName()).isEqualTo("IPKISYC_%s.txt".formatted(LocalDateTime.now().format(DATE_TIME_FORMATTER)));
 				assertThat(file.getType()).isEqualTo(INTERNAL.name());
 			}, file -> {
-				assertThat(file.getContent()).isEqualTo(getResource("/filecontent/expected_external_content.txt").replace("yyMMdd", LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd"))));
+				assertThat(readContent(file)).isEqualTo(getResource("/filecontent/expected_external_content.txt").replace("yyMMdd", LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd"))));
 				assertThat(file.getName()).isEqualTo("KRISYC_%s.txt".formatted(LocalDateTime.now().format(DATE_TIME_FORMATTER)));
 				assertThat(file.getType()).isEqualTo(EXTERNAL.name());
 			});
@@ -141,6 +147,12 @@ class IsycaseJobsIT extends AbstractAppTest {
 		SFTP_SERVER.stop();
 	}
 
+	private String readContent(final InvoiceFileEntity file) {
+		return contentRepository.findById(file.getId())
+			.map(content -> new String(decompress(content.getContent()), Charset.forName(file.getEncoding())))
+			.orElse(null);
+	}
+
 	private String getResource(final String filePath) throws IOException {
 		final var path = getFile(getTestDirectoryPath() + filePath).toPath();
 		return readString(path, StandardCharsets.ISO_8859_1)
@@ -12,8 +12,10 @@ import static org.springframework.util.ResourceUtils.getFile;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.GENERATED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.EXTERNAL;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.INTERNAL;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.decompress;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -24,7 +26,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.jdbc.Sql;
 import se.sundsvall.billingpreprocessor.Application;
+import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileContentRepository;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileRepository;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
 import se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorProperties;
 import se.sundsvall.dept44.test.AbstractAppTest;
 import se.sundsvall.dept44.test.annotation.wiremock.WireMockAppTestSuite;
@@ -40,6 +44,9 @@ class SalaryAndPensionJobsIT extends AbstractAppTest {
 	@Autowired
 	private InvoiceFileRepository repository;
 
+	@Autowired
+	private InvoiceFileContentRepository contentRepository;
+
 	@Autowired
 	private InvoiceCreatorProperties properties;
 
@@ -70,16 +77,22 @@ class SalaryAndPensionJobsIT extends AbstractAppTest {
 				assertThat(file.getMunicipalityId()).isEqualTo("2281");
 			})
 			.satisfiesExactlyInAnyOrder(file -> {
-				assertThat(file.getContent()).isEqualTo(getResource("/filecontent/expected_internal_content.txt"));
+				assertThat(readContent(file)).isEqualTo(getResource("/filecontent/expected_internal_content.txt"));
 				assertThat(file.getName()).isEqualTo("ipklop_%s.txt".formatted(LocalDateTime.now().format(DATE_TIME_FORMATTER)));
 				assertThat(file.getType()).isEqualTo(INTERNAL.name());
 			}, file -> {
-				assertThat(file.getContent()).isEqualTo(getResource("/filecontent/expected_external_content.txt").replace("yyMMdd", LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd"))));
+				assertThat(readContent(file)).isEqualTo(getResource("/filecontent/expected_external_content.txt").replace("yyMMdd", LocalDate.now().format(DateTimeFormatter.ofPattern("yyMMdd"))));
 				assertThat(file.getName()).isEqualTo("krlope_%s.txt".formatted(LocalDateTime.now().format(DATE_TIME_FORMATTER)));
 				assertThat(file.getType()).isEqualTo(EXTERNAL.name());
 			});
 	}
 
+	private String readContent(final InvoiceFileEntity file) {
+		return contentRepository.findById(file.getId())
+			.map(content -> new String(decompress(content.getContent()), Charset.forName(file.getEncoding())))
+			.orElse(null);
+	}
+
 	private String getResource(final String filePath) throws IOException {
 		final var path = getFile(getTestDirectoryPath() + filePath).toPath();
 		return readString(path, StandardCharsets.ISO_8859_1)
@@ -0,0 +1,180 @@
+package se.sundsvall.billingpreprocessor.service.creator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
+import se.sundsvall.billingpreprocessor.integration.db.model.AccountInformationEmbeddable;
+import se.sundsvall.billingpreprocessor.integration.db.model.AddressDetailsEmbeddable;
+import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.RecipientEntity;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.DETAILED;
+import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.STANDARD;
+import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.EXTERNAL;
+import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.INTERNAL;
+import static se.sundsvall.billingpreprocessor.service.creator.config.BenchmarkEncoders.externalInvoiceEncoder;
+import static se.sundsvall.billingpreprocessor.service.creator.config.BenchmarkEncoders.internalInvoiceEncoder;
+
+/**
+ * Benchmarks of the fixed-length output path of the invoice creators, measured on synthetic billing records with a
+ * varying number of invoice rows. One operation of {@link #createInvoiceData()} corresponds to one billing record, so
+ * that the gc.alloc.rate.norm metric reported by the GC profiler is the allocation per billing record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceCreatorBenchmark {
+
+	private static final int BILLING_RECORDS_PER_FILE = 100;
+
+	@Param({
+		"ExternalInvoiceCreator",
+		"ExternalMexInvoiceCreator",
+		"ExternalSalaryAndPensionInvoiceCreator",
+		"InternalInvoiceCreator",
+		"InternalMexInvoiceCreator",
+		"InternalSalaryAndPensionInvoiceCreator"
+	})
+	private String creatorName;
+
+	@Param({
+		"1", "10", "100"
+	})
+	private int invoiceRows;
+
+	private InvoiceCreator creator;
+	private BillingRecordEntity billingRecord;
+	private List<BillingRecordEntity> billingRecords;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		final var repository = mock(InvoiceFileConfigurationRepository.class);
+		when(repository.findAll()).thenReturn(List.of(
+			createConfiguration("ExternalInvoiceCreator", EXTERNAL.name(), "ISYCASE"),
+			createConfiguration("ExternalMexInvoiceCreator", EXTERNAL.name(), "MEX_INVOICE"),
+			createConfiguration("ExternalSalaryAndPensionInvoiceCreator", EXTERNAL.name(), "SALARY_AND_PENSION"),
+			createConfiguration("InternalInvoiceCreator", INTERNAL.name(), "ISYCASE"),
+			createConfiguration("InternalMexInvoiceCreator", INTERNAL.name(), "MEX_INVOICE"),
+			createConfiguration("InternalSalaryAndPensionInvoiceCreator", INTERNAL.name(), "SALARY_AND_PENSION")));
+
+		final var configurationService = new InvoiceFileConfigurationService(repository);
+		// The synthetic recipients have legal ids, so no lookups are made against the legal id provider
+		final var legalIdProvider = mock(LegalIdProvider.class);
+
+		creator = switch (creatorName) {
+			case "ExternalInvoiceCreator" -> new ExternalInvoiceCreator(externalInvoiceEncoder(), legalIdProvider, configurationService);
+			case "ExternalMexInvoiceCreator" -> new ExternalMexInvoiceCreator(externalInvoiceEncoder(), legalIdProvider, configurationService);
+			case "ExternalSalaryAndPensionInvoiceCreator" -> new ExternalSalaryAndPensionInvoiceCreator(externalInvoiceEncoder(), legalIdProvider, configurationService);
+			case "InternalInvoiceCreator" -> new InternalInvoiceCreator(internalInvoiceEncoder(), configurationService);
+			case "InternalMexInvoiceCreator" -> new InternalMexInvoiceCreator(internalInvoiceEncoder(), configurationService);
+			case "InternalSalaryAndPensionInvoiceCreator" -> new InternalSalaryAndPensionInvoiceCreator(internalInvoiceEncoder(), configurationService);
+			default -> throw new IllegalArgumentException("Unknown creator " + creatorName);
+		};
+
+		billingRecord = createBillingRecord(invoiceRows);
+		billingRecords = IntStream.range(0, BILLING_RECORDS_PER_FILE)
+			.mapToObj(i -> createBillingRecord(invoiceRows))
+			.toList();
+	}
+
+	@Benchmark
+	public byte[] createFileHeader() throws IOException {
+		return creator.createFileHeader();
+	}
+
+	@Benchmark
+	public byte[] createInvoiceData() throws IOException {
+		return creator.createInvoiceData(billingRecord);
+	}
+
+	@Benchmark
+	public byte[] createFileFooter() throws IOException {
+		return creator.createFileFooter(billingRecords);
+	}
+
+	private static InvoiceFileConfigurationEntity createConfiguration(String creatorName, String type, String categoryTag) {
+		return InvoiceFileConfigurationEntity.create()
+			.withCreatorName(creatorName)
+			.withType(type)
+			.withCategoryTag(categoryTag)
+			.withEncoding(ISO_8859_1.name());
+	}
+
+	private static BillingRecordEntity createBillingRecord(int numberOfInvoiceRows) {
+		final var billingRecord = BillingRecordEntity.create()
+			.withMunicipalityId("2281")
+			.withRecipient(RecipientEntity.create()
+				.withLegalId("197001011234")
+				.withFirstName("Firstname")
+				.withLastName("Lastname")
+				.withAddressDetails(AddressDetailsEmbeddable.create()
+					.withStreet("Street 1")
+					.withPostalCode("85230")
+					.withCity("Sundsvall")));
+
+		final var invoice = InvoiceEntity.create()
+			.withBillingRecord(billingRecord)
+			.withCustomerId("16")
+			.withCustomerReference("Customer reference")
+			.withOurReference("Our reference")
+			.withDescription("Invoice description")
+			.withDate(LocalDate.of(2024, 3, 6))
+			.withDueDate(LocalDate.of(2024, 3, 30))
+			.withTotalAmount(BigDecimal.valueOf(1234.5).multiply(BigDecimal.valueOf(numberOfInvoiceRows)));
+
+		return billingRecord.withInvoice(invoice.withInvoiceRows(IntStream.range(0, numberOfInvoiceRows)
+			.mapToObj(i -> createInvoiceRow(i, invoice))
+			.toList()));
+	}
+
+	private static InvoiceRowEntity createInvoiceRow(int id, InvoiceEntity invoice) {
+		final var invoiceRow = InvoiceRowEntity.create()
+			.withId(id)
+			.withInvoice(invoice)
+			.withVatCode("25")
+			.withCostPerUnit(BigDecimal.valueOf(411.5))
+			.withQuantity(BigDecimal.valueOf(3))
+			.withTotalAmount(BigDecimal.valueOf(1234.5))
+			.withAccountInformation(List.of(AccountInformationEmbeddable.create()
+				.withCostCenter("15800100")
+				.withSubaccount("936300")
+				.withDepartment("920360")
+				.withActivity("5756")
+				.withProject("11041")
+				.withArticle("Article")
+				.withCounterpart("86000000")
+				.withAccuralKey("5647")
+				.withAmount(BigDecimal.valueOf(1234.5))));
+
+		return invoiceRow.withDescriptions(List.of(
+			DescriptionEntity.create().withInvoiceRow(invoiceRow).withType(STANDARD).withText("Standard description " + id),
+			DescriptionEntity.create().withInvoiceRow(invoiceRow).withType(DETAILED).withText("Detailed description " + id)));
+	}
+}
@@ -0,0 +1,21 @@
+package se.sundsvall.billingpreprocessor.service.creator.config;
+
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+
+/**
+ * Record encoders for benchmarks, defined exactly as the application defines them but without a Spring context.
+ */
+public final class BenchmarkEncoders {
+
+	private static final InvoiceCreatorProperties PROPERTIES = new InvoiceCreatorProperties("\\n", 500, 1);
+
+	private BenchmarkEncoders() {}
+
+	public static FixedLengthRecordEncoder internalInvoiceEncoder() {
+		return new InvoiceCreatorConfig().internalInvoiceEncoder(PROPERTIES);
+	}
+
+	public static FixedLengthRecordEncoder externalInvoiceEncoder() {
+		return new InvoiceCreatorConfig().externalInvoiceEncoder(PROPERTIES);
+	}
+}
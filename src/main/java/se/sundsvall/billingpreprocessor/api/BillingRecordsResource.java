@@ -9,8 +9,13 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Nullable;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
 import java.util.List;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
@@ -25,20 +30,32 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApproval;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApprovalResult;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordStreamResult;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordWindow;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.service.AsyncExecutorService;
+import se.sundsvall.billingpreprocessor.service.BatchJobService;
 import se.sundsvall.billingpreprocessor.service.BillingRecordService;
+import se.sundsvall.billingpreprocessor.service.BillingRecordStreamService;
 import se.sundsvall.dept44.common.validators.annotation.ValidMunicipalityId;
 import se.sundsvall.dept44.common.validators.annotation.ValidUuid;
 import se.sundsvall.dept44.problem.Problem;
 import se.sundsvall.dept44.problem.violations.ConstraintViolationProblem;
+import se.sundsvall.dept44.requestid.RequestId;
 
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.HttpHeaders.LOCATION;
+import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.http.MediaType.ALL_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_PROBLEM_JSON_VALUE;
+import static org.springframework.http.ResponseEntity.accepted;
 import static org.springframework.http.ResponseEntity.created;
 import static org.springframework.http.ResponseEntity.noContent;
 import static org.springframework.http.ResponseEntity.ok;
@@ -51,9 +68,15 @@ import static org.springframework.web.util.UriComponentsBuilder.fromPath;
 class BillingRecordsResource {
 
 	private final BillingRecordService service;
+	private final BillingRecordStreamService streamService;
+	private final BatchJobService batchJobService;
+	private final AsyncExecutorService asyncExecutorService;
 
-	BillingRecordsResource(BillingRecordService service) {
+	BillingRecordsResource(BillingRecordService service, BillingRecordStreamService streamService, BatchJobService batchJobService, AsyncExecutorService asyncExecutorService) {
 		this.service = service;
+		this.streamService = streamService;
+		this.batchJobService = batchJobService;
+		this.asyncExecutorService = asyncExecutorService;
 	}
 
 	@PostMapping(consumes = APPLICATION_JSON_VALUE)
@@ -92,6 +115,70 @@ class BillingRecordsResource {
 			.body(uuidList);
 	}
 
+	@PostMapping(path = "/batch/async", consumes = APPLICATION_JSON_VALUE)
+	@Operation(summary = "Create billing records asynchronously",
+		description = "Registers a job that creates new billing records defined by the supplied attributes in the background. Progress of the job is read from the resource given in the location header. Jobs are kept in memory of the instance that registered them, so progress can only be read through that instance and is lost on restart.",
+		responses = {
+			@ApiResponse(responseCode = "202", headers = @Header(name = LOCATION, schema = @Schema(type = "string")), description = "Successful operation", useReturnTypeSchema = true),
+			@ApiResponse(responseCode = "400", description = "Bad request", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(oneOf = {
+				Problem.class, ConstraintViolationProblem.class
+			}))),
+			@ApiResponse(responseCode = "500", description = "Internal Server error", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class)))
+		})
+	ResponseEntity<Void> createBillingRecordsAsync(
+		@Parameter(name = "municipalityId", description = "Municipality ID", example = "2281") @PathVariable @ValidMunicipalityId String municipalityId,
+		@Valid @NotNull @RequestBody final List<BillingRecord> billingRecords) {
+		final var jobId = batchJobService.registerJob(municipalityId, billingRecords.size());
+		try {
+			asyncExecutorService.createBillingRecords(RequestId.get(), jobId, billingRecords);
+		} catch (final RuntimeException e) {
+			// The job will never be processed (e.g. when the async executor rejects it) and can not be read by the client
+			batchJobService.removeJob(jobId);
+			throw e;
+		}
+
+		return accepted()
+			.location(fromPath("/{municipalityId}/jobs/{id}").buildAndExpand(municipalityId, jobId).toUri())
+			.header(CONTENT_TYPE, ALL_VALUE)
+			.build();
+	}
+
+	@PostMapping(path = "/batch/stream", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Create billing records from stream",
+		description = "Creates new billing records from newline delimited JSON (one billing record per line). Lines are validated and persisted in chunks and the result for each line is streamed back as newline delimited JSON.",
+		requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(mediaType = APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = BillingRecord.class))),
+		responses = {
+			@ApiResponse(responseCode = "200", description = "Successful operation", content = @Content(mediaType = APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = BillingRecordStreamResult.class))),
+			@ApiResponse(responseCode = "400", description = "Bad request", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(oneOf = {
+				Problem.class, ConstraintViolationProblem.class
+			}))),
+			@ApiResponse(responseCode = "500", description = "Internal Server error", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class)))
+		})
+	void createBillingRecordsFromStream(
+		@Parameter(name = "municipalityId", description = "Municipality ID", example = "2281") @PathVariable @ValidMunicipalityId String municipalityId,
+		final HttpServletRequest request,
+		final HttpServletResponse response) throws IOException {
+
+		response.setStatus(OK.value());
+		response.setContentType(APPLICATION_NDJSON_VALUE);
+		streamService.createBillingRecords(request.getInputStream(), response.getOutputStream(), municipalityId);
+	}
+
+	@PostMapping(path = "/approval", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
+	@Operation(summary = "Approve billing records", description = "Approves billing records with status NEW, selected either by ids or by filter, and returns the outcome for each selected billing record", responses = {
+		@ApiResponse(responseCode = "200", description = "Successful operation", useReturnTypeSchema = true),
+		@ApiResponse(responseCode = "400", description = "Bad request", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(oneOf = {
+			Problem.class, ConstraintViolationProblem.class
+		}))),
+		@ApiResponse(responseCode = "500", description = "Internal Server error", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class)))
+	})
+	ResponseEntity<List<BillingRecordApprovalResult>> approveBillingRecords(
+		@Parameter(name = "municipalityId", description = "Municipality ID", example = "2281") @PathVariable @ValidMunicipalityId String municipalityId,
+		@Valid @NotNull @RequestBody final BillingRecordApproval approval) {
+
+		return ok(service.approveBillingRecords(approval, municipalityId));
+	}
+
 	@GetMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
 	@Operation(summary = "Read billing record", description = "Fetches the billing record that matches the provided id", responses = {
 		@ApiResponse(responseCode = "200", description = "Successful Operation", useReturnTypeSchema = true),
@@ -126,6 +213,25 @@ class BillingRecordsResource {
 		return ok(service.findBillingRecords(filter, pageable, municipalityId));
 	}
 
+	@GetMapping(path = "/scroll", produces = APPLICATION_JSON_VALUE)
+	@Operation(summary = "Scroll through matching billing records", description = "Query for billing records with or without filters, ordered by created timestamp and id. In contrast to paged reading, the following window is fetched by the cursor returned with the previous window and no total number of matches is calculated, making each window equally cheap to fetch regardless of how far into the result it is positioned.", responses = {
+		@ApiResponse(responseCode = "200", description = "Successful Operation", useReturnTypeSchema = true),
+		@ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(oneOf = {
+			Problem.class, ConstraintViolationProblem.class
+		}))),
+		@ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class)))
+	})
+	ResponseEntity<BillingRecordWindow> scrollBillingRecords(
+		@Parameter(name = "municipalityId", description = "Municipality ID", example = "2281") @PathVariable @ValidMunicipalityId String municipalityId,
+		@Parameter(description = "Syntax description: [spring-filter](https://github.com/turkraft/spring-filter/blob/85730f950a5f8623159cc0eb4d737555f9382bb7/README.md#syntax)",
+			example = "category : 'ACCESS_CARD' and status : 'NEW'",
+			schema = @Schema(implementation = String.class)) @Nullable @Filter final Specification<BillingRecordEntity> filter,
+		@Parameter(name = "size", description = "Maximum number of billing records in the window", example = "100") @RequestParam(defaultValue = "20") @Min(1) @Max(1000) final int size,
+		@Parameter(name = "cursor", description = "Cursor returned with the previous window, omitted when fetching the first window") @RequestParam(required = false) final String cursor) {
+
+		return ok(service.findBillingRecords(filter, size, cursor, municipalityId));
+	}
+
 	@PutMapping(path = "/{id}", consumes = APPLICATION_JSON_VALUE, produces = APPLICATION_JSON_VALUE)
 	@Operation(summary = "Update billing record", description = "Updates the billing record matching provided id with the supplied attributes", responses = {
 		@ApiResponse(responseCode = "200", description = "Successful operation", useReturnTypeSchema = true),
@@ -8,19 +8,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import se.sundsvall.billingpreprocessor.api.model.BatchJob;
 import se.sundsvall.billingpreprocessor.service.AsyncExecutorService;
+import se.sundsvall.billingpreprocessor.service.BatchJobService;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 import se.sundsvall.dept44.common.validators.annotation.ValidMunicipalityId;
+import se.sundsvall.dept44.common.validators.annotation.ValidUuid;
 import se.sundsvall.dept44.problem.Problem;
 import se.sundsvall.dept44.requestid.RequestId;
 
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.MediaType.ALL_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_PROBLEM_JSON_VALUE;
 import static org.springframework.http.ResponseEntity.accepted;
+import static org.springframework.http.ResponseEntity.noContent;
+import static org.springframework.http.ResponseEntity.ok;
 
 @RestController
 @Validated
@@ -29,9 +37,13 @@ import static org.springframework.http.ResponseEntity.accepted;
 class JobsResource {
 
 	private final AsyncExecutorService service;
+	private final InvoiceFileConfigurationService invoiceFileConfigurationService;
+	private final BatchJobService batchJobService;
 
-	JobsResource(AsyncExecutorService service) {
+	JobsResource(AsyncExecutorService service, InvoiceFileConfigurationService invoiceFileConfigurationService, BatchJobService batchJobService) {
 		this.service = service;
+		this.invoiceFileConfigurationService = invoiceFileConfigurationService;
+		this.batchJobService = batchJobService;
 	}
 
 	@PostMapping(path = "/filecreator")
@@ -61,4 +73,31 @@ class JobsResource {
 			.header(CONTENT_TYPE, ALL_VALUE)
 			.build();
 	}
+
+	@PostMapping(path = "/configurationrefresher")
+	@Operation(summary = "Reloads the cached invoice file configurations from the database", responses = {
+		@ApiResponse(responseCode = "204", description = "Successful Operation", useReturnTypeSchema = true),
+		@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class))),
+		@ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class)))
+	})
+	ResponseEntity<Void> refreshConfigurations(@Parameter(name = "municipalityId", description = "Municipality ID", example = "2281") @PathVariable @ValidMunicipalityId String municipalityId) {
+
+		invoiceFileConfigurationService.refresh();
+		return noContent()
+			.header(CONTENT_TYPE, ALL_VALUE)
+			.build();
+	}
+
+	@GetMapping(path = "/{id}", produces = APPLICATION_JSON_VALUE)
+	@Operation(summary = "Reads progress of a batch job creating billing records", responses = {
+		@ApiResponse(responseCode = "200", description = "Successful Operation", useReturnTypeSchema = true),
+		@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class))),
+		@ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content(mediaType = APPLICATION_PROBLEM_JSON_VALUE, schema = @Schema(implementation = Problem.class)))
+	})
+	ResponseEntity<BatchJob> readJob(
+		@Parameter(name = "municipalityId", description = "Municipality ID", example = "2281") @PathVariable @ValidMunicipalityId String municipalityId,
+		@Parameter(name = "id", description = "Job id", example = "b82bd8ac-1507-4d9a-958d-369261eecc15") @ValidUuid @PathVariable final String id) {
+
+		return ok(batchJobService.readJob(id, municipalityId));
+	}
 }
@@ -0,0 +1,19 @@
+package se.sundsvall.billingpreprocessor.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.OffsetDateTime;
+import java.util.List;
+import se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus;
+
+@Schema(description = "Batch job model")
+public record BatchJob(
+	String id,
+	String municipalityId,
+	BatchJobStatus status,
+	int total,
+	int processed,
+	List<String> createdIds,
+	List<BatchJobFailure> failures,
+	OffsetDateTime createdAt,
+	OffsetDateTime finishedAt) {
+}
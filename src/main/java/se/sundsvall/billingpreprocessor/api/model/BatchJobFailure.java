@@ -0,0 +1,9 @@
+package se.sundsvall.billingpreprocessor.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Batch job failure model")
+public record BatchJobFailure(
+	int index,
+	String problem) {
+}
@@ -0,0 +1,15 @@
+package se.sundsvall.billingpreprocessor.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import java.util.List;
+import se.sundsvall.dept44.common.validators.annotation.ValidUuid;
+
+import static io.swagger.v3.oas.annotations.media.Schema.RequiredMode.REQUIRED;
+
+@Schema(description = "Billing record approval model, selecting billing records with status NEW to approve either by ids or by filter")
+public record BillingRecordApproval(
+	@Schema(description = "Ids of the billing records to approve (mutually exclusive with filter)", examples = "71258e7d-5285-46ce-b9b2-877f8cad8edd") List<@ValidUuid String> ids,
+	@Schema(description = "Filter selecting the billing records to approve (mutually exclusive with ids), using the same syntax as when reading billing records", examples = "category : 'ACCESS_CARD'") String filter,
+	@Schema(description = "Information regarding the person that approves the billing records", examples = "Big Bird", requiredMode = REQUIRED) @NotBlank String approvedBy) {
+}
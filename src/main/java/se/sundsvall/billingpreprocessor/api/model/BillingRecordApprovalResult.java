@@ -0,0 +1,10 @@
+package se.sundsvall.billingpreprocessor.api.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import se.sundsvall.billingpreprocessor.api.model.enums.ApprovalOutcome;
+
+@Schema(description = "Billing record approval result model")
+public record BillingRecordApprovalResult(
+	String id,
+	ApprovalOutcome outcome) {
+}
@@ -0,0 +1,14 @@
+package se.sundsvall.billingpreprocessor.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+@Schema(description = "Result for one line of a streamed billing record batch, holding either the id of the created billing record or the reason for why it was not created")
+@JsonInclude(NON_NULL)
+public record BillingRecordStreamResult(
+	int line,
+	String id,
+	String problem) {
+}
@@ -0,0 +1,14 @@
+package se.sundsvall.billingpreprocessor.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+@Schema(description = "Window of billing records, ordered by created timestamp and id, together with the cursor to use when fetching the following window")
+@JsonInclude(NON_NULL)
+public record BillingRecordWindow(
+	@Schema(description = "Billing records in the window") List<BillingRecord> content,
+	@Schema(description = "Cursor to send in to fetch the following window, absent when there are no more billing records", examples = "MjAyMi0wNi0yMFQwOToxNzozNi43OTVafDcxMjU4ZTdkLTUyODUtNDZjZS1iOWIyLTg3N2Y4Y2FkOGVkZA") String nextCursor) {
+}
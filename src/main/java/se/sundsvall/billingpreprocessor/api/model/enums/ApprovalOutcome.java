@@ -0,0 +1,10 @@
+package se.sundsvall.billingpreprocessor.api.model.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Approval outcome model", enumAsRef = true, examples = "APPROVED")
+public enum ApprovalOutcome {
+	APPROVED,
+	NOT_FOUND,
+	INVALID_STATUS;
+}
@@ -0,0 +1,11 @@
+package se.sundsvall.billingpreprocessor.api.model.enums;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Batch job status model", enumAsRef = true, examples = "RUNNING")
+public enum BatchJobStatus {
+	PENDING,
+	RUNNING,
+	COMPLETED,
+	FAILED;
+}
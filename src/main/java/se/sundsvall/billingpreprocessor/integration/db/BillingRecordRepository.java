@@ -2,22 +2,147 @@ package se.sundsvall.billingpreprocessor.integration.db;
 
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity_;
+import se.sundsvall.billingpreprocessor.integration.db.model.IdAndStatus;
+import se.sundsvall.billingpreprocessor.integration.db.model.TypeAndCategory;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
+import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
+
+import static jakarta.persistence.LockModeType.PESSIMISTIC_WRITE;
+import static java.util.Objects.isNull;
 
 @Transactional
 @CircuitBreaker(name = "BillingRecordRepository")
 public interface BillingRecordRepository extends JpaRepository<BillingRecordEntity, String>, JpaSpecificationExecutor<BillingRecordEntity> {
 
-	List<BillingRecordEntity> findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(Status status, String municipalityId, LocalDate transferDate);
+	List<BillingRecordEntity> findAllByStatusAndMunicipalityIdAndTypeAndCategoryAndTransferDateLessThanEqual(Status status, String municipalityId, Type type, String category, LocalDate transferDate);
+
+	@Query("""
+		    SELECT DISTINCT new se.sundsvall.billingpreprocessor.integration.db.model.TypeAndCategory(e.type, e.category)
+		    FROM BillingRecordEntity e
+		    WHERE e.status = :status
+		      AND e.municipalityId = :municipalityId
+		      AND e.transferDate <= :transferDate
+		""")
+	List<TypeAndCategory> findDistinctTypeAndCategory(@Param("status") Status status, @Param("municipalityId") String municipalityId, @Param("transferDate") LocalDate transferDate);
+
+	/**
+	 * Fetches recipient and invoice in the same statement as the page, while the collections of the page are loaded in
+	 * batches (see @BatchSize on the collections) to keep the number of statements per page fixed.
+	 */
+	@EntityGraph(attributePaths = {
+		"recipient", "invoice"
+	})
+	@Query("""
+		    SELECT e FROM BillingRecordEntity e
+		    WHERE e.status = :status
+		      AND e.municipalityId = :municipalityId
+		      AND e.type = :type
+		      AND e.category = :category
+		      AND e.transferDate <= :transferDate
+		      AND e.id > :lastId
+		    ORDER BY e.id
+		""")
+	List<BillingRecordEntity> findPageAfterId(@Param("status") Status status, @Param("municipalityId") String municipalityId, @Param("type") Type type, @Param("category") String category,
+		@Param("transferDate") LocalDate transferDate, @Param("lastId") String lastId, Limit limit);
+
+	/**
+	 * Fetches billing records matching the filter that are positioned after the sent in created timestamp and id (or from
+	 * the start if no position is sent in), ordered by created and id. The page is found by seeking in the index on
+	 * municipality, created and id instead of by offset, and no count query is made, meaning that each page costs the same
+	 * regardless of how far into the result it is positioned.
+	 *
+	 * @param  filter  the filter that the billing records must match
+	 * @param  created the created timestamp of the last billing record on the previous page, or null for the first page
+	 * @param  id      the id of the last billing record on the previous page, or null for the first page
+	 * @param  limit   the maximum number of billing records to fetch
+	 * @return         list of billing records positioned after the sent in position
+	 */
+	default List<BillingRecordEntity> findPageAfter(Specification<BillingRecordEntity> filter, OffsetDateTime created, String id, int limit) {
+		final Specification<BillingRecordEntity> position = (root, _, cb) -> isNull(created) ? cb.conjunction()
+			: cb.or(
+				cb.greaterThan(root.get(BillingRecordEntity_.created), created),
+				cb.and(cb.equal(root.get(BillingRecordEntity_.created), created), cb.greaterThan(root.get(BillingRecordEntity_.id), id)));
+
+		return findBy(filter.and(position), query -> query
+			.sortBy(Sort.by(BillingRecordEntity_.CREATED, BillingRecordEntity_.ID))
+			.limit(limit)
+			.all());
+	}
+
+	@Modifying
+	@Query("""
+		    UPDATE BillingRecordEntity e
+		    SET e.status = :status, e.modified = :modified
+		    WHERE e.id IN :ids
+		""")
+	int updateStatusByIdIn(@Param("status") Status status, @Param("modified") OffsetDateTime modified, @Param("ids") Collection<String> ids);
+
+	/**
+	 * Fetches id and status of the billing records and locks the billing record rows for the rest of the transaction. Used
+	 * when billing records are about to be approved, so that the status of the billing records read as NEW can not change
+	 * before they are approved by {@link #approveByIdIn(String, OffsetDateTime, Collection, String)}.
+	 */
+	@Lock(PESSIMISTIC_WRITE)
+	@Query("""
+		    SELECT new se.sundsvall.billingpreprocessor.integration.db.model.IdAndStatus(e.id, e.status)
+		    FROM BillingRecordEntity e
+		    WHERE e.id IN :ids
+		      AND e.municipalityId = :municipalityId
+		""")
+	List<IdAndStatus> findForUpdateIdAndStatusByIdInAndMunicipalityId(@Param("ids") Collection<String> ids, @Param("municipalityId") String municipalityId);
 
-	boolean existsByIdAndMunicipalityId(String id, String municipalityId);
+	/**
+	 * Moves billing records with status NEW to status APPROVED. Approver and approval timestamp are only set if the
+	 * billing record has not been approved before, in the same way as when a billing record is approved by update.
+	 */
+	@Modifying
+	@Query("""
+		    UPDATE BillingRecordEntity e
+		    SET e.status = se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.APPROVED,
+		        e.approvedBy = CASE WHEN e.approved IS NULL THEN :approvedBy ELSE e.approvedBy END,
+		        e.approved = COALESCE(e.approved, :approved),
+		        e.modified = :approved
+		    WHERE e.id IN :ids
+		      AND e.municipalityId = :municipalityId
+		      AND e.status = se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.NEW
+		""")
+	int approveByIdIn(@Param("approvedBy") String approvedBy, @Param("approved") OffsetDateTime approved, @Param("ids") Collection<String> ids, @Param("municipalityId") String municipalityId);
 
-	BillingRecordEntity getReferenceByIdAndMunicipalityId(String id, String municipalityId);
+	/**
+	 * Fetches the billing record together with recipient, invoice and invoice rows in one statement, while the remaining
+	 * collections are loaded in batches (see @BatchSize on the collections) to keep the number of statements fixed
+	 * regardless of the number of invoice rows.
+	 */
+	@EntityGraph(attributePaths = {
+		"recipient", "invoice", "invoice.invoiceRows"
+	})
+	Optional<BillingRecordEntity> findByIdAndMunicipalityId(String id, String municipalityId);
 
-	void deleteByIdAndMunicipalityId(String id, String municipalityId);
+	/**
+	 * Fetches the billing record in the same way as {@link #findByIdAndMunicipalityId(String, String)}, but also locks the
+	 * billing record row for the rest of the transaction. Used when the billing record is about to be removed, so that the
+	 * status can not change between the time it is verified and the time the billing record is removed.
+	 */
+	@Lock(PESSIMISTIC_WRITE)
+	@EntityGraph(attributePaths = {
+		"recipient", "invoice", "invoice.invoiceRows"
+	})
+	Optional<BillingRecordEntity> findForUpdateByIdAndMunicipalityId(String id, String municipalityId);
 }
@@ -0,0 +1,11 @@
+package se.sundsvall.billingpreprocessor.integration.db;
+
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileContentEntity;
+
+@Transactional
+@CircuitBreaker(name = "InvoiceFileContentRepository")
+public interface InvoiceFileContentRepository extends JpaRepository<InvoiceFileContentEntity, Long> {
+}
@@ -9,22 +9,28 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileSummary;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus;
 
 @Transactional
 @CircuitBreaker(name = "InvoiceFileRepository")
 public interface InvoiceFileRepository extends JpaRepository<InvoiceFileEntity, Long>, JpaSpecificationExecutor<InvoiceFileEntity> {
 
-	List<InvoiceFileEntity> findByStatusAndMunicipalityId(InvoiceFileStatus status, String municipalityId);
-
-	List<InvoiceFileEntity> findByStatusInAndMunicipalityId(List<InvoiceFileStatus> statuses, String municipalityId);
+	@Query("""
+		    SELECT e.id FROM InvoiceFileEntity e
+		    WHERE e.status IN :statuses
+		      AND e.municipalityId = :municipalityId
+		    ORDER BY e.id
+		""")
+	List<Long> findIdsByStatusInAndMunicipalityId(@Param("statuses") List<InvoiceFileStatus> statuses, @Param("municipalityId") String municipalityId);
 
 	@Query("""
-		    SELECT e FROM InvoiceFileEntity e
-		    WHERE e.created >= :start
+		    SELECT new se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileSummary(e.id, e.name, e.type, e.status, e.municipalityId, e.created, e.sent)
+		    FROM InvoiceFileEntity e
+		    WHERE e.municipalityId = :municipalityId
+		      AND e.created >= :start
 		      AND e.created < :end
-		      AND e.municipalityId = :municipalityId
 		""")
-	List<InvoiceFileEntity> findAllCreatedInMonth(@Param("municipalityId") String municipalityId, @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+	List<InvoiceFileSummary> findAllCreatedInMonth(@Param("municipalityId") String municipalityId, @Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
 
 }
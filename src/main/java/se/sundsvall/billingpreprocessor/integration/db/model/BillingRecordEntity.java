@@ -21,6 +21,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.Map;
 import java.util.Objects;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.TimeZoneStorage;
 import org.hibernate.annotations.UuidGenerator;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
@@ -37,7 +38,7 @@ import static org.hibernate.annotations.TimeZoneStorageType.NORMALIZE;
 @Table(name = "billing_record",
 	indexes = {
 		@Index(name = "idx_billing_record_category_status", columnList = "category, status"),
-		@Index(name = "idx_billing_record_municipality_id", columnList = "municipalityId"),
+		@Index(name = "idx_billing_record_municipality_id_created_id", columnList = "municipalityId, created, id"),
 		@Index(name = "idx_billing_record_status_municipalityId_transfer_date", columnList = "status, municipalityId,transferDate")
 	})
 public class BillingRecordEntity implements Serializable {
@@ -85,6 +86,7 @@ public class BillingRecordEntity implements Serializable {
 
 	// Notice the "backticks" to avoid reserved word conflicts.
 	@ElementCollection(fetch = EAGER)
+	@BatchSize(size = 100)
 	@CollectionTable(
 		indexes = {
 			@Index(name = "idx_extra_parameter_key", columnList = "`key`")
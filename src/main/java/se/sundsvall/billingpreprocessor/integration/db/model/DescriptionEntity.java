@@ -11,6 +11,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.io.Serializable;
 import java.util.Objects;
@@ -22,7 +23,8 @@ public class DescriptionEntity implements Serializable {
 	private static final long serialVersionUID = -6749290077380338561L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "description_seq")
+	@SequenceGenerator(name = "description_seq", sequenceName = "description_seq", initialValue = 1000, allocationSize = 50)
 	@Column(name = "id")
 	private long id;
 
@@ -0,0 +1,6 @@
+package se.sundsvall.billingpreprocessor.integration.db.model;
+
+import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
+
+public record IdAndStatus(String id, Status status) {
+}
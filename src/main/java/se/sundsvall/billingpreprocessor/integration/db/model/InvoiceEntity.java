@@ -15,6 +15,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import org.hibernate.annotations.BatchSize;
 
 import static jakarta.persistence.CascadeType.ALL;
 import static jakarta.persistence.FetchType.LAZY;
@@ -56,6 +57,7 @@ public class InvoiceEntity implements Serializable {
 	private BigDecimal totalAmount;
 
 	@OneToMany(fetch = LAZY, mappedBy = "invoice", cascade = ALL, orphanRemoval = true)
+	@BatchSize(size = 100)
 	private List<InvoiceRowEntity> invoiceRows;
 
 	public static InvoiceEntity create() {
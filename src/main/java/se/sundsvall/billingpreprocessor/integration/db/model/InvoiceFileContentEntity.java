@@ -0,0 +1,112 @@
+package se.sundsvall.billingpreprocessor.integration.db.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import org.hibernate.Length;
+
+import static jakarta.persistence.FetchType.LAZY;
+
+/**
+ * Compressed content of an invoice file. The content is kept in a table of its own, so that it only is read from the
+ * database when it is explicitly requested (i.e. when the file is transferred) and not whenever an invoice file is
+ * loaded.
+ */
+@Entity
+@Table(name = "invoice_file_content")
+public class InvoiceFileContentEntity implements Serializable {
+
+	private static final long serialVersionUID = -3154219489214417302L;
+
+	@Id
+	@Column(name = "id")
+	private Long id;
+
+	@OneToOne(fetch = LAZY)
+	@MapsId
+	@JoinColumn(name = "id", foreignKey = @ForeignKey(name = "fk_invoice_file_id_invoice_file_content"))
+	private InvoiceFileEntity invoiceFile;
+
+	@Column(name = "content", length = Length.LONG32)
+	private byte[] content;
+
+	public static InvoiceFileContentEntity create() {
+		return new InvoiceFileContentEntity();
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public InvoiceFileContentEntity withId(Long id) {
+		this.id = id;
+		return this;
+	}
+
+	public InvoiceFileEntity getInvoiceFile() {
+		return invoiceFile;
+	}
+
+	public void setInvoiceFile(InvoiceFileEntity invoiceFile) {
+		this.invoiceFile = invoiceFile;
+	}
+
+	public InvoiceFileContentEntity withInvoiceFile(InvoiceFileEntity invoiceFile) {
+		this.invoiceFile = invoiceFile;
+		return this;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public void setContent(byte[] content) {
+		this.content = content;
+	}
+
+	public InvoiceFileContentEntity withContent(byte[] content) {
+		this.content = content;
+		return this;
+	}
+
+	@Override
+	public int hashCode() {
+		final var result = Objects.hash(id, invoiceFile);
+		return 31 * result + Arrays.hashCode(content);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof InvoiceFileContentEntity)) {
+			return false;
+		}
+		InvoiceFileContentEntity other = (InvoiceFileContentEntity) obj;
+		return Objects.equals(id, other.id) && Objects.equals(invoiceFile, other.invoiceFile) && Arrays.equals(content, other.content);
+	}
+
+	@Override
+	public String toString() {
+		final var invoiceFileId = invoiceFile == null ? null : invoiceFile.getId();
+		final var contentLength = content == null ? null : content.length;
+		StringBuilder builder = new StringBuilder();
+		builder.append("InvoiceFileContentEntity [id=").append(id)
+			.append(", invoiceFile=").append(invoiceFileId)
+			.append(", contentLength=").append(contentLength).append("]");
+		return builder.toString();
+	}
+}
@@ -13,7 +13,6 @@ import jakarta.persistence.UniqueConstraint;
 import java.io.Serializable;
 import java.time.OffsetDateTime;
 import java.util.Objects;
-import org.hibernate.Length;
 import org.hibernate.annotations.TimeZoneStorage;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus;
 
@@ -28,7 +27,7 @@ import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Invoic
 @Table(name = "invoice_file",
 	indexes = {
 		@Index(name = "idx_invoice_file_status", columnList = "status"),
-		@Index(name = "idx_invoice_file_municipality_id", columnList = "municipalityId")
+		@Index(name = "idx_invoice_file_municipality_id_created", columnList = "municipalityId, created")
 	},
 	uniqueConstraints = @UniqueConstraint(name = "uq_file_name", columnNames = {
 		"name"
@@ -48,9 +47,6 @@ public class InvoiceFileEntity implements Serializable {
 	@Column(name = "name")
 	private String name;
 
-	@Column(name = "content", length = Length.LONG32)
-	private String content;
-
 	@Column(name = "encoding", nullable = false)
 	private String encoding;
 
@@ -112,19 +108,6 @@ public class InvoiceFileEntity implements Serializable {
 		return this;
 	}
 
-	public String getContent() {
-		return content;
-	}
-
-	public void setContent(String content) {
-		this.content = content;
-	}
-
-	public InvoiceFileEntity withContent(String content) {
-		this.content = content;
-		return this;
-	}
-
 	public String getEncoding() {
 		return encoding;
 	}
@@ -198,7 +181,7 @@ public class InvoiceFileEntity implements Serializable {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(municipalityId, content, created, encoding, id, name, sent, status, type);
+		return Objects.hash(municipalityId, created, encoding, id, name, sent, status, type);
 	}
 
 	@Override
@@ -210,7 +193,7 @@ public class InvoiceFileEntity implements Serializable {
 			return false;
 		}
 		InvoiceFileEntity other = (InvoiceFileEntity) obj;
-		return Objects.equals(municipalityId, other.municipalityId) && Objects.equals(content, other.content) && Objects.equals(created, other.created) && Objects.equals(encoding, other.encoding) && id == other.id && Objects.equals(name, other.name)
+		return Objects.equals(municipalityId, other.municipalityId) && Objects.equals(created, other.created) && Objects.equals(encoding, other.encoding) && id == other.id && Objects.equals(name, other.name)
 			&& Objects.equals(sent, other.sent)
 			&& status == other.status && Objects.equals(type, other.type);
 	}
@@ -218,7 +201,7 @@ public class InvoiceFileEntity implements Serializable {
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
-		builder.append("InvoiceFileEntity [id=").append(id).append(", municipalityId=").append(municipalityId).append(", name=").append(name).append(", content=").append(content).append(", encoding=").append(encoding).append(", status=").append(status)
+		builder.append("InvoiceFileEntity [id=").append(id).append(", municipalityId=").append(municipalityId).append(", name=").append(name).append(", encoding=").append(encoding).append(", status=").append(status)
 			.append(", type=").append(type).append(
 				", created=").append(created).append(", sent=").append(sent).append("]");
 		return builder.toString();
@@ -0,0 +1,7 @@
+package se.sundsvall.billingpreprocessor.integration.db.model;
+
+import java.time.OffsetDateTime;
+import se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus;
+
+public record InvoiceFileSummary(long id, String name, String type, InvoiceFileStatus status, String municipalityId, OffsetDateTime created, OffsetDateTime sent) {
+}
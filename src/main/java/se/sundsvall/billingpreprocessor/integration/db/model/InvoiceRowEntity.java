@@ -14,12 +14,14 @@ import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import org.hibernate.annotations.BatchSize;
 
 import static jakarta.persistence.FetchType.EAGER;
 import static java.util.Optional.ofNullable;
@@ -30,7 +32,8 @@ public class InvoiceRowEntity implements Serializable {
 	private static final long serialVersionUID = 5194419145209880931L;
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_row_seq")
+	@SequenceGenerator(name = "invoice_row_seq", sequenceName = "invoice_row_seq", initialValue = 1000, allocationSize = 50)
 	@Column(name = "id")
 	private long id;
 
@@ -39,6 +42,7 @@ public class InvoiceRowEntity implements Serializable {
 	private InvoiceEntity invoice;
 
 	@OneToMany(fetch = FetchType.EAGER, mappedBy = "invoiceRow", cascade = CascadeType.ALL, orphanRemoval = true)
+	@BatchSize(size = 100)
 	private List<DescriptionEntity> descriptions;
 
 	@Column(name = "total_amount")
@@ -54,6 +58,7 @@ public class InvoiceRowEntity implements Serializable {
 	private BigDecimal quantity;
 
 	@ElementCollection(fetch = EAGER)
+	@BatchSize(size = 100)
 	@CollectionTable(
 		indexes = {
 			@Index(name = "idx_invoice_row_id", columnList = "invoice_row_id")
@@ -0,0 +1,6 @@
+package se.sundsvall.billingpreprocessor.integration.db.model;
+
+import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
+
+public record TypeAndCategory(Type type, String category) {
+}
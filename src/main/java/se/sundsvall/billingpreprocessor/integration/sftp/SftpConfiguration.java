@@ -29,7 +29,8 @@ public class SftpConfiguration {
 		Map<Object, SessionFactory<SftpClient.DirEntry>> factories = new LinkedHashMap<>();
 		for (Map.Entry<String, SftpProperties> properties : config.getMap().entrySet()) {
 			DefaultSftpSessionFactory factory = getSftpSessionFactory(properties);
-			factories.put(properties.getKey(), new CachingSessionFactory<>(factory));
+			// Cache as many sessions as the number of files that are allowed to be transferred concurrently for the municipality
+			factories.put(properties.getKey(), new CachingSessionFactory<>(factory, Math.max(1, properties.getValue().getTransferParallelism())));
 		}
 		// Set first factory as default
 		return new DelegatingSessionFactory<>(factories, factories.values().iterator().next());
@@ -1,5 +1,6 @@
 package se.sundsvall.billingpreprocessor.integration.sftp;
 
+import java.time.Duration;
 import java.util.Objects;
 
 public final class SftpProperties {
@@ -10,6 +11,11 @@ public final class SftpProperties {
 	private String remoteDir;
 	private boolean allowUnknownKeys;
 	private String knownHosts;
+	private int transferParallelism = 1;
+	private String createFilesCron;
+	private String transferFilesCron;
+	private Duration shedlockLockAtMostFor;
+	private Duration maximumExecutionTime;
 
 	public String getHost() {
 		return host;
@@ -67,6 +73,46 @@ public final class SftpProperties {
 		this.knownHosts = knownHosts;
 	}
 
+	public int getTransferParallelism() {
+		return transferParallelism;
+	}
+
+	public void setTransferParallelism(int transferParallelism) {
+		this.transferParallelism = transferParallelism;
+	}
+
+	public String getCreateFilesCron() {
+		return createFilesCron;
+	}
+
+	public void setCreateFilesCron(String createFilesCron) {
+		this.createFilesCron = createFilesCron;
+	}
+
+	public String getTransferFilesCron() {
+		return transferFilesCron;
+	}
+
+	public void setTransferFilesCron(String transferFilesCron) {
+		this.transferFilesCron = transferFilesCron;
+	}
+
+	public Duration getShedlockLockAtMostFor() {
+		return shedlockLockAtMostFor;
+	}
+
+	public void setShedlockLockAtMostFor(Duration shedlockLockAtMostFor) {
+		this.shedlockLockAtMostFor = shedlockLockAtMostFor;
+	}
+
+	public Duration getMaximumExecutionTime() {
+		return maximumExecutionTime;
+	}
+
+	public void setMaximumExecutionTime(Duration maximumExecutionTime) {
+		this.maximumExecutionTime = maximumExecutionTime;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == this) {
@@ -82,12 +128,17 @@ public final class SftpProperties {
 			Objects.equals(this.password, that.password) &&
 			Objects.equals(this.remoteDir, that.remoteDir) &&
 			this.allowUnknownKeys == that.allowUnknownKeys &&
-			Objects.equals(this.knownHosts, that.knownHosts);
+			Objects.equals(this.knownHosts, that.knownHosts) &&
+			this.transferParallelism == that.transferParallelism &&
+			Objects.equals(this.createFilesCron, that.createFilesCron) &&
+			Objects.equals(this.transferFilesCron, that.transferFilesCron) &&
+			Objects.equals(this.shedlockLockAtMostFor, that.shedlockLockAtMostFor) &&
+			Objects.equals(this.maximumExecutionTime, that.maximumExecutionTime);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(host, port, user, password, remoteDir, allowUnknownKeys, knownHosts);
+		return Objects.hash(host, port, user, password, remoteDir, allowUnknownKeys, knownHosts, transferParallelism, createFilesCron, transferFilesCron, shedlockLockAtMostFor, maximumExecutionTime);
 	}
 
 	@Override
@@ -99,7 +150,12 @@ public final class SftpProperties {
 			"password=" + password + ", " +
 			"remoteDir=" + remoteDir + ", " +
 			"allowUnknownKeys=" + allowUnknownKeys + ", " +
-			"knownHosts=" + knownHosts + ']';
+			"knownHosts=" + knownHosts + ", " +
+			"transferParallelism=" + transferParallelism + ", " +
+			"createFilesCron=" + createFilesCron + ", " +
+			"transferFilesCron=" + transferFilesCron + ", " +
+			"shedlockLockAtMostFor=" + shedlockLockAtMostFor + ", " +
+			"maximumExecutionTime=" + maximumExecutionTime + ']';
 	}
 
 }
@@ -1,7 +1,9 @@
 package se.sundsvall.billingpreprocessor.service;
 
+import java.util.List;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
 import se.sundsvall.dept44.requestid.RequestId;
 
 /**
@@ -12,9 +14,11 @@ import se.sundsvall.dept44.requestid.RequestId;
 public class AsyncExecutorService {
 
 	private final InvoiceFileService invoiceFileService;
+	private final BatchJobService batchJobService;
 
-	public AsyncExecutorService(InvoiceFileService invoiceFileService) {
+	public AsyncExecutorService(InvoiceFileService invoiceFileService, BatchJobService batchJobService) {
 		this.invoiceFileService = invoiceFileService;
+		this.batchJobService = batchJobService;
 	}
 
 	@Async
@@ -36,4 +40,14 @@ public class AsyncExecutorService {
 			RequestId.reset();
 		}
 	}
+
+	@Async
+	public void createBillingRecords(String uuid, String jobId, List<BillingRecord> billingRecords) {
+		RequestId.init(uuid);
+		try {
+			batchJobService.processJob(jobId, billingRecords);
+		} finally {
+			RequestId.reset();
+		}
+	}
 }
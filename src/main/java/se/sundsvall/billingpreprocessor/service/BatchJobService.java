@@ -0,0 +1,201 @@
+package se.sundsvall.billingpreprocessor.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import se.sundsvall.billingpreprocessor.api.model.BatchJob;
+import se.sundsvall.billingpreprocessor.api.model.BatchJobFailure;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus;
+import se.sundsvall.billingpreprocessor.service.config.IngestionProperties;
+import se.sundsvall.dept44.problem.Problem;
+
+import static java.util.Objects.nonNull;
+import static java.util.Optional.ofNullable;
+import static java.util.UUID.randomUUID;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.COMPLETED;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.FAILED;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.PENDING;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.RUNNING;
+import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createInternalServerErrorProblem;
+
+/**
+ * Service keeping track of batch jobs creating billing records in the background. Each job is processed in chunks,
+ * where every chunk is persisted in a transaction of its own, and progress is recorded per chunk so that it can be
+ * followed while the job is running. Jobs are kept in memory of the instance that registered them until the configured
+ * time to live has passed since they finished. As the jobs are not shared between instances, a job can only be read
+ * through the instance that registered it when the service runs in several replicas, and jobs are lost on restart.
+ */
+@Service
+public class BatchJobService {
+	private static final Logger LOG = LoggerFactory.getLogger(BatchJobService.class);
+	private static final String JOB_NOT_FOUND = "A job with id '%s' and municipality ID '%s' could not be found!";
+
+	private final BillingRecordService billingRecordService;
+	private final IngestionProperties ingestionProperties;
+	private final Clock clock;
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	@Autowired
+	public BatchJobService(BillingRecordService billingRecordService, IngestionProperties ingestionProperties) {
+		this(billingRecordService, ingestionProperties, Clock.systemDefaultZone());
+	}
+
+	BatchJobService(BillingRecordService billingRecordService, IngestionProperties ingestionProperties, Clock clock) {
+		this.billingRecordService = billingRecordService;
+		this.ingestionProperties = ingestionProperties;
+		this.clock = clock;
+	}
+
+	/**
+	 * Method for registering a new job
+	 *
+	 * @param  municipalityId the municipality id that the job belongs to
+	 * @param  total          the number of billing records that the job will process
+	 * @return                the id of the registered job
+	 */
+	public String registerJob(String municipalityId, int total) {
+		final var job = new Job(randomUUID().toString(), municipalityId, total, OffsetDateTime.now(clock));
+		jobs.put(job.id, job);
+		return job.id;
+	}
+
+	/**
+	 * Method for removing a registered job, used when the job could not be dispatched for processing and therefore never
+	 * will be started or finished
+	 *
+	 * @param id the id of the job to remove
+	 */
+	public void removeJob(String id) {
+		jobs.remove(id);
+	}
+
+	/**
+	 * Method for evicting jobs that finished longer ago than the configured time to live
+	 */
+	@Scheduled(initialDelayString = "${ingestion.job-eviction-interval:PT10M}", fixedDelayString = "${ingestion.job-eviction-interval:PT10M}")
+	public void evictExpiredJobs() {
+		final var now = OffsetDateTime.now(clock);
+		jobs.values().removeIf(job -> job.isExpired(now, ingestionProperties.jobTimeToLive()));
+	}
+
+	/**
+	 * Method for reading the current state of a job
+	 *
+	 * @param  id             the id of the job
+	 * @param  municipalityId the municipality id that the job belongs to
+	 * @return                the current state of the job
+	 */
+	public BatchJob readJob(String id, String municipalityId) {
+		return ofNullable(jobs.get(id))
+			.filter(job -> job.municipalityId.equals(municipalityId) && !job.isExpired(OffsetDateTime.now(clock), ingestionProperties.jobTimeToLive()))
+			.map(Job::toBatchJob)
+			.orElseThrow(() -> Problem.valueOf(NOT_FOUND, JOB_NOT_FOUND.formatted(id, municipalityId)));
+	}
+
+	/**
+	 * Method for processing a registered job. Billing records with an unknown type or category, and all billing records
+	 * in a chunk that fails to be persisted, are recorded as failures (by their index in the batch) without stopping the
+	 * job. The job ends with status FAILED if it is aborted by an unexpected exception or if none of its billing records
+	 * could be created, and with status COMPLETED otherwise.
+	 *
+	 * @param id             the id of the job
+	 * @param billingRecords the billing records to create
+	 */
+	public void processJob(String id, List<BillingRecord> billingRecords) {
+		final var job = ofNullable(jobs.get(id)).orElseThrow(createInternalServerErrorProblem("Job '%s' is not present".formatted(id)));
+		job.start();
+
+		try {
+			final var chunkSize = ingestionProperties.chunkSize();
+			for (var fromIndex = 0; fromIndex < billingRecords.size(); fromIndex += chunkSize) {
+				processChunk(job, fromIndex, billingRecords.subList(fromIndex, Math.min(fromIndex + chunkSize, billingRecords.size())));
+			}
+			job.finish(OffsetDateTime.now(clock));
+		} catch (final RuntimeException e) {
+			LOG.error("{} occurred when processing job '{}'", e.getClass().getSimpleName(), id, e);
+			job.fail(OffsetDateTime.now(clock));
+		}
+	}
+
+	private void processChunk(Job job, int offset, List<BillingRecord> chunk) {
+		final var outcomes = billingRecordService.createBillingRecordChunk(chunk, job.municipalityId);
+		final var createdIds = new ArrayList<String>(chunk.size());
+
+		for (var i = 0; i < outcomes.size(); i++) {
+			final var outcome = outcomes.get(i);
+			if (nonNull(outcome.id())) {
+				createdIds.add(outcome.id());
+			} else {
+				job.addFailure(offset + i, outcome.problem());
+			}
+		}
+
+		job.addCreatedIds(createdIds);
+
+		job.addProcessed(chunk.size());
+	}
+
+	private static class Job {
+		private final String id;
+		private final String municipalityId;
+		private final int total;
+		private final OffsetDateTime created;
+		private final List<String> createdIds = new ArrayList<>();
+		private final List<BatchJobFailure> failures = new ArrayList<>();
+		private BatchJobStatus status = PENDING;
+		private int processed;
+		private OffsetDateTime finished;
+
+		Job(String id, String municipalityId, int total, OffsetDateTime created) {
+			this.id = id;
+			this.municipalityId = municipalityId;
+			this.total = total;
+			this.created = created;
+		}
+
+		synchronized boolean isExpired(OffsetDateTime now, Duration timeToLive) {
+			return nonNull(finished) && finished.plus(timeToLive).isBefore(now);
+		}
+
+		synchronized void start() {
+			status = RUNNING;
+		}
+
+		synchronized void addCreatedIds(List<String> ids) {
+			createdIds.addAll(ids);
+		}
+
+		synchronized void addFailure(int index, String problem) {
+			failures.add(new BatchJobFailure(index, problem));
+		}
+
+		synchronized void addProcessed(int count) {
+			processed += count;
+		}
+
+		synchronized void finish(OffsetDateTime now) {
+			status = createdIds.isEmpty() && !failures.isEmpty() ? FAILED : COMPLETED;
+			finished = now;
+		}
+
+		synchronized void fail(OffsetDateTime now) {
+			status = FAILED;
+			finished = now;
+		}
+
+		synchronized BatchJob toBatchJob() {
+			return new BatchJob(id, municipalityId, status, total, processed, List.copyOf(createdIds), List.copyOf(failures), created, finished);
+		}
+	}
+}
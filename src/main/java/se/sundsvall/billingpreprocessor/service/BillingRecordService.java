@@ -1,66 +1,172 @@
 package se.sundsvall.billingpreprocessor.service;
 
+import com.turkraft.springfilter.converter.FilterSpecificationConverter;
+import jakarta.persistence.EntityManager;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApproval;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApprovalResult;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordWindow;
+import se.sundsvall.billingpreprocessor.api.model.enums.ApprovalOutcome;
 import se.sundsvall.billingpreprocessor.integration.db.BillingRecordRepository;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity_;
+import se.sundsvall.billingpreprocessor.integration.db.model.IdAndStatus;
+import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService.TypeAndCategoryTag;
+import se.sundsvall.billingpreprocessor.service.config.IngestionProperties;
 import se.sundsvall.dept44.problem.Problem;
 
+import static java.time.OffsetDateTime.now;
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.toMap;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.METHOD_NOT_ALLOWED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
 import static se.sundsvall.billingpreprocessor.service.mapper.BillingRecordMapper.toBillingRecord;
 import static se.sundsvall.billingpreprocessor.service.mapper.BillingRecordMapper.toBillingRecordEntities;
 import static se.sundsvall.billingpreprocessor.service.mapper.BillingRecordMapper.toBillingRecordEntity;
 import static se.sundsvall.billingpreprocessor.service.mapper.BillingRecordMapper.toBillingRecords;
 import static se.sundsvall.billingpreprocessor.service.mapper.BillingRecordMapper.updateEntity;
+import static se.sundsvall.billingpreprocessor.service.util.CursorUtil.decodeCursor;
+import static se.sundsvall.billingpreprocessor.service.util.CursorUtil.encodeCursor;
+import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createProblem;
 
 @Service
 public class BillingRecordService {
+	private static final Logger LOG = LoggerFactory.getLogger(BillingRecordService.class);
 	private static final String ENTITY_NOT_FOUND = "A billing record with id '%s' and municipality ID '%s' could not be found!";
 	private static final String ENTITY_CAN_NOT_BE_DELETED = "The billing record does not have status NEW and is therefore not possible to delete!";
 	private static final String ENTITY_CAN_NOT_BE_CREATED = "One or more billing records contain an unknown type or category!";
+	private static final String APPROVAL_SELECTION_INVALID = "Billing records to approve must be selected by either ids or filter!";
+	private static final String APPROVAL_FILTER_INVALID = "Filter '%s' could not be parsed!";
+	private static final String UNKNOWN_TYPE_OR_CATEGORY = "Billing record contains an unknown type or category";
+	private static final String BILLING_RECORD_CAN_NOT_BE_PERSISTED = "Billing record could not be persisted";
 
 	private final BillingRecordRepository billingRecordRepository;
-	private final InvoiceFileConfigurationRepository invoiceFileConfigurationRepository;
+	private final InvoiceFileConfigurationService invoiceFileConfigurationService;
+	private final IngestionProperties ingestionProperties;
+	private final EntityManager entityManager;
+	private final FilterSpecificationConverter filterSpecificationConverter;
+	private final TransactionTemplate chunkTransactionTemplate;
 
 	public BillingRecordService(
 		BillingRecordRepository billingRecordRepository,
-		InvoiceFileConfigurationRepository invoiceFileConfigurationRepository) {
+		InvoiceFileConfigurationService invoiceFileConfigurationService,
+		IngestionProperties ingestionProperties,
+		EntityManager entityManager,
+		FilterSpecificationConverter filterSpecificationConverter,
+		PlatformTransactionManager transactionManager) {
 
 		this.billingRecordRepository = billingRecordRepository;
-		this.invoiceFileConfigurationRepository = invoiceFileConfigurationRepository;
+		this.invoiceFileConfigurationService = invoiceFileConfigurationService;
+		this.ingestionProperties = ingestionProperties;
+		this.entityManager = entityManager;
+		this.filterSpecificationConverter = filterSpecificationConverter;
+		this.chunkTransactionTemplate = new TransactionTemplate(transactionManager);
+		this.chunkTransactionTemplate.setPropagationBehavior(PROPAGATION_REQUIRES_NEW);
 	}
 
 	public String createBillingRecord(final BillingRecord billingRecord, String municipalityId) {
-		if (invoiceFileConfigurationRepository.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory())) {
+		if (invoiceFileConfigurationService.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory())) {
 			return billingRecordRepository.save(toBillingRecordEntity(billingRecord, municipalityId)).getId();
 		}
 
 		throw Problem.valueOf(BAD_REQUEST, ENTITY_CAN_NOT_BE_CREATED);
 	}
 
+	@Transactional
 	public List<String> createBillingRecords(final List<BillingRecord> billingRecords, String municipalityId) {
+		// Each distinct type and category combination in the batch only needs to be checked once
 		final var batchCanBeProcessed = billingRecords.stream()
-			.allMatch(billingRecord -> invoiceFileConfigurationRepository.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory()));
+			.map(billingRecord -> new TypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory()))
+			.distinct()
+			.allMatch(typeAndCategoryTag -> invoiceFileConfigurationService.existsByTypeAndCategoryTag(typeAndCategoryTag.type(), typeAndCategoryTag.categoryTag()));
 
-		if (batchCanBeProcessed) {
-			return billingRecordRepository.saveAll(toBillingRecordEntities(billingRecords, municipalityId)).stream().map(BillingRecordEntity::getId).toList();
+		if (!batchCanBeProcessed) {
+			throw Problem.valueOf(BAD_REQUEST, ENTITY_CAN_NOT_BE_CREATED);
 		}
 
-		throw Problem.valueOf(BAD_REQUEST, ENTITY_CAN_NOT_BE_CREATED);
+		return persist(toBillingRecordEntities(billingRecords, municipalityId));
+	}
+
+	/**
+	 * Method for creating a chunk of billing records in a transaction of its own, reporting the outcome for each billing
+	 * record instead of rejecting the whole chunk. Billing records with an unknown type or category are rejected one by one,
+	 * while all other billing records of the chunk are reported as not persisted if the chunk fails to be persisted. The
+	 * cause of such a failure is only logged, as it may contain details about the database that should not be exposed to
+	 * the client.
+	 *
+	 * @param  billingRecords the billing records to create
+	 * @param  municipalityId the municipality id to create the billing records for
+	 * @return                the outcome for each billing record, in the same order as the sent in billing records
+	 */
+	public List<CreationOutcome> createBillingRecordChunk(final List<BillingRecord> billingRecords, String municipalityId) {
+		final var accepted = billingRecords.stream()
+			.filter(billingRecord -> invoiceFileConfigurationService.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory()))
+			.toList();
+
+		var ids = List.<String>of();
+		var persisted = true;
+		if (!accepted.isEmpty()) {
+			try {
+				ids = chunkTransactionTemplate.execute(status -> persist(toBillingRecordEntities(accepted, municipalityId)));
+			} catch (final RuntimeException e) {
+				LOG.error("{} occurred when persisting chunk of {} billing records", e.getClass().getSimpleName(), accepted.size(), e);
+				persisted = false;
+			}
+		}
+
+		final var outcomes = new ArrayList<CreationOutcome>(billingRecords.size());
+		var acceptedIndex = 0;
+		for (final var billingRecord : billingRecords) {
+			if (acceptedIndex < accepted.size() && accepted.get(acceptedIndex) == billingRecord) {
+				outcomes.add(persisted ? new CreationOutcome(ids.get(acceptedIndex), null) : new CreationOutcome(null, BILLING_RECORD_CAN_NOT_BE_PERSISTED));
+				acceptedIndex++;
+			} else {
+				outcomes.add(new CreationOutcome(null, UNKNOWN_TYPE_OR_CATEGORY));
+			}
+		}
+		return outcomes;
+	}
+
+	private List<String> persist(final List<BillingRecordEntity> entities) {
+		final var ids = new ArrayList<String>(entities.size());
+
+		// Persist in chunks, flushing (as JDBC batches) and detaching each chunk to keep the persistence context small
+		for (var fromIndex = 0; fromIndex < entities.size(); fromIndex += ingestionProperties.chunkSize()) {
+			billingRecordRepository.saveAll(entities.subList(fromIndex, Math.min(fromIndex + ingestionProperties.chunkSize(), entities.size()))).stream()
+				.map(BillingRecordEntity::getId)
+				.forEach(ids::add);
+			entityManager.flush();
+			entityManager.clear();
+		}
+
+		return ids;
 	}
 
+	@Transactional(readOnly = true)
 	public BillingRecord readBillingRecord(final String id, String municipalityId) {
-		verifyExistingId(id, municipalityId);
-		return toBillingRecord(billingRecordRepository.getReferenceByIdAndMunicipalityId(id, municipalityId));
+		return toBillingRecord(billingRecordRepository.findByIdAndMunicipalityId(id, municipalityId)
+			.orElseThrow(createProblem(NOT_FOUND, ENTITY_NOT_FOUND.formatted(id, municipalityId))));
 	}
 
 	public Page<BillingRecord> findBillingRecords(final Specification<BillingRecordEntity> filter, final Pageable pageable, String municipalityId) {
@@ -68,29 +174,166 @@ public class BillingRecordService {
 		return new PageImpl<>(toBillingRecords(matches.getContent()), pageable, matches.getTotalElements());
 	}
 
+	/**
+	 * Method for fetching billing records by keyset pagination, i.e. positioned after the billing record that the sent in
+	 * cursor points at instead of by offset, and without counting the total number of matches.
+	 *
+	 * @param  filter         the filter that the billing records must match
+	 * @param  size           the maximum number of billing records to return
+	 * @param  cursor         the cursor from the previous window, or null for the first window
+	 * @param  municipalityId the municipality id of the billing records
+	 * @return                window of billing records together with the cursor to the following window (if any)
+	 */
+	public BillingRecordWindow findBillingRecords(final Specification<BillingRecordEntity> filter, final int size, final String cursor, String municipalityId) {
+		final var position = decodeCursor(cursor);
+		final var matches = billingRecordRepository.findPageAfter(filter.and((root, _, cb) -> cb.equal(root.get(BillingRecordEntity_.MUNICIPALITY_ID), municipalityId)),
+			position.created(), position.id(), size + 1); // One extra match tells if there is a following window
+
+		if (matches.size() <= size) {
+			return new BillingRecordWindow(toBillingRecords(matches), null);
+		}
+
+		final var content = matches.subList(0, size);
+		final var last = content.getLast();
+		return new BillingRecordWindow(toBillingRecords(content), encodeCursor(last.getCreated(), last.getId()));
+	}
+
+	@Transactional
 	public BillingRecord updateBillingRecord(final String id, final BillingRecord billingRecord, String municipalityId) {
-		verifyExistingId(id, municipalityId);
-		final var entity = updateEntity(billingRecordRepository.getReferenceByIdAndMunicipalityId(id, municipalityId), billingRecord);
-		return toBillingRecord(billingRecordRepository.save(entity));
+		final var entity = billingRecordRepository.findByIdAndMunicipalityId(id, municipalityId)
+			.orElseThrow(createProblem(NOT_FOUND, ENTITY_NOT_FOUND.formatted(id, municipalityId)));
+
+		return toBillingRecord(billingRecordRepository.save(updateEntity(entity, billingRecord)));
 	}
 
-	public void deleteBillingRecord(final String id, String municipalityId) {
-		verifyDeletionAvailability(id, municipalityId);
-		billingRecordRepository.deleteByIdAndMunicipalityId(id, municipalityId);
+	/**
+	 * Method for approving billing records with status NEW, selected either by ids or by filter. The status transition is
+	 * made with one statement per chunk of billing records instead of updating each billing record by itself, and billing
+	 * records selected by filter are read chunk by chunk as well. Each chunk is approved in a transaction of its own, so
+	 * chunks approved before a failing chunk stay approved. The billing records of a chunk are locked when their status is
+	 * read, meaning that the billing records read with status NEW are the ones moved to status APPROVED by the statement.
+	 *
+	 * @param  approval       the selection of billing records to approve and the approver
+	 * @param  municipalityId the municipality id of the billing records
+	 * @return                the outcome for each selected billing record
+	 */
+	public List<BillingRecordApprovalResult> approveBillingRecords(final BillingRecordApproval approval, String municipalityId) {
+		final var hasIds = nonNull(approval.ids()) && !approval.ids().isEmpty();
+		if (hasIds == isNotBlank(approval.filter())) {
+			throw Problem.valueOf(BAD_REQUEST, APPROVAL_SELECTION_INVALID);
+		}
+
+		final var approved = now(ZoneId.systemDefault()).truncatedTo(MILLIS);
+		final var chunkSize = ingestionProperties.chunkSize();
+		final var results = new ArrayList<BillingRecordApprovalResult>();
+
+		if (hasIds) {
+			final var ids = approval.ids().stream().distinct().toList();
+			for (var fromIndex = 0; fromIndex < ids.size(); fromIndex += chunkSize) {
+				results.addAll(approveChunk(ids.subList(fromIndex, Math.min(fromIndex + chunkSize, ids.size())), approval.approvedBy(), approved, municipalityId));
+			}
+			return results;
+		}
+
+		final var filter = toSpecification(approval.filter());
+		var lastId = "";
+		List<String> chunk;
+		do {
+			chunk = findIdsWithStatusNew(filter, municipalityId, lastId, chunkSize);
+			results.addAll(approveChunk(chunk, approval.approvedBy(), approved, municipalityId));
+
+			if (!chunk.isEmpty()) {
+				lastId = chunk.getLast();
+			}
+		} while (chunk.size() == chunkSize);
+
+		return results;
 	}
 
-	private void verifyDeletionAvailability(final String id, String municipalityId) {
-		verifyExistingId(id, municipalityId);
+	/**
+	 * Method for removing a billing record with status NEW. The billing record is loaded (and locked) once, which means
+	 * that its status can not change between the time it is verified and the time the billing record is removed.
+	 *
+	 * @param id             the id of the billing record to remove
+	 * @param municipalityId the municipality id of the billing record
+	 */
+	@Transactional
+	public void deleteBillingRecord(final String id, String municipalityId) {
+		final var entity = billingRecordRepository.findForUpdateByIdAndMunicipalityId(id, municipalityId)
+			.orElseThrow(createProblem(NOT_FOUND, ENTITY_NOT_FOUND.formatted(id, municipalityId)));
 
-		final var status = billingRecordRepository.getReferenceByIdAndMunicipalityId(id, municipalityId).getStatus();
-		if (se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.NEW != status) {
+		if (Status.NEW != entity.getStatus()) {
 			throw Problem.valueOf(METHOD_NOT_ALLOWED, ENTITY_CAN_NOT_BE_DELETED);
 		}
+		billingRecordRepository.delete(entity);
+	}
+
+	private List<BillingRecordApprovalResult> approveChunk(final List<String> chunk, String approvedBy, OffsetDateTime approved, String municipalityId) {
+		if (chunk.isEmpty()) {
+			return emptyList();
+		}
+
+		return chunkTransactionTemplate.execute(status -> approveInTransaction(chunk, approvedBy, approved, municipalityId));
 	}
 
-	private void verifyExistingId(final String id, String municipalityId) {
-		if (!billingRecordRepository.existsByIdAndMunicipalityId(id, municipalityId)) {
-			throw Problem.valueOf(NOT_FOUND, String.format(ENTITY_NOT_FOUND, id, municipalityId));
+	private List<BillingRecordApprovalResult> approveInTransaction(final List<String> chunk, String approvedBy, OffsetDateTime approved, String municipalityId) {
+		final var statuses = billingRecordRepository.findForUpdateIdAndStatusByIdInAndMunicipalityId(chunk, municipalityId).stream()
+			.collect(toMap(IdAndStatus::id, IdAndStatus::status));
+
+		final var approvableIds = chunk.stream()
+			.filter(id -> Status.NEW == statuses.get(id))
+			.toList();
+
+		// The billing records read as NEW are locked until the transaction ends, which means that all of them are approved
+		if (!approvableIds.isEmpty()) {
+			billingRecordRepository.approveByIdIn(approvedBy, approved, approvableIds, municipalityId);
 		}
+
+		return chunk.stream()
+			.map(id -> new BillingRecordApprovalResult(id, toApprovalOutcome(statuses.get(id))))
+			.toList();
+	}
+
+	private Specification<BillingRecordEntity> toSpecification(final String filter) {
+		try {
+			return filterSpecificationConverter.convert(filter);
+		} catch (final RuntimeException e) {
+			throw Problem.valueOf(BAD_REQUEST, APPROVAL_FILTER_INVALID.formatted(filter));
+		}
+	}
+
+	private List<String> findIdsWithStatusNew(final Specification<BillingRecordEntity> filter, String municipalityId, String lastId, int limit) {
+		final var builder = entityManager.getCriteriaBuilder();
+		final var query = builder.createQuery(String.class);
+		final var root = query.from(BillingRecordEntity.class);
+
+		query.select(root.get(BillingRecordEntity_.id))
+			.where(builder.and(
+				filter.toPredicate(root, query, builder),
+				builder.equal(root.get(BillingRecordEntity_.municipalityId), municipalityId),
+				builder.equal(root.get(BillingRecordEntity_.status), Status.NEW),
+				builder.greaterThan(root.get(BillingRecordEntity_.id), lastId)))
+			.orderBy(builder.asc(root.get(BillingRecordEntity_.id)));
+
+		return entityManager.createQuery(query)
+			.setMaxResults(limit)
+			.getResultList();
+	}
+
+	private static ApprovalOutcome toApprovalOutcome(final Status status) {
+		if (isNull(status)) {
+			return ApprovalOutcome.NOT_FOUND;
+		}
+		return Status.NEW == status ? ApprovalOutcome.APPROVED : ApprovalOutcome.INVALID_STATUS;
+	}
+
+	/**
+	 * Outcome of creating one billing record in a chunk, holding either the id of the created billing record or the
+	 * reason for why it was not created
+	 *
+	 * @param id      the id of the created billing record, or null if it was not created
+	 * @param problem the reason for why the billing record was not created, or null if it was created
+	 */
+	public record CreationOutcome(String id, String problem) {
 	}
 }
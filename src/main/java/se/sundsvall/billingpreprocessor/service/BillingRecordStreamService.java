@@ -0,0 +1,136 @@
+package se.sundsvall.billingpreprocessor.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Service;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordStreamResult;
+import se.sundsvall.billingpreprocessor.service.config.IngestionProperties;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.stream.Collectors.joining;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Service for creating billing records from newline delimited JSON (one billing record per line). Lines are parsed and
+ * validated one at a time and valid billing records are persisted in chunks, each chunk in a transaction of its own,
+ * keeping both memory usage and transaction size bounded regardless of the size of the stream.
+ */
+@Service
+public class BillingRecordStreamService {
+	private static final String LINE_CAN_NOT_BE_PARSED = "Line could not be parsed as a billing record";
+	private static final int NEWLINE = '\n';
+
+	private final BillingRecordService billingRecordService;
+	private final IngestionProperties ingestionProperties;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+
+	public BillingRecordStreamService(
+		BillingRecordService billingRecordService,
+		IngestionProperties ingestionProperties,
+		ObjectMapper objectMapper,
+		Validator validator) {
+
+		this.billingRecordService = billingRecordService;
+		this.ingestionProperties = ingestionProperties;
+		this.objectMapper = objectMapper;
+		this.validator = validator;
+	}
+
+	/**
+	 * Method for creating billing records from a stream of newline delimited JSON. One result per non-blank line is written
+	 * as newline delimited JSON to the output, holding either the id of the created billing record or the reason for why
+	 * the line was rejected. Results are flushed to the output after each persisted chunk.
+	 *
+	 * @param  input          stream with one billing record per line
+	 * @param  output         stream to write the result for each line to
+	 * @param  municipalityId the municipality id to create the billing records for
+	 * @throws IOException    if the input can not be read or the output can not be written
+	 */
+	public void createBillingRecords(InputStream input, OutputStream output, String municipalityId) throws IOException {
+		final var reader = new BufferedReader(new InputStreamReader(input, UTF_8));
+		final var chunk = new ArrayList<NumberedBillingRecord>(ingestionProperties.chunkSize());
+
+		var lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (isBlank(line)) {
+				continue;
+			}
+
+			final var billingRecord = parse(line);
+			final var problem = isNull(billingRecord) ? LINE_CAN_NOT_BE_PARSED : validate(billingRecord);
+			if (nonNull(problem)) {
+				write(output, new BillingRecordStreamResult(lineNumber, null, problem));
+				continue;
+			}
+
+			chunk.add(new NumberedBillingRecord(lineNumber, billingRecord));
+			if (chunk.size() >= ingestionProperties.chunkSize()) {
+				persist(chunk, output, municipalityId);
+			}
+		}
+
+		persist(chunk, output, municipalityId);
+	}
+
+	private BillingRecord parse(String line) {
+		try {
+			return objectMapper.readValue(line, BillingRecord.class);
+		} catch (final JacksonException e) {
+			return null;
+		}
+	}
+
+	private String validate(BillingRecord billingRecord) {
+		final var violations = validator.validate(billingRecord);
+		if (violations.isEmpty()) {
+			return null;
+		}
+
+		return violations.stream()
+			.map(BillingRecordStreamService::toMessage)
+			.sorted()
+			.collect(joining(", "));
+	}
+
+	private void persist(List<NumberedBillingRecord> chunk, OutputStream output, String municipalityId) throws IOException {
+		if (chunk.isEmpty()) {
+			return;
+		}
+
+		final var outcomes = billingRecordService.createBillingRecordChunk(chunk.stream().map(NumberedBillingRecord::billingRecord).toList(), municipalityId);
+		for (var i = 0; i < chunk.size(); i++) {
+			write(output, new BillingRecordStreamResult(chunk.get(i).lineNumber(), outcomes.get(i).id(), outcomes.get(i).problem()));
+		}
+
+		output.flush();
+		chunk.clear();
+	}
+
+	private void write(OutputStream output, BillingRecordStreamResult result) throws IOException {
+		output.write(objectMapper.writeValueAsBytes(result));
+		output.write(NEWLINE);
+	}
+
+	private static String toMessage(ConstraintViolation<BillingRecord> violation) {
+		final var path = violation.getPropertyPath().toString();
+		return isBlank(path) ? violation.getMessage() : path + ": " + violation.getMessage();
+	}
+
+	private record NumberedBillingRecord(int lineNumber, BillingRecord billingRecord) {
+	}
+}
@@ -1,10 +1,20 @@
 package se.sundsvall.billingpreprocessor.service;
 
 import java.nio.charset.Charset;
-import java.text.SimpleDateFormat;
 import java.time.Clock;
-import java.util.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
@@ -12,53 +22,186 @@ import se.sundsvall.dept44.problem.Problem;
 
 import static java.time.Instant.now;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.ofNullable;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toUnmodifiableMap;
+import static org.apache.commons.lang3.StringUtils.replaceChars;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static se.sundsvall.billingpreprocessor.Constants.ERROR_INVOICE_FILE_NAME_GENERATION_FAILURE;
 import static se.sundsvall.billingpreprocessor.Constants.ERROR_NO_INVOICE_FILE_CONFIGURATION_FOUND;
 
+/**
+ * Service holding an in-memory registry of the invoice file configurations. The registry is loaded on first use and
+ * reloaded on a configurable interval (or on demand via {@link #refresh()}), keeping configuration lookups out of the
+ * file generation path.
+ */
 @Service
 public class InvoiceFileConfigurationService {
 
-	private final Clock clock;
+	private static final Logger LOG = LoggerFactory.getLogger(InvoiceFileConfigurationService.class);
+	private static final Pattern DATE_PLACEHOLDER_PATTERN = Pattern.compile("\\{[^\\}]*\\}");
+
 	private final InvoiceFileConfigurationRepository invoiceFileConfigurationRepository;
+	private final Duration missRefreshInterval;
+	private final Clock clock;
 
-	public InvoiceFileConfigurationService(InvoiceFileConfigurationRepository invoiceFileConfigurationRepository) {
+	private volatile Registry registry;
+
+	@Autowired
+	public InvoiceFileConfigurationService(
+		InvoiceFileConfigurationRepository invoiceFileConfigurationRepository,
+		@Value("${invoicefileconfiguration.miss-refresh-interval:PT30S}") Duration missRefreshInterval) {
+
+		this(invoiceFileConfigurationRepository, missRefreshInterval, Clock.systemDefaultZone());
+	}
+
+	InvoiceFileConfigurationService(InvoiceFileConfigurationRepository invoiceFileConfigurationRepository, Duration missRefreshInterval, Clock clock) {
 		this.invoiceFileConfigurationRepository = invoiceFileConfigurationRepository;
-		this.clock = Clock.systemDefaultZone();
+		this.missRefreshInterval = missRefreshInterval;
+		this.clock = clock;
 	}
 
 	public String getInvoiceFileNameBy(String type, String categoryTag) {
-		final var fileNamePattern = getInvoiceFileConfigurationBy(type, categoryTag).getFileNamePattern();
-		return applyDatePattern(fileNamePattern);
+		return applyDatePattern(getInvoiceFileConfigurationBy(type, categoryTag));
 	}
 
 	public Charset getEncoding(String type, String categoryTag) {
-		return Charset.forName(getInvoiceFileConfigurationBy(type, categoryTag).getEncoding());
+		final var configuration = getInvoiceFileConfigurationBy(type, categoryTag);
+		return ofNullable(configuration.encoding())
+			.orElseGet(() -> Charset.forName(configuration.entity().getEncoding())); // Throws the reason for why encoding could not be resolved
+	}
+
+	public Optional<InvoiceFileConfigurationEntity> findByCreatorName(String creatorName) {
+		return ofNullable(getRegistry().configurationsByCreatorName().get(creatorName))
+			.map(CachedConfiguration::entity);
 	}
 
-	private InvoiceFileConfigurationEntity getInvoiceFileConfigurationBy(String type, String categoryTag) {
-		return invoiceFileConfigurationRepository.findByTypeAndCategoryTag(type, categoryTag)
+	/**
+	 * Method for checking if a configuration exists for the sent in type and category tag. A miss reloads the registry
+	 * before answering if it was loaded longer ago than the configured miss refresh interval, so that configurations added
+	 * since the registry was loaded are recognized without waiting for the next scheduled refresh, while repeated misses
+	 * (e.g. a batch of billing records with an unknown category) cause at most one reload per interval.
+	 *
+	 * @param  type        the type to check
+	 * @param  categoryTag the category tag to check
+	 * @return             true if a configuration exists for the type and category tag, false otherwise
+	 */
+	public boolean existsByTypeAndCategoryTag(String type, String categoryTag) {
+		final var key = new TypeAndCategoryTag(type, categoryTag);
+		if (getRegistry().configurationsByTypeAndCategoryTag().containsKey(key)) {
+			return true;
+		}
+
+		return refreshOnMiss().configurationsByTypeAndCategoryTag().containsKey(key);
+	}
+
+	/**
+	 * Method for reloading the registry with the invoice file configurations currently present in the database
+	 */
+	@Scheduled(initialDelayString = "${invoicefileconfiguration.refresh-interval:PT10M}", fixedDelayString = "${invoicefileconfiguration.refresh-interval:PT10M}")
+	public synchronized void refresh() {
+		registry = loadRegistry();
+	}
+
+	private CachedConfiguration getInvoiceFileConfigurationBy(String type, String categoryTag) {
+		return ofNullable(getRegistry().configurationsByTypeAndCategoryTag().get(new TypeAndCategoryTag(type, categoryTag)))
 			.orElseThrow(() -> Problem.valueOf(INTERNAL_SERVER_ERROR, ERROR_NO_INVOICE_FILE_CONFIGURATION_FOUND.formatted(type, categoryTag)));
 	}
 
-	private String applyDatePattern(String template) {
+	private synchronized Registry refreshOnMiss() {
+		final var current = getRegistry();
+		if (current.loaded().isAfter(now(clock).minus(missRefreshInterval))) {
+			return current;
+		}
+		registry = loadRegistry();
+		return registry;
+	}
+
+	private Registry getRegistry() {
+		var current = registry;
+		if (isNull(current)) {
+			synchronized (this) {
+				current = registry;
+				if (isNull(current)) {
+					current = loadRegistry();
+					registry = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	private Registry loadRegistry() {
+		final var configurations = invoiceFileConfigurationRepository.findAll().stream()
+			.map(InvoiceFileConfigurationService::toCachedConfiguration)
+			.toList();
+
+		LOG.info("Loaded {} invoice file configurations into registry", configurations.size());
+
+		return new Registry(
+			now(clock),
+			configurations.stream()
+				.filter(configuration -> nonNull(configuration.entity().getCreatorName()))
+				.collect(toUnmodifiableMap(configuration -> configuration.entity().getCreatorName(), identity(), (first, second) -> first)),
+			configurations.stream()
+				.collect(toUnmodifiableMap(configuration -> new TypeAndCategoryTag(configuration.entity().getType(), configuration.entity().getCategoryTag()), identity(), (first, second) -> first)));
+	}
+
+	private static CachedConfiguration toCachedConfiguration(InvoiceFileConfigurationEntity entity) {
+		final var datePlaceholder = ofNullable(entity.getFileNamePattern())
+			.map(DATE_PLACEHOLDER_PATTERN::matcher)
+			.filter(Matcher::find)
+			.map(Matcher::group)
+			.orElse(null);
+
+		return new CachedConfiguration(
+			entity,
+			toCharset(entity.getEncoding()),
+			datePlaceholder,
+			toDateFormatter(datePlaceholder));
+	}
+
+	private static Charset toCharset(String encoding) {
+		try {
+			return Charset.forName(encoding);
+		} catch (IllegalArgumentException e) {
+			return null; // Resolved (and thereby failing) when encoding is requested
+		}
+	}
+
+	private static DateTimeFormatter toDateFormatter(String datePlaceholder) {
+		if (isNull(datePlaceholder)) {
+			return null;
+		}
+
+		try {
+			return DateTimeFormatter.ofPattern(replaceChars(datePlaceholder, "{}", "")).withZone(ZoneId.systemDefault());
+		} catch (IllegalArgumentException e) {
+			return null; // Reported as a file name generation failure when a file name is requested
+		}
+	}
+
+	private String applyDatePattern(CachedConfiguration configuration) {
+		final var template = configuration.entity().getFileNamePattern();
 
 		if (isNull(template)) {
 			throw Problem.valueOf(INTERNAL_SERVER_ERROR, ERROR_INVOICE_FILE_NAME_GENERATION_FAILURE.formatted("null"));
 		}
 
-		final var pattern = Pattern.compile("\\{[^\\}]*\\}");
-		final var matcher = pattern.matcher(template);
+		if (isNull(configuration.dateFormatter())) {
+			throw Problem.valueOf(INTERNAL_SERVER_ERROR, ERROR_INVOICE_FILE_NAME_GENERATION_FAILURE.formatted(template));
+		}
 
-		if (matcher.find()) {
+		return template.replace(configuration.datePlaceholder(), configuration.dateFormatter().format(now(clock)));
+	}
 
-			final var patternMatch = matcher.group();
-			final var datePattern = patternMatch.replaceAll("[{}]", "");
+	record TypeAndCategoryTag(String type, String categoryTag) {
+	}
 
-			final var formattedDateString = new SimpleDateFormat(datePattern).format(Date.from(now(clock)));
-			return template.replace(patternMatch, formattedDateString);
-		}
+	private record CachedConfiguration(InvoiceFileConfigurationEntity entity, Charset encoding, String datePlaceholder, DateTimeFormatter dateFormatter) {
+	}
 
-		throw Problem.valueOf(INTERNAL_SERVER_ERROR, ERROR_INVOICE_FILE_NAME_GENERATION_FAILURE.formatted(template));
+	private record Registry(Instant loaded, Map<String, CachedConfiguration> configurationsByCreatorName, Map<TypeAndCategoryTag, CachedConfiguration> configurationsByTypeAndCategoryTag) {
 	}
 }
@@ -1,32 +1,46 @@
 package se.sundsvall.billingpreprocessor.service;
 
-import java.io.ByteArrayOutputStream;
-import java.nio.charset.Charset;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ByteArrayResource;
+import org.slf4j.MDC;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.data.domain.Limit;
 import org.springframework.integration.file.remote.session.DelegatingSessionFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import se.sundsvall.billingpreprocessor.integration.db.BillingRecordRepository;
+import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileContentRepository;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.TypeAndCategory;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpConfiguration.UploadGateway;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpPropertiesConfig;
 import se.sundsvall.billingpreprocessor.service.creator.InvoiceCreator;
+import se.sundsvall.billingpreprocessor.service.creator.InvoiceFileSession;
+import se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorProperties;
 import se.sundsvall.billingpreprocessor.service.error.InvoiceFileError;
 import se.sundsvall.dept44.problem.Problem;
 
+import static java.time.temporal.ChronoUnit.MILLIS;
+import static java.util.Collections.synchronizedList;
+import static java.util.Optional.ofNullable;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
 import static se.sundsvall.billingpreprocessor.Constants.ERROR_INVOICE_FILE_GENERATION_FAILURE;
 import static se.sundsvall.billingpreprocessor.Constants.ERROR_INVOICE_FILE_TRANSFER_FAILURE;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.GENERATED;
@@ -34,7 +48,11 @@ import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Invoic
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.SEND_SUCCESSFUL;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.APPROVED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.INVOICED;
+import static se.sundsvall.billingpreprocessor.service.mapper.InvoiceFileMapper.toInvoiceFileContentEntity;
 import static se.sundsvall.billingpreprocessor.service.mapper.InvoiceFileMapper.toInvoiceFileEntity;
+import static se.sundsvall.billingpreprocessor.service.util.CalculationUtil.calculateTotalInvoiceAmount;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.decompressingInputStream;
+import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createInternalServerErrorProblem;
 import static se.sundsvall.dept44.util.LogUtils.sanitizeForLogging;
 
 @Service
@@ -43,31 +61,44 @@ public class InvoiceFileService {
 
 	private final BillingRecordRepository billingRecordRepository;
 	private final InvoiceFileRepository invoiceFileRepository;
+	private final InvoiceFileContentRepository invoiceFileContentRepository;
 	private final List<InvoiceCreator> invoiceCreators;
 	private final InvoiceFileConfigurationService invoiceFileConfigurationService;
 	private final MessagingService messagingService;
 	private final UploadGateway uploadGateway;
 	private final DelegatingSessionFactory<?> sessionFactory;
 	private final SftpPropertiesConfig sftpPropertiesConfig;
+	private final InvoiceCreatorProperties invoiceCreatorProperties;
+	private final EntityManager entityManager;
+	private final TransactionTemplate fileTransactionTemplate;
 
 	public InvoiceFileService(
 		BillingRecordRepository billingRecordRepository,
 		InvoiceFileRepository invoiceFileRepository,
+		InvoiceFileContentRepository invoiceFileContentRepository,
 		List<InvoiceCreator> invoiceCreators,
 		InvoiceFileConfigurationService invoiceFileConfigurationService,
 		MessagingService messagingService,
 		UploadGateway uploadGateway,
 		DelegatingSessionFactory<?> sessionFactory,
-		SftpPropertiesConfig sftpPropertiesConfig) {
+		SftpPropertiesConfig sftpPropertiesConfig,
+		InvoiceCreatorProperties invoiceCreatorProperties,
+		EntityManager entityManager,
+		PlatformTransactionManager transactionManager) {
 
 		this.billingRecordRepository = billingRecordRepository;
 		this.invoiceFileRepository = invoiceFileRepository;
+		this.invoiceFileContentRepository = invoiceFileContentRepository;
 		this.invoiceCreators = invoiceCreators;
 		this.invoiceFileConfigurationService = invoiceFileConfigurationService;
 		this.messagingService = messagingService;
 		this.uploadGateway = uploadGateway;
 		this.sessionFactory = sessionFactory;
 		this.sftpPropertiesConfig = sftpPropertiesConfig;
+		this.invoiceCreatorProperties = invoiceCreatorProperties;
+		this.entityManager = entityManager;
+		this.fileTransactionTemplate = new TransactionTemplate(transactionManager);
+		this.fileTransactionTemplate.setPropagationBehavior(PROPAGATION_REQUIRES_NEW);
 	}
 
 	public void transferFiles(String municipalityId) {
@@ -75,10 +106,19 @@ public class InvoiceFileService {
 			throw Problem.valueOf(BAD_REQUEST, String.format("File transfer for municipality id '%s' is not configured!", municipalityId));
 		}
 		try {
-			final List<InvoiceFileError> errors = new ArrayList<>();
 			sessionFactory.setThreadKey(municipalityId);
-			invoiceFileRepository.findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), municipalityId)
-				.forEach(fileEntity -> this.transferFile(fileEntity, sftpPropertiesConfig.getMap().get(municipalityId).getRemoteDir()).ifPresent(errors::add));
+			final var ids = invoiceFileRepository.findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), municipalityId);
+			if (ids.isEmpty()) {
+				return;
+			}
+
+			final var properties = sftpPropertiesConfig.getMap().get(municipalityId);
+			final var errors = properties.getTransferParallelism() > 1
+				? transferConcurrently(ids, municipalityId, properties.getRemoteDir(), properties.getTransferParallelism())
+				: ids.stream()
+					.map(id -> transferFile(id, properties.getRemoteDir()))
+					.flatMap(Optional::stream)
+					.toList();
 
 			if (!errors.isEmpty()) {
 				messagingService.sendTransferErrorMail(municipalityId, errors);
@@ -88,12 +128,48 @@ public class InvoiceFileService {
 		}
 	}
 
+	/**
+	 * Transfers the files using a bounded number of threads, each one holding its own session from the caching session
+	 * factory of the municipality while uploading. Each file is still loaded, uploaded and given its new status by itself,
+	 * so only the content of the files currently being transferred is kept in memory.
+	 */
+	private List<InvoiceFileError> transferConcurrently(List<Long> ids, String municipalityId, String remoteDir, int parallelism) {
+		final var mdcContext = MDC.getCopyOfContextMap();
+
+		try (var executor = Executors.newFixedThreadPool(Math.min(parallelism, ids.size()))) {
+			final var futures = ids.stream()
+				.map(id -> CompletableFuture.supplyAsync(() -> {
+					ofNullable(mdcContext).ifPresent(MDC::setContextMap);
+					sessionFactory.setThreadKey(municipalityId);
+					try {
+						return transferFile(id, remoteDir);
+					} finally {
+						sessionFactory.clearThreadKey();
+						MDC.clear();
+					}
+				}, executor))
+				.toList();
+
+			return futures.stream()
+				.map(CompletableFuture::join)
+				.flatMap(Optional::stream)
+				.toList();
+		}
+	}
+
+	private Optional<InvoiceFileError> transferFile(Long id, String remoteDir) {
+		// Load one file at a time to only keep the content of the file currently being transferred in memory
+		return invoiceFileRepository.findById(id).flatMap(fileEntity -> transferFile(fileEntity, remoteDir));
+	}
+
 	private Optional<InvoiceFileError> transferFile(InvoiceFileEntity fileEntity, String remoteDir) {
 		try {
-			Charset encoding = Charset.forName(fileEntity.getEncoding());
+			final var content = invoiceFileContentRepository.findById(fileEntity.getId())
+				.orElseThrow(createInternalServerErrorProblem("Content for file '%s' is not present".formatted(fileEntity.getName())));
 
-			LOG.info("Starting to transfer file '{}' with encoding '{}' to remote dir '{}'", fileEntity.getName(), encoding, remoteDir);
-			uploadGateway.sendToSftp(new ByteArrayResource(fileEntity.getContent().getBytes(encoding)), fileEntity.getName(), remoteDir);
+			LOG.info("Starting to transfer file '{}' with encoding '{}' to remote dir '{}'", fileEntity.getName(), fileEntity.getEncoding(), remoteDir);
+			// Content is stored encoded and compressed, so it is inflated on the fly while being uploaded
+			uploadGateway.sendToSftp(new InputStreamResource(decompressingInputStream(content.getContent())), fileEntity.getName(), remoteDir);
 			invoiceFileRepository.save(fileEntity
 				.withSent(OffsetDateTime.now())
 				.withStatus(SEND_SUCCESSFUL));
@@ -107,66 +183,134 @@ public class InvoiceFileService {
 		}
 	}
 
-	@Transactional
+	/**
+	 * Creates one invoice file per processable type and category. Each file is created in a transaction of its own, in
+	 * which the file, its content and the move of its billing records to status INVOICED are persisted. A failure at any
+	 * point of that rolls back the file as a whole, leaving its billing records in status APPROVED for the next execution.
+	 */
 	public void createFiles(String municipalityId) {
 		final var now = LocalDate.now();
-		final var billingRecords = new ArrayList<>(billingRecordRepository.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(APPROVED, municipalityId, now));
+		final var pendingTypesAndCategories = synchronizedList(new ArrayList<>(billingRecordRepository.findDistinctTypeAndCategory(APPROVED, municipalityId, now)));
 
-		final var creationErrors = invoiceCreators.stream()
-			.map(creator -> processBillingRecords(billingRecords, creator, municipalityId))
+		final var creationErrors = invoiceCreatorProperties.parallelism() > 1
+			? processConcurrently(pendingTypesAndCategories, municipalityId, now)
+			: invoiceCreators.stream()
+				.map(creator -> processBillingRecords(pendingTypesAndCategories, creator, municipalityId, now))
+				.flatMap(List::stream)
+				.toList();
+
+		final var unprocessedRecords = pendingTypesAndCategories.stream()
+			.map(typeAndCategory -> billingRecordRepository.findAllByStatusAndMunicipalityIdAndTypeAndCategoryAndTransferDateLessThanEqual(
+				APPROVED, municipalityId, typeAndCategory.type(), typeAndCategory.category(), now))
 			.flatMap(List::stream)
 			.toList();
 
-		if (!creationErrors.isEmpty() || !billingRecords.isEmpty()) {
-			sendCreationErrorMail(creationErrors, billingRecords, municipalityId);
+		if (!creationErrors.isEmpty() || !unprocessedRecords.isEmpty()) {
+			sendCreationErrorMail(creationErrors, unprocessedRecords, municipalityId);
 		}
 	}
 
-	private List<InvoiceFileError> processBillingRecords(List<BillingRecordEntity> billingRecords, InvoiceCreator invoiceCreator, String municipalityId) {
+	/**
+	 * Creates the files of the municipality using a bounded number of threads. As each file holds a connection of the
+	 * connection pool while being created, this uses up to invoicecreator.parallelism connections per municipality.
+	 */
+	private List<InvoiceFileError> processConcurrently(List<TypeAndCategory> pendingTypesAndCategories, String municipalityId, LocalDate transferDate) {
+		final var mdcContext = MDC.getCopyOfContextMap();
+
+		try (var executor = Executors.newFixedThreadPool(invoiceCreatorProperties.parallelism())) {
+			final var futures = invoiceCreators.stream()
+				.map(creator -> CompletableFuture.supplyAsync(() -> {
+					ofNullable(mdcContext).ifPresent(MDC::setContextMap);
+					try {
+						return processBillingRecords(pendingTypesAndCategories, creator, municipalityId, transferDate);
+					} finally {
+						MDC.clear();
+					}
+				}, executor))
+				.toList();
+
+			return futures.stream()
+				.map(CompletableFuture::join)
+				.flatMap(List::stream)
+				.toList();
+		}
+	}
+
+	private List<InvoiceFileError> processBillingRecords(List<TypeAndCategory> pendingTypesAndCategories, InvoiceCreator invoiceCreator, String municipalityId, LocalDate transferDate) {
 		final List<InvoiceFileError> billingRecordProcessErrors = new ArrayList<>();
 		final List<InvoiceFileError> commonErrors = new ArrayList<>();
 
-		try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+		try {
 			final var type = invoiceCreator.getProcessableType();
 			final var category = invoiceCreator.getProcessableCategory();
 
 			LOG.info("Processing type '{}' and category '{}'", type, category);
 
-			final var billingRecordsToProcess = filterByTypeAndCategory(billingRecords, type, category);
-			if (!billingRecordsToProcess.isEmpty()) {
-				billingRecords.removeAll(billingRecordsToProcess); // Remove processed records from the original list and send mail if unprocessed records exists at end of execution
+			// Remove processed type and category from the pending list and send mail if unprocessed records exists at end of execution
+			if (pendingTypesAndCategories.remove(new TypeAndCategory(type, category))) {
+				// Any exception thrown when creating the file rolls back the transaction of the file
+				fileTransactionTemplate.executeWithoutResult(status -> createFile(invoiceCreator, type, category, municipalityId, transferDate, billingRecordProcessErrors));
+			}
 
-				final var filename = invoiceFileConfigurationService.getInvoiceFileNameBy(type.name(), category);
-				final var encoding = invoiceFileConfigurationService.getEncoding(type.name(), category);
-				final List<BillingRecordEntity> successfulRecords = new ArrayList<>();
+		} catch (Exception e) {
+			LOG.error("Exception occurred during creation of invoice billing file", e);
+			final var cause = e instanceof final UncheckedIOException uncheckedIOException ? uncheckedIOException.getCause() : e;
+			commonErrors.add(InvoiceFileError.create(ERROR_INVOICE_FILE_GENERATION_FAILURE.formatted(cause.getClass().getSimpleName() + ": " + cause.getMessage())));
+		}
 
-				outputStream.write(invoiceCreator.createFileHeader());
+		return Stream.concat(commonErrors.stream(), billingRecordProcessErrors.stream()).toList();
+	}
 
-				billingRecordsToProcess.forEach(billingRecord -> createBillingRecord(outputStream, billingRecord, invoiceCreator, successfulRecords)
-					.ifPresent(billingRecordProcessErrors::add));
+	private void createFile(InvoiceCreator invoiceCreator, Type type, String category, String municipalityId, LocalDate transferDate, List<InvoiceFileError> billingRecordProcessErrors) {
+		final var filename = invoiceFileConfigurationService.getInvoiceFileNameBy(type.name(), category);
+		final var encoding = invoiceFileConfigurationService.getEncoding(type.name(), category);
+		final List<String> successfulRecordIds = new ArrayList<>();
 
-				outputStream.write(invoiceCreator.createFileFooter(successfulRecords));
+		try (var session = invoiceCreator.openSession()) {
+			invoiceCreator.writeFileHeader(session);
 
-				if (!successfulRecords.isEmpty()) { // At least one of the records should be successful for the file to be created
-					LOG.info("Saving file '{}' with {} successfully processed records for municipality id '{}'",
-						filename, successfulRecords.size(), sanitizeForLogging(municipalityId));
-					invoiceFileRepository.save(toInvoiceFileEntity(filename, type.name(), outputStream.toByteArray(), encoding, municipalityId));
+			var lastId = "";
+			List<BillingRecordEntity> page;
+			do {
+				page = billingRecordRepository.findPageAfterId(APPROVED, municipalityId, type, category, transferDate, lastId, Limit.of(invoiceCreatorProperties.pageSize()));
+				invoiceCreator.prepareInvoiceData(page);
+				page.forEach(billingRecord -> createBillingRecord(session, billingRecord, invoiceCreator, successfulRecordIds)
+					.ifPresent(billingRecordProcessErrors::add));
+
+				if (!page.isEmpty()) {
+					lastId = page.getLast().getId();
 				}
-			}
+				// Write processed page to database and detach it to keep the persistence context from growing
+				entityManager.flush();
+				entityManager.clear();
+			} while (page.size() == invoiceCreatorProperties.pageSize());
 
-		} catch (Exception e) {
-			LOG.error("Exception occurred during creation of invoice billing file", e);
-			commonErrors.add(InvoiceFileError.create(ERROR_INVOICE_FILE_GENERATION_FAILURE.formatted(e.getClass().getSimpleName() + ": " + e.getMessage())));
-		}
+			invoiceCreator.writeFileFooter(session);
 
-		return Stream.concat(commonErrors.stream(), billingRecordProcessErrors.stream()).toList();
+			if (!successfulRecordIds.isEmpty()) { // At least one of the records should be successful for the file to be created
+				LOG.info("Saving file '{}' with {} successfully processed records for municipality id '{}'",
+					filename, successfulRecordIds.size(), sanitizeForLogging(municipalityId));
+				final var invoiceFile = invoiceFileRepository.save(toInvoiceFileEntity(filename, type.name(), encoding, municipalityId));
+				invoiceFileContentRepository.save(toInvoiceFileContentEntity(invoiceFile, session.toByteArray()));
+				markAsInvoiced(successfulRecordIds);
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
-	private Optional<InvoiceFileError> createBillingRecord(final ByteArrayOutputStream outputStream, BillingRecordEntity entity, InvoiceCreator invoiceCreator, List<BillingRecordEntity> successfulRecords) {
+	/**
+	 * Method writing the invoice data of a billing record to the session. When successfully written, the billing record is
+	 * added to the running totals of the session (used for the file footer) and only its id is kept, so that processed
+	 * pages of billing records can be released. The invoice amount is calculated before the invoice data is written, so
+	 * that nothing that can fail remains once the record is in the file and the file content and totals always match.
+	 */
+	private Optional<InvoiceFileError> createBillingRecord(final InvoiceFileSession session, BillingRecordEntity entity, InvoiceCreator invoiceCreator, List<String> successfulRecordIds) {
 		try {
-			outputStream.write(invoiceCreator.createInvoiceData(entity));
-			billingRecordRepository.save(entity.withStatus(INVOICED));
-			successfulRecords.add(entity);
+			final var invoiceAmount = calculateTotalInvoiceAmount(entity.getInvoice());
+			invoiceCreator.writeInvoiceData(session, entity);
+			session.getTotals().add(invoiceAmount);
+			successfulRecordIds.add(entity.getId());
 			return Optional.empty();
 		} catch (Exception e) {
 			LOG.warn("{} occurred when persisting record with id {} to file'", e.getClass().getSimpleName(), entity.getId(), e);
@@ -174,12 +318,13 @@ public class InvoiceFileService {
 		}
 	}
 
-	private List<BillingRecordEntity> filterByTypeAndCategory(List<BillingRecordEntity> entities, Type type, String category) {
-		return entities
-			.stream()
-			.filter(entity -> Objects.equals(type, entity.getType()))
-			.filter(entity -> Objects.equals(category, entity.getCategory()))
-			.toList();
+	private void markAsInvoiced(List<String> ids) {
+		final var modified = OffsetDateTime.now(ZoneId.systemDefault()).truncatedTo(MILLIS);
+
+		// Move records to status INVOICED in chunks of configured page size instead of merging each entity
+		for (var fromIndex = 0; fromIndex < ids.size(); fromIndex += invoiceCreatorProperties.pageSize()) {
+			billingRecordRepository.updateStatusByIdIn(INVOICED, modified, ids.subList(fromIndex, Math.min(fromIndex + invoiceCreatorProperties.pageSize(), ids.size())));
+		}
 	}
 
 	private void sendCreationErrorMail(List<InvoiceFileError> creationErrors, List<BillingRecordEntity> unprocessedRecords, String municipalityId) {
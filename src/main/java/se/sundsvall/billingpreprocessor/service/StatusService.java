@@ -26,9 +26,9 @@ public class StatusService {
 		var end = start.plusMonths(1);
 
 		return invoiceFileRepository.findAllCreatedInMonth(municipalityId, start, end).stream()
-			.map(invoiceFile -> new InvoiceFileStatus(String.valueOf(invoiceFile.getId()), invoiceFile.getName(), invoiceFile.getType(),
-				invoiceFile.getStatus().name(), invoiceFile.getMunicipalityId(),
-				invoiceFile.getCreated(), invoiceFile.getSent()))
+			.map(invoiceFile -> new InvoiceFileStatus(String.valueOf(invoiceFile.id()), invoiceFile.name(), invoiceFile.type(),
+				invoiceFile.status().name(), invoiceFile.municipalityId(),
+				invoiceFile.created(), invoiceFile.sent()))
 			.toList();
 	}
 }
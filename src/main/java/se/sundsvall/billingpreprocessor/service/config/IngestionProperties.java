@@ -0,0 +1,9 @@
+package se.sundsvall.billingpreprocessor.service.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("ingestion")
+public record IngestionProperties(@DefaultValue("500") int chunkSize, @DefaultValue("PT24H") Duration jobTimeToLive) {
+}
@@ -1,16 +1,16 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
-import org.beanio.builder.StreamBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
 
-import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_ENCODER;
 
 @Component
 public class ExternalCustomerInvoiceCreator extends ExternalInvoiceCreator {
 
-	public ExternalCustomerInvoiceCreator(@Qualifier(EXTERNAL_INVOICE_BUILDER) StreamBuilder builder, LegalIdProvider legalIdProvider, InvoiceFileConfigurationRepository configurationRepository) {
-		super(builder, legalIdProvider, configurationRepository);
+	public ExternalCustomerInvoiceCreator(@Qualifier(EXTERNAL_INVOICE_ENCODER) FixedLengthRecordEncoder encoder, LegalIdProvider legalIdProvider, InvoiceFileConfigurationService configurationService) {
+		super(encoder, legalIdProvider, configurationService);
 	}
 }
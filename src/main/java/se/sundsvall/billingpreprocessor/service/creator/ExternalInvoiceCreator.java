@@ -1,30 +1,30 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Optional;
-import org.beanio.BeanWriter;
-import org.beanio.StreamFactory;
-import org.beanio.builder.StreamBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 import se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceDescriptionRow;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.RecordWriter;
 
 import static java.util.Collections.emptyList;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toSet;
 import static se.sundsvall.billingpreprocessor.Constants.EMPTY_ARRAY;
 import static se.sundsvall.billingpreprocessor.Constants.EXTERNAL_INVOICE_TYPE;
 import static se.sundsvall.billingpreprocessor.Constants.GENERATING_SYSTEM;
-import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_ENCODER;
 import static se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper.toCustomer;
 import static se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper.toFacilityDescriptionRows;
 import static se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper.toFileHeader;
@@ -40,24 +40,23 @@ import static se.sundsvall.billingpreprocessor.service.util.StringUtil.formatLeg
 @Component
 public class ExternalInvoiceCreator implements InvoiceCreator {
 
-	private final StreamFactory factory;
+	private final FixedLengthRecordEncoder encoder;
 	private final LegalIdProvider legalIdProvider;
-	private final InvoiceFileConfigurationRepository configurationRepository;
+	private final InvoiceFileConfigurationService configurationService;
 
-	public ExternalInvoiceCreator(@Qualifier(EXTERNAL_INVOICE_BUILDER) StreamBuilder builder, LegalIdProvider legalIdProvider, InvoiceFileConfigurationRepository configurationRepository) {
-		this.factory = StreamFactory.newInstance();
-		this.factory.define(builder);
+	public ExternalInvoiceCreator(@Qualifier(EXTERNAL_INVOICE_ENCODER) FixedLengthRecordEncoder encoder, LegalIdProvider legalIdProvider, InvoiceFileConfigurationService configurationService) {
+		this.encoder = encoder;
 		this.legalIdProvider = legalIdProvider;
-		this.configurationRepository = configurationRepository;
+		this.configurationService = configurationService;
 	}
 
 	InvoiceFileConfigurationEntity getConfiguration() {
-		return configurationRepository.findByCreatorName(this.getClass().getSimpleName())
+		return configurationService.findByCreatorName(this.getClass().getSimpleName())
 			.orElseThrow(createInternalServerErrorProblem(CONFIGURATION_NOT_PRESENT.formatted(this.getClass().getSimpleName())));
 	}
 
-	StreamFactory getFactory() {
-		return factory;
+	FixedLengthRecordEncoder getEncoder() {
+		return encoder;
 	}
 
 	/**
@@ -80,20 +79,76 @@ public class ExternalInvoiceCreator implements InvoiceCreator {
 		return getConfiguration().getCategoryTag();
 	}
 
+	/**
+	 * Method resolving legal ids for all recipients in the batch that lacks legal id, so that each distinct party only is
+	 * looked up once and lookups are made concurrently instead of one by one when writing the invoice data sections
+	 *
+	 * @param billingRecords the billing records that are about to be written
+	 */
+	@Override
+	public void prepareInvoiceData(List<BillingRecordEntity> billingRecords) {
+		billingRecords.stream()
+			.filter(billingRecord -> nonNull(billingRecord.getMunicipalityId()) && nonNull(billingRecord.getRecipient()) && isNull(billingRecord.getRecipient().getLegalId()))
+			.collect(groupingBy(BillingRecordEntity::getMunicipalityId, mapping(billingRecord -> billingRecord.getRecipient().getPartyId(), toSet())))
+			.forEach(legalIdProvider::prefetch);
+	}
+
+	/**
+	 * Method opening a session for writing a complete file according to the specification for external invoices
+	 *
+	 * @return session with one writer and one buffer for the whole file
+	 */
+	@Override
+	public InvoiceFileSession openSession() {
+		final var configuration = getConfiguration();
+		return new InvoiceFileSession(encoder, configurationService.getEncoding(configuration.getType(), configuration.getCategoryTag()));
+	}
+
+	/**
+	 * Method writes a file header according to the specification for external invoices
+	 *
+	 * @param session the session to write the file header to
+	 */
+	@Override
+	public void writeFileHeader(InvoiceFileSession session) {
+		session.writeRecord(invoiceWriter -> invoiceWriter.write(toFileHeader(GENERATING_SYSTEM, EXTERNAL_INVOICE_TYPE)));
+	}
+
+	/**
+	 * Method writes an invoice data section according to the specification for external invoices
+	 *
+	 * @param session       the session to write the invoice data section to
+	 * @param billingRecord containing the billing record to produce an invoice data section for
+	 */
+	@Override
+	public void writeInvoiceData(InvoiceFileSession session, BillingRecordEntity billingRecord) {
+		if (nonNull(billingRecord)) {
+			session.writeRecord(invoiceWriter -> processInvoice(invoiceWriter, billingRecord));
+		}
+	}
+
+	/**
+	 * Method writes a file footer according to the specification for external invoices (which by default has no file
+	 * footer)
+	 *
+	 * @param session the session to write the file footer to
+	 */
+	@Override
+	public void writeFileFooter(InvoiceFileSession session) {
+		// No file footer by default
+	}
+
 	/**
 	 * Method creates a file header according to the specification for external invoices
 	 *
 	 * @return             bytearray representing the file header
-	 * @throws IOException if the byte array output stream cannot be closed
+	 * @throws IOException if the session cannot be closed
 	 */
 	@Override
 	public byte[] createFileHeader() throws IOException {
-		final var encoding = Charset.forName(getConfiguration().getEncoding());
-		try (var byteArrayOutputStream = new ByteArrayOutputStream();
-			var invoiceWriter = factory.createWriter(EXTERNAL_INVOICE_BUILDER, new OutputStreamWriter(byteArrayOutputStream, encoding))) {
-			invoiceWriter.write(toFileHeader(GENERATING_SYSTEM, EXTERNAL_INVOICE_TYPE));
-			invoiceWriter.flush();
-			return byteArrayOutputStream.toByteArray();
+		try (var session = openSession()) {
+			writeFileHeader(session);
+			return session.toByteArray();
 		}
 	}
 
@@ -102,7 +157,7 @@ public class ExternalInvoiceCreator implements InvoiceCreator {
 	 *
 	 * @param  billingRecord containing the billing record to produce an invoice data section for
 	 * @return               bytearray representing the invoice data section
-	 * @throws IOException   if the byte array output stream cannot be closed
+	 * @throws IOException   if the session cannot be closed
 	 */
 	@Override
 	public byte[] createInvoiceData(BillingRecordEntity billingRecord) throws IOException {
@@ -110,16 +165,13 @@ public class ExternalInvoiceCreator implements InvoiceCreator {
 			return EMPTY_ARRAY;
 		}
 
-		final var encoding = Charset.forName(getConfiguration().getEncoding());
-		try (var byteArrayOutputStream = new ByteArrayOutputStream();
-			var invoiceWriter = factory.createWriter(EXTERNAL_INVOICE_BUILDER, new OutputStreamWriter(byteArrayOutputStream, encoding))) {
-			processInvoice(invoiceWriter, billingRecord);
-			invoiceWriter.flush();
-			return byteArrayOutputStream.toByteArray();
+		try (var session = openSession()) {
+			writeInvoiceData(session, billingRecord);
+			return session.toByteArray();
 		}
 	}
 
-	void processInvoice(BeanWriter invoiceWriter, BillingRecordEntity billingRecord) {
+	void processInvoice(RecordWriter invoiceWriter, BillingRecordEntity billingRecord) {
 		final var recipientLegalId = extractLegalId(billingRecord);
 		final var facilityDescriptionRows = toFacilityDescriptionRows(recipientLegalId, billingRecord.getExtraParameters());
 
@@ -138,11 +190,11 @@ public class ExternalInvoiceCreator implements InvoiceCreator {
 		invoiceWriter.write(toInvoiceFooter(billingRecord));
 	}
 
-	void processInvoiceRow(BeanWriter invoiceWriter, String recipientLegalId, InvoiceRowEntity invoiceRow) {
+	void processInvoiceRow(RecordWriter invoiceWriter, String recipientLegalId, InvoiceRowEntity invoiceRow) {
 		processInvoiceRow(invoiceWriter, recipientLegalId, invoiceRow, emptyList());
 	}
 
-	void processInvoiceRow(BeanWriter invoiceWriter, String recipientLegalId, InvoiceRowEntity invoiceRow, List<InvoiceDescriptionRow> facilityDescriptionRows) {
+	void processInvoiceRow(RecordWriter invoiceWriter, String recipientLegalId, InvoiceRowEntity invoiceRow, List<InvoiceDescriptionRow> facilityDescriptionRows) {
 		invoiceWriter.write(toInvoiceRow(recipientLegalId, invoiceRow));
 		facilityDescriptionRows.forEach(invoiceWriter::write);
 		toInvoiceDescriptionRows(recipientLegalId, invoiceRow).forEach(invoiceWriter::write);
@@ -1,23 +1,17 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
-import java.util.List;
 import java.util.Optional;
-import org.beanio.BeanWriter;
-import org.beanio.builder.StreamBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.RecordWriter;
 import se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper;
 
 import static java.util.Collections.emptyList;
 import static java.util.Optional.ofNullable;
-import static se.sundsvall.billingpreprocessor.Constants.EMPTY_ARRAY;
-import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_ENCODER;
 import static se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper.toCustomer;
 import static se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper.toFacilityDescriptionRows;
 import static se.sundsvall.billingpreprocessor.service.mapper.ExternalInvoiceMapper.toFileFooter;
@@ -26,34 +20,26 @@ import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createIn
 @Component
 public class ExternalMexInvoiceCreator extends ExternalInvoiceCreator {
 
-	public ExternalMexInvoiceCreator(@Qualifier(EXTERNAL_INVOICE_BUILDER) final StreamBuilder builder, final LegalIdProvider legalIdProvider, final InvoiceFileConfigurationRepository configurationRepository) {
-		super(builder, legalIdProvider, configurationRepository);
+	public ExternalMexInvoiceCreator(@Qualifier(EXTERNAL_INVOICE_ENCODER) final FixedLengthRecordEncoder encoder, final LegalIdProvider legalIdProvider, final InvoiceFileConfigurationService configurationService) {
+		super(encoder, legalIdProvider, configurationService);
 	}
 
 	/**
-	 * Creates a file footer according to the specification for external MEX invoices
+	 * Writes a file footer according to the specification for external MEX invoices
 	 *
-	 * @param  billingRecords containing the billing record to produce a file footer section for
-	 * @return                byte array representing the file footer
-	 * @throws IOException    if the byte array output stream cannot be closed
+	 * @param session the session to write the file footer to
 	 */
 	@Override
-	public byte[] createFileFooter(final List<BillingRecordEntity> billingRecords) throws IOException {
-		if (billingRecords.isEmpty()) {
-			return EMPTY_ARRAY;
+	public void writeFileFooter(final InvoiceFileSession session) {
+		if (session.getTotals().isEmpty()) {
+			return;
 		}
 
-		final var encoding = Charset.forName(getConfiguration().getEncoding());
-		try (final var byteArrayOutputStream = new ByteArrayOutputStream();
-			final var invoiceWriter = getFactory().createWriter(EXTERNAL_INVOICE_BUILDER, new OutputStreamWriter(byteArrayOutputStream, encoding))) {
-			invoiceWriter.write(toFileFooter(billingRecords));
-			invoiceWriter.flush();
-			return byteArrayOutputStream.toByteArray();
-		}
+		session.writeRecord(invoiceWriter -> invoiceWriter.write(toFileFooter(session.getTotals())));
 	}
 
 	@Override
-	void processInvoice(final BeanWriter invoiceWriter, final BillingRecordEntity billingRecord) {
+	void processInvoice(final RecordWriter invoiceWriter, final BillingRecordEntity billingRecord) {
 		final var recipientLegalId = extractLegalId(billingRecord);
 		final var facilityDescriptionRows = toFacilityDescriptionRows(recipientLegalId, billingRecord.getExtraParameters());
 
@@ -1,15 +1,15 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
-import org.beanio.builder.StreamBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
 
-import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.INTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.INTERNAL_INVOICE_ENCODER;
 
 @Component
 public class InternalCustomerInvoiceCreator extends InternalInvoiceCreator {
-	public InternalCustomerInvoiceCreator(@Qualifier(INTERNAL_INVOICE_BUILDER) StreamBuilder builder, InvoiceFileConfigurationRepository configurationRepository) {
-		super(builder, configurationRepository);
+	public InternalCustomerInvoiceCreator(@Qualifier(INTERNAL_INVOICE_ENCODER) FixedLengthRecordEncoder encoder, InvoiceFileConfigurationService configurationService) {
+		super(encoder, configurationService);
 	}
 }
@@ -1,24 +1,21 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.charset.Charset;
-import org.beanio.BeanWriter;
-import org.beanio.StreamFactory;
-import org.beanio.builder.StreamBuilder;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.RecordWriter;
 
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 import static java.util.Optional.ofNullable;
 import static se.sundsvall.billingpreprocessor.Constants.EMPTY_ARRAY;
-import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.INTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.INTERNAL_INVOICE_ENCODER;
 import static se.sundsvall.billingpreprocessor.service.mapper.InternalInvoiceMapper.toFileHeader;
 import static se.sundsvall.billingpreprocessor.service.mapper.InternalInvoiceMapper.toInvoiceAccountingRows;
 import static se.sundsvall.billingpreprocessor.service.mapper.InternalInvoiceMapper.toInvoiceDescriptionRow;
@@ -31,22 +28,21 @@ import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createIn
 @Component
 public class InternalInvoiceCreator implements InvoiceCreator {
 
-	private final InvoiceFileConfigurationRepository configurationRepository;
-	private final StreamFactory factory;
+	private final InvoiceFileConfigurationService configurationService;
+	private final FixedLengthRecordEncoder encoder;
 
-	public InternalInvoiceCreator(@Qualifier(INTERNAL_INVOICE_BUILDER) StreamBuilder builder, InvoiceFileConfigurationRepository configurationRepository) {
-		this.factory = StreamFactory.newInstance();
-		this.factory.define(builder);
-		this.configurationRepository = configurationRepository;
+	public InternalInvoiceCreator(@Qualifier(INTERNAL_INVOICE_ENCODER) FixedLengthRecordEncoder encoder, InvoiceFileConfigurationService configurationService) {
+		this.encoder = encoder;
+		this.configurationService = configurationService;
 	}
 
 	InvoiceFileConfigurationEntity getConfiguration() {
-		return configurationRepository.findByCreatorName(this.getClass().getSimpleName())
+		return configurationService.findByCreatorName(this.getClass().getSimpleName())
 			.orElseThrow(createInternalServerErrorProblem(CONFIGURATION_NOT_PRESENT.formatted(this.getClass().getSimpleName())));
 	}
 
-	StreamFactory getFactory() {
-		return factory;
+	FixedLengthRecordEncoder getEncoder() {
+		return encoder;
 	}
 
 	/**
@@ -69,20 +65,62 @@ public class InternalInvoiceCreator implements InvoiceCreator {
 		return getConfiguration().getCategoryTag();
 	}
 
+	/**
+	 * Method opening a session for writing a complete file according to the specification for internal invoices
+	 *
+	 * @return session with one writer and one buffer for the whole file
+	 */
+	@Override
+	public InvoiceFileSession openSession() {
+		final var configuration = getConfiguration();
+		return new InvoiceFileSession(encoder, configurationService.getEncoding(configuration.getType(), configuration.getCategoryTag()));
+	}
+
+	/**
+	 * Method writes a file header according to the specification for internal invoices
+	 *
+	 * @param session the session to write the file header to
+	 */
+	@Override
+	public void writeFileHeader(InvoiceFileSession session) {
+		session.writeRecord(invoiceWriter -> invoiceWriter.write(toFileHeader()));
+	}
+
+	/**
+	 * Method writes a invoice data section according to the specification for internal invoices
+	 *
+	 * @param session       the session to write the invoice data section to
+	 * @param billingRecord containing the billing record to produce a invoice data section for
+	 */
+	@Override
+	public void writeInvoiceData(InvoiceFileSession session, BillingRecordEntity billingRecord) {
+		if (nonNull(billingRecord)) {
+			session.writeRecord(invoiceWriter -> processInvoice(invoiceWriter, billingRecord));
+		}
+	}
+
+	/**
+	 * Method writes a file footer according to the specification for internal invoices (which by default has no file
+	 * footer)
+	 *
+	 * @param session the session to write the file footer to
+	 */
+	@Override
+	public void writeFileFooter(InvoiceFileSession session) {
+		// No file footer by default
+	}
+
 	/**
 	 * Method creates a file header according to the specification for internal invoices
 	 *
 	 * @return             bytearray representing the file header
-	 * @throws IOException if byte array output stream can not be closed
+	 * @throws IOException if the session cannot be closed
 	 */
 	@Override
 	public byte[] createFileHeader() throws IOException {
-		final var encoding = Charset.forName(getConfiguration().getEncoding());
-		try (var byteArrayOutputStream = new ByteArrayOutputStream();
-			var invoiceWriter = factory.createWriter(INTERNAL_INVOICE_BUILDER, new OutputStreamWriter(byteArrayOutputStream, encoding))) {
-			invoiceWriter.write(toFileHeader());
-			invoiceWriter.flush();
-			return byteArrayOutputStream.toByteArray();
+		try (var session = openSession()) {
+			writeFileHeader(session);
+			return session.toByteArray();
 		}
 	}
 
@@ -91,7 +129,7 @@ public class InternalInvoiceCreator implements InvoiceCreator {
 	 *
 	 * @param  billingRecord containing the billing record to produce a invoice data section for
 	 * @return               bytearray representing the invoice data section
-	 * @throws IOException   if byte array output stream can not be closed
+	 * @throws IOException   if the session cannot be closed
 	 */
 	@Override
 	public byte[] createInvoiceData(BillingRecordEntity billingRecord) throws IOException {
@@ -99,16 +137,13 @@ public class InternalInvoiceCreator implements InvoiceCreator {
 			return EMPTY_ARRAY;
 		}
 
-		final var encoding = Charset.forName(getConfiguration().getEncoding());
-		try (var byteArrayOutputStream = new ByteArrayOutputStream();
-			var invoiceWriter = factory.createWriter(INTERNAL_INVOICE_BUILDER, new OutputStreamWriter(byteArrayOutputStream, encoding))) {
-			processInvoice(invoiceWriter, billingRecord);
-			invoiceWriter.flush();
-			return byteArrayOutputStream.toByteArray();
+		try (var session = openSession()) {
+			writeInvoiceData(session, billingRecord);
+			return session.toByteArray();
 		}
 	}
 
-	void processInvoice(BeanWriter invoiceWriter, BillingRecordEntity billingRecord) {
+	void processInvoice(RecordWriter invoiceWriter, BillingRecordEntity billingRecord) {
 		invoiceWriter.write(toInvoiceHeader(billingRecord));
 		invoiceWriter.write(toInvoiceDescriptionRow(billingRecord));
 
@@ -120,7 +155,7 @@ public class InternalInvoiceCreator implements InvoiceCreator {
 		invoiceWriter.write(toInvoiceFooter(billingRecord));
 	}
 
-	void processInvoiceRow(BeanWriter invoiceWriter, InvoiceRowEntity invoiceRow) {
+	void processInvoiceRow(RecordWriter invoiceWriter, InvoiceRowEntity invoiceRow) {
 		invoiceWriter.write(toInvoiceRow(invoiceRow));
 		toInvoiceRowDescriptionRows(invoiceRow).forEach(invoiceWriter::write);
 		toInvoiceAccountingRows(invoiceRow).forEach(invoiceWriter::write);
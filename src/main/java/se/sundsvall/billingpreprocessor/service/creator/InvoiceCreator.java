@@ -42,7 +42,11 @@ public interface InvoiceCreator {
 	 * @throws IOException    if the byte array output stream cannot be closed
 	 */
 	default byte[] createFileFooter(List<BillingRecordEntity> billingRecords) throws IOException {
-		return EMPTY_ARRAY;
+		try (var session = openSession()) {
+			billingRecords.forEach(session.getTotals()::add);
+			writeFileFooter(session);
+			return session.toByteArray();
+		}
 	}
 
 	/**
@@ -53,4 +57,57 @@ public interface InvoiceCreator {
 	 * @throws IOException   if byte array output stream can not be closed
 	 */
 	byte[] createInvoiceData(BillingRecordEntity billingRecord) throws IOException;
+
+	/**
+	 * Method for preparing a batch of billing records before their invoice data sections are written, for example by
+	 * resolving data from external sources for the whole batch at once
+	 *
+	 * @param billingRecords the billing records that are about to be written
+	 */
+	default void prepareInvoiceData(List<BillingRecordEntity> billingRecords) {
+		// No preparation by default
+	}
+
+	/**
+	 * Method for opening a session to write a complete invoice file into
+	 *
+	 * @return             session to use when writing header, invoice data and footer for one file
+	 * @throws IOException if the session cannot be opened
+	 */
+	default InvoiceFileSession openSession() throws IOException {
+		return new InvoiceFileSession();
+	}
+
+	/**
+	 * Method for writing a file header to the session
+	 *
+	 * @param  session     the session to write the file header to
+	 * @throws IOException if the file header cannot be written
+	 */
+	default void writeFileHeader(InvoiceFileSession session) throws IOException {
+		session.write(createFileHeader());
+	}
+
+	/**
+	 * Method for writing an invoice data section to the session. Partial output is discarded if the section cannot be
+	 * written.
+	 *
+	 * @param  session       the session to write the invoice data section to
+	 * @param  billingRecord containing the billing record to produce a invoice data section for
+	 * @throws IOException   if the invoice data section cannot be written
+	 */
+	default void writeInvoiceData(InvoiceFileSession session, BillingRecordEntity billingRecord) throws IOException {
+		session.write(createInvoiceData(billingRecord));
+	}
+
+	/**
+	 * Method for writing a file footer to the session, based on the totals of the billing records written to the session
+	 * (no file footer by default)
+	 *
+	 * @param  session     the session to write the file footer to
+	 * @throws IOException if the file footer cannot be written
+	 */
+	default void writeFileFooter(InvoiceFileSession session) throws IOException {
+		// No file footer by default
+	}
 }
@@ -0,0 +1,100 @@
+package se.sundsvall.billingpreprocessor.service.creator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Optional;
+import java.util.function.Consumer;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.RecordWriter;
+
+import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createInternalServerErrorProblem;
+
+/**
+ * Session holding one buffer, (optionally) one record writer and the running totals for the whole lifespan of an
+ * invoice file. Each record is written in isolation, meaning that partial output of a record is rolled back if writing
+ * of the record fails.
+ */
+public class InvoiceFileSession implements Closeable {
+
+	private final TruncatableByteArrayOutputStream outputStream = new TruncatableByteArrayOutputStream();
+	private final RecordWriter writer;
+	private final InvoiceFileTotals totals = new InvoiceFileTotals();
+
+	/**
+	 * Creates a session that only accepts pre-rendered content
+	 */
+	public InvoiceFileSession() {
+		this.writer = null;
+	}
+
+	/**
+	 * Creates a session with a record writer from the sent in encoder
+	 *
+	 * @param encoder  the encoder to create the record writer from
+	 * @param encoding encoding to use when writing records
+	 */
+	public InvoiceFileSession(FixedLengthRecordEncoder encoder, Charset encoding) {
+		this.writer = encoder.createWriter(outputStream, encoding);
+	}
+
+	/**
+	 * Method for appending pre-rendered content to the session
+	 *
+	 * @param  content     the content to append
+	 * @throws IOException if content cannot be written to the buffer
+	 */
+	public void write(byte[] content) throws IOException {
+		outputStream.write(content);
+	}
+
+	/**
+	 * Method for writing one record (that can consist of several rows) to the session. If the record writer throws an
+	 * exception, all output produced by it is discarded before the exception is rethrown.
+	 *
+	 * @param recordWriter consumer writing the record by use of the session writer
+	 */
+	public void writeRecord(Consumer<RecordWriter> recordWriter) {
+		final var sessionWriter = Optional.ofNullable(writer).orElseThrow(createInternalServerErrorProblem("Session has no writer for records"));
+		final var mark = outputStream.size();
+
+		try {
+			recordWriter.accept(sessionWriter);
+		} catch (final RuntimeException e) {
+			outputStream.truncate(mark);
+			throw e;
+		}
+	}
+
+	/**
+	 * Method returning the running totals of the billing records written to the session, used when writing the file
+	 * footer
+	 *
+	 * @return the totals of the session
+	 */
+	public InvoiceFileTotals getTotals() {
+		return totals;
+	}
+
+	/**
+	 * Method returning the content written to the session
+	 *
+	 * @return byte array representing the content of the session
+	 */
+	public byte[] toByteArray() {
+		return outputStream.toByteArray();
+	}
+
+	@Override
+	public void close() throws IOException {
+		outputStream.close();
+	}
+
+	private static class TruncatableByteArrayOutputStream extends ByteArrayOutputStream {
+
+		synchronized void truncate(int size) {
+			count = Math.min(count, size);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package se.sundsvall.billingpreprocessor.service.creator;
+
+import java.math.BigDecimal;
+import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+
+import static se.sundsvall.billingpreprocessor.service.util.CalculationUtil.calculateTotalInvoiceAmount;
+
+/**
+ * Running totals of the billing records written to an invoice file, updated as each billing record is written so that
+ * the file footer can be produced without keeping the billing records of the file.
+ */
+public class InvoiceFileTotals {
+
+	private int recordCount;
+	private BigDecimal totalAmount = BigDecimal.ZERO;
+
+	/**
+	 * Method adding a written billing record to the totals
+	 *
+	 * @param billingRecord the billing record that has been written to the file
+	 */
+	public void add(BillingRecordEntity billingRecord) {
+		add(calculateTotalInvoiceAmount(billingRecord.getInvoice()));
+	}
+
+	/**
+	 * Method adding a written billing record to the totals by its (already calculated) total invoice amount
+	 *
+	 * @param invoiceAmount the total invoice amount of the billing record that has been written to the file
+	 */
+	public void add(BigDecimal invoiceAmount) {
+		recordCount++;
+		totalAmount = totalAmount.add(invoiceAmount);
+	}
+
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	public BigDecimal getTotalAmount() {
+		return totalAmount;
+	}
+
+	public boolean isEmpty() {
+		return recordCount == 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("InvoiceFileTotals [recordCount=").append(recordCount).append(", totalAmount=").append(totalAmount).append("]");
+		return builder.toString();
+	}
+}
@@ -1,23 +1,66 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
+import generated.se.sundsvall.party.PartyType;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import se.sundsvall.billingpreprocessor.integration.party.PartyClient;
+import se.sundsvall.billingpreprocessor.service.creator.config.LegalIdProviderProperties;
 import se.sundsvall.dept44.problem.Problem;
 
 import static generated.se.sundsvall.party.PartyType.ENTERPRISE;
 import static generated.se.sundsvall.party.PartyType.PRIVATE;
 import static java.lang.String.format;
+import static java.util.Collections.synchronizedMap;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.ofNullable;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createProblem;
 
+/**
+ * Component translating party ids to legal ids. Resolved legal ids are kept in a time and size bounded cache together
+ * with the party type they were found as, so that each party only is looked up once per cache period (and then with
+ * the right party type first).
+ */
 @Component
 public class LegalIdProvider {
+	private static final Logger LOG = LoggerFactory.getLogger(LegalIdProvider.class);
+
 	private final PartyClient partyClient;
+	private final LegalIdProviderProperties properties;
+	private final Clock clock;
+	private final Map<PartyKey, ResolvedParty> cache;
+
+	@Autowired
+	public LegalIdProvider(PartyClient partyClient, LegalIdProviderProperties properties) {
+		this(partyClient, properties, Clock.systemDefaultZone());
+	}
 
-	public LegalIdProvider(PartyClient partyClient) {
+	LegalIdProvider(PartyClient partyClient, LegalIdProviderProperties properties, Clock clock) {
 		this.partyClient = partyClient;
+		this.properties = properties;
+		this.clock = clock;
+		this.cache = synchronizedMap(new LinkedHashMap<PartyKey, ResolvedParty>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PartyKey, ResolvedParty> eldest) {
+				return size() > properties.cacheMaxSize();
+			}
+		});
 	}
 
 	public String translateToLegalId(String municipalityId, String partyId) {
@@ -25,8 +68,85 @@ public class LegalIdProvider {
 			throw Problem.valueOf(INTERNAL_SERVER_ERROR, "Party id is not present");
 		}
 
-		return partyClient.getLegalId(municipalityId, PRIVATE, partyId)
-			.or(() -> partyClient.getLegalId(municipalityId, ENTERPRISE, partyId))
-			.orElseThrow(createProblem(NOT_FOUND, format("PartyId '%s' could not be found as a private customer or an enterprise customer", partyId)));
+		final var key = new PartyKey(municipalityId, partyId);
+		final var cached = cache.get(key);
+		if (nonNull(cached) && cached.expires().isAfter(clock.instant())) {
+			return cached.legalId();
+		}
+
+		// Look up the party type that the party was last found as first, to avoid a redundant call when the entry has expired
+		final var partyTypes = nonNull(cached) && cached.partyType() == ENTERPRISE ? List.of(ENTERPRISE, PRIVATE) : List.of(PRIVATE, ENTERPRISE);
+		for (final var partyType : partyTypes) {
+			final var legalId = partyClient.getLegalId(municipalityId, partyType, partyId);
+			if (legalId.isPresent()) {
+				cache.put(key, new ResolvedParty(legalId.get(), partyType, clock.instant().plus(properties.cacheTimeToLive())));
+				return legalId.get();
+			}
+		}
+
+		throw createProblem(NOT_FOUND, format("PartyId '%s' could not be found as a private customer or an enterprise customer", partyId)).get();
+	}
+
+	/**
+	 * Method for resolving legal ids for a batch of party ids in advance. Party ids are deduplicated and resolved
+	 * concurrently (limited by configured parallelism) with the diagnostic context of the caller, leaving the results in
+	 * the cache for the following calls to {@link #translateToLegalId(String, String)}. Party ids that can not be resolved
+	 * are ignored here, as the error will be reported when the legal id is requested for the individual billing record.
+	 *
+	 * @param municipalityId the municipality id of the parties
+	 * @param partyIds       the party ids to resolve legal ids for
+	 */
+	public void prefetch(String municipalityId, Collection<String> partyIds) {
+		final var now = clock.instant();
+		final var unresolvedPartyIds = partyIds.stream()
+			.filter(partyId -> isNotBlank(partyId) && !isCached(new PartyKey(municipalityId, partyId), now))
+			.distinct()
+			.toList();
+
+		if (unresolvedPartyIds.isEmpty()) {
+			return;
+		}
+
+		final var permits = new Semaphore(Math.max(1, properties.parallelism()));
+		final var mdcContext = MDC.getCopyOfContextMap();
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			unresolvedPartyIds.forEach(partyId -> executor.submit(() -> {
+				ofNullable(mdcContext).ifPresent(MDC::setContextMap);
+				try {
+					resolve(permits, municipalityId, partyId);
+				} finally {
+					MDC.clear();
+				}
+			}));
+		}
+	}
+
+	private boolean isCached(PartyKey key, Instant now) {
+		final var cached = cache.get(key);
+		return nonNull(cached) && cached.expires().isAfter(now);
+	}
+
+	private void resolve(Semaphore permits, String municipalityId, String partyId) {
+		try {
+			permits.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+
+		try {
+			translateToLegalId(municipalityId, partyId);
+		} catch (final RuntimeException e) {
+			LOG.debug("Legal id for party id '{}' could not be resolved in advance", partyId, e);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private record PartyKey(String municipalityId, String partyId) {
+	}
+
+	private record ResolvedParty(String legalId, PartyType partyType, Instant expires) {
 	}
 }
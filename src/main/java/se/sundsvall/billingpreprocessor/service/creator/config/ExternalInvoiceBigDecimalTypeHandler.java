@@ -3,29 +3,64 @@ package se.sundsvall.billingpreprocessor.service.creator.config;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import org.beanio.types.BigDecimalTypeHandler;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.BufferedTypeHandler;
 
 import static java.util.Objects.isNull;
-import static java.util.Optional.ofNullable;
 
-public class ExternalInvoiceBigDecimalTypeHandler extends BigDecimalTypeHandler {
+public class ExternalInvoiceBigDecimalTypeHandler extends BigDecimalTypeHandler implements BufferedTypeHandler {
 	public static final String NAME = "externalInvoiceBigDecimalTypeHandler";
+	private static final int SCALE = 2;
+	private static final int MAX_LONG_PRECISION = 18;
+	private static final int MAX_LENGTH = 64;
+	private static final FixedPointAmountFormatter DEFAULT_FORMATTER = new FixedPointAmountFormatter("", "-", 1, 0, '.', '0');
+
+	private FixedPointAmountFormatter formatter = DEFAULT_FORMATTER;
+
+	@Override
+	public void setPattern(String pattern) {
+		super.setPattern(pattern);
+		formatter = isNull(pattern) ? DEFAULT_FORMATTER : FixedPointAmountFormatter.fromIntegerPattern(pattern).orElse(null);
+	}
 
 	@Override
 	public String format(Object value) {
-		return ofNullable(value)
-			.filter(BigDecimal.class::isInstance)
-			.map(BigDecimal.class::cast)
-			.map(bd -> bd.setScale(2, RoundingMode.HALF_UP)) // Set scale to 2 and round by HALF_UP (e.g. 1.235 -> 1.24 and 1.234999 -> 1.23)
-			.map(bd -> bd.movePointRight(2)) // Move the two first decimals into the integer part of the number (e.g. 1.23 -> 123)
-			.map(this::format)
-			.orElse(null);
+		if (!(value instanceof final BigDecimal amount)) {
+			return null;
+		}
+
+		final var buffer = new char[MAX_LENGTH];
+		final var length = format(amount, buffer);
+		return length < 0 ? formatWithDecimalFormat(amount) : new String(buffer, 0, length);
+	}
+
+	@Override
+	public int format(Object value, char[] buffer) {
+		return value instanceof final BigDecimal amount ? format(amount, buffer) : -1;
+	}
+
+	/**
+	 * Method formatting the amount in cents, rounded by HALF_UP (e.g. 1.235 -> 124 and 1.234999 -> 123), into the buffer.
+	 * Amounts that do not fit in a long when expressed in cents, or patterns not supported by the fixed-point formatter,
+	 * are left for {@link #formatWithDecimalFormat(BigDecimal)}.
+	 */
+	private int format(BigDecimal amount, char[] buffer) {
+		final var rounded = amount.setScale(SCALE, RoundingMode.HALF_UP);
+		if (isNull(formatter) || rounded.precision() > MAX_LONG_PRECISION) {
+			return -1;
+		}
+
+		final var cents = rounded.movePointRight(SCALE).longValue();
+		// Without pattern the amount is written as an int, in the same way as BigDecimal.intValue() does
+		final var value = isNull(getPattern()) ? (int) cents : cents;
+		return formatter.format(Math.abs(value), value < 0, buffer);
 	}
 
-	private String format(BigDecimal value) {
+	private String formatWithDecimalFormat(BigDecimal amount) {
+		final var cents = amount.setScale(SCALE, RoundingMode.HALF_UP).movePointRight(SCALE);
 		if (isNull(getPattern())) {
-			return String.valueOf(value.intValue());
+			return String.valueOf(cents.intValue());
 		}
 
-		return createDecimalFormat().format(value);
+		return createDecimalFormat().format(cents);
 	}
 }
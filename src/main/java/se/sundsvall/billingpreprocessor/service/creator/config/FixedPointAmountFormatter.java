@@ -0,0 +1,115 @@
+package se.sundsvall.billingpreprocessor.service.creator.config;
+
+import java.text.DecimalFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Formatter writing fixed-point amounts, represented as an unscaled long value, straight into a buffer supplied by the
+ * caller. It covers the representations used by the invoice files, i.e. the amount in cents zero-padded to a minimum
+ * number of digits (as the DecimalFormat pattern "+00000000000000;-00000000000000" does) and the amount with a decimal
+ * separator and a fixed number of decimals (as the DecimalFormat pattern "#.00;-#.00" does), without creating any
+ * objects when formatting.
+ */
+final class FixedPointAmountFormatter {
+
+	private static final Pattern INTEGER_PATTERN = Pattern.compile("[+-]*0+(;[+-]*0+)?");
+
+	private final String positivePrefix;
+	private final String negativePrefix;
+	private final int minimumIntegerDigits;
+	private final int fractionDigits;
+	private final char decimalSeparator;
+	private final char zeroDigit;
+
+	/**
+	 * Creates a formatter for the sent in representation
+	 *
+	 * @param positivePrefix       prefix to write before positive values
+	 * @param negativePrefix       prefix to write before negative values
+	 * @param minimumIntegerDigits minimum number of digits to write before the decimal separator (padded with zeros)
+	 * @param fractionDigits       number of digits in the unscaled value to write after the decimal separator, where 0
+	 *                             means that the unscaled value is written as an integer without decimal separator
+	 * @param decimalSeparator     the decimal separator to use
+	 * @param zeroDigit            the character representing the digit zero
+	 */
+	FixedPointAmountFormatter(String positivePrefix, String negativePrefix, int minimumIntegerDigits, int fractionDigits, char decimalSeparator, char zeroDigit) {
+		this.positivePrefix = positivePrefix;
+		this.negativePrefix = negativePrefix;
+		this.minimumIntegerDigits = minimumIntegerDigits;
+		this.fractionDigits = fractionDigits;
+		this.decimalSeparator = decimalSeparator;
+		this.zeroDigit = zeroDigit;
+	}
+
+	/**
+	 * Method creating a formatter producing the same output as the sent in DecimalFormat, which is expected to have a
+	 * fixed number of fraction digits and neither suffixes, grouping nor multiplier. Prefixes and symbols are taken from
+	 * the DecimalFormat, meaning that a minus sign is written as the minus sign of its locale.
+	 *
+	 * @param  decimalFormat the DecimalFormat to create a formatter for
+	 * @return               a formatter for the DecimalFormat
+	 */
+	static FixedPointAmountFormatter of(DecimalFormat decimalFormat) {
+		final var symbols = decimalFormat.getDecimalFormatSymbols();
+		return new FixedPointAmountFormatter(decimalFormat.getPositivePrefix(), decimalFormat.getNegativePrefix(), decimalFormat.getMinimumIntegerDigits(),
+			decimalFormat.getMinimumFractionDigits(), symbols.getDecimalSeparator(), symbols.getZeroDigit());
+	}
+
+	/**
+	 * Method creating a formatter for integer DecimalFormat patterns consisting of an optional sign prefix followed by
+	 * zeros, optionally followed by a negative subpattern of the same kind (e.g. "+0000;-0000"), using the symbols of the
+	 * default locale in the same way as DecimalFormat does.
+	 *
+	 * @param  pattern the pattern to create a formatter for
+	 * @return         an optional formatter for the pattern, empty if the pattern is not supported by this formatter
+	 */
+	static Optional<FixedPointAmountFormatter> fromIntegerPattern(String pattern) {
+		return Optional.of(pattern)
+			.filter(INTEGER_PATTERN.asMatchPredicate())
+			.map(DecimalFormat::new)
+			.map(FixedPointAmountFormatter::of);
+	}
+
+	/**
+	 * Method formatting the sent in unscaled value into the start of the sent in buffer
+	 *
+	 * @param  unscaledValue the absolute unscaled value to format
+	 * @param  negative      true if the value is negative, false otherwise
+	 * @param  buffer        the buffer to write the formatted value to
+	 * @return               the number of characters written, or -1 if the formatted value does not fit in the buffer
+	 */
+	int format(long unscaledValue, boolean negative, char[] buffer) {
+		final var prefix = negative ? negativePrefix : positivePrefix;
+		final var integerDigits = Math.max(digitCount(unscaledValue) - fractionDigits, minimumIntegerDigits);
+		final var length = prefix.length() + integerDigits + (fractionDigits > 0 ? fractionDigits + 1 : 0);
+		if (length > buffer.length) {
+			return -1;
+		}
+
+		prefix.getChars(0, prefix.length(), buffer, 0);
+
+		var remaining = unscaledValue;
+		var position = length;
+		for (var i = 0; i < fractionDigits; i++) {
+			buffer[--position] = (char) (zeroDigit + remaining % 10);
+			remaining /= 10;
+		}
+		if (fractionDigits > 0) {
+			buffer[--position] = decimalSeparator;
+		}
+		while (position > prefix.length()) {
+			buffer[--position] = (char) (zeroDigit + remaining % 10);
+			remaining /= 10;
+		}
+		return length;
+	}
+
+	private static int digitCount(long value) {
+		var count = 0;
+		for (var remaining = value; remaining > 0; remaining /= 10) {
+			count++;
+		}
+		return count;
+	}
+}
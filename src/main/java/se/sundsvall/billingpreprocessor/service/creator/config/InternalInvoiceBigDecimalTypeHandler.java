@@ -1,40 +1,69 @@
 package se.sundsvall.billingpreprocessor.service.creator.config;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
-import java.util.Optional;
 import org.beanio.types.BigDecimalTypeHandler;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.BufferedTypeHandler;
 
 import static java.util.Objects.isNull;
+import static java.util.Optional.ofNullable;
 
-public class InternalInvoiceBigDecimalTypeHandler extends BigDecimalTypeHandler {
+public class InternalInvoiceBigDecimalTypeHandler extends BigDecimalTypeHandler implements BufferedTypeHandler {
 	public static final String NAME = "internalInvoiceBigDecimalTypeHandler";
-	private static final DecimalFormatSymbols SYMBOLS = new DecimalFormatSymbols(Locale.getDefault());
-	private static final DecimalFormat DEFAULT_FORMAT = new DecimalFormat("#.00;-#.00");
+	private static final String DEFAULT_PATTERN = "#.00;-#.00";
+	private static final DecimalFormatSymbols SYMBOLS = createSymbols();
+	private static final int SCALE = 2;
+	private static final int MAX_LONG_PRECISION = 18;
+	private static final int MAX_LENGTH = 64;
+	private static final FixedPointAmountFormatter DEFAULT_FORMATTER = FixedPointAmountFormatter.of(createDecimalFormat(DEFAULT_PATTERN));
 
-	public InternalInvoiceBigDecimalTypeHandler() {
-		SYMBOLS.setDecimalSeparator('.');
-		DEFAULT_FORMAT.setDecimalFormatSymbols(SYMBOLS);
+	@Override
+	public String format(Object value) {
+		if (!(value instanceof final BigDecimal amount)) {
+			return null;
+		}
+
+		final var buffer = new char[MAX_LENGTH];
+		final var length = format(amount, buffer);
+		return length < 0 ? formatWithDecimalFormat(amount) : new String(buffer, 0, length);
 	}
 
 	@Override
-	public String format(Object value) {
-		return Optional.ofNullable(value)
-			.filter(BigDecimal.class::isInstance)
-			.map(BigDecimal.class::cast)
-			.map(this::format)
-			.orElse(null);
+	public int format(Object value, char[] buffer) {
+		return value instanceof final BigDecimal amount ? format(amount, buffer) : -1;
 	}
 
-	private String format(BigDecimal value) {
-		if (isNull(getPattern())) {
-			return DEFAULT_FORMAT.format(value);
+	/**
+	 * Method formatting the amount with two decimals into the buffer. Rounding and sign follow DecimalFormat, i.e. the
+	 * amount is rounded by HALF_EVEN and keeps its minus sign when rounded to zero (e.g. -0.001 -> -.00). Amounts that do
+	 * not fit in a long when expressed in cents, or handlers configured with a pattern, are left for
+	 * {@link #formatWithDecimalFormat(BigDecimal)}.
+	 */
+	private int format(BigDecimal amount, char[] buffer) {
+		final var rounded = amount.setScale(SCALE, RoundingMode.HALF_EVEN);
+		if (!isNull(getPattern()) || rounded.precision() > MAX_LONG_PRECISION) {
+			return -1;
 		}
 
-		final var decimalFormat = createDecimalFormat();
+		return DEFAULT_FORMATTER.format(Math.abs(rounded.movePointRight(SCALE).longValue()), amount.signum() < 0, buffer);
+	}
+
+	private String formatWithDecimalFormat(BigDecimal amount) {
+		return createDecimalFormat(ofNullable(getPattern()).orElse(DEFAULT_PATTERN)).format(amount);
+	}
+
+	private static DecimalFormat createDecimalFormat(String pattern) {
+		final var decimalFormat = new DecimalFormat(pattern);
 		decimalFormat.setDecimalFormatSymbols(SYMBOLS);
-		return decimalFormat.format(value);
+		return decimalFormat;
+	}
+
+	private static DecimalFormatSymbols createSymbols() {
+		final var symbols = new DecimalFormatSymbols(Locale.getDefault());
+		symbols.setDecimalSeparator('.');
+		return symbols;
 	}
 }
@@ -1,50 +1,86 @@
 package se.sundsvall.billingpreprocessor.service.creator.config;
 
+import java.util.List;
+import java.util.Map;
 import org.beanio.builder.FixedLengthParserBuilder;
 import org.beanio.builder.StreamBuilder;
+import org.beanio.types.TypeHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
 
 import static org.apache.commons.text.StringEscapeUtils.unescapeJava;
 
+/**
+ * Configuration of the record definitions for internal and external invoice files. The records are written by
+ * {@link FixedLengthRecordEncoder} encoders, while the BeanIO streams built from the same definitions serve as the
+ * reference that the output of the encoders is verified against.
+ */
 @Configuration
 public class InvoiceCreatorConfig {
 	public static final String INTERNAL_INVOICE_BUILDER = "internalInvoiceFileBuilder";
 	public static final String EXTERNAL_INVOICE_BUILDER = "externalInvoiceFileBuilder";
+	public static final String INTERNAL_INVOICE_ENCODER = "internalInvoiceFileEncoder";
+	public static final String EXTERNAL_INVOICE_ENCODER = "externalInvoiceFileEncoder";
 	private static final String FIXED_LENGTH = "fixedlength";
 
+	static final List<Class<?>> INTERNAL_INVOICE_RECORDS = List.of(
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.FileHeaderRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceHeaderRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceDescriptionRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceRowDescriptionRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceAccountingRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceFooterRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.internal.FileFooterRow.class);
+
+	static final List<Class<?>> EXTERNAL_INVOICE_RECORDS = List.of(
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.FileHeaderRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.CustomerRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceHeaderRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceDescriptionRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceAccountingRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceFooterRow.class,
+		se.sundsvall.billingpreprocessor.service.creator.definition.external.FileFooterRow.class);
+
 	@Bean(INTERNAL_INVOICE_BUILDER)
 	StreamBuilder internalInvoiceStreamBuilder(InvoiceCreatorProperties properties) {
-
-		return new StreamBuilder(INTERNAL_INVOICE_BUILDER)
-			.format(FIXED_LENGTH)
-			.parser(new FixedLengthParserBuilder().recordTerminator(unescapeJava(properties.recordTerminator())))
-			.addTypeHandler(InternalInvoiceBigDecimalTypeHandler.NAME, new InternalInvoiceBigDecimalTypeHandler())
-			.addTypeHandler(InternalInvoiceIntegerTypeHandler.NAME, new InternalInvoiceIntegerTypeHandler())
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.FileHeaderRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceHeaderRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceDescriptionRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceRowDescriptionRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceAccountingRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceFooterRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.internal.FileFooterRow.class);
+		return toStreamBuilder(INTERNAL_INVOICE_BUILDER, properties, internalInvoiceTypeHandlers(), INTERNAL_INVOICE_RECORDS);
 	}
 
 	@Bean(EXTERNAL_INVOICE_BUILDER)
 	StreamBuilder externalInvoiceStreamBuilder(InvoiceCreatorProperties properties) {
+		return toStreamBuilder(EXTERNAL_INVOICE_BUILDER, properties, externalInvoiceTypeHandlers(), EXTERNAL_INVOICE_RECORDS);
+	}
+
+	@Bean(INTERNAL_INVOICE_ENCODER)
+	FixedLengthRecordEncoder internalInvoiceEncoder(InvoiceCreatorProperties properties) {
+		return new FixedLengthRecordEncoder(unescapeJava(properties.recordTerminator()), internalInvoiceTypeHandlers(), INTERNAL_INVOICE_RECORDS);
+	}
 
-		return new StreamBuilder(EXTERNAL_INVOICE_BUILDER)
+	@Bean(EXTERNAL_INVOICE_ENCODER)
+	FixedLengthRecordEncoder externalInvoiceEncoder(InvoiceCreatorProperties properties) {
+		return new FixedLengthRecordEncoder(unescapeJava(properties.recordTerminator()), externalInvoiceTypeHandlers(), EXTERNAL_INVOICE_RECORDS);
+	}
+
+	static Map<String, TypeHandler> internalInvoiceTypeHandlers() {
+		return Map.of(
+			InternalInvoiceBigDecimalTypeHandler.NAME, new InternalInvoiceBigDecimalTypeHandler(),
+			InternalInvoiceIntegerTypeHandler.NAME, new InternalInvoiceIntegerTypeHandler());
+	}
+
+	static Map<String, TypeHandler> externalInvoiceTypeHandlers() {
+		return Map.of(ExternalInvoiceBigDecimalTypeHandler.NAME, new ExternalInvoiceBigDecimalTypeHandler());
+	}
+
+	private static StreamBuilder toStreamBuilder(String name, InvoiceCreatorProperties properties, Map<String, TypeHandler> typeHandlers, List<Class<?>> records) {
+		final var builder = new StreamBuilder(name)
 			.format(FIXED_LENGTH)
-			.parser(new FixedLengthParserBuilder().recordTerminator(unescapeJava(properties.recordTerminator())))
-			.addTypeHandler(ExternalInvoiceBigDecimalTypeHandler.NAME, new ExternalInvoiceBigDecimalTypeHandler())
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.FileHeaderRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.CustomerRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceHeaderRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceDescriptionRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceAccountingRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.InvoiceFooterRow.class)
-			.addRecord(se.sundsvall.billingpreprocessor.service.creator.definition.external.FileFooterRow.class);
+			.parser(new FixedLengthParserBuilder().recordTerminator(unescapeJava(properties.recordTerminator())));
+
+		typeHandlers.forEach(builder::addTypeHandler);
+		records.forEach(builder::addRecord);
+		return builder;
 	}
 }
@@ -1,7 +1,11 @@
 package se.sundsvall.billingpreprocessor.service.creator.config;
 
+import jakarta.validation.constraints.Positive;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
 
+@Validated
 @ConfigurationProperties("invoicecreator")
-public record InvoiceCreatorProperties(String recordTerminator) {
+public record InvoiceCreatorProperties(String recordTerminator, @Positive @DefaultValue("500") int pageSize, @Positive @DefaultValue("1") int parallelism) {
 }
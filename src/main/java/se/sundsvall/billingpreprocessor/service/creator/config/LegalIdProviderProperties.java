@@ -0,0 +1,9 @@
+package se.sundsvall.billingpreprocessor.service.creator.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("legalidprovider")
+public record LegalIdProviderProperties(@DefaultValue("10") int parallelism, @DefaultValue("PT1H") Duration cacheTimeToLive, @DefaultValue("10000") int cacheMaxSize) {
+}
@@ -0,0 +1,21 @@
+package se.sundsvall.billingpreprocessor.service.creator.encoder;
+
+import org.beanio.types.TypeHandler;
+
+/**
+ * Type handler that is able to format values straight into a buffer supplied by the caller, which lets
+ * {@link FixedLengthRecordEncoder} encode field values without creating an intermediate string per field.
+ */
+public interface BufferedTypeHandler extends TypeHandler {
+
+	/**
+	 * Method formatting the sent in value into the start of the sent in buffer
+	 *
+	 * @param  value  the value to format (never null)
+	 * @param  buffer the buffer to write the formatted value to
+	 * @return        the number of characters written to the buffer, or a negative value if the value could not be
+	 *                formatted into the buffer, in which case the caller is expected to use {@link #format(Object)}
+	 *                instead
+	 */
+	int format(Object value, char[] buffer);
+}
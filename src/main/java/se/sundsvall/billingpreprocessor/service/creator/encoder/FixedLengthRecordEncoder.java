@@ -0,0 +1,268 @@
+package se.sundsvall.billingpreprocessor.service.creator.encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.beanio.annotation.Field;
+import org.beanio.annotation.Fields;
+import org.beanio.builder.Align;
+import org.beanio.types.ConfigurableTypeHandler;
+import org.beanio.types.TypeHandler;
+import org.beanio.types.TypeHandlerFactory;
+
+import static java.nio.charset.CodingErrorAction.REPLACE;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Optional.ofNullable;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toUnmodifiableMap;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createInternalServerErrorProblem;
+
+/**
+ * Encoder writing records defined by BeanIO annotations in fixed-length format, producing the same output as a BeanIO
+ * fixed-length stream with the same record definitions and type handlers. The annotations are read once when the
+ * encoder is created, resulting in an encoding plan per record type that holds position, length, alignment, padding,
+ * accessor and (when needed) type handler for each field. Records are then written by copying field values straight
+ * into a reusable buffer, without reflection, type handler lookup or per-field padding on the write path.
+ */
+public final class FixedLengthRecordEncoder {
+
+	private static final String FIXED_LENGTH = "fixedlength";
+	private static final String FORMAT_SETTING = "format";
+	private static final char DEFAULT_PADDING = ' ';
+	private static final int FORMAT_BUFFER_LENGTH = 64;
+	private static final String NO_RECORD_DEFINITION = "No record definition present for %s";
+
+	private final char[] recordTerminator;
+	private final Map<Class<?>, RecordDefinition> recordDefinitions;
+	private final int maxRecordLength;
+
+	/**
+	 * Creates an encoder for the sent in record types
+	 *
+	 * @param recordTerminator the terminator to write after each record
+	 * @param typeHandlers     named type handlers referenced by the handlerName attribute of the field definitions
+	 * @param recordTypes      the record types (classes annotated with BeanIO record and field annotations) to encode
+	 */
+	public FixedLengthRecordEncoder(String recordTerminator, Map<String, TypeHandler> typeHandlers, List<Class<?>> recordTypes) {
+		this.recordTerminator = recordTerminator.toCharArray();
+		this.recordDefinitions = recordTypes.stream()
+			.collect(toUnmodifiableMap(identity(), recordType -> toRecordDefinition(recordType, typeHandlers)));
+		this.maxRecordLength = recordDefinitions.values().stream()
+			.mapToInt(RecordDefinition::length)
+			.max()
+			.orElse(0);
+	}
+
+	/**
+	 * Method creating a writer that encodes records to the sent in output stream. The writer holds its own buffers and is
+	 * therefore not thread safe, while the encoder can be shared between threads.
+	 *
+	 * @param  outputStream the stream to write encoded records to
+	 * @param  encoding     the encoding to use when writing records
+	 * @return              a writer for the sent in output stream
+	 */
+	public RecordWriter createWriter(OutputStream outputStream, Charset encoding) {
+		return new Writer(outputStream, encoding);
+	}
+
+	private final class Writer implements RecordWriter {
+
+		private final OutputStream outputStream;
+		private final CharsetEncoder charsetEncoder;
+		private final char[] chars;
+		private final char[] formatBuffer;
+		private final CharBuffer charBuffer;
+		private final ByteBuffer byteBuffer;
+
+		private Writer(OutputStream outputStream, Charset encoding) {
+			this.outputStream = outputStream;
+			// Unmappable characters are replaced in the same way as when writing through an OutputStreamWriter
+			this.charsetEncoder = encoding.newEncoder()
+				.onMalformedInput(REPLACE)
+				.onUnmappableCharacter(REPLACE);
+			this.chars = new char[maxRecordLength + recordTerminator.length];
+			this.formatBuffer = new char[FORMAT_BUFFER_LENGTH];
+			this.charBuffer = CharBuffer.wrap(chars);
+			this.byteBuffer = ByteBuffer.allocate((int) Math.ceil(chars.length * (double) charsetEncoder.maxBytesPerChar()));
+		}
+
+		@Override
+		public void write(Object record) {
+			final var recordDefinition = isNull(record) ? null : recordDefinitions.get(record.getClass());
+			if (isNull(recordDefinition)) {
+				throw createInternalServerErrorProblem(NO_RECORD_DEFINITION.formatted(isNull(record) ? null : record.getClass().getName())).get();
+			}
+
+			final var length = recordDefinition.encode(record, chars, formatBuffer);
+			System.arraycopy(recordTerminator, 0, chars, length, recordTerminator.length);
+
+			charBuffer.clear().limit(length + recordTerminator.length);
+			byteBuffer.clear();
+			charsetEncoder.reset();
+			charsetEncoder.encode(charBuffer, byteBuffer, true);
+			charsetEncoder.flush(byteBuffer);
+
+			try {
+				outputStream.write(byteBuffer.array(), 0, byteBuffer.position());
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private static RecordDefinition toRecordDefinition(Class<?> recordType, Map<String, TypeHandler> typeHandlers) {
+		final var fieldDefinitions = new ArrayList<FieldDefinition>();
+
+		ofNullable(recordType.getAnnotation(Fields.class))
+			.map(Fields::value)
+			.ifPresent(fields -> Arrays.stream(fields).map(field -> toFieldDefinition(field, null, null)).forEach(fieldDefinitions::add));
+
+		for (final var field : recordType.getDeclaredFields()) {
+			ofNullable(field.getAnnotation(Field.class))
+				.map(annotation -> toFieldDefinition(annotation, toGetter(recordType, field), resolveTypeHandler(annotation, field.getType(), typeHandlers)))
+				.ifPresent(fieldDefinitions::add);
+		}
+
+		return new RecordDefinition(
+			fieldDefinitions.stream().mapToInt(fieldDefinition -> fieldDefinition.position() + fieldDefinition.length()).max().orElse(0),
+			fieldDefinitions.toArray(FieldDefinition[]::new));
+	}
+
+	private static FieldDefinition toFieldDefinition(Field annotation, MethodHandle getter, TypeHandler typeHandler) {
+		final int padding = annotation.padding();
+		return new FieldDefinition(
+			annotation.at(),
+			annotation.length(),
+			annotation.align() == Align.RIGHT,
+			padding == Character.MIN_VALUE || padding == Integer.MIN_VALUE ? DEFAULT_PADDING : (char) padding,
+			isEmpty(annotation.literal()) ? null : annotation.literal(),
+			getter,
+			typeHandler);
+	}
+
+	private static MethodHandle toGetter(Class<?> recordType, java.lang.reflect.Field field) {
+		try {
+			return MethodHandles.privateLookupIn(recordType, MethodHandles.lookup())
+				.unreflectGetter(field)
+				.asType(MethodType.methodType(Object.class, Object.class));
+		} catch (final IllegalAccessException e) {
+			throw new IllegalStateException("Field %s in %s is not accessible".formatted(field.getName(), recordType.getName()), e);
+		}
+	}
+
+	/**
+	 * Method resolving the type handler for a field in the same way as BeanIO does, i.e. a named handler (configured with
+	 * the format of the field if the handler is configurable) or the default handler for the type and stream format. Plain
+	 * string fields need no handler as their value is written as is.
+	 */
+	private static TypeHandler resolveTypeHandler(Field annotation, Class<?> type, Map<String, TypeHandler> typeHandlers) {
+		final var properties = new Properties();
+		if (isNotEmpty(annotation.format())) {
+			properties.setProperty(FORMAT_SETTING, annotation.format());
+		}
+
+		if (isNotEmpty(annotation.handlerName())) {
+			final var typeHandler = ofNullable(typeHandlers.get(annotation.handlerName()))
+				.orElseThrow(() -> new IllegalStateException("No type handler named %s present".formatted(annotation.handlerName())));
+			return typeHandler instanceof final ConfigurableTypeHandler configurableTypeHandler && !properties.isEmpty() ? configurableTypeHandler.newInstance(properties) : typeHandler;
+		}
+
+		if (type == String.class && properties.isEmpty()) {
+			return null;
+		}
+
+		return ofNullable(TypeHandlerFactory.getDefault().getTypeHandlerFor(type, FIXED_LENGTH, properties))
+			.orElseThrow(() -> new IllegalStateException("No type handler present for %s".formatted(type.getName())));
+	}
+
+	private record RecordDefinition(int length, FieldDefinition[] fields) {
+
+		/**
+		 * Method encoding the record into the start of the buffer, where space between fields is filled with spaces
+		 *
+		 * @return the length of the encoded record
+		 */
+		int encode(Object record, char[] buffer, char[] formatBuffer) {
+			Arrays.fill(buffer, 0, length, DEFAULT_PADDING);
+			for (final var field : fields) {
+				field.encode(record, buffer, formatBuffer);
+			}
+			return length;
+		}
+	}
+
+	private record FieldDefinition(int position, int length, boolean rightAligned, char padding, String literal, MethodHandle getter, TypeHandler typeHandler) {
+
+		/**
+		 * Method encoding the field into the buffer. Values of fields with a {@link BufferedTypeHandler} are formatted into
+		 * the format buffer and copied from there, while other values are formatted into a string.
+		 */
+		void encode(Object record, char[] buffer, char[] formatBuffer) {
+			if (nonNull(literal)) {
+				write(literal, buffer);
+				return;
+			}
+
+			final var value = getValue(record);
+			if (nonNull(value) && typeHandler instanceof final BufferedTypeHandler bufferedTypeHandler) {
+				final var formattedLength = bufferedTypeHandler.format(value, formatBuffer);
+				if (formattedLength >= 0) {
+					final var textLength = Math.min(formattedLength, length);
+					System.arraycopy(formatBuffer, 0, buffer, pad(textLength, buffer), textLength);
+					return;
+				}
+			}
+
+			write(isNull(value) || isNull(typeHandler) ? (String) value : typeHandler.format(value), buffer);
+		}
+
+		private void write(String text, char[] buffer) {
+			// Text exceeding the field length is truncated and shorter text is padded, as done by BeanIO
+			final var textLength = isNull(text) ? 0 : Math.min(text.length(), length);
+			final var offset = pad(textLength, buffer);
+			if (textLength > 0) {
+				text.getChars(0, textLength, buffer, offset);
+			}
+		}
+
+		/**
+		 * Method padding the part of the field that is not occupied by text of the sent in length
+		 *
+		 * @return the offset in the buffer where the text is to be written
+		 */
+		private int pad(int textLength, char[] buffer) {
+			final var end = position + length;
+			if (rightAligned) {
+				Arrays.fill(buffer, position, end - textLength, padding);
+				return end - textLength;
+			}
+			Arrays.fill(buffer, position + textLength, end, padding);
+			return position;
+		}
+
+		private Object getValue(Object record) {
+			try {
+				return getter.invokeExact(record);
+			} catch (final RuntimeException e) {
+				throw e;
+			} catch (final Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package se.sundsvall.billingpreprocessor.service.creator.encoder;
+
+/**
+ * Writer of records to an invoice file
+ */
+@FunctionalInterface
+public interface RecordWriter {
+
+	/**
+	 * Method writing one record, terminated by the record terminator
+	 *
+	 * @param record the record to write
+	 */
+	void write(Object record);
+}
@@ -13,6 +13,7 @@ import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.RecipientEntity;
+import se.sundsvall.billingpreprocessor.service.creator.InvoiceFileTotals;
 import se.sundsvall.billingpreprocessor.service.creator.definition.external.CustomerRow;
 import se.sundsvall.billingpreprocessor.service.creator.definition.external.FileFooterRow;
 import se.sundsvall.billingpreprocessor.service.creator.definition.external.FileHeaderRow;
@@ -45,7 +46,6 @@ import static se.sundsvall.billingpreprocessor.Constants.ERROR_SUBACCOUNT_NOT_PR
 import static se.sundsvall.billingpreprocessor.Constants.ERROR_VAT_CODE_NOT_PRESENT;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.DETAILED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.STANDARD;
-import static se.sundsvall.billingpreprocessor.service.util.CalculationUtil.calculateTotalAmount;
 import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createInternalServerErrorProblem;
 
 public final class ExternalInvoiceMapper {
@@ -70,12 +70,12 @@ public final class ExternalInvoiceMapper {
 	/**
 	 * Method for creating a file footer row for external invoice files
 	 *
-	 * @param  billingRecords list of billing records present in the file
-	 * @return                FileFooterRow for external invoice files
+	 * @param  totals totals of the billing records present in the file
+	 * @return        FileFooterRow for external invoice files
 	 */
-	public static FileFooterRow toFileFooter(final List<BillingRecordEntity> billingRecords) {
+	public static FileFooterRow toFileFooter(final InvoiceFileTotals totals) {
 		return FileFooterRow.create()
-			.withTotalAmount(calculateTotalAmount(billingRecords));
+			.withTotalAmount(totals.getTotalAmount());
 	}
 
 	/**
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.StringUtils;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
+import se.sundsvall.billingpreprocessor.service.creator.InvoiceFileTotals;
 import se.sundsvall.billingpreprocessor.service.creator.definition.internal.FileFooterRow;
 import se.sundsvall.billingpreprocessor.service.creator.definition.internal.FileHeaderRow;
 import se.sundsvall.billingpreprocessor.service.creator.definition.internal.InvoiceAccountingRow;
@@ -30,7 +31,6 @@ import static se.sundsvall.billingpreprocessor.Constants.ERROR_SUBACCOUNT_NOT_PR
 import static se.sundsvall.billingpreprocessor.Constants.ERROR_TOTAL_AMOUNT_NOT_PRESENT;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.DETAILED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.STANDARD;
-import static se.sundsvall.billingpreprocessor.service.util.CalculationUtil.calculateTotalAmount;
 import static se.sundsvall.billingpreprocessor.service.util.ProblemUtil.createInternalServerErrorProblem;
 
 public final class InternalInvoiceMapper {
@@ -49,12 +49,12 @@ public final class InternalInvoiceMapper {
 	/**
 	 * Method for creating a file footer row for internal invoice files
 	 *
-	 * @param  billingRecords list of billing records present in the file
-	 * @return                FileFooterRow for internal invoice files
+	 * @param  totals totals of the billing records present in the file
+	 * @return        FileFooterRow for internal invoice files
 	 */
-	public static FileFooterRow toFileFooter(List<BillingRecordEntity> billingRecords) {
+	public static FileFooterRow toFileFooter(InvoiceFileTotals totals) {
 		return FileFooterRow.create()
-			.withTotalAmount(calculateTotalAmount(billingRecords));
+			.withTotalAmount(totals.getTotalAmount());
 	}
 
 	/**
@@ -1,25 +1,35 @@
 package se.sundsvall.billingpreprocessor.service.mapper;
 
 import java.nio.charset.Charset;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileContentEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
 
 import static java.util.Optional.ofNullable;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.GENERATED;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.compress;
 
 public final class InvoiceFileMapper {
 
 	private InvoiceFileMapper() {}
 
-	public static InvoiceFileEntity toInvoiceFileEntity(String name, String type, byte[] content, Charset fileEncoding, String municipalityId) {
+	public static InvoiceFileEntity toInvoiceFileEntity(String name, String type, Charset fileEncoding, String municipalityId) {
 		final var entity = InvoiceFileEntity.create()
 			.withStatus(GENERATED)
 			.withMunicipalityId(municipalityId);
 
 		ofNullable(name).ifPresent(entity::setName);
 		ofNullable(type).ifPresent(entity::setType);
-		ofNullable(content).ifPresent(b -> entity.setContent(new String(b, fileEncoding)));
 		ofNullable(fileEncoding).ifPresent(encoding -> entity.setEncoding(encoding.name()));
 
 		return entity;
 	}
+
+	public static InvoiceFileContentEntity toInvoiceFileContentEntity(InvoiceFileEntity invoiceFile, byte[] content) {
+		final var entity = InvoiceFileContentEntity.create()
+			.withInvoiceFile(invoiceFile);
+
+		ofNullable(content).ifPresent(bytes -> entity.setContent(compress(bytes)));
+
+		return entity;
+	}
 }
@@ -1,59 +1,202 @@
 package se.sundsvall.billingpreprocessor.service.scheduler;
 
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpPropertiesConfig;
 import se.sundsvall.billingpreprocessor.service.InvoiceFileService;
 import se.sundsvall.dept44.requestid.RequestId;
-import se.sundsvall.dept44.scheduling.Dept44Scheduled;
 
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Scheduler for creating and transferring invoice files. Each municipality has its own cron tasks, which only dispatch
+ * the job for the municipality to a bounded executor where it is guarded by its own lock and interrupted if it exceeds
+ * the maximum execution time. A slow municipality therefore does not delay or time out the jobs for the other
+ * municipalities. A job is not dispatched again for a municipality while a previous dispatch of it is still waiting or
+ * running, which keeps the executor queue bounded by the number of jobs and municipalities. The outcome of each job is
+ * reported to {@link InvoiceFileSchedulerHealthIndicator}.
+ */
 @Component
-public class InvoiceFileScheduler {
+public class InvoiceFileScheduler implements SchedulingConfigurer {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(InvoiceFileScheduler.class);
 	private static final String LOG_CREATE_FILES_STARTED = "Beginning creation of invoice files for municipality id {}";
 	private static final String LOG_CREATE_FILES_ENDED = "Ending creation of invoice files for municipality id {}";
 	private static final String LOG_TRANSFER_FILES_STARTED = "Beginning transfer of invoice files for municipality id {}";
 	private static final String LOG_TRANSFER_FILES_ENDED = "Ending transfer of invoice files for municipality id {}";
+	private static final String LOG_JOB_PENDING = "Skipping job {} for municipality id {} as a previous execution is still pending";
+	private static final String LOG_JOB_REJECTED = "Job {} for municipality id {} was rejected by the executor";
+	private static final String LOG_JOB_LOCKED = "Skipping job {} for municipality id {} as it is locked by another execution";
+	private static final String LOG_JOB_FAILED = "Job {} for municipality id {} failed";
+	private static final String LOG_JOB_TIMED_OUT = "Interrupting job {} for municipality id {} as it has exceeded the maximum execution time of {}";
+	private static final String LOCK_NAME = "%s-%s";
+	private static final String JOB_FAILED = "Job failed";
+	private static final String JOB_TIMED_OUT = "Job exceeded the maximum execution time of %s";
 
 	private final InvoiceFileService invoiceFileService;
 	private final SftpPropertiesConfig sftpPropertiesConfig;
+	private final LockProvider lockProvider;
+	private final SchedulerProperties properties;
+	private final InvoiceFileSchedulerHealthIndicator healthIndicator;
+	private final ExecutorService jobExecutor;
+	private final ScheduledExecutorService timeoutExecutor;
+	private final Set<String> pendingJobs = ConcurrentHashMap.newKeySet();
 
-	public InvoiceFileScheduler(final InvoiceFileService invoiceFileService, final SftpPropertiesConfig sftpPropertiesConfig) {
+	public InvoiceFileScheduler(final InvoiceFileService invoiceFileService, final SftpPropertiesConfig sftpPropertiesConfig, final LockProvider lockProvider, final SchedulerProperties properties, final InvoiceFileSchedulerHealthIndicator healthIndicator) {
 		this.invoiceFileService = invoiceFileService;
 		this.sftpPropertiesConfig = sftpPropertiesConfig;
+		this.lockProvider = lockProvider;
+		this.properties = properties;
+		this.healthIndicator = healthIndicator;
+		this.jobExecutor = Executors.newFixedThreadPool(Math.max(1, properties.parallelism()));
+		this.timeoutExecutor = Executors.newSingleThreadScheduledExecutor();
 	}
 
-	@Dept44Scheduled(
-		cron = "${scheduler.createfiles.cron}",
-		name = "${scheduler.createfiles.name}",
-		lockAtMostFor = "${scheduler.shedlock-lock-at-most-for}",
-		maximumExecutionTime = "${scheduler.maximum-execution-time}")
-	public void executeCreateFiles() {
-		// Until separation of cron jobs per municipality is needed all are scheduled with same interval
-		for (final String municipalityId : sftpPropertiesConfig.getMap().keySet()) {
-			RequestId.init();
+	/**
+	 * Method registering one cron task per municipality and job, using the cron expression configured for the
+	 * municipality or the default cron expression for the job when the municipality has no cron expression of its own.
+	 * Every node registers the same tasks, while the lock per job and municipality decides which node that executes
+	 * them, making it possible for different nodes to process different municipalities at the same time.
+	 *
+	 * @param taskRegistrar the registrar to register the cron tasks in
+	 */
+	@Override
+	public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+		sftpPropertiesConfig.getMap().forEach((municipalityId, sftpProperties) -> {
+			taskRegistrar.addCronTask(() -> executeCreateFiles(municipalityId), ofNullable(sftpProperties.getCreateFilesCron()).orElse(properties.createfiles().cron()));
+			taskRegistrar.addCronTask(() -> executeTransferFiles(municipalityId), ofNullable(sftpProperties.getTransferFilesCron()).orElse(properties.transferfiles().cron()));
+		});
+	}
+
+	public void executeCreateFiles(String municipalityId) {
+		dispatch(properties.createfiles().name(), municipalityId, () -> {
 			LOGGER.info(LOG_CREATE_FILES_STARTED, municipalityId);
 			invoiceFileService.createFiles(municipalityId);
 			LOGGER.info(LOG_CREATE_FILES_ENDED, municipalityId);
-			RequestId.reset();
-		}
+		});
 	}
 
-	@Dept44Scheduled(
-		cron = "${scheduler.transferfiles.cron}",
-		name = "${scheduler.transferfiles.name}",
-		lockAtMostFor = "${scheduler.shedlock-lock-at-most-for}",
-		maximumExecutionTime = "${scheduler.maximum-execution-time}")
-	public void executeTransferFiles() {
-		// Until separation of cron jobs per municipality is needed all are scheduled with same interval
-		for (final String municipalityId : sftpPropertiesConfig.getMap().keySet()) {
-			RequestId.init();
+	public void executeTransferFiles(String municipalityId) {
+		dispatch(properties.transferfiles().name(), municipalityId, () -> {
 			LOGGER.info(LOG_TRANSFER_FILES_STARTED, municipalityId);
 			invoiceFileService.transferFiles(municipalityId);
 			LOGGER.info(LOG_TRANSFER_FILES_ENDED, municipalityId);
+		});
+	}
+
+	@PreDestroy
+	void shutdown() {
+		jobExecutor.shutdownNow();
+		timeoutExecutor.shutdownNow();
+	}
+
+	/**
+	 * Method dispatching the job for a municipality to the job executor, unless the job for the municipality already is
+	 * waiting in the executor queue or running on this node.
+	 *
+	 * @param jobName        the name of the job
+	 * @param municipalityId the municipality id to dispatch the job for
+	 * @param job            the job to dispatch
+	 */
+	private void dispatch(String jobName, String municipalityId, Runnable job) {
+		final var pendingJob = LOCK_NAME.formatted(jobName, municipalityId);
+		if (!pendingJobs.add(pendingJob)) {
+			LOGGER.info(LOG_JOB_PENDING, jobName, municipalityId);
+			return;
+		}
+
+		try {
+			jobExecutor.execute(() -> {
+				try {
+					executeWithLock(jobName, municipalityId, job);
+				} finally {
+					pendingJobs.remove(pendingJob);
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			pendingJobs.remove(pendingJob);
+			LOGGER.warn(LOG_JOB_REJECTED, jobName, municipalityId, e);
+		}
+	}
+
+	/**
+	 * Method executing the job for a municipality if the lock for the job and municipality can be acquired. Lock time and
+	 * maximum execution time are taken from the municipality settings, with the scheduler settings as default. The budget
+	 * for the maximum execution time starts when the job starts (and not when it is dispatched), so that jobs waiting for a
+	 * free thread do not consume the budget. The worker thread is only interrupted while the job is running, and an
+	 * interrupt that still is pending when the job ends is cleared so that it does not leak into the next job executed
+	 * by the pooled thread. The lock is kept for at least the configured minimum lock time (capped to the lock time of
+	 * the municipality), so that a node whose cron fires just after a fast job has released the lock on another node
+	 * does not execute the job a second time.
+	 *
+	 * @param jobName        the name of the job
+	 * @param municipalityId the municipality id to execute the job for
+	 * @param job            the job to execute
+	 */
+	private void executeWithLock(String jobName, String municipalityId, Runnable job) {
+		final var sftpProperties = sftpPropertiesConfig.getMap().get(municipalityId);
+		final var lockAtMostFor = ofNullable(sftpProperties.getShedlockLockAtMostFor()).orElse(properties.shedlockLockAtMostFor());
+		final var minimumLockTime = ofNullable(properties.shedlockLockAtLeastFor()).orElse(Duration.ZERO);
+		final var lockAtLeastFor = minimumLockTime.compareTo(lockAtMostFor) > 0 ? lockAtMostFor : minimumLockTime;
+		final var maximumExecutionTime = ofNullable(sftpProperties.getMaximumExecutionTime()).orElse(properties.maximumExecutionTime());
+
+		final var lockConfiguration = new LockConfiguration(Instant.now(), LOCK_NAME.formatted(jobName, municipalityId), lockAtMostFor, lockAtLeastFor);
+		final var lock = lockProvider.lock(lockConfiguration);
+		if (lock.isEmpty()) {
+			LOGGER.info(LOG_JOB_LOCKED, jobName, municipalityId);
+			return;
+		}
+
+		final var worker = Thread.currentThread();
+		final var running = new AtomicBoolean(true);
+		final var timedOut = new AtomicBoolean();
+		final var timeout = timeoutExecutor.schedule(() -> {
+			synchronized (running) {
+				if (running.get()) {
+					LOGGER.warn(LOG_JOB_TIMED_OUT, jobName, municipalityId, maximumExecutionTime);
+					timedOut.set(true);
+					healthIndicator.setUnhealthy(jobName, municipalityId, JOB_TIMED_OUT.formatted(maximumExecutionTime));
+					worker.interrupt();
+				}
+			}
+		}, maximumExecutionTime.toMillis(), MILLISECONDS);
+
+		try {
+			RequestId.init();
+			job.run();
+			if (!timedOut.get()) {
+				healthIndicator.setHealthy(jobName, municipalityId);
+			}
+		} catch (final RuntimeException e) {
+			LOGGER.error(LOG_JOB_FAILED, jobName, municipalityId, e);
+			// Keep the timeout as reason when the job failed because it was interrupted after exceeding its maximum execution time
+			if (!timedOut.get()) {
+				healthIndicator.setUnhealthy(jobName, municipalityId, JOB_FAILED);
+			}
+		} finally {
+			synchronized (running) {
+				running.set(false);
+			}
+			timeout.cancel(false);
+			Thread.interrupted();
 			RequestId.reset();
+			lock.get().unlock();
 		}
 	}
 }
@@ -0,0 +1,54 @@
+package se.sundsvall.billingpreprocessor.service.scheduler;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health indicator for the scheduled invoice file jobs. The health is reported as restricted as long as the latest
+ * execution of a job for a municipality has failed or exceeded its maximum execution time, with the failing jobs and
+ * reasons as details, and is restored when the job for the municipality executes successfully again. The restricted
+ * status is ordered between out of service and up and mapped to http status 200 in the application configuration, so a
+ * failing job does not make the application unavailable.
+ */
+@Component
+public class InvoiceFileSchedulerHealthIndicator implements HealthIndicator {
+
+	static final Status RESTRICTED = new Status("RESTRICTED", "One or more scheduled jobs have failed");
+	private static final String JOB_NAME = "%s-%s";
+
+	private final Map<String, String> unhealthyJobs = new ConcurrentHashMap<>();
+
+	@Override
+	public Health health() {
+		if (unhealthyJobs.isEmpty()) {
+			return Health.up().build();
+		}
+		return Health.status(RESTRICTED).withDetails(new TreeMap<>(unhealthyJobs)).build();
+	}
+
+	/**
+	 * Method marking the job for the municipality as healthy
+	 *
+	 * @param jobName        the name of the job
+	 * @param municipalityId the municipality id that the job was executed for
+	 */
+	public void setHealthy(String jobName, String municipalityId) {
+		unhealthyJobs.remove(JOB_NAME.formatted(jobName, municipalityId));
+	}
+
+	/**
+	 * Method marking the job for the municipality as unhealthy
+	 *
+	 * @param jobName        the name of the job
+	 * @param municipalityId the municipality id that the job was executed for
+	 * @param reason         the reason for the job being unhealthy
+	 */
+	public void setUnhealthy(String jobName, String municipalityId, String reason) {
+		unhealthyJobs.put(JOB_NAME.formatted(jobName, municipalityId), reason);
+	}
+}
@@ -0,0 +1,12 @@
+package se.sundsvall.billingpreprocessor.service.scheduler;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties("scheduler")
+public record SchedulerProperties(Job createfiles, Job transferfiles, @DefaultValue("4") int parallelism, Duration shedlockLockAtMostFor, Duration shedlockLockAtLeastFor, Duration maximumExecutionTime) {
+
+	public record Job(String name, String cron) {
+	}
+}
@@ -1,12 +1,8 @@
 package se.sundsvall.billingpreprocessor.service.util;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.Objects;
 import se.sundsvall.billingpreprocessor.api.model.InvoiceRow;
-import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
-import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 
 import static java.util.Collections.emptyList;
 import static java.util.Objects.isNull;
@@ -30,26 +26,12 @@ public final class CalculationUtil {
 			return BigDecimal.ZERO;
 		}
 
-		return ofNullable(entity.getInvoiceRows()).orElse(emptyList()).stream()
-			.filter(row -> nonNull(row.getTotalAmount()))
-			.map(InvoiceRowEntity::getTotalAmount)
-			.reduce(BigDecimal.ZERO, BigDecimal::add);
-	}
-
-	public static BigDecimal calculateTotalAmount(final List<BillingRecordEntity> billingRecords) {
-		if (isNull(billingRecords)) {
-			return BigDecimal.ZERO;
+		var totalAmount = BigDecimal.ZERO;
+		for (final var invoiceRow : ofNullable(entity.getInvoiceRows()).orElse(emptyList())) {
+			if (nonNull(invoiceRow.getTotalAmount())) {
+				totalAmount = totalAmount.add(invoiceRow.getTotalAmount());
+			}
 		}
-
-		return billingRecords.stream()
-			.map(BillingRecordEntity::getInvoice)
-			.filter(Objects::nonNull)
-			.map(InvoiceEntity::getInvoiceRows)
-			.filter(Objects::nonNull)
-			.flatMap(List::stream)
-			.map(InvoiceRowEntity::getTotalAmount)
-			.filter(Objects::nonNull)
-			.reduce(BigDecimal::add)
-			.orElse(BigDecimal.ZERO);
+		return totalAmount;
 	}
 }
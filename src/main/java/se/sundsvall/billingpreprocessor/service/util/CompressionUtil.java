@@ -0,0 +1,55 @@
+package se.sundsvall.billingpreprocessor.service.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static se.sundsvall.billingpreprocessor.Constants.EMPTY_ARRAY;
+
+/**
+ * Utility for compressing content in the same format as the MariaDB function COMPRESS() uses, i.e. the uncompressed
+ * length as four bytes (little endian) followed by a zlib stream, where empty content is represented by an empty
+ * array. Using the same format makes it possible to compress existing content within database migrations.
+ */
+public final class CompressionUtil {
+
+	private static final int LENGTH_PREFIX_SIZE = 4;
+
+	private CompressionUtil() {}
+
+	public static byte[] compress(byte[] content) {
+		if (content.length == 0) {
+			return EMPTY_ARRAY;
+		}
+
+		final var outputStream = new ByteArrayOutputStream();
+		outputStream.writeBytes(ByteBuffer.allocate(LENGTH_PREFIX_SIZE).order(LITTLE_ENDIAN).putInt(content.length).array());
+		try (var deflaterStream = new DeflaterOutputStream(outputStream)) {
+			deflaterStream.write(content);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return outputStream.toByteArray();
+	}
+
+	public static InputStream decompressingInputStream(byte[] compressedContent) {
+		if (compressedContent.length <= LENGTH_PREFIX_SIZE) {
+			return InputStream.nullInputStream();
+		}
+		return new InflaterInputStream(new ByteArrayInputStream(compressedContent, LENGTH_PREFIX_SIZE, compressedContent.length - LENGTH_PREFIX_SIZE));
+	}
+
+	public static byte[] decompress(byte[] compressedContent) {
+		try (var inputStream = decompressingInputStream(compressedContent)) {
+			return inputStream.readAllBytes();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
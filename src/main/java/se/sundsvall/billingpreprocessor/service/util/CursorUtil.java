@@ -0,0 +1,55 @@
+package se.sundsvall.billingpreprocessor.service.util;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import se.sundsvall.dept44.problem.Problem;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.isNull;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+/**
+ * Utility for converting the position of the last billing record on a page, i.e. its created timestamp and id, to and
+ * from an opaque cursor that the client sends back when asking for the following page.
+ */
+public final class CursorUtil {
+
+	private static final String SEPARATOR = "|";
+	private static final String CURSOR_INVALID = "Cursor '%s' is not valid!";
+	private static final Cursor START = new Cursor(null, null);
+
+	private CursorUtil() {}
+
+	public static String encodeCursor(OffsetDateTime created, String id) {
+		final var position = created.toInstant() + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(UTF_8));
+	}
+
+	public static Cursor decodeCursor(String cursor) {
+		if (isNull(cursor)) {
+			return START;
+		}
+
+		try {
+			final var position = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+			final var separatorIndex = position.indexOf(SEPARATOR);
+			if (separatorIndex < 0 || separatorIndex == position.length() - 1) {
+				throw Problem.valueOf(BAD_REQUEST, CURSOR_INVALID.formatted(cursor));
+			}
+
+			final var created = OffsetDateTime.ofInstant(Instant.parse(position.substring(0, separatorIndex)), ZoneId.systemDefault());
+			return new Cursor(created, position.substring(separatorIndex + 1));
+		} catch (final IllegalArgumentException | DateTimeException e) {
+			throw Problem.valueOf(BAD_REQUEST, CURSOR_INVALID.formatted(cursor));
+		}
+	}
+
+	/**
+	 * Position of the last billing record on the previous page, where both values are null when positioned at the start
+	 */
+	public record Cursor(OffsetDateTime created, String id) {
+	}
+}
@@ -1,26 +1,43 @@
 package se.sundsvall.billingpreprocessor.service.util;
 
-import org.apache.commons.lang3.StringUtils;
-
-import static java.util.Optional.ofNullable;
+import static java.util.Objects.isNull;
 
 public final class StringUtil {
 
+	private static final int LEGAL_ID_LENGTH = 10;
+
 	private StringUtil() {}
 
+	/**
+	 * Method formatting a legal id consisting of digits and hyphens into its last ten digits, i.e. hyphens and century
+	 * part are removed. Values containing other characters than digits and hyphens are returned as is. The value is
+	 * processed in a single pass, without use of regular expressions.
+	 *
+	 * @param  value the legal id to format
+	 * @return       the formatted legal id
+	 */
 	public static String formatLegalId(String value) {
-		return ofNullable(value)
-			.map(StringUtil::removeHyphensFromNumericString)
-			.map(String::trim)
-			.map(s -> StringUtils.right(s, 10)) // Trim away century part
-			.orElse(value);
+		if (isNull(value)) {
+			return null;
+		}
 
-	}
+		final var digits = new char[value.length()];
+		var digitCount = 0;
+		for (var i = 0; i < value.length(); i++) {
+			final var character = value.charAt(i);
+			if (character >= '0' && character <= '9') {
+				digits[digitCount++] = character;
+			} else if (character != '-') {
+				return value;
+			}
+		}
+
+		if (digitCount == value.length() && digitCount <= LEGAL_ID_LENGTH) {
+			return value;
+		}
 
-	private static String removeHyphensFromNumericString(String value) {
-		return ofNullable(value)
-			.filter(s -> s.matches("[0-9-]+"))
-			.map(s -> s.replaceAll("\\D", "")) // Replace all non digits with emtpy string
-			.orElse(null);
+		// Trim away century part
+		final var offset = Math.max(0, digitCount - LEGAL_ID_LENGTH);
+		return new String(digits, offset, digitCount - offset);
 	}
 }
@@ -0,0 +1,24 @@
+-- Create table for invoice file content, stored compressed and separated from the invoice file metadata
+create table invoice_file_content (
+    id bigint not null,
+    content longblob,
+    primary key (id)
+) engine=InnoDB;
+
+alter table if exists invoice_file_content
+    add constraint fk_invoice_file_id_invoice_file_content
+    foreign key (id)
+    references invoice_file (id);
+
+-- Migrate data (content is converted to the encoding of the file before being compressed)
+insert into invoice_file_content (id, content)
+    select id,
+           compress(case
+               when upper(encoding) in ('ISO-8859-1', 'LATIN1') then convert(content using latin1)
+               else convert(content using utf8mb4)
+           end)
+    from invoice_file
+    where content is not null;
+
+-- Remove column that has been moved to invoice file content table
+alter table invoice_file drop column content;
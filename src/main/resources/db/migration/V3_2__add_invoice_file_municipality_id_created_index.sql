@@ -0,0 +1,5 @@
+-- Replace municipality id index with composite index supporting lookup of files created within a period
+create index idx_invoice_file_municipality_id_created
+    on invoice_file (municipality_id, created);
+
+drop index idx_invoice_file_municipality_id on invoice_file;
@@ -0,0 +1,19 @@
+-- Replace auto increment with sequences for invoice row and description ids, making inserts batchable.
+-- Each sequence starts at least one allocation (50) above the highest existing id, and never below 1000
+-- (which is the initial value of the sequence generators).
+set @invoice_row_seq_start = (select greatest(coalesce(max(id), 0) + 50, 1000) from invoice_row);
+set @create_sequence = concat('create sequence invoice_row_seq start with ', @invoice_row_seq_start, ' increment by 50');
+prepare create_sequence from @create_sequence;
+execute create_sequence;
+deallocate prepare create_sequence;
+
+set @description_seq_start = (select greatest(coalesce(max(id), 0) + 50, 1000) from description);
+set @create_sequence = concat('create sequence description_seq start with ', @description_seq_start, ' increment by 50');
+prepare create_sequence from @create_sequence;
+execute create_sequence;
+deallocate prepare create_sequence;
+
+set foreign_key_checks = 0;
+alter table invoice_row modify id bigint not null;
+alter table description modify id bigint not null;
+set foreign_key_checks = 1;
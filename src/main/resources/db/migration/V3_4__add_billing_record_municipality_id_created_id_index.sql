@@ -0,0 +1,5 @@
+-- Replace municipality id index with composite index supporting keyset pagination of billing records on (created, id)
+create index idx_billing_record_municipality_id_created_id
+    on billing_record (municipality_id, created, id);
+
+drop index idx_billing_record_municipality_id on billing_record;
@@ -89,4 +89,24 @@ class BillingRecordsReadResourceFailureTest {
 		// Verification
 		verifyNoInteractions(serviceMock);
 	}
+
+	@Test
+	void scrollBillingRecordsWithInvalidSize() {
+		// Call
+		final var response = webTestClient.get().uri(builder -> builder.path(PATH + "/scroll").queryParam("size", 0).build(Map.of("municipalityId", "2281")))
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody(ConstraintViolationProblem.class)
+			.returnResult()
+			.getResponseBody();
+
+		assertThat(response).isNotNull();
+		assertThat(response.getTitle()).isEqualTo("Constraint Violation");
+		assertThat(response.getStatus()).isEqualTo(BAD_REQUEST);
+		assertThat(response.getViolations()).extracting(Violation::field, Violation::message).containsExactlyInAnyOrder(
+			tuple("scrollBillingRecords.size", "must be greater than or equal to 1"));
+
+		// Verification
+		verifyNoInteractions(serviceMock);
+	}
 }
@@ -1,5 +1,7 @@
 package se.sundsvall.billingpreprocessor.api;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.webtestclient.autoconfigure.AutoConfigureWebTestClient;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -25,20 +28,30 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import se.sundsvall.billingpreprocessor.Application;
 import se.sundsvall.billingpreprocessor.api.model.AccountInformation;
 import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApproval;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApprovalResult;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordWindow;
 import se.sundsvall.billingpreprocessor.api.model.Invoice;
 import se.sundsvall.billingpreprocessor.api.model.InvoiceRow;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.service.AsyncExecutorService;
+import se.sundsvall.billingpreprocessor.service.BatchJobService;
 import se.sundsvall.billingpreprocessor.service.BillingRecordService;
+import se.sundsvall.billingpreprocessor.service.BillingRecordStreamService;
 
 import static java.util.Collections.emptyMap;
 import static java.util.UUID.randomUUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.ALL;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static se.sundsvall.billingpreprocessor.api.model.enums.ApprovalOutcome.APPROVED;
 import static se.sundsvall.billingpreprocessor.api.model.enums.Status.NEW;
 import static se.sundsvall.billingpreprocessor.api.model.enums.Type.INTERNAL;
 
@@ -56,6 +69,15 @@ class BillingRecordsResourceTest {
 	@MockitoBean
 	private BillingRecordService serviceMock;
 
+	@MockitoBean
+	private BillingRecordStreamService streamServiceMock;
+
+	@MockitoBean
+	private BatchJobService batchJobServiceMock;
+
+	@MockitoBean
+	private AsyncExecutorService asyncExecutorServiceMock;
+
 	@Captor
 	private ArgumentCaptor<BillingRecord> billingRecordCaptor;
 
@@ -119,6 +141,106 @@ class BillingRecordsResourceTest {
 		assertThat(result).isNotNull().hasSize(4).contains(uuid, uuid, uuid, uuid);
 	}
 
+	@Test
+	void createBillingRecordsAsync() {
+		// Parameter values
+		final var jobId = randomUUID().toString();
+		final var billingRecords = List.of(createBillingRecordInstance(), createBillingRecordInstance());
+
+		// Mock
+		when(batchJobServiceMock.registerJob(MUNICIPALITY_ID, 2)).thenReturn(jobId);
+
+		// Call
+		final var requestId = webTestClient.post().uri(PATH.concat("/batch/async")).contentType(APPLICATION_JSON)
+			.bodyValue(billingRecords)
+			.exchange()
+			.expectStatus().isAccepted()
+			.expectHeader().contentType(ALL)
+			.expectHeader().location(String.format("/%s/jobs/%s", MUNICIPALITY_ID, jobId))
+			.expectBody().isEmpty()
+			.getResponseHeaders()
+			.get("x-request-id")
+			.getFirst();
+
+		// Verification
+		verify(batchJobServiceMock).registerJob(MUNICIPALITY_ID, 2);
+		verify(asyncExecutorServiceMock).createBillingRecords(eq(requestId), eq(jobId), billingRecordsCaptor.capture());
+		assertThat(billingRecordsCaptor.getValue()).usingRecursiveComparison().isEqualTo(billingRecords);
+	}
+
+	@Test
+	void createBillingRecordsAsyncWhenRejected() {
+		// Parameter values
+		final var jobId = randomUUID().toString();
+		final var billingRecords = List.of(createBillingRecordInstance());
+
+		// Mock
+		when(batchJobServiceMock.registerJob(MUNICIPALITY_ID, 1)).thenReturn(jobId);
+		doThrow(new TaskRejectedException("Executor is full")).when(asyncExecutorServiceMock).createBillingRecords(any(), eq(jobId), any());
+
+		// Call
+		webTestClient.post().uri(PATH.concat("/batch/async")).contentType(APPLICATION_JSON)
+			.bodyValue(billingRecords)
+			.exchange()
+			.expectStatus().is5xxServerError();
+
+		// Verification
+		verify(batchJobServiceMock).registerJob(MUNICIPALITY_ID, 1);
+		verify(batchJobServiceMock).removeJob(jobId);
+	}
+
+	@Test
+	void createBillingRecordsFromStream() throws Exception {
+		// Parameter values
+		final var body = "{\"category\":\"ACCESS_CARD\"}\n{\"category\":\"ACCESS_CARD\"}\n";
+		final var response = "{\"line\":1,\"id\":\"c9242a01-e7bd-4f59-b4cd-66210c427904\"}\n{\"line\":2,\"problem\":\"problem\"}\n";
+
+		// Mock
+		doAnswer(invocation -> {
+			assertThat(invocation.<InputStream>getArgument(0)).hasContent(body);
+			invocation.<OutputStream>getArgument(1).write(response.getBytes());
+			return null;
+		}).when(streamServiceMock).createBillingRecords(any(), any(), eq(MUNICIPALITY_ID));
+
+		// Call
+		final var result = webTestClient.post().uri(PATH.concat("/batch/stream")).contentType(APPLICATION_NDJSON)
+			.bodyValue(body)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentType(APPLICATION_NDJSON)
+			.expectBody(String.class)
+			.returnResult().getResponseBody();
+
+		// Verification
+		verify(streamServiceMock).createBillingRecords(any(), any(), eq(MUNICIPALITY_ID));
+		assertThat(result).isEqualTo(response);
+	}
+
+	@Test
+	void approveBillingRecords() {
+		// Parameter values
+		final var id = randomUUID().toString();
+		final var approval = new BillingRecordApproval(List.of(id), null, "approver");
+		final var results = List.of(new BillingRecordApprovalResult(id, APPROVED));
+
+		// Mock
+		when(serviceMock.approveBillingRecords(approval, MUNICIPALITY_ID)).thenReturn(results);
+
+		// Call
+		final var response = webTestClient.post().uri(PATH.concat("/approval")).contentType(APPLICATION_JSON)
+			.bodyValue(approval)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentType(APPLICATION_JSON)
+			.expectBody(new ParameterizedTypeReference<List<BillingRecordApprovalResult>>() {})
+			.returnResult()
+			.getResponseBody();
+
+		// Verification
+		verify(serviceMock).approveBillingRecords(approval, MUNICIPALITY_ID);
+		assertThat(response).isEqualTo(results);
+	}
+
 	@Test
 	void readBillingRecord() {
 		// Parameter values
@@ -196,6 +318,34 @@ class BillingRecordsResourceTest {
 		assertThat(response.getContent()).hasSize(1);
 	}
 
+	@Test
+	void scrollBillingRecords() {
+		// Parameter values
+		final var size = 50;
+		final var cursor = "MjAyMi0wNi0yMFQwOToxNzozNi43OTVafDcxMjU4ZTdkLTUyODUtNDZjZS1iOWIyLTg3N2Y4Y2FkOGVkZA";
+		final var window = new BillingRecordWindow(List.of(BillingRecord.create()), "next-cursor");
+		final var filter = "category:'ACCESS_CARD' and status:'NEW'";
+
+		// Mock
+		when(serviceMock.findBillingRecords(ArgumentMatchers.<Specification<BillingRecordEntity>>any(), eq(size), eq(cursor), eq(MUNICIPALITY_ID))).thenReturn(window);
+
+		// Call
+		final var response = webTestClient.get().uri(builder -> builder.path(PATH + "/scroll")
+			.queryParam("filter", filter)
+			.queryParam("size", size)
+			.queryParam("cursor", cursor).build(emptyMap()))
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentType(APPLICATION_JSON)
+			.expectBody(BillingRecordWindow.class)
+			.returnResult()
+			.getResponseBody();
+
+		// Verification
+		verify(serviceMock).findBillingRecords(ArgumentMatchers.<Specification<BillingRecordEntity>>any(), eq(size), eq(cursor), eq(MUNICIPALITY_ID));
+		assertThat(response).isEqualTo(window);
+	}
+
 	@Test
 	void updateBillingRecord() {
 		// Parameter values
@@ -1,5 +1,7 @@
 package se.sundsvall.billingpreprocessor.api;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,11 +10,19 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import se.sundsvall.billingpreprocessor.Application;
+import se.sundsvall.billingpreprocessor.api.model.BatchJob;
+import se.sundsvall.billingpreprocessor.api.model.BatchJobFailure;
 import se.sundsvall.billingpreprocessor.service.AsyncExecutorService;
+import se.sundsvall.billingpreprocessor.service.BatchJobService;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 
+import static java.util.UUID.randomUUID;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.RUNNING;
 
 @SpringBootTest(classes = Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("junit")
@@ -27,6 +37,12 @@ class JobsResourceTest {
 	@MockitoBean
 	private AsyncExecutorService serviceMock;
 
+	@MockitoBean
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
+
+	@MockitoBean
+	private BatchJobService batchJobServiceMock;
+
 	@Test
 	void createFiles() {
 
@@ -60,4 +76,41 @@ class JobsResourceTest {
 		verify(serviceMock).transferFiles(requestId, MUNICIPALITY_ID);
 		verifyNoMoreInteractions(serviceMock);
 	}
+
+	@Test
+	void refreshConfigurations() {
+
+		// Call
+		webTestClient.post().uri(BASE_PATH + "/configurationrefresher").contentType(APPLICATION_JSON)
+			.exchange()
+			.expectStatus().isNoContent()
+			.expectBody().isEmpty();
+
+		// Verification
+		verify(invoiceFileConfigurationServiceMock).refresh();
+		verifyNoMoreInteractions(serviceMock, invoiceFileConfigurationServiceMock);
+	}
+
+	@Test
+	void readJob() {
+		// Parameter values
+		final var id = randomUUID().toString();
+		final var job = new BatchJob(id, MUNICIPALITY_ID, RUNNING, 3, 2, List.of("createdId"), List.of(new BatchJobFailure(1, "problem")), OffsetDateTime.now(), null);
+
+		// Mock
+		when(batchJobServiceMock.readJob(id, MUNICIPALITY_ID)).thenReturn(job);
+
+		// Call
+		final var result = webTestClient.get().uri(BASE_PATH + "/" + id)
+			.exchange()
+			.expectStatus().isOk()
+			.expectHeader().contentType(APPLICATION_JSON)
+			.expectBody(BatchJob.class)
+			.returnResult().getResponseBody();
+
+		// Verification
+		assertThat(result).usingRecursiveComparison().ignoringFields("createdAt").isEqualTo(job);
+		verify(batchJobServiceMock).readJob(id, MUNICIPALITY_ID);
+		verifyNoMoreInteractions(serviceMock, invoiceFileConfigurationServiceMock, batchJobServiceMock);
+	}
 }
@@ -1,15 +1,19 @@
 package se.sundsvall.billingpreprocessor.integration.db;
 
 import com.turkraft.springfilter.converter.FilterSpecificationConverter;
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -21,7 +25,9 @@ import org.springframework.transaction.annotation.Transactional;
 import se.sundsvall.billingpreprocessor.integration.db.model.AccountInformationEmbeddable;
 import se.sundsvall.billingpreprocessor.integration.db.model.AddressDetailsEmbeddable;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity_;
 import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.IdAndStatus;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.RecipientEntity;
@@ -29,6 +35,7 @@ import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
 
 import static java.time.OffsetDateTime.now;
+import static java.time.temporal.ChronoUnit.MILLIS;
 import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
@@ -36,6 +43,7 @@ import static org.assertj.core.api.Assertions.within;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.DETAILED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType.STANDARD;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.APPROVED;
+import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.INVOICED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.NEW;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.REJECTED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.EXTERNAL;
@@ -98,6 +106,9 @@ class BillingRecordRepositoryTest {
 	@Autowired
 	private FilterSpecificationConverter filterSpecificationConverter;
 
+	@Autowired
+	private EntityManager entityManager;
+
 	@Test
 	void create() {
 		final var billingRecord = createbillingRecord(); // Create billingRecord entity
@@ -199,11 +210,25 @@ class BillingRecordRepositoryTest {
 	@Test
 	void read() {
 		final var id = "83e4d599-5b4d-431c-8ebc-81192e9401ee";
-		final var entity = repository.getReferenceByIdAndMunicipalityId(id, MUNICIPALITY_ID);
+		final var entity = repository.findByIdAndMunicipalityId(id, MUNICIPALITY_ID);
+
+		assertThat(entity).isPresent().get().extracting(BillingRecordEntity::getId).isEqualTo(id);
+		assertThat(entity).get().extracting(BillingRecordEntity::getStatus).isEqualTo(NEW);
+		assertThat(entity).get().extracting(BillingRecordEntity::getType).isEqualTo(EXTERNAL);
+		assertThat(repository.findByIdAndMunicipalityId(id, "2262")).isEmpty();
+	}
+
+	@Test
+	void readUsesFixedNumberOfStatements() {
+		final var idWithOneRow = saveBillingRecord(1);
+		final var idWithManyRows = saveBillingRecord(10);
+
+		final var statementsForOneRow = measure(() -> touchGraph(repository.findByIdAndMunicipalityId(idWithOneRow, MUNICIPALITY_ID).orElseThrow(), 1)).getPrepareStatementCount();
+		final var statementsForManyRows = measure(() -> touchGraph(repository.findByIdAndMunicipalityId(idWithManyRows, MUNICIPALITY_ID).orElseThrow(), 10)).getPrepareStatementCount();
 
-		assertThat(entity).isNotNull().extracting(BillingRecordEntity::getId).isEqualTo(id);
-		assertThat(entity).extracting(BillingRecordEntity::getStatus).isEqualTo(NEW);
-		assertThat(entity).extracting(BillingRecordEntity::getType).isEqualTo(EXTERNAL);
+		// One statement for the billing record (with recipient, invoice and invoice rows) and one per remaining collection type
+		assertThat(statementsForOneRow).isLessThanOrEqualTo(4);
+		assertThat(statementsForManyRows).isEqualTo(statementsForOneRow);
 	}
 
 	@Test
@@ -261,7 +286,7 @@ class BillingRecordRepositoryTest {
 
 	@Test
 	void update() {
-		final var entity = repository.getReferenceByIdAndMunicipalityId("83e4d599-5b4d-431c-8ebc-81192e9401ee", MUNICIPALITY_ID);
+		final var entity = repository.findByIdAndMunicipalityId("83e4d599-5b4d-431c-8ebc-81192e9401ee", MUNICIPALITY_ID).orElseThrow();
 
 		assertThat(entity.getStatus()).isEqualTo(NEW);
 		final var updatedEntity = repository.saveAndFlush(entity.withStatus(REJECTED));
@@ -269,13 +294,190 @@ class BillingRecordRepositoryTest {
 		assertThat(updatedEntity.getModified()).isCloseTo(now(), within(2, SECONDS));
 	}
 
+	@Test
+	void updateLoadsBillingRecordOnce() {
+		final var id = saveBillingRecord(10);
+
+		final var statistics = measure(() -> {
+			final var entity = repository.findByIdAndMunicipalityId(id, MUNICIPALITY_ID).orElseThrow();
+			repository.saveAndFlush(entity.withStatus(REJECTED));
+		});
+
+		// Saving the already loaded billing record does not load it again
+		assertThat(statistics.getQueryExecutionCount()).isOne();
+		assertThat(statistics.getEntityFetchCount()).isZero();
+		assertThat(statistics.getEntityUpdateCount()).isOne();
+	}
+
+	@Test
+	void updateStatusByIdIn() {
+		final var ids = List.of("1310ee8b-ecf9-4fe1-ab9d-f19153b19d06", "1c38bf5d-ed89-41ee-8090-37733f276ec9");
+		final var modified = now().truncatedTo(MILLIS);
+
+		assertThat(repository.updateStatusByIdIn(INVOICED, modified, ids)).isEqualTo(2);
+
+		assertThat(repository.findAllById(ids))
+			.extracting(BillingRecordEntity::getStatus, entity -> entity.getModified().toInstant())
+			.containsOnly(tuple(INVOICED, modified.toInstant()));
+		assertThat(repository.findByIdAndMunicipalityId("83e4d599-5b4d-431c-8ebc-81192e9401ee", MUNICIPALITY_ID)).get().extracting(BillingRecordEntity::getStatus).isEqualTo(NEW);
+	}
+
+	@Test
+	void findForUpdateIdAndStatusByIdInAndMunicipalityId() {
+		final var ids = List.of("71258e7d-5285-46ce-b9b2-877f8cad8edd", "1310ee8b-ecf9-4fe1-ab9d-f19153b19d06", "non-existing-id");
+
+		assertThat(repository.findForUpdateIdAndStatusByIdInAndMunicipalityId(ids, MUNICIPALITY_ID))
+			.containsExactlyInAnyOrder(
+				new IdAndStatus("71258e7d-5285-46ce-b9b2-877f8cad8edd", NEW),
+				new IdAndStatus("1310ee8b-ecf9-4fe1-ab9d-f19153b19d06", APPROVED));
+		assertThat(repository.findForUpdateIdAndStatusByIdInAndMunicipalityId(ids, "2262")).isEmpty();
+	}
+
+	@Test
+	void approveByIdIn() {
+		final var neverApprovedId = "71258e7d-5285-46ce-b9b2-877f8cad8edd";
+		final var previouslyApprovedId = "389b847c-39e9-4321-ae5d-e736e0a5ff51";
+		final var alreadyApprovedId = "1310ee8b-ecf9-4fe1-ab9d-f19153b19d06";
+		final var approved = now().truncatedTo(MILLIS);
+
+		assertThat(repository.approveByIdIn("approver", approved, List.of(neverApprovedId, previouslyApprovedId, alreadyApprovedId), MUNICIPALITY_ID)).isEqualTo(2);
+
+		assertThat(repository.findById(neverApprovedId)).hasValueSatisfying(entity -> {
+			assertThat(entity.getStatus()).isEqualTo(APPROVED);
+			assertThat(entity.getApprovedBy()).isEqualTo("approver");
+			assertThat(entity.getApproved().toInstant()).isEqualTo(approved.toInstant());
+			assertThat(entity.getModified().toInstant()).isEqualTo(approved.toInstant());
+		});
+		assertThat(repository.findById(previouslyApprovedId)).hasValueSatisfying(entity -> {
+			assertThat(entity.getStatus()).isEqualTo(APPROVED);
+			assertThat(entity.getApprovedBy()).isEqualTo("JAN02DOE");
+			assertThat(entity.getApproved().toInstant()).isNotEqualTo(approved.toInstant());
+		});
+		assertThat(repository.findById(alreadyApprovedId)).hasValueSatisfying(entity -> assertThat(entity.getApprovedBy()).isEqualTo("JOE01DOE"));
+	}
+
+	@Test
+	void findPageAfter() {
+		final Specification<BillingRecordEntity> filter = (root, _, cb) -> cb.equal(root.get(BillingRecordEntity_.municipalityId), MUNICIPALITY_ID);
+
+		final var firstPage = repository.findPageAfter(filter, null, null, 2);
+		final var secondPage = repository.findPageAfter(filter, firstPage.getLast().getCreated(), firstPage.getLast().getId(), 2);
+		final var lastPage = repository.findPageAfter(filter, secondPage.getLast().getCreated(), secondPage.getLast().getId(), 2);
+
+		// Records with equal created timestamp (1310ee8b and 83e4d599) are ordered by id and split over the first two pages
+		assertThat(firstPage).extracting(BillingRecordEntity::getId).containsExactly("71258e7d-5285-46ce-b9b2-877f8cad8edd", "1310ee8b-ecf9-4fe1-ab9d-f19153b19d06");
+		assertThat(secondPage).extracting(BillingRecordEntity::getId).containsExactly("83e4d599-5b4d-431c-8ebc-81192e9401ee", "389b847c-39e9-4321-ae5d-e736e0a5ff51");
+		assertThat(lastPage).extracting(BillingRecordEntity::getId).containsExactly("1c38bf5d-ed89-41ee-8090-37733f276ec9");
+	}
+
+	@Test
+	void findPageAfterIdUsesFixedNumberOfStatements() {
+		final var statementsForSmallPage = countStatementsForPage("2262", 2);
+		final var statementsForLargePage = countStatementsForPage("2260", 20);
+
+		// One statement for the page (with recipient and invoice) and one per collection type
+		assertThat(statementsForSmallPage).isLessThanOrEqualTo(5);
+		assertThat(statementsForLargePage).isEqualTo(statementsForSmallPage);
+	}
+
+	private long countStatementsForPage(final String municipalityId, final int numberOfRecords) {
+		for (var i = 0; i < numberOfRecords; i++) {
+			final var billingRecord = createbillingRecord().withMunicipalityId(municipalityId).withTransferDate(DATE);
+			billingRecord.withInvoice(createInvoice(billingRecord)).withRecipient(createRecipient(billingRecord));
+			billingRecord.getInvoice().withInvoiceRows(createInvoiceRows(billingRecord.getInvoice()));
+			billingRecord.getInvoice().getInvoiceRows().forEach(row -> row.withDescriptions(createDescriptions(row)));
+			repository.save(billingRecord);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		final var statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		try {
+			final var page = repository.findPageAfterId(STATUS, municipalityId, TYPE, CATEGORY, DATE, "", Limit.of(100));
+
+			// Touch the whole graph in the same way as when an invoice file is generated
+			assertThat(page).hasSize(numberOfRecords).allSatisfy(billingRecord -> {
+				assertThat(billingRecord.getExtraParameters()).isEqualTo(EXTRA_PARAMETERS);
+				assertThat(billingRecord.getRecipient().getPartyId()).isEqualTo(PARTY_ID);
+				assertThat(billingRecord.getInvoice().getInvoiceRows()).hasSize(1).allSatisfy(row -> {
+					assertThat(row.getDescriptions()).hasSize(2);
+					assertThat(row.getAccountInformation()).hasSize(1);
+				});
+			});
+
+			return statistics.getPrepareStatementCount();
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+
 	@Test
 	void delete() {
 		final var id = "1310ee8b-ecf9-4fe1-ab9d-f19153b19d06";
 
-		assertThat(repository.existsByIdAndMunicipalityId(id, MUNICIPALITY_ID)).isTrue();
-		repository.deleteByIdAndMunicipalityId(id, MUNICIPALITY_ID);
-		assertThat(repository.existsByIdAndMunicipalityId(id, MUNICIPALITY_ID)).isFalse();
+		assertThat(repository.existsById(id)).isTrue();
+		repository.delete(repository.findForUpdateByIdAndMunicipalityId(id, MUNICIPALITY_ID).orElseThrow());
+		entityManager.flush();
+		assertThat(repository.existsById(id)).isFalse();
+	}
+
+	@Test
+	void deleteLoadsBillingRecordOnce() {
+		final var id = saveBillingRecord(10);
+
+		final var statistics = measure(() -> {
+			repository.delete(repository.findForUpdateByIdAndMunicipalityId(id, MUNICIPALITY_ID).orElseThrow());
+			entityManager.flush();
+		});
+
+		// The billing record is loaded by one query (with its collections loaded in batches) and is not loaded again when removed
+		assertThat(statistics.getQueryExecutionCount()).isOne();
+		assertThat(statistics.getEntityFetchCount()).isZero();
+		assertThat(statistics.getEntityDeleteCount()).isEqualTo(1 + 1 + 1 + 10 + 10 * 2); // Billing record, recipient, invoice, invoice rows and descriptions
+		assertThat(repository.existsById(id)).isFalse();
+	}
+
+	private String saveBillingRecord(final int numberOfInvoiceRows) {
+		final var billingRecord = createbillingRecord();
+		billingRecord.withInvoice(createInvoice(billingRecord)).withRecipient(createRecipient(billingRecord));
+
+		final var invoiceRows = new ArrayList<InvoiceRowEntity>();
+		for (var i = 0; i < numberOfInvoiceRows; i++) {
+			invoiceRows.addAll(createInvoiceRows(billingRecord.getInvoice()));
+		}
+		billingRecord.getInvoice().withInvoiceRows(invoiceRows);
+		billingRecord.getInvoice().getInvoiceRows().forEach(row -> row.withDescriptions(createDescriptions(row)));
+
+		final var id = repository.save(billingRecord).getId();
+		entityManager.flush();
+		entityManager.clear();
+		return id;
+	}
+
+	private static void touchGraph(final BillingRecordEntity billingRecord, final int numberOfInvoiceRows) {
+		// Touch the whole graph in the same way as when the billing record is mapped to the API model
+		assertThat(billingRecord.getExtraParameters()).isEqualTo(EXTRA_PARAMETERS);
+		assertThat(billingRecord.getRecipient().getPartyId()).isEqualTo(PARTY_ID);
+		assertThat(billingRecord.getInvoice().getInvoiceRows()).hasSize(numberOfInvoiceRows).allSatisfy(row -> {
+			assertThat(row.getDescriptions()).hasSize(2);
+			assertThat(row.getAccountInformation()).hasSize(1);
+		});
+	}
+
+	private Statistics measure(final Runnable action) {
+		final var statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		try {
+			action.run();
+			return statistics;
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
 	}
 
 	private static AccountInformationEmbeddable createAccountInformation() {
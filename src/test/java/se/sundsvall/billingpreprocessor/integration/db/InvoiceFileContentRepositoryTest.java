@@ -0,0 +1,70 @@
+package se.sundsvall.billingpreprocessor.integration.db;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileContentEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.compress;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.decompress;
+
+/**
+ * Invoice file content repository tests.
+ *
+ * @see /src/test/resources/db/testdata-junit.sql for data setup.
+ */
+@SpringBootTest
+@ActiveProfiles("junit")
+@Transactional
+@Sql(scripts = {
+	"/db/scripts/truncate.sql",
+	"/db/scripts/testdata-junit.sql"
+})
+class InvoiceFileContentRepositoryTest {
+
+	private static final String MUNICIPALITY_ID = "2281";
+
+	@Autowired
+	private InvoiceFileRepository invoiceFileRepository;
+
+	@Autowired
+	private InvoiceFileContentRepository repository;
+
+	@Test
+	void createSuccessful() {
+
+		// Arrange
+		final var content = "innehåll".getBytes(StandardCharsets.ISO_8859_1);
+		final var invoiceFileEntity = invoiceFileRepository.save(InvoiceFileEntity.create()
+			.withEncoding(StandardCharsets.ISO_8859_1.toString())
+			.withMunicipalityId(MUNICIPALITY_ID)
+			.withName("file.txt"));
+
+		// Act
+		final var result = repository.save(InvoiceFileContentEntity.create()
+			.withInvoiceFile(invoiceFileEntity)
+			.withContent(compress(content)));
+
+		// Assert
+		assertThat(result).isNotNull();
+		assertThat(result.getId()).isEqualTo(invoiceFileEntity.getId());
+		assertThat(decompress(result.getContent())).isEqualTo(content);
+	}
+
+	@Test
+	void findByIdReadsContentCompressedByDatabase() {
+
+		// Act
+		final var result = repository.findById(1L);
+
+		// Assert
+		assertThat(result).isPresent();
+		assertThat(decompress(result.get().getContent())).isEqualTo("File content".getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
@@ -1,6 +1,8 @@
 package se.sundsvall.billingpreprocessor.integration.db;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +12,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.transaction.annotation.Transactional;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileSummary;
 
 import static java.time.OffsetDateTime.now;
 import static java.time.temporal.ChronoUnit.SECONDS;
@@ -19,6 +22,7 @@ import static org.assertj.core.groups.Tuple.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.GENERATED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.SEND_FAILED;
+import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.SEND_SUCCESSFUL;
 
 /**
  * Invoice file repository tests.
@@ -43,9 +47,7 @@ class InvoiceFileRepositoryTest {
 	void createSuccessful() {
 
 		// Arrange
-		final var content = "content";
 		final var invoiceFileEntity = InvoiceFileEntity.create()
-			.withContent(content)
 			.withEncoding(StandardCharsets.ISO_8859_1.toString())
 			.withMunicipalityId(MUNICIPALITY_ID)
 			.withName("file.txt");
@@ -56,7 +58,6 @@ class InvoiceFileRepositoryTest {
 		// Assert
 		assertThat(result).isNotNull();
 		assertThat(result.getId()).isPositive();
-		assertThat(result.getContent()).isEqualTo(content);
 		assertThat(result.getCreated()).isCloseTo(now(), within(2, SECONDS));
 		assertThat(result.getSent()).isNull();
 		assertThat(result.getStatus()).isEqualTo(GENERATED);
@@ -87,36 +88,45 @@ class InvoiceFileRepositoryTest {
 	}
 
 	@Test
-	void findByStatusAndMunicipalityId() {
+	void findIdsByStatusInAndMunicipalityId() {
 
 		// Act
-		final var result = repository.findByStatusAndMunicipalityId(GENERATED, MUNICIPALITY_ID);
+		final var result = repository.findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
 
 		// Assert
 		assertThat(result)
 			.isNotNull()
-			.hasSize(2)
+			.hasSize(3)
+			.isSorted();
+		assertThat(repository.findAllById(result))
 			.extracting(InvoiceFileEntity::getName, InvoiceFileEntity::getStatus)
 			.containsExactlyInAnyOrder(
 				tuple("INVOICE_FILE_1.txt", GENERATED),
-				tuple("INVOICE_FILE_3.txt", GENERATED));
+				tuple("INVOICE_FILE_3.txt", GENERATED),
+				tuple("INVOICE_FILE_4.txt", SEND_FAILED));
 	}
 
 	@Test
-	void findByStatusAndMunicipalityIdIn() {
+	void findAllCreatedInMonth() {
+
+		// Arrange
+		final var start = LocalDate.of(2024, 2, 23).atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
+		final var end = LocalDate.of(2024, 2, 26).atStartOfDay(ZoneId.systemDefault()).toOffsetDateTime();
 
 		// Act
-		final var result = repository.findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		final var result = repository.findAllCreatedInMonth(MUNICIPALITY_ID, start, end);
 
 		// Assert
 		assertThat(result)
 			.isNotNull()
-			.hasSize(3)
-			.extracting(InvoiceFileEntity::getName, InvoiceFileEntity::getStatus)
+			.extracting(InvoiceFileSummary::name, InvoiceFileSummary::status, InvoiceFileSummary::municipalityId)
 			.containsExactlyInAnyOrder(
-				tuple("INVOICE_FILE_1.txt", GENERATED),
-				tuple("INVOICE_FILE_3.txt", GENERATED),
-				tuple("INVOICE_FILE_4.txt", SEND_FAILED));
+				tuple("INVOICE_FILE_2.txt", SEND_SUCCESSFUL, MUNICIPALITY_ID),
+				tuple("INVOICE_FILE_3.txt", GENERATED, MUNICIPALITY_ID),
+				tuple("INVOICE_FILE_4.txt", SEND_FAILED, MUNICIPALITY_ID));
+		assertThat(result).allSatisfy(summary -> {
+			assertThat(summary.id()).isPositive();
+			assertThat(summary.created()).isBetween(start, end);
+		});
 	}
-
 }
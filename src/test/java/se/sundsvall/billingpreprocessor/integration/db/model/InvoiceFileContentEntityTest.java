@@ -0,0 +1,56 @@
+package se.sundsvall.billingpreprocessor.integration.db.model;
+
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanConstructor;
+import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanEquals;
+import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanHashCode;
+import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanToStringExcluding;
+import static com.google.code.beanmatchers.BeanMatchers.hasValidGettersAndSetters;
+import static com.google.code.beanmatchers.BeanMatchers.registerValueGenerator;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.AllOf.allOf;
+
+class InvoiceFileContentEntityTest {
+
+	@BeforeAll
+	static void setup() {
+		registerValueGenerator(() -> UUID.randomUUID().toString().getBytes(), byte[].class);
+	}
+
+	@Test
+	void testBean() {
+		assertThat(InvoiceFileContentEntity.class, allOf(
+			hasValidBeanConstructor(),
+			hasValidGettersAndSetters(),
+			hasValidBeanHashCode(),
+			hasValidBeanEquals(),
+			hasValidBeanToStringExcluding("invoiceFile", "content")));
+	}
+
+	@Test
+	void hasValidBuilderMethods() {
+		final var content = "content".getBytes();
+		final var id = 1L;
+		final var invoiceFile = InvoiceFileEntity.create();
+
+		final var entity = InvoiceFileContentEntity.create()
+			.withContent(content)
+			.withId(id)
+			.withInvoiceFile(invoiceFile);
+
+		assertThat(entity).hasNoNullFieldsOrProperties();
+		assertThat(entity.getContent()).isEqualTo(content);
+		assertThat(entity.getId()).isEqualTo(id);
+		assertThat(entity.getInvoiceFile()).isEqualTo(invoiceFile);
+	}
+
+	@Test
+	void hasNoDirtOnCreatedBean() {
+		assertThat(InvoiceFileContentEntity.create()).hasAllNullFieldsOrProperties();
+		assertThat(new InvoiceFileContentEntity()).hasAllNullFieldsOrProperties();
+	}
+}
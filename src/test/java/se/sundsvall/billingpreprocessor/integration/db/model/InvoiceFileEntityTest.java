@@ -37,7 +37,6 @@ class InvoiceFileEntityTest {
 	@Test
 	void hasValidBuilderMethods() {
 
-		final var content = "content";
 		final var created = OffsetDateTime.now();
 		final var encoding = "encoding";
 		final var id = 1;
@@ -48,7 +47,6 @@ class InvoiceFileEntityTest {
 		final var municipalityId = "municipalityId";
 
 		final var entity = InvoiceFileEntity.create()
-			.withContent(content)
 			.withCreated(created)
 			.withEncoding(encoding)
 			.withId(id)
@@ -59,7 +57,6 @@ class InvoiceFileEntityTest {
 			.withMunicipalityId(municipalityId);
 
 		assertThat(entity).hasNoNullFieldsOrProperties();
-		assertThat(entity.getContent()).isEqualTo(content);
 		assertThat(entity.getCreated()).isEqualTo(created);
 		assertThat(entity.getEncoding()).isEqualTo(encoding);
 		assertThat(entity.getId()).isEqualTo(id);
@@ -1,5 +1,8 @@
 package se.sundsvall.billingpreprocessor.integration.sftp;
 
+import java.time.Duration;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanConstructor;
@@ -7,11 +10,17 @@ import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanEquals;
 import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanHashCode;
 import static com.google.code.beanmatchers.BeanMatchers.hasValidBeanToString;
 import static com.google.code.beanmatchers.BeanMatchers.hasValidGettersAndSetters;
+import static com.google.code.beanmatchers.BeanMatchers.registerValueGenerator;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.AllOf.allOf;
 
 class SftpPropertiesTest {
 
+	@BeforeAll
+	static void setup() {
+		registerValueGenerator(() -> Duration.ofSeconds(new Random().nextInt()), Duration.class);
+	}
+
 	@Test
 	void testBean() {
 		assertThat(SftpProperties.class, allOf(
@@ -1,5 +1,6 @@
 package se.sundsvall.billingpreprocessor.service;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
 import se.sundsvall.dept44.requestid.RequestId;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -26,6 +28,9 @@ class AsyncExecutorServiceTest {
 	@Mock
 	private InvoiceFileService invoiceFileServiceMock;
 
+	@Mock
+	private BatchJobService batchJobServiceMock;
+
 	@Spy
 	private RequestId requestIdSpy;
 
@@ -70,4 +75,20 @@ class AsyncExecutorServiceTest {
 			verifyNoMoreInteractions(invoiceFileServiceMock);
 		}
 	}
+
+	@Test
+	void createBillingRecords() {
+		final var uuid = UUID.randomUUID().toString();
+		final var jobId = UUID.randomUUID().toString();
+		final var billingRecords = List.of(BillingRecord.create());
+
+		// Mock static RequestId to enable spy and to verify that static method is being called
+		try (MockedStatic<RequestId> requestIdMock = Mockito.mockStatic(RequestId.class)) {
+			service.createBillingRecords(uuid, jobId, billingRecords);
+
+			requestIdMock.verify(() -> RequestId.init(uuid));
+			verify(batchJobServiceMock).processJob(jobId, billingRecords);
+			verifyNoMoreInteractions(batchJobServiceMock, invoiceFileServiceMock);
+		}
+	}
 }
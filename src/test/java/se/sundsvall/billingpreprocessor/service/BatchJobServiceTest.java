@@ -0,0 +1,268 @@
+package se.sundsvall.billingpreprocessor.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.sundsvall.billingpreprocessor.api.model.BatchJobFailure;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.service.BillingRecordService.CreationOutcome;
+import se.sundsvall.billingpreprocessor.service.config.IngestionProperties;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.test.util.ReflectionTestUtils.getField;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.COMPLETED;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.FAILED;
+import static se.sundsvall.billingpreprocessor.api.model.enums.BatchJobStatus.PENDING;
+import static se.sundsvall.billingpreprocessor.api.model.enums.Type.INTERNAL;
+
+@ExtendWith(MockitoExtension.class)
+class BatchJobServiceTest {
+	private static final String MUNICIPALITY_ID = "2281";
+	private static final String CATEGORY = "ACCESS_CARD";
+	private static final String UNKNOWN_CATEGORY = "UNKNOWN_CATEGORY";
+	private static final String UNKNOWN_TYPE_OR_CATEGORY = "Billing record contains an unknown type or category";
+	private static final String BILLING_RECORD_CAN_NOT_BE_PERSISTED = "Billing record could not be persisted";
+	private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+	@Mock
+	private BillingRecordService billingRecordServiceMock;
+
+	@Mock
+	private Clock clockMock;
+
+	private BatchJobService service;
+
+	@BeforeEach
+	void setup() {
+		service = new BatchJobService(billingRecordServiceMock, new IngestionProperties(2, Duration.ofHours(1)), clockMock);
+	}
+
+	@Test
+	void registerAndReadJob() {
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW);
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, 3);
+		final var result = service.readJob(id, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result.id()).isEqualTo(id);
+		assertThat(result.municipalityId()).isEqualTo(MUNICIPALITY_ID);
+		assertThat(result.status()).isEqualTo(PENDING);
+		assertThat(result.total()).isEqualTo(3);
+		assertThat(result.processed()).isZero();
+		assertThat(result.createdIds()).isEmpty();
+		assertThat(result.failures()).isEmpty();
+		assertThat(result.createdAt().toInstant()).isEqualTo(NOW);
+		assertThat(result.finishedAt()).isNull();
+		verifyNoMoreInteractions(billingRecordServiceMock);
+	}
+
+	@Test
+	void readJobForOtherMunicipality() {
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW);
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, 1);
+		final var e = assertThrows(ThrowableProblem.class, () -> service.readJob(id, "2260"));
+
+		// Assertions and verifications
+		assertThat(e.getStatus()).isEqualTo(NOT_FOUND);
+		assertThat(e.getMessage()).isEqualTo("Not Found: A job with id '%s' and municipality ID '2260' could not be found!".formatted(id));
+	}
+
+	@Test
+	void readExpiredJob() {
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW, NOW, NOW.plus(Duration.ofHours(2)));
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, 0);
+		service.processJob(id, List.of());
+		final var e = assertThrows(ThrowableProblem.class, () -> service.readJob(id, MUNICIPALITY_ID));
+
+		// Assertions and verifications
+		assertThat(e.getStatus()).isEqualTo(NOT_FOUND);
+	}
+
+	@Test
+	void readUnfinishedJobAfterTimeToLive() {
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW, NOW.plus(Duration.ofHours(2)));
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, 1);
+		final var result = service.readJob(id, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result.status()).isEqualTo(PENDING);
+	}
+
+	@Test
+	void removeJob() {
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW);
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, 1);
+		service.removeJob(id);
+
+		// Assertions and verifications
+		assertThat(getField(service, "jobs")).asInstanceOf(MAP).isEmpty();
+	}
+
+	@Test
+	void evictExpiredJobs() {
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW, NOW, NOW, NOW.plus(Duration.ofHours(2)));
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+
+		// Call
+		final var finishedId = service.registerJob(MUNICIPALITY_ID, 0);
+		final var unfinishedId = service.registerJob(MUNICIPALITY_ID, 1);
+		service.processJob(finishedId, List.of());
+		service.evictExpiredJobs();
+
+		// Assertions and verifications
+		assertThat(getField(service, "jobs")).asInstanceOf(MAP).containsOnlyKeys(unfinishedId);
+	}
+
+	@Test
+	void processJob() {
+		// Setup
+		final var billingRecords = List.of(
+			createBillingRecord(0, CATEGORY),
+			createBillingRecord(1, UNKNOWN_CATEGORY),
+			createBillingRecord(2, CATEGORY),
+			createBillingRecord(3, CATEGORY),
+			createBillingRecord(4, CATEGORY));
+
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW);
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+		when(billingRecordServiceMock.createBillingRecordChunk(billingRecords.subList(0, 2), MUNICIPALITY_ID)).thenReturn(List.of(
+			new CreationOutcome("id-0", null),
+			new CreationOutcome(null, UNKNOWN_TYPE_OR_CATEGORY)));
+		when(billingRecordServiceMock.createBillingRecordChunk(billingRecords.subList(2, 4), MUNICIPALITY_ID)).thenReturn(List.of(
+			new CreationOutcome(null, BILLING_RECORD_CAN_NOT_BE_PERSISTED),
+			new CreationOutcome(null, BILLING_RECORD_CAN_NOT_BE_PERSISTED)));
+		when(billingRecordServiceMock.createBillingRecordChunk(billingRecords.subList(4, 5), MUNICIPALITY_ID)).thenReturn(List.of(
+			new CreationOutcome("id-4", null)));
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, billingRecords.size());
+		service.processJob(id, billingRecords);
+		final var result = service.readJob(id, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result.status()).isEqualTo(COMPLETED);
+		assertThat(result.total()).isEqualTo(5);
+		assertThat(result.processed()).isEqualTo(5);
+		assertThat(result.createdIds()).containsExactly("id-0", "id-4");
+		assertThat(result.failures()).containsExactly(
+			new BatchJobFailure(1, UNKNOWN_TYPE_OR_CATEGORY),
+			new BatchJobFailure(2, BILLING_RECORD_CAN_NOT_BE_PERSISTED),
+			new BatchJobFailure(3, BILLING_RECORD_CAN_NOT_BE_PERSISTED));
+		assertThat(result.finishedAt()).isNotNull();
+		verify(billingRecordServiceMock).createBillingRecordChunk(billingRecords.subList(0, 2), MUNICIPALITY_ID);
+		verify(billingRecordServiceMock).createBillingRecordChunk(billingRecords.subList(2, 4), MUNICIPALITY_ID);
+		verify(billingRecordServiceMock).createBillingRecordChunk(billingRecords.subList(4, 5), MUNICIPALITY_ID);
+		verifyNoMoreInteractions(billingRecordServiceMock);
+	}
+
+	@Test
+	void processJobWhereAllBillingRecordsFail() {
+		// Setup
+		final var billingRecords = List.of(
+			createBillingRecord(0, UNKNOWN_CATEGORY),
+			createBillingRecord(1, CATEGORY));
+
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW);
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+		when(billingRecordServiceMock.createBillingRecordChunk(billingRecords, MUNICIPALITY_ID)).thenReturn(List.of(
+			new CreationOutcome(null, UNKNOWN_TYPE_OR_CATEGORY),
+			new CreationOutcome(null, BILLING_RECORD_CAN_NOT_BE_PERSISTED)));
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, billingRecords.size());
+		service.processJob(id, billingRecords);
+		final var result = service.readJob(id, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result.status()).isEqualTo(FAILED);
+		assertThat(result.processed()).isEqualTo(2);
+		assertThat(result.createdIds()).isEmpty();
+		assertThat(result.failures()).containsExactly(
+			new BatchJobFailure(0, UNKNOWN_TYPE_OR_CATEGORY),
+			new BatchJobFailure(1, BILLING_RECORD_CAN_NOT_BE_PERSISTED));
+		assertThat(result.finishedAt()).isNotNull();
+	}
+
+	@Test
+	void processJobAbortedByException() {
+		// Setup
+		final var billingRecords = List.of(
+			createBillingRecord(0, CATEGORY),
+			createBillingRecord(1, CATEGORY),
+			createBillingRecord(2, CATEGORY));
+
+		// Mock
+		when(clockMock.instant()).thenReturn(NOW);
+		when(clockMock.getZone()).thenReturn(ZoneId.systemDefault());
+		when(billingRecordServiceMock.createBillingRecordChunk(billingRecords.subList(0, 2), MUNICIPALITY_ID)).thenReturn(List.of(
+			new CreationOutcome("id-0", null),
+			new CreationOutcome("id-1", null)));
+		when(billingRecordServiceMock.createBillingRecordChunk(billingRecords.subList(2, 3), MUNICIPALITY_ID)).thenThrow(new IllegalStateException("Registry unavailable"));
+
+		// Call
+		final var id = service.registerJob(MUNICIPALITY_ID, billingRecords.size());
+		service.processJob(id, billingRecords);
+		final var result = service.readJob(id, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result.status()).isEqualTo(FAILED);
+		assertThat(result.processed()).isEqualTo(2);
+		assertThat(result.createdIds()).containsExactly("id-0", "id-1");
+		assertThat(result.finishedAt()).isNotNull();
+	}
+
+	@Test
+	void processNonExistingJob() {
+		final var billingRecords = List.<BillingRecord>of();
+
+		final var e = assertThrows(ThrowableProblem.class, () -> service.processJob("non-existing", billingRecords));
+
+		assertThat(e.getMessage()).isEqualTo("Internal Server Error: Job 'non-existing' is not present");
+		verifyNoMoreInteractions(billingRecordServiceMock);
+	}
+
+	private static BillingRecord createBillingRecord(int index, String category) {
+		return BillingRecord.create()
+			.withCategory(category)
+			.withType(INTERNAL)
+			.withExtraParameters(Map.of("index", String.valueOf(index)));
+	}
+}
@@ -0,0 +1,112 @@
+package se.sundsvall.billingpreprocessor.service;
+
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+import se.sundsvall.billingpreprocessor.api.model.AccountInformation;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.Invoice;
+import se.sundsvall.billingpreprocessor.api.model.InvoiceRow;
+import se.sundsvall.billingpreprocessor.integration.db.BillingRecordRepository;
+import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.sundsvall.billingpreprocessor.api.model.enums.Status.NEW;
+import static se.sundsvall.billingpreprocessor.api.model.enums.Type.INTERNAL;
+
+/**
+ * Verifies that batch creation of billing records against the database container writes the rows as JDBC batches.
+ *
+ * @see /src/test/resources/db/testdata-junit.sql for data setup.
+ */
+@SpringBootTest
+@ActiveProfiles("junit")
+@Transactional
+@Sql(scripts = {
+	"/db/scripts/truncate.sql",
+	"/db/scripts/testdata-junit.sql"
+})
+class BillingRecordServiceIngestionTest {
+	private static final String CATEGORY = "INGESTION_CATEGORY";
+	private static final String MUNICIPALITY_ID = "2281";
+	private static final int NUMBER_OF_RECORDS = 200;
+	private static final int ROWS_PER_RECORD = 10;
+
+	@Autowired
+	private BillingRecordService service;
+
+	@Autowired
+	private BillingRecordRepository billingRecordRepository;
+
+	@Autowired
+	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Test
+	void createBillingRecordsUsesBatchedInserts() {
+		invoiceFileConfigurationRepository.saveAndFlush(InvoiceFileConfigurationEntity.create()
+			.withType(INTERNAL.name())
+			.withCategoryTag(CATEGORY)
+			.withFileNamePattern("fileNamePattern")
+			.withCreatorName("ingestionCreator")
+			.withEncoding("UTF-8"));
+
+		final var billingRecords = IntStream.range(0, NUMBER_OF_RECORDS).mapToObj(i -> createBillingRecord()).toList();
+
+		final var statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		try {
+			final var ids = service.createBillingRecords(billingRecords, MUNICIPALITY_ID);
+
+			final var insertedRows = statistics.getEntityInsertCount();
+			final var statements = statistics.getPrepareStatementCount();
+
+			assertThat(ids).hasSize(NUMBER_OF_RECORDS).doesNotHaveDuplicates();
+			assertThat(billingRecordRepository.findAllById(ids)).hasSize(NUMBER_OF_RECORDS);
+
+			// Billing record, invoice and one description per invoice row, i.e. (2 + 2 * rows) entity rows per billing record
+			assertThat(insertedRows).isEqualTo(NUMBER_OF_RECORDS * (2L + 2L * ROWS_PER_RECORD));
+			assertThat(statements).isLessThan(insertedRows / 5);
+		} finally {
+			statistics.setStatisticsEnabled(false);
+		}
+	}
+
+	private static BillingRecord createBillingRecord() {
+		return BillingRecord.create()
+			.withCategory(CATEGORY)
+			.withStatus(NEW)
+			.withType(INTERNAL)
+			.withInvoice(Invoice.create()
+				.withCustomerId("16")
+				.withDescription("Ingestion")
+				.withOurReference("Johan Doe")
+				.withInvoiceRows(createInvoiceRows()));
+	}
+
+	private static List<InvoiceRow> createInvoiceRows() {
+		return IntStream.range(0, ROWS_PER_RECORD).mapToObj(i -> InvoiceRow.create()
+			.withDescriptions(List.of("Row " + i))
+			.withAccountInformation(List.of(AccountInformation.create()
+				.withActivity("5247000")
+				.withDepartment("910300")
+				.withCostCenter("1620000")
+				.withSubaccount("936100")))
+			.withCostPerUnit(BigDecimal.TEN)
+			.withQuantity(BigDecimal.ONE))
+			.toList();
+	}
+}
@@ -1,13 +1,18 @@
 package se.sundsvall.billingpreprocessor.service;
 
+import com.turkraft.springfilter.converter.FilterSpecificationConverter;
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
@@ -15,16 +20,22 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
 import se.sundsvall.billingpreprocessor.api.model.AccountInformation;
 import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApproval;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecordApprovalResult;
 import se.sundsvall.billingpreprocessor.api.model.Invoice;
 import se.sundsvall.billingpreprocessor.api.model.InvoiceRow;
+import se.sundsvall.billingpreprocessor.api.model.enums.ApprovalOutcome;
 import se.sundsvall.billingpreprocessor.integration.db.BillingRecordRepository;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.IdAndStatus;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
+import se.sundsvall.billingpreprocessor.service.BillingRecordService.CreationOutcome;
+import se.sundsvall.billingpreprocessor.service.config.IngestionProperties;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static java.util.Collections.emptyList;
@@ -34,15 +45,25 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.params.provider.EnumSource.Mode.EXCLUDE;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.data.domain.Sort.Direction.DESC;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.METHOD_NOT_ALLOWED;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static se.sundsvall.billingpreprocessor.api.model.enums.ApprovalOutcome.APPROVED;
+import static se.sundsvall.billingpreprocessor.api.model.enums.ApprovalOutcome.INVALID_STATUS;
 import static se.sundsvall.billingpreprocessor.api.model.enums.Status.NEW;
 import static se.sundsvall.billingpreprocessor.api.model.enums.Type.INTERNAL;
+import static se.sundsvall.billingpreprocessor.service.util.CursorUtil.decodeCursor;
+import static se.sundsvall.billingpreprocessor.service.util.CursorUtil.encodeCursor;
 
 @ExtendWith(MockitoExtension.class)
 class BillingRecordServiceTest {
@@ -54,21 +75,35 @@ class BillingRecordServiceTest {
 	private BillingRecordRepository billingRecordRepositoryMock;
 
 	@Mock
-	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
 
 	@Mock
 	private Specification<BillingRecordEntity> specificationMock;
 
-	@InjectMocks
+	@Mock
+	private EntityManager entityManagerMock;
+
+	@Mock
+	private FilterSpecificationConverter filterSpecificationConverterMock;
+
+	@Mock
+	private PlatformTransactionManager transactionManagerMock;
+
 	private BillingRecordService service;
 
+	@BeforeEach
+	void setup() {
+		service = new BillingRecordService(billingRecordRepositoryMock, invoiceFileConfigurationServiceMock, new IngestionProperties(2, Duration.ofHours(1)), entityManagerMock,
+			filterSpecificationConverterMock, transactionManagerMock);
+	}
+
 	@Test
 	void createBillingRecord() {
 		// Setup
 		final var billingRecord = createBillingRecordInstance();
 
 		// Mock
-		when(invoiceFileConfigurationRepositoryMock.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory())).thenReturn(true);
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory())).thenReturn(true);
 		when(billingRecordRepositoryMock.save(any(BillingRecordEntity.class))).thenReturn(BillingRecordEntity.create().withId(ID));
 
 		// Call
@@ -76,9 +111,9 @@ class BillingRecordServiceTest {
 
 		// Assertions and verifications
 		assertThat(result).isEqualTo(ID);
-		verify(invoiceFileConfigurationRepositoryMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
 		verify(billingRecordRepositoryMock).save(any(BillingRecordEntity.class));
-		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock, billingRecordRepositoryMock);
+		verifyNoMoreInteractions(invoiceFileConfigurationServiceMock, billingRecordRepositoryMock);
 	}
 
 	@Test
@@ -92,8 +127,8 @@ class BillingRecordServiceTest {
 		// Assertions and verifications
 		assertThat(e.getStatus()).isEqualTo(BAD_REQUEST);
 		assertThat(e.getMessage()).isEqualTo("Bad Request: One or more billing records contain an unknown type or category!");
-		verify(invoiceFileConfigurationRepositoryMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
-		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock, billingRecordRepositoryMock);
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		verifyNoMoreInteractions(invoiceFileConfigurationServiceMock, billingRecordRepositoryMock);
 	}
 
 	@Test
@@ -102,7 +137,7 @@ class BillingRecordServiceTest {
 		final var billingRecord = createBillingRecordInstance();
 
 		// Mock
-		when(invoiceFileConfigurationRepositoryMock.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory())).thenReturn(true);
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(billingRecord.getType().name(), billingRecord.getCategory())).thenReturn(true);
 		when(billingRecordRepositoryMock.saveAll(any())).thenReturn(List.of(BillingRecordEntity.create().withId(ID)));
 
 		// Call
@@ -111,9 +146,38 @@ class BillingRecordServiceTest {
 		// Assertions and verifications
 		assertThat(result).isNotEmpty().hasSize(1);
 		assertThat(result.getFirst()).isEqualTo(ID);
-		verify(invoiceFileConfigurationRepositoryMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
 		verify(billingRecordRepositoryMock).saveAll(anyList());
-		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock, billingRecordRepositoryMock);
+		verify(entityManagerMock).flush();
+		verify(entityManagerMock).clear();
+		verifyNoMoreInteractions(invoiceFileConfigurationServiceMock, billingRecordRepositoryMock, entityManagerMock);
+	}
+
+	@Test
+	void createBillingRecordsInChunks() {
+		// Setup
+		final var billingRecords = List.of(createBillingRecordInstance(), createBillingRecordInstance(), createBillingRecordInstance());
+
+		// Mock
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY)).thenReturn(true);
+		when(billingRecordRepositoryMock.saveAll(anyList()))
+			.thenReturn(List.of(BillingRecordEntity.create().withId("1"), BillingRecordEntity.create().withId("2")))
+			.thenReturn(List.of(BillingRecordEntity.create().withId("3")));
+
+		// Call
+		final var result = service.createBillingRecords(billingRecords, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result).containsExactly("1", "2", "3");
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		final var inOrder = inOrder(billingRecordRepositoryMock, entityManagerMock);
+		inOrder.verify(billingRecordRepositoryMock).saveAll(ArgumentMatchers.<List<BillingRecordEntity>>argThat(chunk -> chunk.size() == 2));
+		inOrder.verify(entityManagerMock).flush();
+		inOrder.verify(entityManagerMock).clear();
+		inOrder.verify(billingRecordRepositoryMock).saveAll(ArgumentMatchers.<List<BillingRecordEntity>>argThat(chunk -> chunk.size() == 1));
+		inOrder.verify(entityManagerMock).flush();
+		inOrder.verify(entityManagerMock).clear();
+		verifyNoMoreInteractions(invoiceFileConfigurationServiceMock, billingRecordRepositoryMock, entityManagerMock);
 	}
 
 	@Test
@@ -126,7 +190,7 @@ class BillingRecordServiceTest {
 			createBillingRecordInstance().withCategory(unknownCategory));
 
 		// Mock
-		when(invoiceFileConfigurationRepositoryMock.existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY)).thenReturn(true);
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY)).thenReturn(true);
 
 		// Call
 		final var e = assertThrows(ThrowableProblem.class, () -> service.createBillingRecords(input, MUNICIPALITY_ID));
@@ -134,9 +198,76 @@ class BillingRecordServiceTest {
 		// Assertions and verifications
 		assertThat(e.getStatus()).isEqualTo(BAD_REQUEST);
 		assertThat(e.getMessage()).isEqualTo("Bad Request: One or more billing records contain an unknown type or category!");
-		verify(invoiceFileConfigurationRepositoryMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
-		verify(invoiceFileConfigurationRepositoryMock).existsByTypeAndCategoryTag(INTERNAL.name(), unknownCategory);
-		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock, billingRecordRepositoryMock);
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), unknownCategory);
+		verifyNoMoreInteractions(invoiceFileConfigurationServiceMock, billingRecordRepositoryMock);
+	}
+
+	@Test
+	void createBillingRecordChunk() {
+		// Setup
+		final var unknownCategory = "UNKNOWN_CATEGORY";
+		final var billingRecords = List.of(
+			createBillingRecordInstance(),
+			createBillingRecordInstance().withCategory(unknownCategory),
+			createBillingRecordInstance());
+
+		// Mock
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY)).thenReturn(true);
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(INTERNAL.name(), unknownCategory)).thenReturn(false);
+		when(billingRecordRepositoryMock.saveAll(anyList())).thenReturn(List.of(BillingRecordEntity.create().withId("1"), BillingRecordEntity.create().withId("3")));
+
+		// Call
+		final var result = service.createBillingRecordChunk(billingRecords, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result).containsExactly(
+			new CreationOutcome("1", null),
+			new CreationOutcome(null, "Billing record contains an unknown type or category"),
+			new CreationOutcome("3", null));
+		verify(invoiceFileConfigurationServiceMock, times(2)).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), unknownCategory);
+		verify(billingRecordRepositoryMock).saveAll(ArgumentMatchers.<List<BillingRecordEntity>>argThat(chunk -> chunk.size() == 2));
+		verify(entityManagerMock).flush();
+		verify(entityManagerMock).clear();
+		verify(transactionManagerMock).getTransaction(any());
+		verify(transactionManagerMock).commit(any());
+		verifyNoMoreInteractions(invoiceFileConfigurationServiceMock, billingRecordRepositoryMock, entityManagerMock, transactionManagerMock);
+	}
+
+	@Test
+	void createBillingRecordChunkWhenPersistingFails() {
+		// Setup
+		final var billingRecords = List.of(createBillingRecordInstance(), createBillingRecordInstance());
+
+		// Mock
+		when(invoiceFileConfigurationServiceMock.existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY)).thenReturn(true);
+		when(billingRecordRepositoryMock.saveAll(anyList())).thenThrow(new IllegalStateException("Database unavailable"));
+
+		// Call
+		final var result = service.createBillingRecordChunk(billingRecords, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result).containsExactly(
+			new CreationOutcome(null, "Billing record could not be persisted"),
+			new CreationOutcome(null, "Billing record could not be persisted"));
+		verify(transactionManagerMock).getTransaction(any());
+		verify(transactionManagerMock).rollback(any());
+		verify(transactionManagerMock, never()).commit(any());
+	}
+
+	@Test
+	void createBillingRecordChunkWithOnlyUnknownTypesOrCategories() {
+		// Setup
+		final var billingRecords = List.of(createBillingRecordInstance());
+
+		// Call
+		final var result = service.createBillingRecordChunk(billingRecords, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result).containsExactly(new CreationOutcome(null, "Billing record contains an unknown type or category"));
+		verify(invoiceFileConfigurationServiceMock).existsByTypeAndCategoryTag(INTERNAL.name(), CATEGORY);
+		verifyNoInteractions(billingRecordRepositoryMock, entityManagerMock, transactionManagerMock);
 	}
 
 	@Test
@@ -191,19 +322,78 @@ class BillingRecordServiceTest {
 		verifyNoMoreInteractions(billingRecordRepositoryMock, specificationMock);
 	}
 
+	@Test
+	void findBillingRecordsByCursorWithFollowingWindow() {
+		// Setup
+		final var created = OffsetDateTime.parse("2022-06-20T11:17:36.795+02:00");
+		final var entity1 = createBillingRecordEntityInstance().withId("id-1").withCreated(created);
+		final var entity2 = createBillingRecordEntityInstance().withId("id-2").withCreated(created);
+		final var entity3 = createBillingRecordEntityInstance().withId("id-3").withCreated(created);
+
+		// Mock
+		when(specificationMock.and(ArgumentMatchers.<Specification<BillingRecordEntity>>any())).thenReturn(specificationMock);
+		when(billingRecordRepositoryMock.findPageAfter(specificationMock, null, null, 3)).thenReturn(List.of(entity1, entity2, entity3));
+
+		// Call
+		final var window = service.findBillingRecords(specificationMock, 2, null, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(window.content()).extracting(BillingRecord::getId).containsExactly("id-1", "id-2");
+		assertThat(decodeCursor(window.nextCursor())).satisfies(cursor -> {
+			assertThat(cursor.created().toInstant()).isEqualTo(created.toInstant());
+			assertThat(cursor.id()).isEqualTo("id-2");
+		});
+
+		verify(specificationMock).and(ArgumentMatchers.<Specification<BillingRecordEntity>>any());
+		verify(billingRecordRepositoryMock).findPageAfter(specificationMock, null, null, 3);
+		verifyNoMoreInteractions(billingRecordRepositoryMock, specificationMock);
+	}
+
+	@Test
+	void findBillingRecordsByCursorForLastWindow() {
+		// Setup
+		final var created = OffsetDateTime.parse("2022-06-20T11:17:36.795+02:00");
+		final var cursor = encodeCursor(created, "id-2");
+		final var entity = createBillingRecordEntityInstance().withId("id-3").withCreated(created);
+
+		// Mock
+		when(specificationMock.and(ArgumentMatchers.<Specification<BillingRecordEntity>>any())).thenReturn(specificationMock);
+		when(billingRecordRepositoryMock.findPageAfter(eq(specificationMock), any(), eq("id-2"), eq(3))).thenReturn(List.of(entity));
+
+		// Call
+		final var window = service.findBillingRecords(specificationMock, 2, cursor, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(window.content()).extracting(BillingRecord::getId).containsExactly("id-3");
+		assertThat(window.nextCursor()).isNull();
+
+		verify(specificationMock).and(ArgumentMatchers.<Specification<BillingRecordEntity>>any());
+		verify(billingRecordRepositoryMock).findPageAfter(eq(specificationMock), argThat(value -> value.isEqual(created)), eq("id-2"), eq(3));
+		verifyNoMoreInteractions(billingRecordRepositoryMock, specificationMock);
+	}
+
+	@Test
+	void findBillingRecordsByInvalidCursor() {
+		// Call
+		final var exception = assertThrows(ThrowableProblem.class, () -> service.findBillingRecords(specificationMock, 2, "not-a-cursor", MUNICIPALITY_ID));
+
+		// Assertions and verifications
+		assertThat(exception.getStatus()).isEqualTo(BAD_REQUEST);
+		assertThat(exception.getMessage()).isEqualTo("Bad Request: Cursor 'not-a-cursor' is not valid!");
+		verifyNoInteractions(billingRecordRepositoryMock, specificationMock);
+	}
+
 	@Test
 	void readExistingBillingRecord() {
 		// Mock
-		when(billingRecordRepositoryMock.existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(true);
-		when(billingRecordRepositoryMock.getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(createBillingRecordEntityInstance());
+		when(billingRecordRepositoryMock.findByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(Optional.of(createBillingRecordEntityInstance()));
 
 		// Call
 		final var result = service.readBillingRecord(ID, MUNICIPALITY_ID);
 
 		// Assertions and verifications
 		assertThat(result.getId()).isEqualTo(ID);
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
-		verify(billingRecordRepositoryMock).getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
 
@@ -217,7 +407,7 @@ class BillingRecordServiceTest {
 		assertThat(exception.getTitle()).isEqualTo(NOT_FOUND.getReasonPhrase());
 		assertThat(exception.getMessage()).isEqualTo((String.format("Not Found: A billing record with id '%s' and municipality ID '%s' could not be found!", ID, MUNICIPALITY_ID)));
 
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
 
@@ -227,8 +417,7 @@ class BillingRecordServiceTest {
 		final var entity = createBillingRecordEntityInstance();
 
 		// Mock
-		when(billingRecordRepositoryMock.existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(true);
-		when(billingRecordRepositoryMock.getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(entity);
+		when(billingRecordRepositoryMock.findByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(Optional.of(entity));
 		when(billingRecordRepositoryMock.save(entity)).thenReturn(entity);
 
 		// Call
@@ -237,8 +426,7 @@ class BillingRecordServiceTest {
 		// Assertions and verifications
 		assertThat(response.getId()).isEqualTo(ID);
 
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
-		verify(billingRecordRepositoryMock).getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
 		verify(billingRecordRepositoryMock).save(entity);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
@@ -256,23 +444,22 @@ class BillingRecordServiceTest {
 		assertThat(exception.getTitle()).isEqualTo(NOT_FOUND.getReasonPhrase());
 		assertThat(exception.getMessage()).isEqualTo((String.format("Not Found: A billing record with id '%s' and municipality ID '%s' could not be found!", ID, MUNICIPALITY_ID)));
 
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
 
 	@Test
 	void deleteBillingRecordWithDeletableStatus() {
 		// Mock
-		when(billingRecordRepositoryMock.existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(true);
-		when(billingRecordRepositoryMock.getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(createBillingRecordEntityInstance().withStatus(Status.NEW));
+		final var entity = createBillingRecordEntityInstance().withStatus(Status.NEW);
+		when(billingRecordRepositoryMock.findForUpdateByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(Optional.of(entity));
 
 		// Call
 		service.deleteBillingRecord(ID, MUNICIPALITY_ID);
 
 		// Assertions and verifications
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
-		verify(billingRecordRepositoryMock).getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
-		verify(billingRecordRepositoryMock).deleteByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findForUpdateByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).delete(entity);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
 
@@ -280,8 +467,7 @@ class BillingRecordServiceTest {
 	@EnumSource(value = Status.class, names = "NEW", mode = EXCLUDE)
 	void deleteBillingRecordWithNonDeletableStatus(Status status) {
 		// Mock
-		when(billingRecordRepositoryMock.existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(true);
-		when(billingRecordRepositoryMock.getReferenceByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(createBillingRecordEntityInstance().withStatus(status));
+		when(billingRecordRepositoryMock.findForUpdateByIdAndMunicipalityId(ID, MUNICIPALITY_ID)).thenReturn(Optional.of(createBillingRecordEntityInstance().withStatus(status)));
 
 		// Call
 		final var exception = assertThrows(ThrowableProblem.class, () -> service.deleteBillingRecord(ID, MUNICIPALITY_ID));
@@ -291,7 +477,7 @@ class BillingRecordServiceTest {
 		assertThat(exception.getTitle()).isEqualTo(METHOD_NOT_ALLOWED.getReasonPhrase());
 		assertThat(exception.getMessage()).isEqualTo("Method Not Allowed: The billing record does not have status NEW and is therefore not possible to delete!");
 
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findForUpdateByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
 
@@ -305,10 +491,114 @@ class BillingRecordServiceTest {
 		assertThat(exception.getTitle()).isEqualTo(NOT_FOUND.getReasonPhrase());
 		assertThat(exception.getMessage()).isEqualTo(String.format("Not Found: A billing record with id '%s' and municipality ID '%s' could not be found!", ID, MUNICIPALITY_ID));
 
-		verify(billingRecordRepositoryMock).existsByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findForUpdateByIdAndMunicipalityId(ID, MUNICIPALITY_ID);
 		verifyNoMoreInteractions(billingRecordRepositoryMock);
 	}
 
+	@Test
+	void approveBillingRecordsByIds() {
+		// Setup
+		final var approval = new BillingRecordApproval(List.of("id-1", "id-2", "id-3", "id-1"), null, "approvedBy");
+
+		// Mock
+		when(billingRecordRepositoryMock.findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-1", "id-2"), MUNICIPALITY_ID))
+			.thenReturn(List.of(new IdAndStatus("id-1", Status.NEW), new IdAndStatus("id-2", Status.INVOICED)));
+		when(billingRecordRepositoryMock.findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-3"), MUNICIPALITY_ID)).thenReturn(emptyList());
+		when(billingRecordRepositoryMock.approveByIdIn(eq("approvedBy"), any(), eq(List.of("id-1")), eq(MUNICIPALITY_ID))).thenReturn(1);
+
+		// Call
+		final var result = service.approveBillingRecords(approval, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result).containsExactly(
+			new BillingRecordApprovalResult("id-1", APPROVED),
+			new BillingRecordApprovalResult("id-2", INVALID_STATUS),
+			new BillingRecordApprovalResult("id-3", ApprovalOutcome.NOT_FOUND));
+		verify(billingRecordRepositoryMock).findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-1", "id-2"), MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-3"), MUNICIPALITY_ID);
+		verify(billingRecordRepositoryMock).approveByIdIn(eq("approvedBy"), any(), eq(List.of("id-1")), eq(MUNICIPALITY_ID));
+		// Each chunk is approved in a transaction of its own
+		verify(transactionManagerMock, times(2)).getTransaction(any());
+		verify(transactionManagerMock, times(2)).commit(any());
+		verifyNoMoreInteractions(billingRecordRepositoryMock, entityManagerMock, filterSpecificationConverterMock, transactionManagerMock);
+	}
+
+	@Test
+	void approveBillingRecordsWhenChunkFails() {
+		// Setup
+		final var approval = new BillingRecordApproval(List.of("id-1", "id-2", "id-3"), null, "approvedBy");
+
+		// Mock
+		when(billingRecordRepositoryMock.findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-1", "id-2"), MUNICIPALITY_ID))
+			.thenReturn(List.of(new IdAndStatus("id-1", Status.NEW), new IdAndStatus("id-2", Status.NEW)));
+		when(billingRecordRepositoryMock.approveByIdIn(eq("approvedBy"), any(), eq(List.of("id-1", "id-2")), eq(MUNICIPALITY_ID))).thenReturn(2);
+		when(billingRecordRepositoryMock.findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-3"), MUNICIPALITY_ID)).thenThrow(new IllegalStateException("Database unavailable"));
+
+		// Call
+		assertThrows(IllegalStateException.class, () -> service.approveBillingRecords(approval, MUNICIPALITY_ID));
+
+		// Assertions and verifications (the first chunk is committed while the failing chunk is rolled back)
+		verify(transactionManagerMock, times(2)).getTransaction(any());
+		verify(transactionManagerMock).commit(any());
+		verify(transactionManagerMock).rollback(any());
+	}
+
+	@Test
+	void approveBillingRecordsWithoutApprovableBillingRecords() {
+		// Setup
+		final var approval = new BillingRecordApproval(List.of("id-1", "id-2"), null, "approvedBy");
+
+		// Mock
+		when(billingRecordRepositoryMock.findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-1", "id-2"), MUNICIPALITY_ID))
+			.thenReturn(List.of(new IdAndStatus("id-1", Status.APPROVED), new IdAndStatus("id-2", Status.INVOICED)));
+
+		// Call
+		final var result = service.approveBillingRecords(approval, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(result).containsExactly(
+			new BillingRecordApprovalResult("id-1", INVALID_STATUS),
+			new BillingRecordApprovalResult("id-2", INVALID_STATUS));
+		verify(billingRecordRepositoryMock).findForUpdateIdAndStatusByIdInAndMunicipalityId(List.of("id-1", "id-2"), MUNICIPALITY_ID);
+		verifyNoMoreInteractions(billingRecordRepositoryMock, entityManagerMock, filterSpecificationConverterMock);
+	}
+
+	@Test
+	void approveBillingRecordsWithoutSelection() {
+		// Setup
+		final var withoutSelection = new BillingRecordApproval(emptyList(), " ", "approvedBy");
+		final var withBothSelections = new BillingRecordApproval(List.of("id-1"), "category : 'ACCESS_CARD'", "approvedBy");
+
+		// Call
+		final var e1 = assertThrows(ThrowableProblem.class, () -> service.approveBillingRecords(withoutSelection, MUNICIPALITY_ID));
+		final var e2 = assertThrows(ThrowableProblem.class, () -> service.approveBillingRecords(withBothSelections, MUNICIPALITY_ID));
+
+		// Assertions and verifications
+		assertThat(e1.getStatus()).isEqualTo(BAD_REQUEST);
+		assertThat(e1.getMessage()).isEqualTo("Bad Request: Billing records to approve must be selected by either ids or filter!");
+		assertThat(e2.getStatus()).isEqualTo(BAD_REQUEST);
+		verifyNoMoreInteractions(billingRecordRepositoryMock, entityManagerMock, filterSpecificationConverterMock);
+	}
+
+	@Test
+	void approveBillingRecordsWithInvalidFilter() {
+		// Setup
+		final var filter = "category ~~ 'ACCESS_CARD'";
+		final var approval = new BillingRecordApproval(null, filter, "approvedBy");
+
+		// Mock
+		when(filterSpecificationConverterMock.convert(filter)).thenThrow(new IllegalArgumentException("Unparseable"));
+
+		// Call
+		final var e = assertThrows(ThrowableProblem.class, () -> service.approveBillingRecords(approval, MUNICIPALITY_ID));
+
+		// Assertions and verifications
+		assertThat(e.getStatus()).isEqualTo(BAD_REQUEST);
+		assertThat(e.getMessage()).isEqualTo("Bad Request: Filter 'category ~~ 'ACCESS_CARD'' could not be parsed!");
+		verify(filterSpecificationConverterMock).convert(filter);
+		verifyNoMoreInteractions(billingRecordRepositoryMock, entityManagerMock, filterSpecificationConverterMock);
+	}
+
 	private static BillingRecord createBillingRecordInstance() {
 		return BillingRecord.create()
 			.withCategory(CATEGORY)
@@ -0,0 +1,122 @@
+package se.sundsvall.billingpreprocessor.service;
+
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.sundsvall.billingpreprocessor.api.model.AccountInformation;
+import se.sundsvall.billingpreprocessor.api.model.BillingRecord;
+import se.sundsvall.billingpreprocessor.api.model.Invoice;
+import se.sundsvall.billingpreprocessor.api.model.InvoiceRow;
+import se.sundsvall.billingpreprocessor.service.BillingRecordService.CreationOutcome;
+import se.sundsvall.billingpreprocessor.service.config.IngestionProperties;
+import tools.jackson.databind.json.JsonMapper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static se.sundsvall.billingpreprocessor.api.model.enums.Status.NEW;
+import static se.sundsvall.billingpreprocessor.api.model.enums.Type.INTERNAL;
+
+@ExtendWith(MockitoExtension.class)
+class BillingRecordStreamServiceTest {
+	private static final String CATEGORY = "ACCESS_CARD";
+	private static final String MUNICIPALITY_ID = "2281";
+	private static final JsonMapper JSON_MAPPER = JsonMapper.builder().build();
+
+	@Mock
+	private BillingRecordService billingRecordServiceMock;
+
+	private BillingRecordStreamService service;
+
+	@BeforeEach
+	void setup() {
+		service = new BillingRecordStreamService(billingRecordServiceMock, new IngestionProperties(2, Duration.ofHours(1)), JSON_MAPPER,
+			Validation.buildDefaultValidatorFactory().getValidator());
+	}
+
+	@Test
+	void createBillingRecordsInChunks() throws IOException {
+		// Setup
+		final var line = JSON_MAPPER.writeValueAsString(createBillingRecordInstance());
+		final var input = String.join("\n", line, "", line, line);
+		final var output = new ByteArrayOutputStream();
+
+		// Mock
+		when(billingRecordServiceMock.createBillingRecordChunk(anyList(), eq(MUNICIPALITY_ID))).thenReturn(
+			List.of(new CreationOutcome("id-1", null), new CreationOutcome("id-2", null)),
+			List.of(new CreationOutcome("id-3", null)));
+
+		// Call
+		service.createBillingRecords(new ByteArrayInputStream(input.getBytes(UTF_8)), output, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		assertThat(output.toString(UTF_8).split("\n")).containsExactly(
+			"{\"line\":1,\"id\":\"id-1\"}",
+			"{\"line\":3,\"id\":\"id-2\"}",
+			"{\"line\":4,\"id\":\"id-3\"}");
+		verify(billingRecordServiceMock).createBillingRecordChunk(argThat(chunk -> chunk.size() == 2), eq(MUNICIPALITY_ID));
+		verify(billingRecordServiceMock).createBillingRecordChunk(argThat(chunk -> chunk.size() == 1), eq(MUNICIPALITY_ID));
+		verifyNoMoreInteractions(billingRecordServiceMock);
+	}
+
+	@Test
+	void createBillingRecordsWithRejectedLines() throws IOException {
+		// Setup
+		final var line = JSON_MAPPER.writeValueAsString(createBillingRecordInstance());
+		final var invalidLine = JSON_MAPPER.writeValueAsString(createBillingRecordInstance().withCategory("UNKNOWN"));
+		final var input = String.join("\n", "not json", invalidLine, line, line);
+		final var output = new ByteArrayOutputStream();
+
+		// Mock
+		when(billingRecordServiceMock.createBillingRecordChunk(anyList(), eq(MUNICIPALITY_ID))).thenReturn(List.of(
+			new CreationOutcome(null, "Billing record contains an unknown type or category"),
+			new CreationOutcome(null, "Billing record could not be persisted")));
+
+		// Call
+		service.createBillingRecords(new ByteArrayInputStream(input.getBytes(UTF_8)), output, MUNICIPALITY_ID);
+
+		// Assertions and verifications
+		final var results = output.toString(UTF_8).split("\n");
+		assertThat(results).hasSize(4);
+		assertThat(results[0]).isEqualTo("{\"line\":1,\"problem\":\"Line could not be parsed as a billing record\"}");
+		assertThat(results[1]).startsWith("{\"line\":2,\"problem\":").contains("category: must be one of");
+		assertThat(results[2]).isEqualTo("{\"line\":3,\"problem\":\"Billing record contains an unknown type or category\"}");
+		assertThat(results[3]).isEqualTo("{\"line\":4,\"problem\":\"Billing record could not be persisted\"}");
+		verify(billingRecordServiceMock).createBillingRecordChunk(argThat(chunk -> chunk.size() == 2), eq(MUNICIPALITY_ID));
+		verifyNoMoreInteractions(billingRecordServiceMock);
+	}
+
+	private static BillingRecord createBillingRecordInstance() {
+		return BillingRecord.create()
+			.withCategory(CATEGORY)
+			.withInvoice(Invoice.create()
+				.withCustomerId("16")
+				.withDescription("Errand number: 2113-01784")
+				.withOurReference("Johan Doe")
+				.withInvoiceRows(List.of(InvoiceRow.create()
+					.withDescriptions(List.of("Passerkort utan foto"))
+					.withAccountInformation(List.of(AccountInformation.create()
+						.withActivity("5247000")
+						.withDepartment("910300")
+						.withCostCenter("1620000")
+						.withSubaccount("936100")))
+					.withCostPerUnit(BigDecimal.valueOf(150d))
+					.withQuantity(BigDecimal.ONE))))
+			.withStatus(NEW)
+			.withType(INTERNAL);
+	}
+}
@@ -3,13 +3,13 @@ package se.sundsvall.billingpreprocessor.service;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.ZoneId;
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
@@ -18,26 +18,30 @@ import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 @ExtendWith(MockitoExtension.class)
 class InvoiceFileConfigurationServiceTest {
 
 	private static final long MOCKED_TIME_AS_EPOCH_TIMESTAMP = 1704110430000L; // 2024-01-01T13:00:15+01:00
+	private static final Duration MISS_REFRESH_INTERVAL = Duration.ofSeconds(30);
 
 	@Mock
 	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
 
-	@InjectMocks
+	@Mock
+	private Clock clockMock;
+
 	private InvoiceFileConfigurationService service;
 
 	@BeforeEach
 	void setup() {
-		setField(service, "clock", Clock.fixed(Instant.ofEpochMilli(MOCKED_TIME_AS_EPOCH_TIMESTAMP), ZoneId.systemDefault()));
+		service = new InvoiceFileConfigurationService(invoiceFileConfigurationRepositoryMock, MISS_REFRESH_INTERVAL, clockMock);
+		lenient().when(clockMock.instant()).thenReturn(Instant.ofEpochMilli(MOCKED_TIME_AS_EPOCH_TIMESTAMP));
 	}
 
 	@Test
@@ -52,14 +56,14 @@ class InvoiceFileConfigurationServiceTest {
 			.withCategoryTag(categoryTag)
 			.withFileNamePattern(fileNamePattern);
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(any(), any())).thenReturn(Optional.of(entity));
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
 
 		// Act
 		final var result = service.getInvoiceFileNameBy(type, categoryTag);
 
 		// Assert
 		assertThat(result).isEqualTo("FILENAME_20240101");
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 
@@ -75,14 +79,14 @@ class InvoiceFileConfigurationServiceTest {
 			.withCategoryTag(categoryTag)
 			.withFileNamePattern(fileNamePattern);
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(any(), any())).thenReturn(Optional.of(entity));
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
 
 		// Act
 		final var result = service.getInvoiceFileNameBy(type, categoryTag);
 
 		// Assert
 		assertThat(result).isEqualTo("FILENAME_20240101130030");
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 
@@ -93,7 +97,7 @@ class InvoiceFileConfigurationServiceTest {
 		final var type = "SOME_TYPE";
 		final var categoryTag = "SOME_CATEGORY";
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(any(), any())).thenReturn(Optional.empty());
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of());
 
 		// Act
 		final var exception = assertThrows(ThrowableProblem.class, () -> service.getInvoiceFileNameBy(type, categoryTag));
@@ -101,7 +105,29 @@ class InvoiceFileConfigurationServiceTest {
 		// Assert
 		assertThat(exception).isNotNull();
 		assertThat(exception.getMessage()).isEqualTo("Internal Server Error: No invoice file configuration found by type: 'SOME_TYPE' and categoryTag: 'SOME_CATEGORY'");
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void generateInvoiceFileNameForInvalidDatePattern() {
+
+		// Arrange
+		final var type = "SOME_TYPE";
+		final var categoryTag = "SOME_CATEGORY";
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType(type)
+			.withCategoryTag(categoryTag)
+			.withFileNamePattern("FILENAME_{bbbb}");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
+
+		// Act
+		final var exception = assertThrows(ThrowableProblem.class, () -> service.getInvoiceFileNameBy(type, categoryTag));
+
+		// Assert
+		assertThat(exception.getMessage()).isEqualTo("Internal Server Error: Could not generate filename from template: 'FILENAME_{bbbb}'");
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 
@@ -116,7 +142,7 @@ class InvoiceFileConfigurationServiceTest {
 			.withCategoryTag(categoryTag)
 			.withFileNamePattern(null);
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(any(), any())).thenReturn(Optional.of(entity));
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
 
 		// Act
 		final var exception = assertThrows(ThrowableProblem.class, () -> service.getInvoiceFileNameBy(type, categoryTag));
@@ -124,7 +150,7 @@ class InvoiceFileConfigurationServiceTest {
 		// Assert
 		assertThat(exception).isNotNull();
 		assertThat(exception.getMessage()).isEqualTo("Internal Server Error: Could not generate filename from template: 'null'");
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 
@@ -140,14 +166,14 @@ class InvoiceFileConfigurationServiceTest {
 			.withCategoryTag(categoryTag)
 			.withEncoding(encodingName);
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(type, categoryTag)).thenReturn(Optional.of(entity));
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
 
 		// Act
 		final var encoding = service.getEncoding(type, categoryTag);
 
 		// Assert
 		assertThat(encoding).isNotNull().extracting(Charset::name).isEqualTo(encodingName);
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 
@@ -163,7 +189,7 @@ class InvoiceFileConfigurationServiceTest {
 			.withCategoryTag(categoryTag)
 			.withEncoding(encodingName);
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(type, categoryTag)).thenReturn(Optional.of(entity));
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
 
 		// Act
 		final var exception = assertThrows(UnsupportedCharsetException.class, () -> service.getEncoding(type, categoryTag));
@@ -171,7 +197,7 @@ class InvoiceFileConfigurationServiceTest {
 		// Assert
 		assertThat(exception).isNotNull();
 		assertThat(exception.getMessage()).isEqualTo(encodingName);
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 
@@ -185,7 +211,7 @@ class InvoiceFileConfigurationServiceTest {
 			.withType(type)
 			.withCategoryTag(categoryTag);
 
-		when(invoiceFileConfigurationRepositoryMock.findByTypeAndCategoryTag(type, categoryTag)).thenReturn(Optional.of(entity));
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
 
 		// Act
 		final var exception = assertThrows(IllegalArgumentException.class, () -> service.getEncoding(type, categoryTag));
@@ -193,7 +219,177 @@ class InvoiceFileConfigurationServiceTest {
 		// Assert
 		assertThat(exception).isNotNull();
 		assertThat(exception.getMessage()).isEqualTo("Null charset name");
-		verify(invoiceFileConfigurationRepositoryMock).findByTypeAndCategoryTag(type, categoryTag);
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void findByCreatorName() {
+
+		// Arrange
+		final var creatorName = "SomeCreator";
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType("SOME_TYPE")
+			.withCategoryTag("SOME_CATEGORY")
+			.withCreatorName(creatorName);
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
+
+		// Act
+		final var result = service.findByCreatorName(creatorName);
+		final var nonExisting = service.findByCreatorName("NonExistingCreator");
+
+		// Assert
+		assertThat(result).isPresent().get().isSameAs(entity);
+		assertThat(nonExisting).isEmpty();
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void configurationsAreReadFromRegistry() {
+
+		// Arrange
+		final var type = "SOME_TYPE";
+		final var categoryTag = "SOME_CATEGORY";
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType(type)
+			.withCategoryTag(categoryTag)
+			.withCreatorName("SomeCreator")
+			.withEncoding("UTF-8")
+			.withFileNamePattern("FILENAME_{yyyyMMdd}");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
+
+		// Act
+		service.getInvoiceFileNameBy(type, categoryTag);
+		service.getInvoiceFileNameBy(type, categoryTag);
+		service.getEncoding(type, categoryTag);
+		service.findByCreatorName("SomeCreator");
+
+		// Assert
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void existsByTypeAndCategoryTag() {
+
+		// Arrange
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType("SOME_TYPE")
+			.withCategoryTag("SOME_CATEGORY");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
+
+		// Act
+		final var existing = service.existsByTypeAndCategoryTag("SOME_TYPE", "SOME_CATEGORY");
+		final var existingRepeated = service.existsByTypeAndCategoryTag("SOME_TYPE", "SOME_CATEGORY");
+
+		// Assert
+		assertThat(existing).isTrue();
+		assertThat(existingRepeated).isTrue();
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void existsByTypeAndCategoryTagReloadsRegistryOnMiss() {
+
+		// Arrange
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType("SOME_TYPE")
+			.withCategoryTag("SOME_CATEGORY");
+		final var addedEntity = InvoiceFileConfigurationEntity.create()
+			.withType("SOME_TYPE")
+			.withCategoryTag("ADDED_CATEGORY");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity), List.of(entity, addedEntity));
+
+		// Act
+		final var existing = service.existsByTypeAndCategoryTag("SOME_TYPE", "SOME_CATEGORY");
+		when(clockMock.instant()).thenReturn(Instant.ofEpochMilli(MOCKED_TIME_AS_EPOCH_TIMESTAMP).plus(MISS_REFRESH_INTERVAL).plusSeconds(1));
+		final var added = service.existsByTypeAndCategoryTag("SOME_TYPE", "ADDED_CATEGORY");
+
+		// Assert
+		assertThat(existing).isTrue();
+		assertThat(added).isTrue();
+		verify(invoiceFileConfigurationRepositoryMock, times(2)).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void existsByTypeAndCategoryTagWithinMissRefreshInterval() {
+
+		// Arrange
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType("SOME_TYPE")
+			.withCategoryTag("SOME_CATEGORY");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
+
+		// Act
+		service.existsByTypeAndCategoryTag("SOME_TYPE", "SOME_CATEGORY");
+		when(clockMock.instant()).thenReturn(Instant.ofEpochMilli(MOCKED_TIME_AS_EPOCH_TIMESTAMP).plus(MISS_REFRESH_INTERVAL).minusSeconds(1));
+		final var result = service.existsByTypeAndCategoryTag("SOME_TYPE", "ADDED_CATEGORY");
+
+		// Assert
+		assertThat(result).isFalse();
+		verify(invoiceFileConfigurationRepositoryMock).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void existsByTypeAndCategoryTagWithRepeatedMisses() {
+
+		// Arrange
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType("SOME_TYPE")
+			.withCategoryTag("SOME_CATEGORY");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity));
+
+		// Act
+		service.existsByTypeAndCategoryTag("SOME_TYPE", "SOME_CATEGORY");
+		when(clockMock.instant()).thenReturn(Instant.ofEpochMilli(MOCKED_TIME_AS_EPOCH_TIMESTAMP).plus(MISS_REFRESH_INTERVAL).plusSeconds(1));
+		final var results = IntStream.range(0, 100)
+			.parallel()
+			.mapToObj(i -> service.existsByTypeAndCategoryTag("SOME_TYPE", "NON_EXISTING_CATEGORY"))
+			.toList();
+
+		// Assert
+		assertThat(results).hasSize(100).containsOnly(false);
+		// One load of the registry and at most one reload for all misses within the refresh interval
+		verify(invoiceFileConfigurationRepositoryMock, times(2)).findAll();
+		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
+	}
+
+	@Test
+	void refresh() {
+
+		// Arrange
+		final var type = "SOME_TYPE";
+		final var categoryTag = "SOME_CATEGORY";
+		final var entity = InvoiceFileConfigurationEntity.create()
+			.withType(type)
+			.withCategoryTag(categoryTag)
+			.withEncoding("UTF-8");
+		final var updatedEntity = InvoiceFileConfigurationEntity.create()
+			.withType(type)
+			.withCategoryTag(categoryTag)
+			.withEncoding("ISO-8859-1");
+
+		when(invoiceFileConfigurationRepositoryMock.findAll()).thenReturn(List.of(entity), List.of(updatedEntity));
+
+		// Act
+		final var encodingBeforeRefresh = service.getEncoding(type, categoryTag);
+		service.refresh();
+		final var encodingAfterRefresh = service.getEncoding(type, categoryTag);
+
+		// Assert
+		assertThat(encodingBeforeRefresh).extracting(Charset::name).isEqualTo("UTF-8");
+		assertThat(encodingAfterRefresh).extracting(Charset::name).isEqualTo("ISO-8859-1");
+		verify(invoiceFileConfigurationRepositoryMock, times(2)).findAll();
 		verifyNoMoreInteractions(invoiceFileConfigurationRepositoryMock);
 	}
 }
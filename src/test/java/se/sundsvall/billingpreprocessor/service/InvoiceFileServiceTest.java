@@ -1,10 +1,16 @@
 package se.sundsvall.billingpreprocessor.service;
 
+import jakarta.persistence.EntityManager;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.ArrayUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,12 +19,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.ByteArrayResource;
+import org.mockito.stubbing.Answer;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.integration.file.remote.session.DelegatingSessionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
 import se.sundsvall.billingpreprocessor.integration.db.BillingRecordRepository;
+import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileContentRepository;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileContentEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.TypeAndCategory;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpConfiguration.UploadGateway;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpProperties;
@@ -26,16 +40,23 @@ import se.sundsvall.billingpreprocessor.integration.sftp.SftpPropertiesConfig;
 import se.sundsvall.billingpreprocessor.service.creator.ExternalInvoiceCreator;
 import se.sundsvall.billingpreprocessor.service.creator.InternalInvoiceCreator;
 import se.sundsvall.billingpreprocessor.service.creator.InvoiceCreator;
+import se.sundsvall.billingpreprocessor.service.creator.InvoiceFileSession;
+import se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorProperties;
 import se.sundsvall.billingpreprocessor.service.error.InvoiceFileError;
 import se.sundsvall.dept44.problem.Problem;
 
+import static java.time.temporal.ChronoUnit.SECONDS;
 import static java.util.UUID.randomUUID;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.assertj.core.groups.Tuple.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atMostOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -48,6 +69,9 @@ import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Status.INVOICED;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.EXTERNAL;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.INTERNAL;
+import static se.sundsvall.billingpreprocessor.service.util.CalculationUtil.calculateTotalInvoiceAmount;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.compress;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.decompress;
 
 @ExtendWith(MockitoExtension.class)
 class InvoiceFileServiceTest {
@@ -56,6 +80,8 @@ class InvoiceFileServiceTest {
 
 	private static final String FILENAME = "fileName";
 
+	private static final long FILE_ID = 1L;
+
 	private static final byte[] FILE_HEADER = "file_header".getBytes();
 	private static final byte[] FILE_FOOTER = "file_footer".getBytes();
 
@@ -65,12 +91,17 @@ class InvoiceFileServiceTest {
 
 	private static final String MUNICIPALITY_ID = "municipality_id";
 
+	private static final int PAGE_SIZE = 2;
+
 	@Mock
 	private BillingRecordRepository billingRecordRepositoryMock;
 
 	@Mock
 	private InvoiceFileRepository invoiceFileRepositoryMock;
 
+	@Mock
+	private InvoiceFileContentRepository invoiceFileContentRepositoryMock;
+
 	@Mock
 	private ExternalInvoiceCreator externalInvoiceCreatorMock;
 
@@ -98,17 +129,26 @@ class InvoiceFileServiceTest {
 	@Mock
 	private SftpProperties sftpPropertiesMock;
 
+	@Mock
+	private EntityManager entityManagerMock;
+
+	@Mock
+	private PlatformTransactionManager transactionManagerMock;
+
 	@Captor
-	private ArgumentCaptor<BillingRecordEntity> billingRecordArgumentCaptor;
+	private ArgumentCaptor<OffsetDateTime> modifiedArgumentCaptor;
 
 	@Captor
 	private ArgumentCaptor<InvoiceFileEntity> invoiceFileArgumentCaptor;
 
+	@Captor
+	private ArgumentCaptor<InvoiceFileContentEntity> invoiceFileContentArgumentCaptor;
+
 	@Captor
 	private ArgumentCaptor<List<InvoiceFileError>> creationErrorArgumentCaptor;
 
 	@Captor
-	private ArgumentCaptor<ByteArrayResource> byteArrayResourceArgumentCaptor;
+	private ArgumentCaptor<Resource> resourceArgumentCaptor;
 
 	private InvoiceFileService service;
 
@@ -117,12 +157,16 @@ class InvoiceFileServiceTest {
 		service = new InvoiceFileService(
 			billingRecordRepositoryMock,
 			invoiceFileRepositoryMock,
+			invoiceFileContentRepositoryMock,
 			List.of(externalInvoiceCreatorMock, internalInvoiceCreatorMock),
 			invoiceFileConfigurationServiceMock,
 			messagingServiceMock,
 			uploadGatewayMock,
 			sessionFactoryMock,
-			sftpPropertiesConfigMock);
+			sftpPropertiesConfigMock,
+			new InvoiceCreatorProperties("\\n", PAGE_SIZE, 1),
+			entityManagerMock,
+			transactionManagerMock);
 	}
 
 	@Test
@@ -130,7 +174,7 @@ class InvoiceFileServiceTest {
 		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
 		service.transferFiles(MUNICIPALITY_ID);
 
-		verify(invoiceFileRepositoryMock).findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
 		verify(sftpPropertiesConfigMock).getMap();
 		verify(sessionFactoryMock).setThreadKey(MUNICIPALITY_ID);
 		verify(sessionFactoryMock).clearThreadKey();
@@ -139,12 +183,14 @@ class InvoiceFileServiceTest {
 
 	@Test
 	void transferFilesWhenFilesToTransferExists() throws Exception {
-		final var content = "content";
+		final var content = "innehåll";
 
 		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
 		when(sftpPropertiesMock.getRemoteDir()).thenReturn("remoteDir");
-		when(invoiceFileRepositoryMock.findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID)).thenReturn(List.of(invoiceFileEntityMock));
-		when(invoiceFileEntityMock.getContent()).thenReturn(content);
+		when(invoiceFileRepositoryMock.findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID)).thenReturn(List.of(FILE_ID));
+		when(invoiceFileRepositoryMock.findById(FILE_ID)).thenReturn(Optional.of(invoiceFileEntityMock));
+		when(invoiceFileEntityMock.getId()).thenReturn(FILE_ID);
+		when(invoiceFileContentRepositoryMock.findById(FILE_ID)).thenReturn(Optional.of(InvoiceFileContentEntity.create().withContent(compress(content.getBytes(ENCODING)))));
 		when(invoiceFileEntityMock.getName()).thenReturn(FILENAME);
 		when(invoiceFileEntityMock.getEncoding()).thenReturn(ENCODING.name());
 		when(invoiceFileEntityMock.withStatus(SEND_SUCCESSFUL)).thenReturn(invoiceFileEntityMock);
@@ -153,15 +199,17 @@ class InvoiceFileServiceTest {
 
 		verify(sftpPropertiesConfigMock, times(2)).getMap();
 		verify(sessionFactoryMock).setThreadKey(MUNICIPALITY_ID);
-		verify(invoiceFileRepositoryMock).findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findById(FILE_ID);
+		verify(invoiceFileContentRepositoryMock).findById(FILE_ID);
 		verify(sftpPropertiesMock).getRemoteDir();
-		verify(uploadGatewayMock).sendToSftp(byteArrayResourceArgumentCaptor.capture(), eq(FILENAME), eq("remoteDir"));
+		verify(uploadGatewayMock).sendToSftp(resourceArgumentCaptor.capture(), eq(FILENAME), eq("remoteDir"));
 		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
 		verify(invoiceFileEntityMock).withStatus(SEND_SUCCESSFUL);
 		verify(sessionFactoryMock).clearThreadKey();
 		verifyNoMoreInterationsOnMocks();
 
-		assertThat(byteArrayResourceArgumentCaptor.getValue().getContentAsByteArray()).isEqualTo(content.getBytes());
+		assertThat(resourceArgumentCaptor.getValue().getInputStream()).hasBinaryContent(content.getBytes(ENCODING));
 		assertThat(invoiceFileArgumentCaptor.getValue()).isSameAs(invoiceFileEntityMock);
 	}
 
@@ -171,8 +219,10 @@ class InvoiceFileServiceTest {
 
 		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
 		when(sftpPropertiesMock.getRemoteDir()).thenReturn("remoteDir");
-		when(invoiceFileRepositoryMock.findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID)).thenReturn(List.of(invoiceFileEntityMock));
-		when(invoiceFileEntityMock.getContent()).thenReturn(content);
+		when(invoiceFileRepositoryMock.findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID)).thenReturn(List.of(FILE_ID));
+		when(invoiceFileRepositoryMock.findById(FILE_ID)).thenReturn(Optional.of(invoiceFileEntityMock));
+		when(invoiceFileEntityMock.getId()).thenReturn(FILE_ID);
+		when(invoiceFileContentRepositoryMock.findById(FILE_ID)).thenReturn(Optional.of(InvoiceFileContentEntity.create().withContent(compress(content.getBytes(ENCODING)))));
 		when(invoiceFileEntityMock.getName()).thenReturn(FILENAME);
 		when(invoiceFileEntityMock.getEncoding()).thenReturn(ENCODING.name());
 		when(invoiceFileEntityMock.withStatus(SEND_FAILED)).thenReturn(invoiceFileEntityMock);
@@ -182,29 +232,108 @@ class InvoiceFileServiceTest {
 
 		verify(sftpPropertiesConfigMock, times(2)).getMap();
 		verify(sessionFactoryMock).setThreadKey(MUNICIPALITY_ID);
-		verify(invoiceFileRepositoryMock).findByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findById(FILE_ID);
+		verify(invoiceFileContentRepositoryMock).findById(FILE_ID);
 		verify(sftpPropertiesMock).getRemoteDir();
-		verify(uploadGatewayMock).sendToSftp(byteArrayResourceArgumentCaptor.capture(), eq(FILENAME), eq("remoteDir"));
+		verify(uploadGatewayMock).sendToSftp(resourceArgumentCaptor.capture(), eq(FILENAME), eq("remoteDir"));
 		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
 		verify(invoiceFileEntityMock).withStatus(SEND_FAILED);
 		verify(messagingServiceMock).sendTransferErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
 		verify(sessionFactoryMock).clearThreadKey();
 		verifyNoMoreInterationsOnMocks();
 
-		assertThat(byteArrayResourceArgumentCaptor.getValue().getContentAsByteArray()).isEqualTo(content.getBytes());
+		assertThat(resourceArgumentCaptor.getValue().getInputStream()).hasBinaryContent(content.getBytes(ENCODING));
 		assertThat(invoiceFileArgumentCaptor.getValue()).isSameAs(invoiceFileEntityMock);
 		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
 			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
 			.containsExactly(tuple(null, "Could not transfer file with filename: 'fileName' due to ThrowableProblem: Internal Server Error"));
 	}
 
+	@Test
+	void transferFilesWhenContentIsMissing() {
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
+		when(sftpPropertiesMock.getRemoteDir()).thenReturn("remoteDir");
+		when(invoiceFileRepositoryMock.findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID)).thenReturn(List.of(FILE_ID));
+		when(invoiceFileRepositoryMock.findById(FILE_ID)).thenReturn(Optional.of(invoiceFileEntityMock));
+		when(invoiceFileEntityMock.getId()).thenReturn(FILE_ID);
+		when(invoiceFileEntityMock.getName()).thenReturn(FILENAME);
+		when(invoiceFileEntityMock.withStatus(SEND_FAILED)).thenReturn(invoiceFileEntityMock);
+
+		service.transferFiles(MUNICIPALITY_ID);
+
+		verify(sftpPropertiesConfigMock, times(2)).getMap();
+		verify(sessionFactoryMock).setThreadKey(MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findById(FILE_ID);
+		verify(invoiceFileContentRepositoryMock).findById(FILE_ID);
+		verify(sftpPropertiesMock).getRemoteDir();
+		verify(invoiceFileRepositoryMock).save(invoiceFileEntityMock);
+		verify(invoiceFileEntityMock).withStatus(SEND_FAILED);
+		verify(messagingServiceMock).sendTransferErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
+		verify(sessionFactoryMock).clearThreadKey();
+		verifyNoMoreInterationsOnMocks();
+
+		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
+			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
+			.containsExactly(tuple(null, "Could not transfer file with filename: 'fileName' due to ThrowableProblem: Internal Server Error: Content for file 'fileName' is not present"));
+	}
+
+	@Test
+	void transferFilesConcurrently() throws Exception {
+		final var content = "content";
+		final var successfulFile = InvoiceFileEntity.create().withId(1L).withName("successfulFile").withEncoding(ENCODING.name()).withStatus(GENERATED);
+		final var failingFile = InvoiceFileEntity.create().withId(2L).withName("failingFile").withEncoding(ENCODING.name()).withStatus(SEND_FAILED);
+		final var uploadThreads = ConcurrentHashMap.<String>newKeySet();
+
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
+		when(sftpPropertiesMock.getRemoteDir()).thenReturn("remoteDir");
+		when(sftpPropertiesMock.getTransferParallelism()).thenReturn(2);
+		when(invoiceFileRepositoryMock.findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID)).thenReturn(List.of(1L, 2L));
+		when(invoiceFileRepositoryMock.findById(1L)).thenReturn(Optional.of(successfulFile));
+		when(invoiceFileRepositoryMock.findById(2L)).thenReturn(Optional.of(failingFile));
+		when(invoiceFileContentRepositoryMock.findById(any())).thenReturn(Optional.of(InvoiceFileContentEntity.create().withContent(compress(content.getBytes(ENCODING)))));
+		doAnswer(invocation -> {
+			uploadThreads.add(Thread.currentThread().getName());
+			if ("failingFile".equals(invocation.getArgument(1))) {
+				throw Problem.valueOf(INTERNAL_SERVER_ERROR);
+			}
+			return null;
+		}).when(uploadGatewayMock).sendToSftp(any(), any(), eq("remoteDir"));
+
+		service.transferFiles(MUNICIPALITY_ID);
+
+		// Each worker thread binds the session factory of the municipality (as well as the calling thread)
+		verify(sessionFactoryMock, times(3)).setThreadKey(MUNICIPALITY_ID);
+		verify(sessionFactoryMock, times(3)).clearThreadKey();
+		verify(invoiceFileRepositoryMock).findIdsByStatusInAndMunicipalityId(List.of(GENERATED, SEND_FAILED), MUNICIPALITY_ID);
+		verify(invoiceFileRepositoryMock).findById(1L);
+		verify(invoiceFileRepositoryMock).findById(2L);
+		verify(invoiceFileContentRepositoryMock).findById(1L);
+		verify(invoiceFileContentRepositoryMock).findById(2L);
+		verify(uploadGatewayMock).sendToSftp(any(), eq("successfulFile"), eq("remoteDir"));
+		verify(uploadGatewayMock).sendToSftp(any(), eq("failingFile"), eq("remoteDir"));
+		verify(invoiceFileRepositoryMock).save(successfulFile);
+		verify(invoiceFileRepositoryMock).save(failingFile);
+		verify(messagingServiceMock).sendTransferErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
+		verifyNoMoreInterationsOnMocks();
+
+		assertThat(uploadThreads).isNotEmpty().doesNotContain(Thread.currentThread().getName());
+		assertThat(successfulFile.getStatus()).isEqualTo(SEND_SUCCESSFUL);
+		assertThat(successfulFile.getSent()).isCloseTo(OffsetDateTime.now(), within(2, SECONDS));
+		assertThat(failingFile.getStatus()).isEqualTo(SEND_FAILED);
+		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
+			.extracting(InvoiceFileError::getMessage)
+			.containsExactly("Could not transfer file with filename: 'failingFile' due to ThrowableProblem: Internal Server Error");
+	}
+
 	@Test
 	void createBillingFilesWhenNoApprovedEntitiesExists() {
 		// Act
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
 		verify(externalInvoiceCreatorMock).getProcessableType();
 		verify(externalInvoiceCreatorMock).getProcessableCategory();
 		verify(internalInvoiceCreatorMock).getProcessableType();
@@ -218,12 +347,14 @@ class InvoiceFileServiceTest {
 		final var entity = createBillingRecordEntity(randomUUID().toString(), EXTERNAL, MUNICIPALITY_ID);
 		final var billingRecords = List.of(entity);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(billingRecords);
 		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(EXTERNAL.name(), CATEGORY)).thenReturn(FILENAME);
 		when(invoiceFileConfigurationServiceMock.getEncoding(EXTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
-		when(externalInvoiceCreatorMock.createFileHeader()).thenReturn(FILE_HEADER);
-		when(externalInvoiceCreatorMock.createFileFooter(billingRecords)).thenReturn(FILE_FOOTER);
-		when(externalInvoiceCreatorMock.createInvoiceData(any())).thenReturn(INVOICE_DATA);
+		when(externalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doAnswer(writeToSession(FILE_HEADER)).when(externalInvoiceCreatorMock).writeFileHeader(any());
+		doAnswer(writeToSession(FILE_FOOTER)).when(externalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(billingRecords));
+		doAnswer(writeToSession(INVOICE_DATA)).when(externalInvoiceCreatorMock).writeInvoiceData(any(), any());
 		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
 		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
 
@@ -231,26 +362,114 @@ class InvoiceFileServiceTest {
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)));
+		verify(entityManagerMock).flush();
+		verify(entityManagerMock).clear();
 		verify(internalInvoiceCreatorMock).getProcessableType();
 		verify(internalInvoiceCreatorMock).getProcessableCategory();
 		verify(externalInvoiceCreatorMock).getProcessableType();
 		verify(externalInvoiceCreatorMock).getProcessableCategory();
-		verify(externalInvoiceCreatorMock).createFileHeader();
-		verify(externalInvoiceCreatorMock).createInvoiceData(entity);
-		verify(externalInvoiceCreatorMock).createFileFooter(billingRecords);
-		verify(billingRecordRepositoryMock).save(billingRecordArgumentCaptor.capture());
+		verify(externalInvoiceCreatorMock).openSession();
+		verify(externalInvoiceCreatorMock).writeFileHeader(any());
+		verify(externalInvoiceCreatorMock).prepareInvoiceData(billingRecords);
+		verify(externalInvoiceCreatorMock).writeInvoiceData(any(), eq(entity));
+		verify(externalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(billingRecords));
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), modifiedArgumentCaptor.capture(), eq(List.of(entity.getId())));
 		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
 		verifyNoMoreInterationsOnMocks();
 
-		assertThat(billingRecordArgumentCaptor.getValue()).usingRecursiveComparison().ignoringFields("status").isEqualTo(entity);
-		assertThat(billingRecordArgumentCaptor.getValue().getStatus()).isEqualTo(INVOICED);
+		assertThat(modifiedArgumentCaptor.getValue()).isCloseTo(OffsetDateTime.now(), within(2, SECONDS));
 		assertThat(invoiceFileArgumentCaptor.getValue()).satisfies(fileEntity -> {
 			assertThat(fileEntity.getType()).isEqualTo(EXTERNAL.name());
 			assertThat(fileEntity.getName()).isEqualTo(FILENAME);
-			assertThat(fileEntity.getContent()).isEqualTo(createFileContent(FILE_HEADER, INVOICE_DATA, FILE_FOOTER));
 			assertThat(fileEntity.getStatus()).isEqualTo(GENERATED);
 		});
+		assertThat(decompress(invoiceFileContentArgumentCaptor.getValue().getContent())).isEqualTo(createFileContent(FILE_HEADER, INVOICE_DATA, FILE_FOOTER));
+	}
+
+	@Test
+	void createBillingFilesUpdatesStatusInChunks() throws Exception {
+		// Arrange
+		final var entity1 = createBillingRecordEntity("1-" + randomUUID(), EXTERNAL, MUNICIPALITY_ID);
+		final var entity2 = createBillingRecordEntity("2-" + randomUUID(), EXTERNAL, MUNICIPALITY_ID);
+		final var entity3 = createBillingRecordEntity("3-" + randomUUID(), EXTERNAL, MUNICIPALITY_ID);
+		final var billingRecords = List.of(entity1, entity2, entity3);
+
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of(entity1, entity2));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(entity2.getId()), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of(entity3));
+		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(EXTERNAL.name(), CATEGORY)).thenReturn(FILENAME);
+		when(invoiceFileConfigurationServiceMock.getEncoding(EXTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
+		when(externalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
+		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
+
+		// Act
+		service.createFiles(MUNICIPALITY_ID);
+
+		// Verify and assert
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)));
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(entity2.getId()), eq(Limit.of(PAGE_SIZE)));
+		verify(entityManagerMock, times(2)).flush();
+		verify(entityManagerMock, times(2)).clear();
+		verify(internalInvoiceCreatorMock).getProcessableType();
+		verify(internalInvoiceCreatorMock).getProcessableCategory();
+		verify(externalInvoiceCreatorMock).getProcessableType();
+		verify(externalInvoiceCreatorMock).getProcessableCategory();
+		verify(externalInvoiceCreatorMock).openSession();
+		verify(externalInvoiceCreatorMock).writeFileHeader(any());
+		verify(externalInvoiceCreatorMock).prepareInvoiceData(List.of(entity1, entity2));
+		verify(externalInvoiceCreatorMock).prepareInvoiceData(List.of(entity3));
+		verify(externalInvoiceCreatorMock).writeInvoiceData(any(), eq(entity1));
+		verify(externalInvoiceCreatorMock).writeInvoiceData(any(), eq(entity2));
+		verify(externalInvoiceCreatorMock).writeInvoiceData(any(), eq(entity3));
+		verify(externalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(billingRecords));
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), modifiedArgumentCaptor.capture(), eq(List.of(entity1.getId(), entity2.getId())));
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), modifiedArgumentCaptor.capture(), eq(List.of(entity3.getId())));
+		verify(invoiceFileRepositoryMock).save(any());
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
+		verifyNoMoreInterationsOnMocks();
+
+		assertThat(modifiedArgumentCaptor.getAllValues()).hasSize(2).containsOnly(modifiedArgumentCaptor.getValue());
+	}
+
+	@Test
+	void createBillingFilesRollsBackFileWhenStatusUpdateFails() throws Exception {
+		// Arrange
+		final var entity1 = createBillingRecordEntity("1-" + randomUUID(), EXTERNAL, MUNICIPALITY_ID);
+		final var entity2 = createBillingRecordEntity("2-" + randomUUID(), EXTERNAL, MUNICIPALITY_ID);
+		final var entity3 = createBillingRecordEntity("3-" + randomUUID(), EXTERNAL, MUNICIPALITY_ID);
+
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of(entity1, entity2));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(entity2.getId()), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of(entity3));
+		when(billingRecordRepositoryMock.updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(entity3.getId())))).thenThrow(new IllegalStateException("Lock wait timeout exceeded"));
+		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(EXTERNAL.name(), CATEGORY)).thenReturn(FILENAME);
+		when(invoiceFileConfigurationServiceMock.getEncoding(EXTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
+		when(invoiceFileRepositoryMock.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(externalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
+		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
+
+		// Act
+		service.createFiles(MUNICIPALITY_ID);
+
+		// Verify and assert
+		verify(transactionManagerMock).getTransaction(any());
+		verify(transactionManagerMock).rollback(any());
+		verify(transactionManagerMock, never()).commit(any());
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(entity1.getId(), entity2.getId())));
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(entity3.getId())));
+		verify(invoiceFileRepositoryMock).save(any());
+		verify(invoiceFileContentRepositoryMock).save(any());
+		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
+
+		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
+			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
+			.containsExactly(tuple(null, "IllegalStateException: Lock wait timeout exceeded occurred when generating file content"));
 	}
 
 	@Test
@@ -259,12 +478,14 @@ class InvoiceFileServiceTest {
 		final var entity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID);
 		final var billingRecords = List.of(entity);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(INTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(billingRecords);
 		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(INTERNAL.name(), CATEGORY)).thenReturn(FILENAME);
 		when(invoiceFileConfigurationServiceMock.getEncoding(INTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
-		when(internalInvoiceCreatorMock.createFileHeader()).thenReturn(FILE_HEADER);
-		when(internalInvoiceCreatorMock.createFileFooter(billingRecords)).thenReturn(FILE_FOOTER);
-		when(internalInvoiceCreatorMock.createInvoiceData(any())).thenReturn(INVOICE_DATA);
+		when(internalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doAnswer(writeToSession(FILE_HEADER)).when(internalInvoiceCreatorMock).writeFileHeader(any());
+		doAnswer(writeToSession(FILE_FOOTER)).when(internalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(billingRecords));
+		doAnswer(writeToSession(INVOICE_DATA)).when(internalInvoiceCreatorMock).writeInvoiceData(any(), any());
 		when(internalInvoiceCreatorMock.getProcessableType()).thenReturn(INTERNAL);
 		when(internalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
 
@@ -272,26 +493,83 @@ class InvoiceFileServiceTest {
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)));
+		verify(entityManagerMock).flush();
+		verify(entityManagerMock).clear();
 		verify(externalInvoiceCreatorMock).getProcessableType();
 		verify(externalInvoiceCreatorMock).getProcessableCategory();
 		verify(internalInvoiceCreatorMock).getProcessableType();
 		verify(internalInvoiceCreatorMock).getProcessableCategory();
-		verify(internalInvoiceCreatorMock).createFileHeader();
-		verify(internalInvoiceCreatorMock).createFileFooter(billingRecords);
-		verify(internalInvoiceCreatorMock).createInvoiceData(entity);
-		verify(billingRecordRepositoryMock).save(billingRecordArgumentCaptor.capture());
+		verify(internalInvoiceCreatorMock).openSession();
+		verify(internalInvoiceCreatorMock).writeFileHeader(any());
+		verify(internalInvoiceCreatorMock).prepareInvoiceData(billingRecords);
+		verify(internalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(billingRecords));
+		verify(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(entity));
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), modifiedArgumentCaptor.capture(), eq(List.of(entity.getId())));
 		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
 		verifyNoMoreInterationsOnMocks();
 
-		assertThat(billingRecordArgumentCaptor.getValue()).usingRecursiveComparison().ignoringFields("status").isEqualTo(entity);
-		assertThat(billingRecordArgumentCaptor.getValue().getStatus()).isEqualTo(INVOICED);
+		assertThat(modifiedArgumentCaptor.getValue()).isCloseTo(OffsetDateTime.now(), within(2, SECONDS));
 		assertThat(invoiceFileArgumentCaptor.getValue()).satisfies(fileEntity -> {
 			assertThat(fileEntity.getType()).isEqualTo(INTERNAL.name());
 			assertThat(fileEntity.getName()).isEqualTo(FILENAME);
-			assertThat(fileEntity.getContent()).isEqualTo(createFileContent(FILE_HEADER, INVOICE_DATA, FILE_FOOTER));
 			assertThat(fileEntity.getStatus()).isEqualTo(GENERATED);
 		});
+		assertThat(decompress(invoiceFileContentArgumentCaptor.getValue().getContent())).isEqualTo(createFileContent(FILE_HEADER, INVOICE_DATA, FILE_FOOTER));
+	}
+
+	@Test
+	void createBillingFilesConcurrently() throws Exception {
+		// Arrange
+		final var concurrentService = new InvoiceFileService(
+			billingRecordRepositoryMock,
+			invoiceFileRepositoryMock,
+			invoiceFileContentRepositoryMock,
+			List.of(externalInvoiceCreatorMock, internalInvoiceCreatorMock),
+			invoiceFileConfigurationServiceMock,
+			messagingServiceMock,
+			uploadGatewayMock,
+			sessionFactoryMock,
+			sftpPropertiesConfigMock,
+			new InvoiceCreatorProperties("\\n", PAGE_SIZE, 2),
+			entityManagerMock,
+			transactionManagerMock);
+
+		final var externalEntity = createBillingRecordEntity(randomUUID().toString(), EXTERNAL, MUNICIPALITY_ID);
+		final var invalidInternalEntity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID);
+
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY), new TypeAndCategory(INTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of(externalEntity));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of(invalidInternalEntity));
+		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(EXTERNAL.name(), CATEGORY)).thenReturn(FILENAME);
+		when(invoiceFileConfigurationServiceMock.getEncoding(EXTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
+		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(INTERNAL.name(), CATEGORY)).thenReturn(FILENAME);
+		when(invoiceFileConfigurationServiceMock.getEncoding(INTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
+		when(externalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		when(internalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
+		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
+		when(internalInvoiceCreatorMock.getProcessableType()).thenReturn(INTERNAL);
+		when(internalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
+		doThrow(Problem.valueOf(INTERNAL_SERVER_ERROR)).when(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(invalidInternalEntity));
+
+		// Act
+		concurrentService.createFiles(MUNICIPALITY_ID);
+
+		// Verify and assert
+		verify(transactionManagerMock, times(2)).getTransaction(any());
+		verify(transactionManagerMock, times(2)).commit(any());
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(externalEntity.getId())));
+		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
+		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
+
+		assertThat(invoiceFileArgumentCaptor.getValue().getType()).isEqualTo(EXTERNAL.name());
+		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
+			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
+			.containsExactly(tuple(invalidInternalEntity.getId(), "Internal Server Error"));
 	}
 
 	@Test
@@ -305,13 +583,16 @@ class InvoiceFileServiceTest {
 		final var externalEntity = createBillingRecordEntity(randomUUID().toString(), EXTERNAL, MUNICIPALITY_ID);
 		final var billingRecords = List.of(invalidExternalEntity, externalEntity);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(externalEntity.getId()), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of());
 		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(EXTERNAL.name(), CATEGORY)).thenReturn(externalFileName);
 		when(invoiceFileConfigurationServiceMock.getEncoding(EXTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
-		when(externalInvoiceCreatorMock.createFileHeader()).thenReturn(externalFileHeader);
-		when(externalInvoiceCreatorMock.createFileFooter(List.of(externalEntity))).thenReturn(externalFileFooter);
-		when(externalInvoiceCreatorMock.createInvoiceData(externalEntity)).thenReturn(externalInvoiceData);
-		when(externalInvoiceCreatorMock.createInvoiceData(invalidExternalEntity)).thenThrow(Problem.valueOf(INTERNAL_SERVER_ERROR));
+		when(externalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doAnswer(writeToSession(externalFileHeader)).when(externalInvoiceCreatorMock).writeFileHeader(any());
+		doAnswer(writeToSession(externalFileFooter)).when(externalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(List.of(externalEntity)));
+		doAnswer(writeToSession(externalInvoiceData)).when(externalInvoiceCreatorMock).writeInvoiceData(any(), eq(externalEntity));
+		doThrow(Problem.valueOf(INTERNAL_SERVER_ERROR)).when(externalInvoiceCreatorMock).writeInvoiceData(any(), eq(invalidExternalEntity));
 		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
 		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
 
@@ -319,27 +600,27 @@ class InvoiceFileServiceTest {
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)));
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any(), eq(externalEntity.getId()), eq(Limit.of(PAGE_SIZE)));
+		verify(entityManagerMock, times(2)).flush();
+		verify(entityManagerMock, times(2)).clear();
 
 		verify(internalInvoiceCreatorMock, atMostOnce()).getProcessableCategory();
 		verify(internalInvoiceCreatorMock, atMostOnce()).getProcessableType();
 		verifyInvoiceCreatorMock(externalInvoiceCreatorMock, invalidExternalEntity, externalEntity);
-		verify(billingRecordRepositoryMock).save(billingRecordArgumentCaptor.capture());
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(externalEntity.getId())));
 		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
 		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
 		verifyNoMoreInterationsOnMocks();
 
-		assertThat(billingRecordArgumentCaptor.getAllValues()).satisfiesOnlyOnce(billingEntity -> {
-			assertThat(billingEntity).usingRecursiveComparison().ignoringFields("status").isEqualTo(externalEntity);
-			assertThat(billingEntity.getStatus()).isEqualTo(INVOICED);
-		});
-
 		assertThat(invoiceFileArgumentCaptor.getAllValues()).satisfiesOnlyOnce(fileEntity -> {
 			assertThat(fileEntity.getType()).isEqualTo(EXTERNAL.name());
 			assertThat(fileEntity.getName()).isEqualTo(externalFileName);
-			assertThat(fileEntity.getContent()).isEqualTo(createFileContent(externalFileHeader, externalInvoiceData, externalFileFooter));
 			assertThat(fileEntity.getStatus()).isEqualTo(GENERATED);
 		});
+		assertThat(decompress(invoiceFileContentArgumentCaptor.getValue().getContent())).isEqualTo(createFileContent(externalFileHeader, externalInvoiceData, externalFileFooter));
 
 		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
 			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
@@ -357,13 +638,16 @@ class InvoiceFileServiceTest {
 		final var internalEntity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID);
 		final var billingRecords = List.of(invalidInternalEntity, internalEntity);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(INTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(internalEntity.getId()), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of());
 		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(INTERNAL.name(), CATEGORY)).thenReturn(internalFileName);
 		when(invoiceFileConfigurationServiceMock.getEncoding(INTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
-		when(internalInvoiceCreatorMock.createFileHeader()).thenReturn(internalFileHeader);
-		when(internalInvoiceCreatorMock.createFileFooter(List.of(internalEntity))).thenReturn(internalFileFooter);
-		when(internalInvoiceCreatorMock.createInvoiceData(internalEntity)).thenReturn(internalInvoiceData);
-		when(internalInvoiceCreatorMock.createInvoiceData(invalidInternalEntity)).thenThrow(Problem.valueOf(INTERNAL_SERVER_ERROR));
+		when(internalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doAnswer(writeToSession(internalFileHeader)).when(internalInvoiceCreatorMock).writeFileHeader(any());
+		doAnswer(writeToSession(internalFileFooter)).when(internalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(List.of(internalEntity)));
+		doAnswer(writeToSession(internalInvoiceData)).when(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(internalEntity));
+		doThrow(Problem.valueOf(INTERNAL_SERVER_ERROR)).when(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(invalidInternalEntity));
 		when(internalInvoiceCreatorMock.getProcessableType()).thenReturn(INTERNAL);
 		when(internalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
 		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
@@ -373,33 +657,77 @@ class InvoiceFileServiceTest {
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)));
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(internalEntity.getId()), eq(Limit.of(PAGE_SIZE)));
+		verify(entityManagerMock, times(2)).flush();
+		verify(entityManagerMock, times(2)).clear();
 
 		verify(externalInvoiceCreatorMock, atMostOnce()).getProcessableCategory();
 		verify(externalInvoiceCreatorMock, atMostOnce()).getProcessableType();
 		verifyInvoiceCreatorMock(internalInvoiceCreatorMock, invalidInternalEntity, internalEntity);
-		verify(billingRecordRepositoryMock).save(billingRecordArgumentCaptor.capture());
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(internalEntity.getId())));
 		verify(invoiceFileRepositoryMock).save(invoiceFileArgumentCaptor.capture());
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
 		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
 		verifyNoMoreInterationsOnMocks();
 
-		assertThat(billingRecordArgumentCaptor.getAllValues()).satisfiesOnlyOnce(billingEntity -> {
-			assertThat(billingEntity).usingRecursiveComparison().ignoringFields("status").isEqualTo(internalEntity);
-			assertThat(billingEntity.getStatus()).isEqualTo(INVOICED);
-		});
-
 		assertThat(invoiceFileArgumentCaptor.getAllValues()).satisfiesOnlyOnce(fileEntity -> {
 			assertThat(fileEntity.getType()).isEqualTo(INTERNAL.name());
 			assertThat(fileEntity.getName()).isEqualTo(internalFileName);
-			assertThat(fileEntity.getContent()).isEqualTo(createFileContent(internalFileHeader, internalInvoiceData, internalFileFooter));
 			assertThat(fileEntity.getStatus()).isEqualTo(GENERATED);
 		});
+		assertThat(decompress(invoiceFileContentArgumentCaptor.getValue().getContent())).isEqualTo(createFileContent(internalFileHeader, internalInvoiceData, internalFileFooter));
 
 		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
 			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
 			.containsExactly(tuple(invalidInternalEntity.getId(), "Internal Server Error"));
 	}
 
+	@Test
+	void createInternalBillingFilesWhenInvoiceAmountCannotBeCalculated() throws Exception {
+		// Arrange
+		final var internalFileName = "internalFileName";
+		final var internalFileHeader = "internalFileHeader".getBytes();
+		final var internalFileFooter = "internalFileFooter".getBytes();
+		final var internalInvoiceData = "internalInvoiceData".getBytes();
+		final var invoiceRows = new ArrayList<InvoiceRowEntity>();
+		invoiceRows.add(null);
+		final var invalidInternalEntity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID)
+			.withInvoice(InvoiceEntity.create().withInvoiceRows(invoiceRows));
+		final var internalEntity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID);
+		final var billingRecords = List.of(invalidInternalEntity, internalEntity);
+
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(INTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(internalEntity.getId()), eq(Limit.of(PAGE_SIZE)))).thenReturn(List.of());
+		when(invoiceFileConfigurationServiceMock.getInvoiceFileNameBy(INTERNAL.name(), CATEGORY)).thenReturn(internalFileName);
+		when(invoiceFileConfigurationServiceMock.getEncoding(INTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
+		when(internalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doAnswer(writeToSession(internalFileHeader)).when(internalInvoiceCreatorMock).writeFileHeader(any());
+		doAnswer(writeToSession(internalFileFooter)).when(internalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(List.of(internalEntity)));
+		doAnswer(writeToSession(internalInvoiceData)).when(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(internalEntity));
+		when(internalInvoiceCreatorMock.getProcessableType()).thenReturn(INTERNAL);
+		when(internalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
+		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
+		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
+
+		// Act
+		service.createFiles(MUNICIPALITY_ID);
+
+		// Verify and assert that the invalid entity neither is written to the file nor included in the totals
+		verify(internalInvoiceCreatorMock, never()).writeInvoiceData(any(), eq(invalidInternalEntity));
+		verify(internalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(List.of(internalEntity)));
+		verify(billingRecordRepositoryMock).updateStatusByIdIn(eq(INVOICED), any(), eq(List.of(internalEntity.getId())));
+		verify(invoiceFileContentRepositoryMock).save(invoiceFileContentArgumentCaptor.capture());
+		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
+
+		assertThat(decompress(invoiceFileContentArgumentCaptor.getValue().getContent())).isEqualTo(createFileContent(internalFileHeader, internalInvoiceData, internalFileFooter));
+		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
+			.extracting(InvoiceFileError::getEntityId)
+			.containsExactly(invalidInternalEntity.getId());
+	}
+
 	@Test
 	void createBillingFilesWhenOnlyInvalidEntitiesExists() throws Exception {
 		// Arrange
@@ -408,27 +736,33 @@ class InvoiceFileServiceTest {
 		final var invalidInternalEntity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID);
 		final var billingRecords = List.of(invalidInternalEntity);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(billingRecords);
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(INTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)))).thenReturn(billingRecords);
 		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
 		when(externalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
 		when(internalInvoiceCreatorMock.getProcessableType()).thenReturn(INTERNAL);
 		when(internalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
-		when(internalInvoiceCreatorMock.createFileHeader()).thenReturn(internalFileHeader);
-		when(internalInvoiceCreatorMock.createFileFooter(List.of())).thenReturn(internalFileFooter);
-		when(internalInvoiceCreatorMock.createInvoiceData(invalidInternalEntity)).thenThrow(Problem.valueOf(INTERNAL_SERVER_ERROR));
+		when(internalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doAnswer(writeToSession(internalFileHeader)).when(internalInvoiceCreatorMock).writeFileHeader(any());
+		doAnswer(writeToSession(internalFileFooter)).when(internalInvoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(List.of()));
+		doThrow(Problem.valueOf(INTERNAL_SERVER_ERROR)).when(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(invalidInternalEntity));
 		when(invoiceFileConfigurationServiceMock.getEncoding(INTERNAL.name(), CATEGORY)).thenReturn(ENCODING);
 
 		// Act
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findPageAfterId(eq(APPROVED), eq(MUNICIPALITY_ID), eq(INTERNAL), eq(CATEGORY), any(), eq(""), eq(Limit.of(PAGE_SIZE)));
+		verify(entityManagerMock).flush();
+		verify(entityManagerMock).clear();
 
 		verify(externalInvoiceCreatorMock, atMostOnce()).getProcessableCategory();
 		verify(externalInvoiceCreatorMock, atMostOnce()).getProcessableType();
 		verify(internalInvoiceCreatorMock).getProcessableCategory();
 		verify(internalInvoiceCreatorMock).getProcessableType();
-		verify(internalInvoiceCreatorMock).createInvoiceData(invalidInternalEntity);
+		verify(internalInvoiceCreatorMock).prepareInvoiceData(billingRecords);
+		verify(internalInvoiceCreatorMock).writeInvoiceData(any(), eq(invalidInternalEntity));
 		verify(invoiceFileConfigurationServiceMock).getInvoiceFileNameBy(INTERNAL.name(), CATEGORY);
 		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
 		verifyNoMoreInterationsOnMocks();
@@ -441,25 +775,23 @@ class InvoiceFileServiceTest {
 	@Test
 	void createBillingFilesWhenMajorExceptionOccurs() throws Exception {
 		// Arrange
-		final var entity = createBillingRecordEntity(randomUUID().toString(), INTERNAL, MUNICIPALITY_ID);
-		final var billingRecords = List.of(entity);
-
 		when(internalInvoiceCreatorMock.getProcessableType()).thenReturn(INTERNAL);
 		when(internalInvoiceCreatorMock.getProcessableCategory()).thenReturn(CATEGORY);
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(billingRecords);
-		// Not mocking createFileHeader on CreatorMock will cause NPE to be thrown on
-		// outputStream.write(invoiceCreator.createFileHeader())
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(INTERNAL, CATEGORY)));
+		when(internalInvoiceCreatorMock.openSession()).thenReturn(new InvoiceFileSession());
+		doThrow(new IllegalStateException("Writer closed")).when(internalInvoiceCreatorMock).writeFileHeader(any());
 
 		// Act
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
 		verify(externalInvoiceCreatorMock).getProcessableType();
 		verify(externalInvoiceCreatorMock).getProcessableCategory();
 		verify(internalInvoiceCreatorMock).getProcessableType();
 		verify(internalInvoiceCreatorMock).getProcessableCategory();
-		verify(internalInvoiceCreatorMock).createFileHeader();
+		verify(internalInvoiceCreatorMock).openSession();
+		verify(internalInvoiceCreatorMock).writeFileHeader(any());
 		verify(invoiceFileConfigurationServiceMock).getInvoiceFileNameBy(INTERNAL.name(), CATEGORY);
 		verify(invoiceFileConfigurationServiceMock).getEncoding(INTERNAL.name(), CATEGORY);
 		verify(messagingServiceMock).sendCreationErrorMail(eq(MUNICIPALITY_ID), creationErrorArgumentCaptor.capture());
@@ -467,7 +799,7 @@ class InvoiceFileServiceTest {
 
 		assertThat(creationErrorArgumentCaptor.getValue()).hasSize(1)
 			.extracting(InvoiceFileError::getEntityId, InvoiceFileError::getMessage)
-			.containsExactly(tuple(null, "NullPointerException: Cannot read the array length because \"b\" is null occurred when generating file content"));
+			.containsExactly(tuple(null, "IllegalStateException: Writer closed occurred when generating file content"));
 	}
 
 	@Test
@@ -475,13 +807,15 @@ class InvoiceFileServiceTest {
 		// Arrange
 		final var entity = createBillingRecordEntity(randomUUID().toString(), EXTERNAL, MUNICIPALITY_ID);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(entity));
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTypeAndCategoryAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any())).thenReturn(List.of(entity));
 
 		// Act
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTypeAndCategoryAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any());
 		verify(externalInvoiceCreatorMock).getProcessableType();
 		verify(externalInvoiceCreatorMock).getProcessableCategory();
 		verify(internalInvoiceCreatorMock).getProcessableType();
@@ -499,14 +833,16 @@ class InvoiceFileServiceTest {
 		// Arrange
 		final var entity = createBillingRecordEntity(randomUUID().toString(), EXTERNAL, MUNICIPALITY_ID);
 
-		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(entity));
+		when(billingRecordRepositoryMock.findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any())).thenReturn(List.of(new TypeAndCategory(EXTERNAL, CATEGORY)));
+		when(billingRecordRepositoryMock.findAllByStatusAndMunicipalityIdAndTypeAndCategoryAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any())).thenReturn(List.of(entity));
 		when(externalInvoiceCreatorMock.getProcessableType()).thenReturn(EXTERNAL);
 
 		// Act
 		service.createFiles(MUNICIPALITY_ID);
 
 		// Verify and assert
-		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findDistinctTypeAndCategory(eq(APPROVED), eq(MUNICIPALITY_ID), any());
+		verify(billingRecordRepositoryMock).findAllByStatusAndMunicipalityIdAndTypeAndCategoryAndTransferDateLessThanEqual(eq(APPROVED), eq(MUNICIPALITY_ID), eq(EXTERNAL), eq(CATEGORY), any());
 		verify(externalInvoiceCreatorMock).getProcessableType();
 		verify(externalInvoiceCreatorMock).getProcessableCategory();
 		verify(internalInvoiceCreatorMock).getProcessableType();
@@ -522,25 +858,46 @@ class InvoiceFileServiceTest {
 	private void verifyInvoiceCreatorMock(final InvoiceCreator invoiceCreatorMock, final BillingRecordEntity invalidBillingRecord, final BillingRecordEntity validBillingRecord) throws IOException {
 		verify(invoiceCreatorMock).getProcessableType();
 		verify(invoiceCreatorMock).getProcessableCategory();
-		verify(invoiceCreatorMock).createFileHeader();
-		verify(invoiceCreatorMock).createInvoiceData(invalidBillingRecord);
-		verify(invoiceCreatorMock).createInvoiceData(validBillingRecord);
-		verify(invoiceCreatorMock).createFileFooter(List.of(validBillingRecord));
+		verify(invoiceCreatorMock).openSession();
+		verify(invoiceCreatorMock).writeFileHeader(any());
+		verify(invoiceCreatorMock).prepareInvoiceData(List.of(invalidBillingRecord, validBillingRecord));
+		verify(invoiceCreatorMock).prepareInvoiceData(List.of());
+		verify(invoiceCreatorMock).writeInvoiceData(any(), eq(invalidBillingRecord));
+		verify(invoiceCreatorMock).writeInvoiceData(any(), eq(validBillingRecord));
+		verify(invoiceCreatorMock).writeFileFooter(sessionWithTotalsOf(List.of(validBillingRecord)));
 	}
 
 	private void verifyNoMoreInterationsOnMocks() {
 		verifyNoMoreInteractions(
 			billingRecordRepositoryMock,
 			invoiceFileRepositoryMock,
+			invoiceFileContentRepositoryMock,
 			externalInvoiceCreatorMock,
 			internalInvoiceCreatorMock,
 			invoiceFileConfigurationServiceMock,
 			messagingServiceMock,
-			uploadGatewayMock);
+			uploadGatewayMock,
+			entityManagerMock);
+	}
+
+	private static InvoiceFileSession sessionWithTotalsOf(List<BillingRecordEntity> billingRecords) {
+		final var totalAmount = billingRecords.stream()
+			.map(billingRecord -> calculateTotalInvoiceAmount(billingRecord.getInvoice()))
+			.reduce(BigDecimal.ZERO, BigDecimal::add);
+
+		return argThat(session -> session.getTotals().getRecordCount() == billingRecords.size() &&
+			session.getTotals().getTotalAmount().compareTo(totalAmount) == 0);
+	}
+
+	private static Answer<Void> writeToSession(byte[] content) {
+		return invocation -> {
+			invocation.<InvoiceFileSession>getArgument(0).write(content);
+			return null;
+		};
 	}
 
-	private String createFileContent(byte[] header, byte[] data, byte[] footer) {
-		return new String(ArrayUtils.addAll(ArrayUtils.addAll(header, data), footer), ENCODING);
+	private byte[] createFileContent(byte[] header, byte[] data, byte[] footer) {
+		return ArrayUtils.addAll(ArrayUtils.addAll(header, data), footer);
 	}
 
 	private static BillingRecordEntity createBillingRecordEntity(String id, Type type, String municipalityId) {
@@ -10,7 +10,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileRepository;
-import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileSummary;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,13 +43,7 @@ class StatusServiceTest {
 		var created = OffsetDateTime.now();
 		var sent = OffsetDateTime.now();
 
-		var invoiceFile = new InvoiceFileEntity()
-			.withCreated(created)
-			.withSent(sent)
-			.withName("name")
-			.withMunicipalityId(municipalityId)
-			.withStatus(InvoiceFileStatus.SEND_SUCCESSFUL)
-			.withType("EXTERNAL");
+		var invoiceFile = new InvoiceFileSummary(1L, "name", "EXTERNAL", InvoiceFileStatus.SEND_SUCCESSFUL, municipalityId, created, sent);
 
 		when(invoiceFileRepositoryMock.findAllCreatedInMonth(eq(municipalityId), any(OffsetDateTime.class), any(OffsetDateTime.class)))
 			.thenReturn(List.of(invoiceFile));
@@ -57,6 +51,7 @@ class StatusServiceTest {
 		var result = statusService.getInvoiceFilesForMonth(municipalityId, year, month);
 
 		assertThat(result).isNotNull().hasSize(1).allSatisfy(fileStatus -> {
+			assertThat(fileStatus.id()).isEqualTo("1");
 			assertThat(fileStatus.status()).isEqualTo(InvoiceFileStatus.SEND_SUCCESSFUL.toString());
 			assertThat(fileStatus.municipalityId()).isEqualTo(municipalityId);
 			assertThat(fileStatus.name()).isEqualTo("name");
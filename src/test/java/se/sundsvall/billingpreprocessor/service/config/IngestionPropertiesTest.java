@@ -0,0 +1,26 @@
+package se.sundsvall.billingpreprocessor.service.config;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import se.sundsvall.billingpreprocessor.Application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
+
+@SpringBootTest(classes = Application.class, webEnvironment = MOCK)
+@ActiveProfiles("junit")
+class IngestionPropertiesTest {
+
+	@Autowired
+	private IngestionProperties properties;
+
+	@Test
+	void testProperties() {
+		assertThat(properties).isNotNull()
+			.extracting(IngestionProperties::chunkSize, IngestionProperties::jobTimeToLive)
+			.containsExactly(500, Duration.ofHours(24));
+	}
+}
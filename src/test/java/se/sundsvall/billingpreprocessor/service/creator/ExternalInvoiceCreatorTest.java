@@ -12,6 +12,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -19,7 +20,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.AccountInformationEmbeddable;
 import se.sundsvall.billingpreprocessor.integration.db.model.AddressDetailsEmbeddable;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
@@ -31,6 +31,7 @@ import se.sundsvall.billingpreprocessor.integration.db.model.RecipientEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Status;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.Type;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 import se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorProperties;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
@@ -114,7 +115,7 @@ class ExternalInvoiceCreatorTest {
 	private LegalIdProvider legalIdProviderMock;
 
 	@MockitoBean
-	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
 
 	@Autowired
 	@Qualifier(value = "externalInvoiceCreator")
@@ -133,10 +134,10 @@ class ExternalInvoiceCreatorTest {
 		final var category = "category";
 		final var config = InvoiceFileConfigurationEntity.create().withCategoryTag(category);
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
 
 		assertThat(creator.getProcessableCategory()).isEqualTo(category);
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("ExternalInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("ExternalInvoiceCreator");
 	}
 
 	@Test
@@ -144,10 +145,10 @@ class ExternalInvoiceCreatorTest {
 		final var type = EXTERNAL;
 		final var config = InvoiceFileConfigurationEntity.create().withType(type.toString());
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
 
 		assertThat(creator.getProcessableType()).isEqualTo(type);
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("ExternalInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("ExternalInvoiceCreator");
 	}
 
 	@Test
@@ -164,7 +165,8 @@ class ExternalInvoiceCreatorTest {
 	@Test
 	void createFileHeader() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var result = creator.createFileHeader();
 		final var expected = getResource("validation/external_header_expected_format.txt")
@@ -176,7 +178,8 @@ class ExternalInvoiceCreatorTest {
 	@Test
 	void createFileFooterWithEmptyList() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var result = creator.createFileFooter(emptyList());
 
@@ -186,7 +189,8 @@ class ExternalInvoiceCreatorTest {
 	@Test
 	void createFileFooterWithBillingRecords() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var billingRecords = List.of(
 			createBillingRecordEntity(),
@@ -205,7 +209,8 @@ class ExternalInvoiceCreatorTest {
 	@Test
 	void createInvoiceDataWhenInvoiceMissing() {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var input = createBillingRecordEntity().withInvoice(null);
 		final var e = assertThrows(ThrowableProblem.class, () -> creator.createInvoiceData(input));
@@ -217,7 +222,8 @@ class ExternalInvoiceCreatorTest {
 	@Test
 	void createInvoiceDataFromEntityWithLegalId() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var result = creator.createInvoiceData(createBillingRecordEntity());
 		final var expected = getResource("validation/external_invoicedata_expected_format.txt");
@@ -229,7 +235,8 @@ class ExternalInvoiceCreatorTest {
 	@Test
 	void createInvoiceDataFromEntityWithoutLegalId() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var input = createBillingRecordEntity();
 		input.getRecipient().withLegalId(null).withPartyId(PARTY_ID);
@@ -243,10 +250,25 @@ class ExternalInvoiceCreatorTest {
 		verify(legalIdProviderMock).translateToLegalId(MUNICIPALITY_ID, PARTY_ID);
 	}
 
+	@Test
+	void prepareInvoiceData() {
+		final var withoutLegalId1 = createBillingRecordEntity();
+		final var withoutLegalId2 = createBillingRecordEntity();
+		final var withLegalId = createBillingRecordEntity();
+		withoutLegalId1.getRecipient().withLegalId(null).withPartyId(PARTY_ID);
+		withoutLegalId2.getRecipient().withLegalId(null).withPartyId(PARTY_ID);
+
+		creator.prepareInvoiceData(List.of(withoutLegalId1, withoutLegalId2, withLegalId));
+
+		verify(legalIdProviderMock).prefetch(MUNICIPALITY_ID, Set.of(PARTY_ID));
+		verify(legalIdProviderMock, never()).translateToLegalId(any(), any());
+	}
+
 	@Test
 	void createInvoiceDataWithFacilityDescriptionRows() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var input = createBillingRecordEntity()
 			.withExtraParameters(Map.of("facilities", "SUNDSVALL BALDER 4| SUNDSVALL BALDER 2"));
@@ -12,7 +12,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.AccountInformationEmbeddable;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
@@ -20,6 +19,7 @@ import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.RecipientEntity;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
@@ -40,7 +40,7 @@ import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.E
 class ExternalMexInvoiceCreatorTest {
 
 	@MockitoBean
-	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
 
 	@MockitoBean
 	private LegalIdProvider legalIdProviderMock;
@@ -55,8 +55,9 @@ class ExternalMexInvoiceCreatorTest {
 			.withType(EXTERNAL.name())
 			.withEncoding(ISO_8859_1.name());
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalMexInvoiceCreator"))
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalMexInvoiceCreator"))
 			.thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(ISO_8859_1);
 	}
 
 	@Test
@@ -67,13 +68,13 @@ class ExternalMexInvoiceCreatorTest {
 	@Test
 	void getProcessableCategory() {
 		assertThat(creator.getProcessableCategory()).isEqualTo("MEX_INVOICE");
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("ExternalMexInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("ExternalMexInvoiceCreator");
 	}
 
 	@Test
 	void getProcessableType() {
 		assertThat(creator.getProcessableType()).isEqualTo(EXTERNAL);
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("ExternalMexInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("ExternalMexInvoiceCreator");
 	}
 
 	@Test
@@ -12,11 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 
 import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,7 +28,7 @@ import static org.springframework.boot.test.context.SpringBootTest.WebEnvironmen
 class ExternalSalaryAndPensionInvoiceCreatorTest {
 
 	@MockitoBean
-	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
 
 	@Autowired
 	private ExternalSalaryAndPensionInvoiceCreator creator;
@@ -38,8 +38,9 @@ class ExternalSalaryAndPensionInvoiceCreatorTest {
 		final var config = InvoiceFileConfigurationEntity.create()
 			.withEncoding(StandardCharsets.ISO_8859_1.name());
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("ExternalSalaryAndPensionInvoiceCreator"))
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("ExternalSalaryAndPensionInvoiceCreator"))
 			.thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 	}
 
 	@Test
@@ -16,7 +16,6 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.AccountInformationEmbeddable;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
@@ -24,6 +23,7 @@ import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.enums.DescriptionType;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 import se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorProperties;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
@@ -80,7 +80,7 @@ class InternalInvoiceCreatorTest {
 	private static final String SUBACCOUNT_2 = "554800";
 
 	@MockitoBean
-	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
 
 	@Autowired
 	@Qualifier(value = "internalInvoiceCreator")
@@ -99,10 +99,10 @@ class InternalInvoiceCreatorTest {
 		final var category = "category";
 		final var config = InvoiceFileConfigurationEntity.create().withCategoryTag(category);
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
 
 		assertThat(creator.getProcessableCategory()).isEqualTo(category);
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("InternalInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("InternalInvoiceCreator");
 	}
 
 	@Test
@@ -110,10 +110,10 @@ class InternalInvoiceCreatorTest {
 		final var type = INTERNAL;
 		final var config = InvoiceFileConfigurationEntity.create().withType(type.toString());
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
 
 		assertThat(creator.getProcessableType()).isEqualTo(type);
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("InternalInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("InternalInvoiceCreator");
 	}
 
 	@Test
@@ -130,7 +130,8 @@ class InternalInvoiceCreatorTest {
 	@Test
 	void createFileHeader() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var result = creator.createFileHeader();
 		final var expected = getResource("validation/internal_header_expected_format.txt");
@@ -141,7 +142,8 @@ class InternalInvoiceCreatorTest {
 	@Test
 	void createFileFooterWithEmptyList() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var result = creator.createFileFooter(emptyList());
 
@@ -151,7 +153,8 @@ class InternalInvoiceCreatorTest {
 	@Test
 	void createFileFooterWithBillingRecords() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var billingRecords = List.of(
 			createbillingRecordEntity(),
@@ -170,7 +173,8 @@ class InternalInvoiceCreatorTest {
 	@Test
 	void createInvoiceDataWhenInvoiceMissing() {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var input = createbillingRecordEntity().withInvoice(null);
 		final var e = assertThrows(ThrowableProblem.class, () -> creator.createInvoiceData(input));
@@ -182,7 +186,8 @@ class InternalInvoiceCreatorTest {
 	@Test
 	void createInvoiceDataFromEntity() throws Exception {
 		final var config = InvoiceFileConfigurationEntity.create().withEncoding(StandardCharsets.ISO_8859_1.name());
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalInvoiceCreator")).thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 
 		final var result = creator.createInvoiceData(createbillingRecordEntity());
 		final var expected = getResource("validation/internal_invoicedata_expected_format.txt");
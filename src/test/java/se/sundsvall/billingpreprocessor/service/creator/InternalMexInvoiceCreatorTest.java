@@ -13,12 +13,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import se.sundsvall.billingpreprocessor.integration.db.InvoiceFileConfigurationRepository;
 import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.DescriptionEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileConfigurationEntity;
 import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileConfigurationService;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static java.util.Collections.emptyList;
@@ -36,7 +36,7 @@ import static se.sundsvall.billingpreprocessor.integration.db.model.enums.Type.I
 class InternalMexInvoiceCreatorTest {
 
 	@MockitoBean
-	private InvoiceFileConfigurationRepository invoiceFileConfigurationRepositoryMock;
+	private InvoiceFileConfigurationService invoiceFileConfigurationServiceMock;
 
 	@Autowired
 	private InternalMexInvoiceCreator creator;
@@ -48,8 +48,9 @@ class InternalMexInvoiceCreatorTest {
 			.withType(INTERNAL.name())
 			.withEncoding(StandardCharsets.ISO_8859_1.name());
 
-		when(invoiceFileConfigurationRepositoryMock.findByCreatorName("InternalMexInvoiceCreator"))
+		when(invoiceFileConfigurationServiceMock.findByCreatorName("InternalMexInvoiceCreator"))
 			.thenReturn(Optional.of(config));
+		when(invoiceFileConfigurationServiceMock.getEncoding(config.getType(), config.getCategoryTag())).thenReturn(StandardCharsets.ISO_8859_1);
 	}
 
 	@Test
@@ -60,13 +61,13 @@ class InternalMexInvoiceCreatorTest {
 	@Test
 	void getProcessableCategory() {
 		assertThat(creator.getProcessableCategory()).isEqualTo("MEX_INVOICE");
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("InternalMexInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("InternalMexInvoiceCreator");
 	}
 
 	@Test
 	void getProcessableType() {
 		assertThat(creator.getProcessableType()).isEqualTo(INTERNAL);
-		verify(invoiceFileConfigurationRepositoryMock).findByCreatorName("InternalMexInvoiceCreator");
+		verify(invoiceFileConfigurationServiceMock).findByCreatorName("InternalMexInvoiceCreator");
 	}
 
 	@Test
@@ -25,7 +25,7 @@ class InvoiceCreatorTest {
 
 		@Override
 		public byte[] createInvoiceData(BillingRecordEntity billingRecord) throws IOException {
-			return EMPTY_ARRAY;
+			return "invoiceData".getBytes();
 		}
 	}
 
@@ -42,4 +42,17 @@ class InvoiceCreatorTest {
 		final var result = creator.createFileFooter(List.of());
 		assertThat(result).isEqualTo(EMPTY_ARRAY);
 	}
+
+	@Test
+	void defaultSessionMethods() throws IOException {
+		final var creator = new TestInvoiceCreator();
+
+		try (final var session = creator.openSession()) {
+			creator.writeFileHeader(session);
+			creator.writeInvoiceData(session, BillingRecordEntity.create());
+			creator.writeFileFooter(session);
+
+			assertThat(session.toByteArray()).isEqualTo("invoiceData".getBytes());
+		}
+	}
 }
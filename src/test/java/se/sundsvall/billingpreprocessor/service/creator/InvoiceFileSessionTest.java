@@ -0,0 +1,105 @@
+package se.sundsvall.billingpreprocessor.service.creator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.beanio.annotation.Field;
+import org.beanio.annotation.Record;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InvoiceFileSessionTest {
+
+	private FixedLengthRecordEncoder encoder;
+
+	@Record
+	public static class TestRow {
+
+		@Field(at = 0, length = 10)
+		private String value;
+
+		public TestRow() {}
+
+		TestRow(String value) {
+			this.value = value;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		encoder = new FixedLengthRecordEncoder("\n", Map.of(), List.of(TestRow.class));
+	}
+
+	@Test
+	void writeRecord() throws IOException {
+		try (final var session = new InvoiceFileSession(encoder, ISO_8859_1)) {
+			session.writeRecord(writer -> writer.write(new TestRow("row")));
+			final var singleRecord = session.toByteArray();
+			session.writeRecord(writer -> writer.write(new TestRow("row")));
+
+			assertThat(singleRecord).isEqualTo("row       \n".getBytes(ISO_8859_1));
+			assertThat(session.toByteArray()).hasSize(singleRecord.length * 2);
+		}
+	}
+
+	@Test
+	void writeRecordRollsBackPartialOutputWhenExceptionIsThrown() throws IOException {
+		try (final var session = new InvoiceFileSession(encoder, ISO_8859_1)) {
+			session.writeRecord(writer -> writer.write(new TestRow("row")));
+			final var contentBeforeFailure = session.toByteArray();
+
+			final var exception = assertThrows(IllegalStateException.class, () -> session.writeRecord(writer -> {
+				writer.write(new TestRow("row"));
+				throw new IllegalStateException("Mapping failed");
+			}));
+
+			assertThat(exception.getMessage()).isEqualTo("Mapping failed");
+			assertThat(session.toByteArray()).isEqualTo(contentBeforeFailure);
+
+			// Verify that session is still usable after rollback
+			session.writeRecord(writer -> writer.write(new TestRow("row")));
+			assertThat(session.toByteArray()).hasSize(contentBeforeFailure.length * 2);
+		}
+	}
+
+	@Test
+	void writeContent() throws IOException {
+		try (final var session = new InvoiceFileSession()) {
+			session.write("header".getBytes());
+			session.write("data".getBytes());
+
+			assertThat(session.toByteArray()).isEqualTo("headerdata".getBytes());
+		}
+	}
+
+	@Test
+	void totals() throws IOException {
+		try (final var session = new InvoiceFileSession(encoder, ISO_8859_1)) {
+			assertThat(session.getTotals().isEmpty()).isTrue();
+			assertThat(session.getTotals()).isSameAs(session.getTotals());
+		}
+	}
+
+	@Test
+	void writeRecordOnSessionWithoutWriter() throws IOException {
+		try (final var session = new InvoiceFileSession()) {
+			final var exception = assertThrows(ThrowableProblem.class, () -> session.writeRecord(writer -> writer.write(new TestRow("row"))));
+
+			assertThat(exception.getMessage()).isEqualTo("Internal Server Error: Session has no writer for records");
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package se.sundsvall.billingpreprocessor.service.creator;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.billingpreprocessor.integration.db.model.BillingRecordEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceEntity;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceRowEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceFileTotalsTest {
+
+	@Test
+	void emptyTotals() {
+		final var totals = new InvoiceFileTotals();
+
+		assertThat(totals.isEmpty()).isTrue();
+		assertThat(totals.getRecordCount()).isZero();
+		assertThat(totals.getTotalAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	@Test
+	void add() {
+		final var totals = new InvoiceFileTotals();
+
+		totals.add(createBillingRecord(BigDecimal.valueOf(100.25), BigDecimal.valueOf(-20)));
+		totals.add(createBillingRecord(BigDecimal.valueOf(50), null));
+		totals.add(BillingRecordEntity.create());
+
+		assertThat(totals.isEmpty()).isFalse();
+		assertThat(totals.getRecordCount()).isEqualTo(3);
+		assertThat(totals.getTotalAmount()).isEqualByComparingTo(BigDecimal.valueOf(130.25));
+	}
+
+	@Test
+	void addInvoiceAmount() {
+		final var totals = new InvoiceFileTotals();
+
+		totals.add(createBillingRecord(BigDecimal.valueOf(100), BigDecimal.valueOf(200)));
+		totals.add(BigDecimal.valueOf(300));
+
+		assertThat(totals.getRecordCount()).isEqualTo(2);
+		assertThat(totals.getTotalAmount()).isEqualByComparingTo(BigDecimal.valueOf(600));
+		assertThat(totals).hasToString("InvoiceFileTotals [recordCount=2, totalAmount=600]");
+	}
+
+	private static BillingRecordEntity createBillingRecord(BigDecimal... rowAmounts) {
+		return BillingRecordEntity.create()
+			.withInvoice(InvoiceEntity.create()
+				.withInvoiceRows(Arrays.stream(rowAmounts)
+					.map(amount -> InvoiceRowEntity.create().withTotalAmount(amount))
+					.toList()));
+	}
+}
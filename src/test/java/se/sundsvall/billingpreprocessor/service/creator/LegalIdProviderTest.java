@@ -1,8 +1,14 @@
 package se.sundsvall.billingpreprocessor.service.creator;
 
 import generated.se.sundsvall.party.PartyType;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -10,10 +16,11 @@ import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
 import se.sundsvall.billingpreprocessor.integration.party.PartyClient;
+import se.sundsvall.billingpreprocessor.service.creator.config.LegalIdProviderProperties;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -25,21 +32,32 @@ import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @ExtendWith(MockitoExtension.class)
 class LegalIdProviderTest {
 
 	private static final String MUNICIPALITY_ID = "municipalityId";
 
+	private static final Instant NOW = Instant.parse("2024-03-06T12:00:00Z");
+	private static final LegalIdProviderProperties PROPERTIES = new LegalIdProviderProperties(2, Duration.ofMinutes(10), 2);
+
 	@Mock
 	private PartyClient partyClientMock;
 
-	@InjectMocks
-	private LegalIdProvider legalIdProvider;
+	@Mock
+	private Clock clockMock;
 
 	@Captor
 	private ArgumentCaptor<PartyType> partyTypeCaptor;
 
+	private LegalIdProvider legalIdProvider;
+
+	@BeforeEach
+	void setup() {
+		legalIdProvider = new LegalIdProvider(partyClientMock, PROPERTIES, clockMock);
+	}
+
 	@ParameterizedTest
 	@NullAndEmptySource
 	@ValueSource(strings = " ")
@@ -55,6 +73,7 @@ class LegalIdProviderTest {
 	void translatePrivatePartyIdToLegalId() {
 		final var partyId = UUID.randomUUID().toString();
 		final var legalId = "123456789012";
+		when(clockMock.instant()).thenReturn(NOW);
 		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenReturn(Optional.of(legalId));
 
 		final var result = legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId);
@@ -68,6 +87,7 @@ class LegalIdProviderTest {
 	void translateEnterprisePartyIdToLegalId() {
 		final var partyId = UUID.randomUUID().toString();
 		final var legalId = "123456789012";
+		when(clockMock.instant()).thenReturn(NOW);
 		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenReturn(Optional.empty());
 		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, partyId)).thenReturn(Optional.of(legalId));
 
@@ -78,4 +98,115 @@ class LegalIdProviderTest {
 		assertThat(result).isEqualTo(legalId);
 		assertThat(partyTypeCaptor.getAllValues()).hasSize(2).containsExactlyInAnyOrder(PartyType.ENTERPRISE, PartyType.PRIVATE);
 	}
+
+	@Test
+	void translateUnknownPartyIdToLegalId() {
+		final var partyId = UUID.randomUUID().toString();
+		when(clockMock.instant()).thenReturn(NOW);
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenReturn(Optional.empty());
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, partyId)).thenReturn(Optional.empty());
+
+		final var e = assertThrows(ThrowableProblem.class, () -> legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId));
+
+		assertThat(e.getStatus()).isEqualTo(NOT_FOUND);
+		assertThat(e.getMessage()).isEqualTo("Not Found: PartyId '%s' could not be found as a private customer or an enterprise customer".formatted(partyId));
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId);
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, partyId);
+		verifyNoMoreInteractions(partyClientMock);
+	}
+
+	@Test
+	void translateCachedPartyIdToLegalId() {
+		final var partyId = UUID.randomUUID().toString();
+		final var legalId = "123456789012";
+		when(clockMock.instant()).thenReturn(NOW);
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenReturn(Optional.of(legalId));
+
+		assertThat(legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId)).isEqualTo(legalId);
+		assertThat(legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId)).isEqualTo(legalId);
+
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId);
+		verifyNoMoreInteractions(partyClientMock);
+	}
+
+	@Test
+	void translateExpiredEnterprisePartyIdToLegalId() {
+		final var partyId = UUID.randomUUID().toString();
+		final var legalId = "5591628136";
+		when(clockMock.instant()).thenReturn(NOW, NOW.plus(PROPERTIES.cacheTimeToLive()));
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenReturn(Optional.empty());
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, partyId)).thenReturn(Optional.of(legalId));
+
+		assertThat(legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId)).isEqualTo(legalId);
+		assertThat(legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId)).isEqualTo(legalId);
+
+		// Expired entry is refreshed with the remembered party type, i.e. without a new private lookup
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId);
+		verify(partyClientMock, times(2)).getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, partyId);
+		verifyNoMoreInteractions(partyClientMock);
+	}
+
+	@Test
+	void cacheIsBoundedBySize() {
+		final var partyIds = List.of("partyId-1", "partyId-2", "partyId-3");
+		when(clockMock.instant()).thenReturn(NOW);
+		partyIds.forEach(partyId -> when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenReturn(Optional.of("legalId-" + partyId)));
+
+		partyIds.forEach(partyId -> legalIdProvider.translateToLegalId(MUNICIPALITY_ID, partyId));
+		legalIdProvider.translateToLegalId(MUNICIPALITY_ID, "partyId-3");
+		legalIdProvider.translateToLegalId(MUNICIPALITY_ID, "partyId-1");
+
+		// Cache holds two entries, so the least recently used one has been evicted and is looked up again
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, "partyId-2");
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, "partyId-3");
+		verify(partyClientMock, times(2)).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, "partyId-1");
+		verifyNoMoreInteractions(partyClientMock);
+	}
+
+	@Test
+	void prefetch() {
+		final var privatePartyId = UUID.randomUUID().toString();
+		final var enterprisePartyId = UUID.randomUUID().toString();
+		final var unknownPartyId = UUID.randomUUID().toString();
+		when(clockMock.instant()).thenReturn(NOW);
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, privatePartyId)).thenReturn(Optional.of("privateLegalId"));
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, enterprisePartyId)).thenReturn(Optional.empty());
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, enterprisePartyId)).thenReturn(Optional.of("enterpriseLegalId"));
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, unknownPartyId)).thenReturn(Optional.empty());
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, unknownPartyId)).thenReturn(Optional.empty());
+
+		legalIdProvider.prefetch(MUNICIPALITY_ID, List.of(privatePartyId, enterprisePartyId, privatePartyId, unknownPartyId, " "));
+
+		assertThat(legalIdProvider.translateToLegalId(MUNICIPALITY_ID, privatePartyId)).isEqualTo("privateLegalId");
+		assertThat(legalIdProvider.translateToLegalId(MUNICIPALITY_ID, enterprisePartyId)).isEqualTo("enterpriseLegalId");
+
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, privatePartyId);
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, enterprisePartyId);
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, enterprisePartyId);
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, unknownPartyId);
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.ENTERPRISE, unknownPartyId);
+		verifyNoMoreInteractions(partyClientMock);
+	}
+
+	@Test
+	void prefetchWithDiagnosticContextOfCaller() {
+		final var partyId = UUID.randomUUID().toString();
+		final var requestIds = new ConcurrentLinkedQueue<String>();
+		when(clockMock.instant()).thenReturn(NOW);
+		when(partyClientMock.getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId)).thenAnswer(invocation -> {
+			requestIds.add(MDC.get("requestId"));
+			return Optional.of("legalId");
+		});
+
+		MDC.put("requestId", "the-request-id");
+		try {
+			legalIdProvider.prefetch(MUNICIPALITY_ID, List.of(partyId));
+		} finally {
+			MDC.clear();
+		}
+
+		assertThat(requestIds).containsExactly("the-request-id");
+		verify(partyClientMock).getLegalId(MUNICIPALITY_ID, PartyType.PRIVATE, partyId);
+		verifyNoMoreInteractions(partyClientMock);
+	}
 }
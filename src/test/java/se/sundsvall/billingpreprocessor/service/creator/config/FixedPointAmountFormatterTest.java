@@ -0,0 +1,76 @@
+package se.sundsvall.billingpreprocessor.service.creator.config;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixedPointAmountFormatterTest {
+
+	@ParameterizedTest
+	@MethodSource("integerPatternArgumentProvider")
+	void formatWithIntegerPattern(String pattern, long unscaledValue, boolean negative) {
+		final var buffer = new char[64];
+		final var formatter = FixedPointAmountFormatter.fromIntegerPattern(pattern).orElseThrow();
+
+		final var length = formatter.format(unscaledValue, negative, buffer);
+
+		assertThat(new String(buffer, 0, length)).isEqualTo(new DecimalFormat(pattern).format(negative ? -unscaledValue : unscaledValue));
+	}
+
+	private static Stream<Arguments> integerPatternArgumentProvider() {
+		return Stream.of(
+			Arguments.of("+00000000000000;-00000000000000", 1337L, false),
+			Arguments.of("+00000000000000;-00000000000000", 1337L, true),
+			Arguments.of("+00000000000000;-00000000000000", 0L, false),
+			Arguments.of("+00000000000000;-00000000000000", 999999999999999999L, true),
+			Arguments.of("+0000000000", 1337L, true),
+			Arguments.of("0000", 7L, false),
+			Arguments.of("0", 0L, false));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"#.00;-#.00", "+#000.000", "#,##0", "0%", "0000 kr", "'+'0000", "0E00"
+	})
+	void fromIntegerPatternWithUnsupportedPattern(String pattern) {
+		assertThat(FixedPointAmountFormatter.fromIntegerPattern(pattern)).isEmpty();
+	}
+
+	@ParameterizedTest
+	@MethodSource("decimalFormatArgumentProvider")
+	void formatWithDecimalFormat(long unscaledValue, boolean negative, String expected) {
+		final var buffer = new char[64];
+		final var formatter = FixedPointAmountFormatter.of(new DecimalFormat("#.00;-#.00", DecimalFormatSymbols.getInstance(Locale.US)));
+
+		final var length = formatter.format(unscaledValue, negative, buffer);
+
+		assertThat(new String(buffer, 0, length)).isEqualTo(expected);
+	}
+
+	private static Stream<Arguments> decimalFormatArgumentProvider() {
+		return Stream.of(
+			Arguments.of(1337L, false, "13.37"),
+			Arguments.of(1337L, true, "-13.37"),
+			Arguments.of(5L, false, ".05"),
+			Arguments.of(0L, false, ".00"),
+			Arguments.of(0L, true, "-.00"),
+			Arguments.of(100L, false, "1.00"));
+	}
+
+	@Test
+	void formatIntoTooSmallBuffer() {
+		final var buffer = new char[5];
+		final var formatter = FixedPointAmountFormatter.fromIntegerPattern("+0000").orElseThrow();
+
+		assertThat(formatter.format(1337L, false, buffer)).isEqualTo(5);
+		assertThat(formatter.format(13370L, false, buffer)).isEqualTo(-1);
+	}
+}
@@ -1,11 +1,17 @@
 package se.sundsvall.billingpreprocessor.service.creator.config;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
 import java.util.stream.Stream;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import static java.util.Objects.isNull;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class InternalInvoiceBigDecimalTypeHandlerTest {
@@ -19,6 +25,51 @@ class InternalInvoiceBigDecimalTypeHandlerTest {
 		assertThat(handler.format(input)).isEqualTo(expected);
 	}
 
+	@ParameterizedTest
+	@MethodSource("patternArgumentProvider")
+	void formatEqualsReference(String pattern) {
+		handler.setPattern(pattern);
+		final var buffer = new char[64];
+
+		randomAmounts().forEach(value -> {
+			final var expected = referenceFormat(pattern, value);
+			final var length = handler.format(value, buffer);
+
+			assertThat(handler.format(value)).as("Formatting of %s", value).isEqualTo(expected);
+			if (length >= 0) {
+				assertThat(new String(buffer, 0, length)).as("Buffered formatting of %s", value).isEqualTo(expected);
+			}
+		});
+	}
+
+	private static Stream<Arguments> patternArgumentProvider() {
+		return Stream.of((String) null, "+0000000000", "+#000.000").map(Arguments::of);
+	}
+
+	/**
+	 * Amounts of varying magnitude and scale, including values halfway between two cents and values too large to be
+	 * expressed in cents as a long, generated with a fixed seed to make failures reproducible
+	 */
+	private static Stream<BigDecimal> randomAmounts() {
+		final var random = new Random(20240306L);
+		return Stream.concat(
+			Stream.of(BigDecimal.ZERO, new BigDecimal("0.005"), new BigDecimal("-0.005"), new BigDecimal("-0.001"), new BigDecimal("0.015"), new BigDecimal("-2.5E-3"),
+				new BigDecimal("21474836.47"), new BigDecimal("21474836.48"), new BigDecimal("-21474836.49"), new BigDecimal("9999999999999999.995"), new BigDecimal("-99999999999999999.99")),
+			Stream.generate(() -> new BigDecimal(new BigInteger(random.nextInt(1, 100), random).multiply(BigInteger.valueOf(random.nextBoolean() ? 1 : -1)), random.nextInt(-3, 9)))
+				.limit(10_000));
+	}
+
+	/**
+	 * Reference implementation, i.e. the implementation of the handler before it was given its fixed-point formatter
+	 */
+	private static String referenceFormat(String pattern, BigDecimal value) {
+		final var symbols = new DecimalFormatSymbols(Locale.getDefault());
+		symbols.setDecimalSeparator('.');
+		final var decimalFormat = new DecimalFormat(isNull(pattern) ? "#.00;-#.00" : pattern);
+		decimalFormat.setDecimalFormatSymbols(symbols);
+		return decimalFormat.format(value);
+	}
+
 	private static Stream<Arguments> formatArgumentProvider() {
 		return Stream.of(
 			// Following are BigDecimals and should be converted by handler
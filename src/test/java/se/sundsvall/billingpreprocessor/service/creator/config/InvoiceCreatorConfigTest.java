@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import se.sundsvall.billingpreprocessor.Application;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
@@ -26,6 +27,20 @@ class InvoiceCreatorConfigTest {
 	@Qualifier(InvoiceCreatorConfig.INTERNAL_INVOICE_BUILDER)
 	private StreamBuilder internalStreamBuilder;
 
+	@Autowired
+	@Qualifier(InvoiceCreatorConfig.EXTERNAL_INVOICE_ENCODER)
+	private FixedLengthRecordEncoder externalEncoder;
+
+	@Autowired
+	@Qualifier(InvoiceCreatorConfig.INTERNAL_INVOICE_ENCODER)
+	private FixedLengthRecordEncoder internalEncoder;
+
+	@Test
+	void encoders() {
+		assertThat(externalEncoder).isNotNull().isNotSameAs(internalEncoder);
+		assertThat(internalEncoder).isNotNull();
+	}
+
 	@Test
 	void externalStreamBuilder() {
 		assertThat(externalStreamBuilder).isNotNull().isNotSameAs(internalStreamBuilder);
@@ -1,6 +1,10 @@
 package se.sundsvall.billingpreprocessor.service.creator.config;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
@@ -18,6 +22,16 @@ class InvoiceCreatorPropertiesTest {
 
 	@Test
 	void externalStreamBuilder() {
-		assertThat(properties).isNotNull().extracting(InvoiceCreatorProperties::recordTerminator).isEqualTo("\\n");
+		assertThat(properties).isNotNull().extracting(InvoiceCreatorProperties::recordTerminator, InvoiceCreatorProperties::pageSize, InvoiceCreatorProperties::parallelism).containsExactly("\\n", 500, 1);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {
+		0, -1
+	})
+	void nonPositivePageSizeAndParallelism(int value) {
+		final var violations = Validation.buildDefaultValidatorFactory().getValidator().validate(new InvoiceCreatorProperties("\\n", value, value));
+
+		assertThat(violations).extracting(ConstraintViolation::getPropertyPath).map(Object::toString).containsExactlyInAnyOrder("pageSize", "parallelism");
 	}
 }
@@ -0,0 +1,155 @@
+package se.sundsvall.billingpreprocessor.service.creator.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.beanio.StreamFactory;
+import org.beanio.annotation.Field;
+import org.beanio.builder.StreamBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import se.sundsvall.billingpreprocessor.service.creator.encoder.FixedLengthRecordEncoder;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.EXTERNAL_INVOICE_RECORDS;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.INTERNAL_INVOICE_BUILDER;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.INTERNAL_INVOICE_RECORDS;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.externalInvoiceTypeHandlers;
+import static se.sundsvall.billingpreprocessor.service.creator.config.InvoiceCreatorConfig.internalInvoiceTypeHandlers;
+
+/**
+ * Verifies that the record encoders produce byte for byte the same output as BeanIO streams defined from the same
+ * record definitions and type handlers, using the BeanIO output as golden reference.
+ */
+class InvoiceRecordEncoderEquivalenceTest {
+
+	private static final String RECORD_TERMINATOR = "\r\n";
+	private static final InvoiceCreatorProperties PROPERTIES = new InvoiceCreatorProperties("\\r\\n", 500, 1);
+
+	private static Stream<Arguments> recordArguments() {
+		return Stream.of(INTERNAL_INVOICE_RECORDS, EXTERNAL_INVOICE_RECORDS)
+			.flatMap(List::stream)
+			.flatMap(recordType -> Stream.of(ValueSet.values())
+				.flatMap(valueSet -> Stream.of(ISO_8859_1, UTF_8)
+					.map(encoding -> Arguments.of(recordType, valueSet, encoding))));
+	}
+
+	@ParameterizedTest(name = "{0} with {1} values in {2}")
+	@MethodSource("recordArguments")
+	void encodeRecord(Class<?> recordType, ValueSet valueSet, Charset encoding) throws Exception {
+		final var internal = INTERNAL_INVOICE_RECORDS.contains(recordType);
+		final var record = populate(recordType, valueSet);
+
+		final var expected = internal
+			? writeWithBeanIO(INTERNAL_INVOICE_BUILDER, new InvoiceCreatorConfig().internalInvoiceStreamBuilder(PROPERTIES), record, encoding)
+			: writeWithBeanIO(EXTERNAL_INVOICE_BUILDER, new InvoiceCreatorConfig().externalInvoiceStreamBuilder(PROPERTIES), record, encoding);
+		final var actual = writeWithEncoder(internal ? new InvoiceCreatorConfig().internalInvoiceEncoder(PROPERTIES) : new InvoiceCreatorConfig().externalInvoiceEncoder(PROPERTIES), record, encoding);
+
+		assertThat(new String(actual, encoding)).isEqualTo(new String(expected, encoding));
+		assertThat(actual).isEqualTo(expected);
+	}
+
+	@Test
+	void encodeSeveralRecordsWithSameWriter() {
+		final var encoder = new FixedLengthRecordEncoder(RECORD_TERMINATOR, internalInvoiceTypeHandlers(), INTERNAL_INVOICE_RECORDS);
+		final var outputStream = new ByteArrayOutputStream();
+		final var writer = encoder.createWriter(outputStream, ISO_8859_1);
+		final var records = INTERNAL_INVOICE_RECORDS.stream()
+			.flatMap(recordType -> Stream.of(ValueSet.values()).map(valueSet -> populate(recordType, valueSet)))
+			.toList();
+
+		records.forEach(writer::write);
+
+		final var expected = new StringBuilder();
+		records.forEach(record -> expected.append(new String(writeWithEncoder(encoder, record, ISO_8859_1), ISO_8859_1)));
+		assertThat(outputStream.toString(ISO_8859_1)).isEqualTo(expected.toString());
+	}
+
+	@Test
+	void encodeUnknownRecordType() {
+		final var writer = new FixedLengthRecordEncoder(RECORD_TERMINATOR, externalInvoiceTypeHandlers(), EXTERNAL_INVOICE_RECORDS).createWriter(new ByteArrayOutputStream(), ISO_8859_1);
+
+		final var exception = assertThrows(ThrowableProblem.class, () -> writer.write("not a record"));
+
+		assertThat(exception.getMessage()).isEqualTo("Internal Server Error: No record definition present for java.lang.String");
+	}
+
+	private static byte[] writeWithBeanIO(String streamName, StreamBuilder streamBuilder, Object record, Charset encoding) throws Exception {
+		final var factory = StreamFactory.newInstance();
+		factory.define(streamBuilder);
+
+		final var outputStream = new ByteArrayOutputStream();
+		final var writer = factory.createWriter(streamName, new OutputStreamWriter(outputStream, encoding));
+		writer.write(record);
+		writer.close();
+		return outputStream.toByteArray();
+	}
+
+	private static byte[] writeWithEncoder(FixedLengthRecordEncoder encoder, Object record, Charset encoding) {
+		final var outputStream = new ByteArrayOutputStream();
+		encoder.createWriter(outputStream, encoding).write(record);
+		return outputStream.toByteArray();
+	}
+
+	private static Object populate(Class<?> recordType, ValueSet valueSet) {
+		try {
+			final var constructor = recordType.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			final var record = constructor.newInstance();
+
+			for (final var field : recordType.getDeclaredFields()) {
+				final var annotation = field.getAnnotation(Field.class);
+				if (annotation != null) {
+					field.setAccessible(true);
+					field.set(record, valueSet.valueFor(field.getType(), annotation.length()));
+				}
+			}
+			return record;
+		} catch (final ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	enum ValueSet {
+		TYPICAL(length -> "Text", BigDecimal.valueOf(1234.5), LocalDate.of(2024, 3, 6)),
+		EMPTY(length -> null, null, null),
+		OVERFLOWING(length -> "X".repeat(length) + "overflow", new BigDecimal("-98765432109876543.219"), LocalDate.of(1999, 12, 31)),
+		NEGATIVE(length -> "-1", BigDecimal.valueOf(-0.005), LocalDate.of(2024, 2, 29)),
+		NON_LATIN(length -> "Åäö ØÆ € Ω 漢字 😀", new BigDecimal("0.10"), LocalDate.of(2030, 1, 1));
+
+		private final Function<Integer, String> text;
+		private final BigDecimal amount;
+		private final LocalDate date;
+
+		ValueSet(Function<Integer, String> text, BigDecimal amount, LocalDate date) {
+			this.text = text;
+			this.amount = amount;
+			this.date = date;
+		}
+
+		Object valueFor(Class<?> type, int length) {
+			if (type == String.class) {
+				return text.apply(length);
+			}
+			if (type == BigDecimal.class) {
+				return amount;
+			}
+			if (type == LocalDate.class) {
+				return date;
+			}
+			throw new IllegalArgumentException("No value present for type " + type.getName());
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package se.sundsvall.billingpreprocessor.service.creator.config;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import se.sundsvall.billingpreprocessor.Application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
+
+@SpringBootTest(classes = Application.class, webEnvironment = MOCK)
+@ActiveProfiles("junit")
+class LegalIdProviderPropertiesTest {
+
+	@Autowired
+	private LegalIdProviderProperties properties;
+
+	@Test
+	void testProperties() {
+		assertThat(properties).isNotNull()
+			.extracting(LegalIdProviderProperties::parallelism, LegalIdProviderProperties::cacheTimeToLive, LegalIdProviderProperties::cacheMaxSize)
+			.containsExactly(10, Duration.ofHours(1), 10000);
+	}
+}
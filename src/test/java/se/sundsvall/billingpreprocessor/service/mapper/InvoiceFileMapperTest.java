@@ -2,9 +2,11 @@ package se.sundsvall.billingpreprocessor.service.mapper;
 
 import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Test;
+import se.sundsvall.billingpreprocessor.integration.db.model.InvoiceFileEntity;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static se.sundsvall.billingpreprocessor.integration.db.model.enums.InvoiceFileStatus.GENERATED;
+import static se.sundsvall.billingpreprocessor.service.util.CompressionUtil.decompress;
 
 class InvoiceFileMapperTest {
 
@@ -12,15 +14,13 @@ class InvoiceFileMapperTest {
 	void toInvoiceFileEntity() {
 		final var name = "name";
 		final var type = "type";
-		final var content = "content";
 		final var charset = StandardCharsets.UTF_8;
 		final var municipalityId = "municipalityId";
 
-		final var entity = InvoiceFileMapper.toInvoiceFileEntity(name, type, content.getBytes(), charset, municipalityId);
+		final var entity = InvoiceFileMapper.toInvoiceFileEntity(name, type, charset, municipalityId);
 
-		assertThat(entity).hasAllNullFieldsOrPropertiesExcept("id", "content", "name", "status", "type", "encoding", "municipalityId");
+		assertThat(entity).hasAllNullFieldsOrPropertiesExcept("id", "name", "status", "type", "encoding", "municipalityId");
 		assertThat(entity.getId()).isZero();
-		assertThat(entity.getContent()).isEqualTo(content);
 		assertThat(entity.getEncoding()).isEqualTo(charset.name());
 		assertThat(entity.getName()).isEqualTo(name);
 		assertThat(entity.getStatus()).isEqualTo(GENERATED);
@@ -31,11 +31,31 @@ class InvoiceFileMapperTest {
 	@Test
 	void toInvoiceFileEntityFromNull() {
 
-		final var entity = InvoiceFileMapper.toInvoiceFileEntity(null, null, null, null, "municipalityId");
+		final var entity = InvoiceFileMapper.toInvoiceFileEntity(null, null, null, "municipalityId");
 
 		assertThat(entity).hasAllNullFieldsOrPropertiesExcept("id", "status", "municipalityId");
 		assertThat(entity.getId()).isZero();
 		assertThat(entity.getStatus()).isEqualTo(GENERATED);
 		assertThat(entity.getMunicipalityId()).isEqualTo("municipalityId");
 	}
+
+	@Test
+	void toInvoiceFileContentEntity() {
+		final var invoiceFile = InvoiceFileEntity.create().withId(1L);
+		final var content = "content".getBytes(StandardCharsets.ISO_8859_1);
+
+		final var entity = InvoiceFileMapper.toInvoiceFileContentEntity(invoiceFile, content);
+
+		assertThat(entity).hasAllNullFieldsOrPropertiesExcept("invoiceFile", "content");
+		assertThat(entity.getInvoiceFile()).isSameAs(invoiceFile);
+		assertThat(decompress(entity.getContent())).isEqualTo(content);
+	}
+
+	@Test
+	void toInvoiceFileContentEntityFromNull() {
+
+		final var entity = InvoiceFileMapper.toInvoiceFileContentEntity(null, null);
+
+		assertThat(entity).hasAllNullFieldsOrProperties();
+	}
 }
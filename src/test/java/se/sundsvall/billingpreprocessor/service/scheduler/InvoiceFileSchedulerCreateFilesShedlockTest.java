@@ -70,13 +70,16 @@ class InvoiceFileSchedulerCreateFilesShedlockTest {
 		// Make sure scheduling occurs multiple times
 		await().until(() -> mockCalledTime != null && LocalDateTime.now().isAfter(mockCalledTime.plusSeconds(2)));
 
-		// Verify lock
+		// Verify locks for each municipality
 		await().atMost(5, SECONDS)
-			.untilAsserted(() -> assertThat(getLockedAt("createfiles"))
+			.untilAsserted(() -> assertThat(getLockedAt("createfiles-2281"))
 				.isCloseTo(LocalDateTime.now(systemUTC()), within(10, ChronoUnit.SECONDS)));
+		assertThat(getLockedAt("createfiles-2282")).isCloseTo(LocalDateTime.now(systemUTC()), within(10, ChronoUnit.SECONDS));
 
-		// Only one call should be made as long as createFiles() is locked and mock is waiting for first call to finish
+		// Only one call per municipality should be made as long as createFiles() is locked for the municipality and mock is waiting
+		// for first call to finish, and a hanging municipality should not prevent the other municipality from being processed
 		verify(invoiceFileServiceMock).createFiles("2281");
+		verify(invoiceFileServiceMock).createFiles("2282");
 		verifyNoMoreInteractions(invoiceFileServiceMock);
 	}
 
@@ -0,0 +1,50 @@
+package se.sundsvall.billingpreprocessor.service.scheduler;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceFileSchedulerHealthIndicatorTest {
+
+	@Test
+	void healthWhenNoJobHasFailed() {
+		final var healthIndicator = new InvoiceFileSchedulerHealthIndicator();
+
+		healthIndicator.setHealthy("createfiles", "2281");
+
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(healthIndicator.health().getDetails()).isEmpty();
+	}
+
+	@Test
+	void healthWhenJobsHaveFailed() {
+		final var healthIndicator = new InvoiceFileSchedulerHealthIndicator();
+
+		healthIndicator.setUnhealthy("createfiles", "2281", "Job failed");
+		healthIndicator.setUnhealthy("transferfiles", "2282", "Job exceeded the maximum execution time of PT2M");
+
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(InvoiceFileSchedulerHealthIndicator.RESTRICTED);
+		assertThat(healthIndicator.health().getDetails()).isEqualTo(Map.of(
+			"createfiles-2281", "Job failed",
+			"transferfiles-2282", "Job exceeded the maximum execution time of PT2M"));
+		assertThat(healthIndicator.health().getStatus().getCode()).isEqualTo("RESTRICTED");
+	}
+
+	@Test
+	void healthIsRestoredWhenFailedJobSucceeds() {
+		final var healthIndicator = new InvoiceFileSchedulerHealthIndicator();
+
+		healthIndicator.setUnhealthy("createfiles", "2281", "Job failed");
+		healthIndicator.setUnhealthy("createfiles", "2282", "Job failed");
+		healthIndicator.setHealthy("createfiles", "2281");
+
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(InvoiceFileSchedulerHealthIndicator.RESTRICTED);
+		assertThat(healthIndicator.health().getDetails()).containsOnlyKeys("createfiles-2282");
+
+		healthIndicator.setHealthy("createfiles", "2282");
+
+		assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+	}
+}
@@ -0,0 +1,70 @@
+package se.sundsvall.billingpreprocessor.service.scheduler;
+
+import java.util.Set;
+import net.javacrumbs.shedlock.core.LockProvider;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import se.sundsvall.billingpreprocessor.integration.sftp.SftpPropertiesConfig;
+import se.sundsvall.billingpreprocessor.service.InvoiceFileService;
+import se.sundsvall.billingpreprocessor.service.scheduler.SchedulerProperties.Job;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@SpringBootTest(properties = {
+	"spring.flyway.enabled=true",
+	"spring.datasource.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver",
+	"spring.datasource.url=jdbc:tc:mariadb:10.6.4:////",
+	"server.shutdown=immediate",
+	"spring.lifecycle.timeout-per-shutdown-phase=0s"
+})
+@ActiveProfiles("junit")
+class InvoiceFileSchedulerLockAtLeastForShedlockTest {
+
+	private static final String MUNICIPALITY_ID = "2281";
+
+	@Autowired
+	private LockProvider lockProvider;
+
+	@Autowired
+	private SftpPropertiesConfig sftpPropertiesConfig;
+
+	@Autowired
+	private SchedulerProperties properties;
+
+	@Test
+	void verifyShedLockIsKeptAfterFastJob() {
+		// Use a job name of its own to not share locks with the other shedlock tests
+		final var nodeProperties = new SchedulerProperties(new Job("lockatleastfor", properties.createfiles().cron()), properties.transferfiles(), 1,
+			properties.shedlockLockAtMostFor(), properties.shedlockLockAtLeastFor(), properties.maximumExecutionTime());
+		final var invoiceFileServiceMock = Mockito.mock(InvoiceFileService.class);
+		final var firstNode = new InvoiceFileScheduler(invoiceFileServiceMock, sftpPropertiesConfig, lockProvider, nodeProperties, new InvoiceFileSchedulerHealthIndicator());
+		final var secondNode = new InvoiceFileScheduler(invoiceFileServiceMock, sftpPropertiesConfig, lockProvider, nodeProperties, new InvoiceFileSchedulerHealthIndicator());
+
+		try {
+			// Let the first node execute the job, which finishes immediately and releases the lock
+			firstNode.executeCreateFiles(MUNICIPALITY_ID);
+			verify(invoiceFileServiceMock, timeout(5000)).createFiles(MUNICIPALITY_ID);
+			await().atMost(5, SECONDS).until(() -> hasNoPendingJobs(firstNode));
+
+			// The second node, whose cron fires right after the first node has released the lock, should not execute the job
+			secondNode.executeCreateFiles(MUNICIPALITY_ID);
+			await().atMost(5, SECONDS).until(() -> hasNoPendingJobs(secondNode));
+			verifyNoMoreInteractions(invoiceFileServiceMock);
+		} finally {
+			firstNode.shutdown();
+			secondNode.shutdown();
+		}
+	}
+
+	private static boolean hasNoPendingJobs(InvoiceFileScheduler scheduler) {
+		return ((Set<?>) ReflectionTestUtils.getField(scheduler, "pendingJobs")).isEmpty();
+	}
+}
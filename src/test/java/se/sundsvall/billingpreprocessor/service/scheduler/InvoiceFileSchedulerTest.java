@@ -1,19 +1,41 @@
 package se.sundsvall.billingpreprocessor.service.scheduler;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import net.javacrumbs.shedlock.core.LockConfiguration;
+import net.javacrumbs.shedlock.core.LockProvider;
+import net.javacrumbs.shedlock.core.SimpleLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Stubber;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.test.util.ReflectionTestUtils;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpProperties;
 import se.sundsvall.billingpreprocessor.integration.sftp.SftpPropertiesConfig;
 import se.sundsvall.billingpreprocessor.service.InvoiceFileService;
-import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.billingpreprocessor.service.scheduler.SchedulerProperties.Job;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -21,6 +43,12 @@ import static org.mockito.Mockito.when;
 class InvoiceFileSchedulerTest {
 
 	private static final String MUNICIPALITY_ID = "2281";
+	private static final String OTHER_MUNICIPALITY_ID = "2282";
+	private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(2);
+	private static final Duration LOCK_AT_LEAST_FOR = Duration.ofSeconds(30);
+	private static final Duration MAXIMUM_EXECUTION_TIME = Duration.ofMillis(200);
+	private static final String DEFAULT_CREATE_FILES_CRON = "0 0 0 * * *";
+	private static final String DEFAULT_TRANSFER_FILES_CRON = "0 0 7 * * *";
 
 	@Mock
 	private InvoiceFileService invoiceFileServiceMock;
@@ -31,32 +59,266 @@ class InvoiceFileSchedulerTest {
 	@Mock
 	private SftpProperties sftpPropertiesMock;
 
-	@InjectMocks
+	@Mock
+	private ScheduledTaskRegistrar taskRegistrarMock;
+
+	@Mock
+	private LockProvider lockProviderMock;
+
+	@Mock
+	private SimpleLock simpleLockMock;
+
+	@Mock
+	private InvoiceFileSchedulerHealthIndicator healthIndicatorMock;
+
+	@Captor
+	private ArgumentCaptor<LockConfiguration> lockConfigurationCaptor;
+
+	@Captor
+	private ArgumentCaptor<Runnable> taskCaptor;
+
 	private InvoiceFileScheduler scheduler;
 
+	private volatile boolean hangingInterrupted;
+
+	@BeforeEach
+	void setup() {
+		final var properties = new SchedulerProperties(new Job("createfiles", DEFAULT_CREATE_FILES_CRON), new Job("transferfiles", DEFAULT_TRANSFER_FILES_CRON), 2, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR, MAXIMUM_EXECUTION_TIME);
+		scheduler = new InvoiceFileScheduler(invoiceFileServiceMock, sftpPropertiesConfigMock, lockProviderMock, properties, healthIndicatorMock);
+	}
+
+	@AfterEach
+	void teardown() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void configureTasks() {
+		final var otherSftpProperties = new SftpProperties();
+		otherSftpProperties.setCreateFilesCron("0 0 1 * * *");
+		otherSftpProperties.setTransferFilesCron("0 0 8 * * *");
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, new SftpProperties(), OTHER_MUNICIPALITY_ID, otherSftpProperties));
+
+		scheduler.configureTasks(taskRegistrarMock);
+
+		verify(taskRegistrarMock).addCronTask(any(Runnable.class), eq(DEFAULT_CREATE_FILES_CRON));
+		verify(taskRegistrarMock).addCronTask(any(Runnable.class), eq(DEFAULT_TRANSFER_FILES_CRON));
+		verify(taskRegistrarMock).addCronTask(any(Runnable.class), eq("0 0 1 * * *"));
+		verify(taskRegistrarMock).addCronTask(taskCaptor.capture(), eq("0 0 8 * * *"));
+		verifyNoMoreInteractions(taskRegistrarMock);
+
+		// Verify that the registered task dispatches the job for the municipality it was registered for
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+		taskCaptor.getValue().run();
+
+		verify(invoiceFileServiceMock, timeout(5000)).transferFiles(OTHER_MUNICIPALITY_ID);
+		verify(simpleLockMock, timeout(5000)).unlock();
+		verifyNoMoreInteractions(invoiceFileServiceMock);
+	}
+
+	@Test
+	void executeCreateFilesWithMunicipalitySettings() {
+		final var sftpProperties = new SftpProperties();
+		sftpProperties.setShedlockLockAtMostFor(Duration.ofMinutes(30));
+		sftpProperties.setMaximumExecutionTime(Duration.ofMinutes(30));
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpProperties));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+
+		verify(simpleLockMock, timeout(5000)).unlock();
+		verify(lockProviderMock).lock(lockConfigurationCaptor.capture());
+		assertThat(lockConfigurationCaptor.getValue().getName()).isEqualTo("createfiles-2281");
+		assertThat(lockConfigurationCaptor.getValue().getLockAtMostFor()).isEqualTo(Duration.ofMinutes(30));
+		assertThat(lockConfigurationCaptor.getValue().getLockAtLeastFor()).isEqualTo(LOCK_AT_LEAST_FOR);
+		verify(invoiceFileServiceMock).createFiles(MUNICIPALITY_ID);
+	}
+
+	@Test
+	void executeCreateFilesWithMunicipalityLockTimeShorterThanMinimumLockTime() {
+		final var sftpProperties = new SftpProperties();
+		sftpProperties.setShedlockLockAtMostFor(Duration.ofSeconds(10));
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpProperties));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+
+		verify(simpleLockMock, timeout(5000)).unlock();
+		verify(lockProviderMock).lock(lockConfigurationCaptor.capture());
+		assertThat(lockConfigurationCaptor.getValue().getLockAtMostFor()).isEqualTo(Duration.ofSeconds(10));
+		assertThat(lockConfigurationCaptor.getValue().getLockAtLeastFor()).isEqualTo(Duration.ofSeconds(10));
+		verify(invoiceFileServiceMock).createFiles(MUNICIPALITY_ID);
+	}
+
 	@Test
 	void executeCreateFiles() {
 		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
-		// Mock static RequestId to enable spy and to verify that static method is being called
-		try (MockedStatic<RequestId> requestIdMock = Mockito.mockStatic(RequestId.class)) {
-			scheduler.executeCreateFiles();
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
 
-			requestIdMock.verify(RequestId::init);
-			verify(invoiceFileServiceMock).createFiles(MUNICIPALITY_ID);
-			verifyNoMoreInteractions(invoiceFileServiceMock);
-		}
+		verify(invoiceFileServiceMock, timeout(5000)).createFiles(MUNICIPALITY_ID);
+		verify(simpleLockMock, timeout(5000)).unlock();
+		verify(lockProviderMock).lock(lockConfigurationCaptor.capture());
+		assertThat(lockConfigurationCaptor.getValue().getName()).isEqualTo("createfiles-2281");
+		assertThat(lockConfigurationCaptor.getValue().getLockAtMostFor()).isEqualTo(LOCK_AT_MOST_FOR);
+		assertThat(lockConfigurationCaptor.getValue().getLockAtLeastFor()).isEqualTo(LOCK_AT_LEAST_FOR);
+		verify(healthIndicatorMock).setHealthy("createfiles", MUNICIPALITY_ID);
+		verifyNoMoreInteractions(invoiceFileServiceMock, lockProviderMock, simpleLockMock, healthIndicatorMock);
 	}
 
 	@Test
 	void executeSendToFtp() {
 		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
-		// Mock static RequestId to enable spy and to verify that static method is being called
-		try (MockedStatic<RequestId> requestIdMock = Mockito.mockStatic(RequestId.class)) {
-			scheduler.executeTransferFiles();
-
-			requestIdMock.verify(RequestId::init);
-			verify(invoiceFileServiceMock).transferFiles(MUNICIPALITY_ID);
-			verifyNoMoreInteractions(invoiceFileServiceMock);
-		}
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		scheduler.executeTransferFiles(MUNICIPALITY_ID);
+
+		verify(invoiceFileServiceMock, timeout(5000)).transferFiles(MUNICIPALITY_ID);
+		verify(simpleLockMock, timeout(5000)).unlock();
+		verify(lockProviderMock).lock(lockConfigurationCaptor.capture());
+		assertThat(lockConfigurationCaptor.getValue().getName()).isEqualTo("transferfiles-2281");
+		verifyNoMoreInteractions(invoiceFileServiceMock, lockProviderMock, simpleLockMock);
+	}
+
+	@Test
+	void executeTransferFilesWhenLocked() {
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.empty());
+
+		scheduler.executeTransferFiles(MUNICIPALITY_ID);
+
+		verify(lockProviderMock, timeout(5000)).lock(any());
+		verifyNoInteractions(invoiceFileServiceMock, healthIndicatorMock);
+	}
+
+	@Test
+	void executeTransferFilesWithSlowMunicipality() {
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock, OTHER_MUNICIPALITY_ID, sftpPropertiesMock));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		// Let transfer for one municipality hang until it is interrupted by the maximum execution time
+		hangUntilInterrupted().when(invoiceFileServiceMock).transferFiles(MUNICIPALITY_ID);
+
+		scheduler.executeTransferFiles(MUNICIPALITY_ID);
+		scheduler.executeTransferFiles(OTHER_MUNICIPALITY_ID);
+
+		verify(invoiceFileServiceMock, timeout(5000)).transferFiles(OTHER_MUNICIPALITY_ID);
+		verify(invoiceFileServiceMock, timeout(5000)).transferFiles(MUNICIPALITY_ID);
+
+		// Both locks are released, also for the municipality that was interrupted
+		verify(simpleLockMock, timeout(5000).times(2)).unlock();
+		await().atMost(5, SECONDS).until(() -> hangingInterrupted);
+
+		// The interrupted municipality is reported as unhealthy while the other municipality is reported as healthy
+		verify(healthIndicatorMock).setUnhealthy("transferfiles", MUNICIPALITY_ID, "Job exceeded the maximum execution time of PT0.2S");
+		verify(healthIndicatorMock).setHealthy("transferfiles", OTHER_MUNICIPALITY_ID);
+		verifyNoMoreInteractions(healthIndicatorMock);
+	}
+
+	@Test
+	void executeCreateFilesContinuesAfterFailure() {
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+		doThrow(new IllegalStateException("Failure")).when(invoiceFileServiceMock).createFiles(MUNICIPALITY_ID);
+
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+
+		verify(invoiceFileServiceMock, timeout(5000)).createFiles(MUNICIPALITY_ID);
+		verify(simpleLockMock, timeout(5000)).unlock();
+		verify(healthIndicatorMock).setUnhealthy("createfiles", MUNICIPALITY_ID, "Job failed");
+		verifyNoMoreInteractions(healthIndicatorMock);
+	}
+
+	@Test
+	void executeCreateFilesFailingAfterTimeout() {
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		// Let the job fail when it is interrupted by the maximum execution time
+		doAnswer(invocation -> {
+			try {
+				Thread.sleep(Long.MAX_VALUE);
+			} catch (final InterruptedException e) {
+				throw new IllegalStateException("Interrupted", e);
+			}
+			return null;
+		}).when(invoiceFileServiceMock).createFiles(MUNICIPALITY_ID);
+
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+
+		verify(simpleLockMock, timeout(5000)).unlock();
+
+		// The timeout is kept as reason for the job being unhealthy
+		verify(healthIndicatorMock).setUnhealthy("createfiles", MUNICIPALITY_ID, "Job exceeded the maximum execution time of PT0.2S");
+		verifyNoMoreInteractions(healthIndicatorMock);
+	}
+
+	@Test
+	void executeCreateFilesWhenPreviousExecutionIsPending() {
+		final var release = new CountDownLatch(1);
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock));
+		when(sftpPropertiesMock.getMaximumExecutionTime()).thenReturn(Duration.ofMinutes(1));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+		doAnswer(invocation -> {
+			release.await();
+			return null;
+		}).when(invoiceFileServiceMock).createFiles(MUNICIPALITY_ID);
+
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+		verify(invoiceFileServiceMock, timeout(5000)).createFiles(MUNICIPALITY_ID);
+
+		// Dispatches made while the job is running for the municipality are skipped
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+		release.countDown();
+		verify(simpleLockMock, timeout(5000)).unlock();
+
+		// The job is dispatched again when the previous execution has ended
+		await().atMost(5, SECONDS).until(() -> ((Set<?>) ReflectionTestUtils.getField(scheduler, "pendingJobs")).isEmpty());
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+		verify(invoiceFileServiceMock, timeout(5000).times(2)).createFiles(MUNICIPALITY_ID);
+		verify(simpleLockMock, timeout(5000).times(2)).unlock();
+		verify(lockProviderMock, times(2)).lock(any());
+	}
+
+	@Test
+	void executeCreateFilesClearsPendingInterrupt() {
+		final var started = new CountDownLatch(2);
+		final var interruptedStates = new ConcurrentLinkedQueue<Boolean>();
+		when(sftpPropertiesConfigMock.getMap()).thenReturn(Map.of(MUNICIPALITY_ID, sftpPropertiesMock, OTHER_MUNICIPALITY_ID, sftpPropertiesMock));
+		when(lockProviderMock.lock(any())).thenReturn(Optional.of(simpleLockMock));
+
+		// Let the job end with the interrupt flag set, as when the timeout fires just as the job ends
+		doAnswer(invocation -> {
+			Thread.currentThread().interrupt();
+			return null;
+		}).when(invoiceFileServiceMock).transferFiles(MUNICIPALITY_ID);
+		scheduler.executeTransferFiles(MUNICIPALITY_ID);
+		verify(simpleLockMock, timeout(5000)).unlock();
+
+		// Occupy both pooled threads, so that one of the jobs runs on the thread of the interrupted job
+		doAnswer(invocation -> {
+			started.countDown();
+			started.await();
+			interruptedStates.add(Thread.currentThread().isInterrupted());
+			return null;
+		}).when(invoiceFileServiceMock).createFiles(any());
+		scheduler.executeCreateFiles(MUNICIPALITY_ID);
+		scheduler.executeCreateFiles(OTHER_MUNICIPALITY_ID);
+
+		await().atMost(5, SECONDS).until(() -> interruptedStates.size() == 2);
+		assertThat(interruptedStates).containsOnly(false);
+	}
+
+	private Stubber hangUntilInterrupted() {
+		return doAnswer(invocation -> {
+			try {
+				Thread.sleep(Long.MAX_VALUE);
+			} catch (final InterruptedException e) {
+				hangingInterrupted = true;
+			}
+			return null;
+		});
 	}
 }
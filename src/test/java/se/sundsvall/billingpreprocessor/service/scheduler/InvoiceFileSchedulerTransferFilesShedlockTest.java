@@ -70,13 +70,16 @@ class InvoiceFileSchedulerTransferFilesShedlockTest {
 		// Make sure scheduling occurs multiple times
 		await().until(() -> mockCalledTime != null && LocalDateTime.now().isAfter(mockCalledTime.plusSeconds(2)));
 
-		// Verify lock
+		// Verify locks for each municipality
 		await().atMost(5, SECONDS)
-			.untilAsserted(() -> assertThat(getLockedAt("transferfiles"))
+			.untilAsserted(() -> assertThat(getLockedAt("transferfiles-2281"))
 				.isCloseTo(LocalDateTime.now(systemUTC()), within(10, ChronoUnit.SECONDS)));
+		assertThat(getLockedAt("transferfiles-2282")).isCloseTo(LocalDateTime.now(systemUTC()), within(10, ChronoUnit.SECONDS));
 
-		// Only one call should be made as long as transferFiles() is locked and mock is waiting for first call to finish
+		// Only one call per municipality should be made as long as transferFiles() is locked for the municipality and mock is waiting
+		// for first call to finish, and a hanging municipality should not prevent the other municipality from being processed
 		verify(invoiceFileServiceMock).transferFiles("2281");
+		verify(invoiceFileServiceMock).transferFiles("2282");
 		verifyNoMoreInteractions(invoiceFileServiceMock);
 	}
 
@@ -0,0 +1,27 @@
+package se.sundsvall.billingpreprocessor.service.scheduler;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import se.sundsvall.billingpreprocessor.Application;
+import se.sundsvall.billingpreprocessor.service.scheduler.SchedulerProperties.Job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.MOCK;
+
+@SpringBootTest(classes = Application.class, webEnvironment = MOCK)
+@ActiveProfiles("junit")
+class SchedulerPropertiesTest {
+
+	@Autowired
+	private SchedulerProperties properties;
+
+	@Test
+	void testProperties() {
+		assertThat(properties).isNotNull()
+			.extracting(SchedulerProperties::createfiles, SchedulerProperties::transferfiles, SchedulerProperties::parallelism, SchedulerProperties::shedlockLockAtMostFor, SchedulerProperties::shedlockLockAtLeastFor, SchedulerProperties::maximumExecutionTime)
+			.containsExactly(new Job("createfiles", "0 0 0 * * *"), new Job("transferfiles", "0 0 7 * * *"), 4, Duration.ofMinutes(2), Duration.ofSeconds(30), Duration.ofMinutes(2));
+	}
+}
@@ -0,0 +1,49 @@
+package se.sundsvall.billingpreprocessor.service.util;
+
+import java.io.IOException;
+import java.util.HexFormat;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionUtilTest {
+
+	@Test
+	void compressAndDecompress() {
+		final var content = "Räksmörgås och fakturarader\n".repeat(1000).getBytes(ISO_8859_1);
+
+		final var compressed = CompressionUtil.compress(content);
+
+		assertThat(compressed).hasSizeLessThan(content.length);
+		assertThat(CompressionUtil.decompress(compressed)).isEqualTo(content);
+	}
+
+	@Test
+	void compressWritesUncompressedLengthAsPrefix() {
+		final var content = "content".getBytes(UTF_8);
+
+		final var compressed = CompressionUtil.compress(content);
+
+		// Same layout as MariaDB COMPRESS(), i.e. the length as four bytes in little endian order followed by a zlib stream
+		assertThat(compressed).startsWith(new byte[] {
+			0x07, 0x00, 0x00, 0x00, 0x78
+		});
+	}
+
+	@Test
+	void decompressContentCompressedByDatabase() {
+		// Result of SELECT HEX(COMPRESS('content')) in MariaDB
+		final var compressed = HexFormat.of().parseHex("07000000789C4BCECF2B49CD2B01000BCB02FC");
+
+		assertThat(CompressionUtil.decompress(compressed)).isEqualTo("content".getBytes(UTF_8));
+	}
+
+	@Test
+	void compressAndDecompressEmptyContent() throws IOException {
+		assertThat(CompressionUtil.compress(new byte[0])).isEmpty();
+		assertThat(CompressionUtil.decompress(new byte[0])).isEmpty();
+		assertThat(CompressionUtil.decompressingInputStream(new byte[0]).read()).isEqualTo(-1);
+	}
+}
@@ -0,0 +1,60 @@
+package se.sundsvall.billingpreprocessor.service.util;
+
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+
+class CursorUtilTest {
+
+	@Test
+	void encodeAndDecodeCursor() {
+		final var created = OffsetDateTime.parse("2022-06-20T11:17:36.795+02:00");
+
+		final var cursor = CursorUtil.decodeCursor(CursorUtil.encodeCursor(created, "71258e7d-5285-46ce-b9b2-877f8cad8edd"));
+
+		assertThat(cursor.created()).isAtSameInstantAs(created);
+		assertThat(cursor.id()).isEqualTo("71258e7d-5285-46ce-b9b2-877f8cad8edd");
+	}
+
+	@Test
+	void encodedCursorIsUrlSafe() {
+		assertThat(CursorUtil.encodeCursor(OffsetDateTime.parse("2022-06-20T11:17:36.795+02:00"), "???>>>")).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void decodeNullCursor() {
+		final var cursor = CursorUtil.decodeCursor(null);
+
+		assertThat(cursor.created()).isNull();
+		assertThat(cursor.id()).isNull();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {
+		"2022-06-20T09:17:36.795Z", "2022-06-20T09:17:36.795Z|", "not a timestamp|id"
+	})
+	void decodeCursorWithInvalidPosition(String position) {
+		final var cursor = Base64.getUrlEncoder().encodeToString(position.getBytes(UTF_8));
+
+		final var exception = assertThrows(ThrowableProblem.class, () -> CursorUtil.decodeCursor(cursor));
+
+		assertThat(exception.getStatus()).isEqualTo(BAD_REQUEST);
+		assertThat(exception.getMessage()).isEqualTo("Bad Request: Cursor '%s' is not valid!".formatted(cursor));
+	}
+
+	@Test
+	void decodeCursorNotEncodedAsBase64() {
+		final var exception = assertThrows(ThrowableProblem.class, () -> CursorUtil.decodeCursor("not base64!"));
+
+		assertThat(exception.getStatus()).isEqualTo(BAD_REQUEST);
+		assertThat(exception.getMessage()).isEqualTo("Bad Request: Cursor 'not base64!' is not valid!");
+	}
+}
@@ -28,6 +28,11 @@ class StringUtilTest {
 			Arguments.of("-1-2-3-", "123"),
 			Arguments.of("-A-2-C-", "-A-2-C-"),
 			Arguments.of("1A2B3C4D5E6F", "1A2B3C4D5E6F"),
-			Arguments.of("1A-2B-3C-4D-5E-6F", "1A-2B-3C-4D-5E-6F"));
+			Arguments.of("1A-2B-3C-4D-5E-6F", "1A-2B-3C-4D-5E-6F"),
+			Arguments.of("", ""),
+			Arguments.of("---", ""),
+			Arguments.of(" 123456-7890 ", " 123456-7890 "),
+			Arguments.of("19123456-7890", "1234567890"),
+			Arguments.of("\u0661\u0662\u0663", "\u0661\u0662\u0663"));
 	}
 }
@@ -1,3 +1,7 @@
+create sequence description_seq start with 1000 increment by 50;
+
+create sequence invoice_row_seq start with 1000 increment by 50;
+
 
 create table account_information (
                                      amount decimal(38,2),
@@ -27,7 +31,7 @@ create table billing_record (
 ) engine=InnoDB;
 
 create table description (
-                             id bigint not null auto_increment,
+                             id bigint not null,
                              invoice_row_id bigint not null,
                              text varchar(255),
                              type ENUM('DETAILED', 'STANDARD'),
@@ -71,16 +75,21 @@ create table invoice_file (
                               municipality_id varchar(255) not null,
                               name varchar(255),
                               type varchar(255),
-                              content longtext,
                               status varchar(255),
                               primary key (id)
 ) engine=InnoDB;
 
+create table invoice_file_content (
+                                      id bigint not null,
+                                      content longblob,
+                                      primary key (id)
+) engine=InnoDB;
+
 create table invoice_row (
                              cost_per_unit decimal(38,2),
                              quantity decimal(38,2),
                              total_amount decimal(38,2),
-                             id bigint not null auto_increment,
+                             id bigint not null,
                              invoice_id varchar(255) not null,
                              vat_code varchar(255),
                              primary key (id)
@@ -107,8 +116,8 @@ create index idx_invoice_row_id
 create index idx_billing_record_category_status
     on billing_record (category, status);
 
-create index idx_billing_record_municipality_id
-    on billing_record (municipality_id);
+create index idx_billing_record_municipality_id_created_id
+    on billing_record (municipality_id, created, id);
 
 create index idx_billing_record_status_municipalityId_transfer_date
     on billing_record (status, municipality_id, transfer_date);
@@ -131,8 +140,8 @@ alter table if exists file_configuration
 create index idx_invoice_file_status
     on invoice_file (status);
 
-create index idx_invoice_file_municipality_id
-    on invoice_file (municipality_id);
+create index idx_invoice_file_municipality_id_created
+    on invoice_file (municipality_id, created);
 
 alter table if exists invoice_file
     add constraint uq_file_name unique (name);
@@ -157,6 +166,11 @@ alter table if exists invoice
         foreign key (id)
             references billing_record (id);
 
+alter table if exists invoice_file_content
+    add constraint fk_invoice_file_id_invoice_file_content
+        foreign key (id)
+            references invoice_file (id);
+
 alter table if exists invoice_row
     add constraint fk_invoice_id_invoice_row
         foreign key (invoice_id)
@@ -37,11 +37,11 @@ VALUES	  (600, NULL, '4165', '', '43200000', '86000000', '3452000 - KNATTE', NUL
 -- -----------------------------------
 -- Descriptions
 -- -----------------------------------
-INSERT INTO description (text, `type`, invoice_row_id)
-VALUES	  ('Användare: Kalle anka', 'STANDARD', 600),
-          ('Passerkort utan foto', 'STANDARD', 650),
-          ('Plåster', 'STANDARD', 700),
-          ('Kaffefilter', 'STANDARD', 750);
+INSERT INTO description (id, text, `type`, invoice_row_id)
+VALUES	  (1, 'Användare: Kalle anka', 'STANDARD', 600),
+          (2, 'Passerkort utan foto', 'STANDARD', 650),
+          (3, 'Plåster', 'STANDARD', 700),
+          (4, 'Kaffefilter', 'STANDARD', 750);
 
 -- -----------------------------------
 -- Recipients
@@ -1,6 +1,11 @@
 -------------------------------------
 -- Invoice files
 -------------------------------------
-INSERT INTO invoice_file (created, name, status, `type`, content, encoding, municipality_id)
-VALUES ('2024-03-21 13:17:00.000', 'EXTERNAL_FILE_20240321.txt', 'GENERATED', 'EXTERNAL', 'External content', 'ISO-8859-1', '2281'),
-       ('2024-03-22 13:37:00.000', 'INTERNAL_FILE_20240322.txt', 'GENERATED', 'INTERNAL', 'Internal content', 'ISO-8859-1', '2281');
+INSERT INTO invoice_file (created, name, status, `type`, encoding, municipality_id)
+VALUES ('2024-03-21 13:17:00.000', 'EXTERNAL_FILE_20240321.txt', 'GENERATED', 'EXTERNAL', 'ISO-8859-1', '2281'),
+       ('2024-03-22 13:37:00.000', 'INTERNAL_FILE_20240322.txt', 'GENERATED', 'INTERNAL', 'ISO-8859-1', '2281');
+
+INSERT INTO invoice_file_content (id, content)
+SELECT id, COMPRESS('External content') FROM invoice_file WHERE name = 'EXTERNAL_FILE_20240321.txt'
+UNION ALL
+SELECT id, COMPRESS('Internal content') FROM invoice_file WHERE name = 'INTERNAL_FILE_20240322.txt';
@@ -42,17 +42,17 @@ VALUES	(100, NULL, '5247000', '1620000', NULL, '910300', NULL, NULL, '936100'),
 -------------------------------------
 -- Descriptions
 -------------------------------------
-INSERT INTO description (text, `type`, invoice_row_id)
-VALUES	('Ordernummer: azi-330c-3fne-33', 'STANDARD', 100),
-		('Beställare: MIC00GOL 22940338', 'STANDARD', 100),
-		('Användare: Rocky Balboa ROC01BAL', 'STANDARD', 100),
-		('Passerkort utan foto', 'STANDARD', 100),
-		('Ordernummer: ewf-3fee-boe3-74', 'STANDARD', 200),
-		('Beställare: MAN22VEG 4480296', 'STANDARD', 200),
-		('Användare: Ivan Drago IVA02DRA', 'STANDARD', 200),
-		('Passerkort med foto', 'STANDARD', 200),
-		('Sill m.m.', 'STANDARD', 400),
-		('Strömming m.m', 'STANDARD', 500);
+INSERT INTO description (id, text, `type`, invoice_row_id)
+VALUES	(1, 'Ordernummer: azi-330c-3fne-33', 'STANDARD', 100),
+		(2, 'Beställare: MIC00GOL 22940338', 'STANDARD', 100),
+		(3, 'Användare: Rocky Balboa ROC01BAL', 'STANDARD', 100),
+		(4, 'Passerkort utan foto', 'STANDARD', 100),
+		(5, 'Ordernummer: ewf-3fee-boe3-74', 'STANDARD', 200),
+		(6, 'Beställare: MAN22VEG 4480296', 'STANDARD', 200),
+		(7, 'Användare: Ivan Drago IVA02DRA', 'STANDARD', 200),
+		(8, 'Passerkort med foto', 'STANDARD', 200),
+		(9, 'Sill m.m.', 'STANDARD', 400),
+		(10, 'Strömming m.m', 'STANDARD', 500);
 
 -------------------------------------
 -- Recipients
@@ -63,13 +63,21 @@ VALUES	('83e4d599-5b4d-431c-8ebc-81192e9401ee', NULL, 'Louiseville', 'Beachland
 -------------------------------------
 -- Invoice file
 -------------------------------------
-INSERT INTO invoice_file (created, content, encoding, sent, name, `type`, status, municipality_id)
+INSERT INTO invoice_file (id, created, encoding, sent, name, `type`, status, municipality_id)
 VALUES 
-	('2024-02-26 10:15:00.000000', 'File content', 'ISO-8859-1', NULL, 'INVOICE_FILE_1.txt', 'INTERNAL', 'GENERATED', '2281'),
-	('2024-02-25 09:30:00.000000', 'File content', 'ISO-8859-1', '2024-02-25 09:35:00.000000', 'INVOICE_FILE_2.txt', 'INTERNAL', 'SEND_SUCCESSFUL', '2281'),
-	('2024-02-24 14:45:00.000000', 'File content', 'ISO-8859-1', NULL, 'INVOICE_FILE_3.txt', 'INTERNAL', 'GENERATED', '2281'),
-	('2024-02-23 16:20:00.000000', 'File content', 'ISO-8859-1', NULL, 'INVOICE_FILE_4.txt', 'INTERNAL', 'SEND_FAILED', '2281'),
-	('2024-02-22 11:10:00.000000', 'File content', 'ISO-8859-1', '2024-02-22 11:15:00.000000', 'INVOICE_FILE_5.txt', 'EXTERNAL', 'SEND_SUCCESSFUL', '2281');
+	(1, '2024-02-26 10:15:00.000000', 'ISO-8859-1', NULL, 'INVOICE_FILE_1.txt', 'INTERNAL', 'GENERATED', '2281'),
+	(2, '2024-02-25 09:30:00.000000', 'ISO-8859-1', '2024-02-25 09:35:00.000000', 'INVOICE_FILE_2.txt', 'INTERNAL', 'SEND_SUCCESSFUL', '2281'),
+	(3, '2024-02-24 14:45:00.000000', 'ISO-8859-1', NULL, 'INVOICE_FILE_3.txt', 'INTERNAL', 'GENERATED', '2281'),
+	(4, '2024-02-23 16:20:00.000000', 'ISO-8859-1', NULL, 'INVOICE_FILE_4.txt', 'INTERNAL', 'SEND_FAILED', '2281'),
+	(5, '2024-02-22 11:10:00.000000', 'ISO-8859-1', '2024-02-22 11:15:00.000000', 'INVOICE_FILE_5.txt', 'EXTERNAL', 'SEND_SUCCESSFUL', '2281');
+
+INSERT INTO invoice_file_content (id, content)
+VALUES
+	(1, COMPRESS('File content')),
+	(2, COMPRESS('File content')),
+	(3, COMPRESS('File content')),
+	(4, COMPRESS('File content')),
+	(5, COMPRESS('File content'));
 
 
 -------------------------------------
@@ -58,15 +58,15 @@ VALUES (400, NULL, '5757', '15800234', '510', '920360', NULL, NULL, '363000', 36
 -- -----------------------------------
 -- Descriptions
 -- -----------------------------------
-INSERT INTO description (text, `type`, invoice_row_id)
-VALUES ('MEX Ärendenummer: MEX-25020125', 'STANDARD', 400),
-       ('MEX Utvecklingskostnad 2%', 'STANDARD', 401),
-       ('MEX Ärendenummer: MEX-25030199', 'STANDARD', 402),
-       ('MEX Utvecklingskostnad 2%', 'STANDARD', 403),
-       ('MEX Ärendenummer: MEX-25020123', 'STANDARD', 500),
-       ('MEX Utvecklingskostnad 2%', 'STANDARD', 501),
-       ('MEX Ärendenummer: MEX-21235020', 'STANDARD', 600),
-       ('MEX Utvecklingskostnad 2%', 'STANDARD', 601);
+INSERT INTO description (id, text, `type`, invoice_row_id)
+VALUES (1, 'MEX Ärendenummer: MEX-25020125', 'STANDARD', 400),
+       (2, 'MEX Utvecklingskostnad 2%', 'STANDARD', 401),
+       (3, 'MEX Ärendenummer: MEX-25030199', 'STANDARD', 402),
+       (4, 'MEX Utvecklingskostnad 2%', 'STANDARD', 403),
+       (5, 'MEX Ärendenummer: MEX-25020123', 'STANDARD', 500),
+       (6, 'MEX Utvecklingskostnad 2%', 'STANDARD', 501),
+       (7, 'MEX Ärendenummer: MEX-21235020', 'STANDARD', 600),
+       (8, 'MEX Utvecklingskostnad 2%', 'STANDARD', 601);
 
 -- -----------------------------------
 -- Recipients
@@ -41,13 +41,13 @@ VALUES	  (100, NULL, '5757', '15800234', '510', '920360', NULL, NULL, '363000',
 -- -----------------------------------
 -- Descriptions
 -- -----------------------------------
-INSERT INTO description (text, `type`, invoice_row_id)
-VALUES	  ('Ärendenummer: LoP-25020125', 'STANDARD', 100),
-          ('Utvecklingskostnad 2%', 'STANDARD', 101),
-          ('Ärendenummer: LoP-25020123', 'STANDARD', 200),
-          ('Utvecklingskostnad 2%', 'STANDARD', 201),
-          ('Ärendenummer: LoP-21235020', 'STANDARD', 300),
-          ('Utvecklingskostnad 2%', 'STANDARD', 301);
+INSERT INTO description (id, text, `type`, invoice_row_id)
+VALUES	  (1, 'Ärendenummer: LoP-25020125', 'STANDARD', 100),
+          (2, 'Utvecklingskostnad 2%', 'STANDARD', 101),
+          (3, 'Ärendenummer: LoP-25020123', 'STANDARD', 200),
+          (4, 'Utvecklingskostnad 2%', 'STANDARD', 201),
+          (5, 'Ärendenummer: LoP-21235020', 'STANDARD', 300),
+          (6, 'Utvecklingskostnad 2%', 'STANDARD', 301);
 
 -- -----------------------------------
 -- Recipients
@@ -5,6 +5,7 @@ TRUNCATE table invoice_row;
 TRUNCATE table invoice;
 TRUNCATE table recipient;
 TRUNCATE table billing_record;
+TRUNCATE table invoice_file_content;
 TRUNCATE table invoice_file;
 TRUNCATE table extra_parameter;
 SET FOREIGN_KEY_CHECKS = 1;